@@ -0,0 +1,92 @@
+package org.renjin.benchmarks;
+
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.StringArrayVector;
+
+import java.util.Random;
+
+/**
+ * Generates the input data for benchmarks.
+ *
+ * <p>All data is derived from a fixed seed, so that every run of a benchmark
+ * sees exactly the same input, and results can be compared between runs.</p>
+ */
+public class BenchmarkData {
+
+  public static final long SEED = 20161019L;
+
+  private final Random random;
+
+  public BenchmarkData() {
+    this(SEED);
+  }
+
+  public BenchmarkData(long seed) {
+    this.random = new Random(seed);
+  }
+
+  /**
+   * @return {@code n} normally distributed doubles
+   */
+  public DoubleArrayVector doubles(int n) {
+    double[] values = new double[n];
+    for (int i = 0; i < n; i++) {
+      values[i] = random.nextGaussian();
+    }
+    return new DoubleArrayVector(values);
+  }
+
+  /**
+   * @return {@code n} integers drawn uniformly from {@code 1..max}
+   */
+  public IntArrayVector integers(int n, int max) {
+    int[] values = new int[n];
+    for (int i = 0; i < n; i++) {
+      values[i] = 1 + random.nextInt(max);
+    }
+    return new IntArrayVector(values);
+  }
+
+  /**
+   * @return {@code n} strings drawn uniformly from a vocabulary of {@code distinct} words
+   */
+  public StringArrayVector strings(int n, int distinct) {
+    String[] vocabulary = new String[distinct];
+    for (int i = 0; i < distinct; i++) {
+      vocabulary[i] = word(3 + random.nextInt(8));
+    }
+    String[] values = new String[n];
+    for (int i = 0; i < n; i++) {
+      values[i] = vocabulary[random.nextInt(distinct)];
+    }
+    return new StringArrayVector(values);
+  }
+
+  /**
+   * @return {@code n} sentences of {@code words} random words each, separated by spaces
+   */
+  public StringArrayVector sentences(int n, int words) {
+    String[] values = new String[n];
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < n; i++) {
+      sb.setLength(0);
+      for (int j = 0; j < words; j++) {
+        if(j > 0) {
+          sb.append(' ');
+        }
+        sb.append(word(2 + random.nextInt(9)));
+      }
+      values[i] = sb.toString();
+    }
+    return new StringArrayVector(values);
+  }
+
+  private String word(int length) {
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = (char)('a' + random.nextInt(26));
+    }
+    return new String(chars);
+  }
+}
@@ -0,0 +1,92 @@
+package org.renjin.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.renjin.gcc.runtime.BytePtr;
+import org.renjin.gcc.runtime.DoublePtr;
+import org.renjin.gcc.runtime.IntPtr;
+import org.renjin.math.Blas;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures kernels of the reference BLAS library, compiled from Fortran by gcc-bridge.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class BlasBenchmark {
+
+  @Param({"64", "256"})
+  public int n;
+
+  private double[] a;
+  private double[] b;
+  private double[] c;
+  private double[] x;
+  private double[] y;
+
+  /**
+   * The output of {@code daxpy}, which updates its second vector in place
+   */
+  private double[] axpy;
+
+  /**
+   * The multiplier of {@code daxpy}, whose sign alternates between invocations so that
+   * {@link #axpy} moves back and forth between {@code y} and {@code y + 0.5x}
+   */
+  private double alpha;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    BenchmarkData data = new BenchmarkData();
+    a = data.doubles(n * n).toDoubleArray();
+    b = data.doubles(n * n).toDoubleArray();
+    c = new double[n * n];
+    x = data.doubles(n * n).toDoubleArray();
+    y = data.doubles(n * n).toDoubleArray();
+    axpy = new double[n * n];
+  }
+
+  /**
+   * Restores the output of {@code daxpy}, discarding the rounding errors accumulated over
+   * the previous iteration. Resetting before every invocation instead would add JMH's
+   * per-invocation overhead to a sub-microsecond benchmark.
+   */
+  @Setup(Level.Iteration)
+  public void resetAxpy() {
+    System.arraycopy(y, 0, axpy, 0, y.length);
+    alpha = 0.5;
+  }
+
+  @Benchmark
+  public double[] dgemm() {
+    IntPtr size = new IntPtr(n);
+    Blas.dgemm_(
+        BytePtr.asciiString("N"),
+        BytePtr.asciiString("N"),
+        size, size, size,
+        new DoublePtr(1),
+        new DoublePtr(a), size,
+        new DoublePtr(b), size,
+        new DoublePtr(0),
+        new DoublePtr(c), size,
+        1, 1);
+    return c;
+  }
+
+  @Benchmark
+  public double ddot() {
+    IntPtr one = new IntPtr(1);
+    return Blas.ddot_(new IntPtr(x.length), new DoublePtr(x), one, new DoublePtr(y), one);
+  }
+
+  @Benchmark
+  public double[] daxpy() {
+    IntPtr one = new IntPtr(1);
+    Blas.daxpy_(new IntPtr(x.length), new DoublePtr(alpha), new DoublePtr(x), one, new DoublePtr(axpy), one);
+    alpha = -alpha;
+    return axpy;
+  }
+}
@@ -0,0 +1,49 @@
+package org.renjin.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.renjin.sexp.SEXP;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the interpreter on code dominated by closure calls: argument matching,
+ * promise creation and environment lookups.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ClosureBenchmark extends RBenchmark {
+
+  private SEXP fib;
+  private SEXP lapplyClosure;
+  private SEXP defaultArguments;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    setupContext();
+    eval(parse("fib <- function(n) if(n < 2) n else fib(n - 1) + fib(n - 2)"));
+    eval(parse("scale <- function(x, by = 2, offset = 0, ...) x * by + offset"));
+    define("x", data.doubles(10000));
+
+    fib = parse("fib(18)");
+    lapplyClosure = parse("lapply(x, function(xi) scale(xi, offset = 1))");
+    defaultArguments = parse("for(i in 1:10000) scale(i)");
+  }
+
+  @Benchmark
+  public SEXP recursiveCalls() {
+    return eval(fib);
+  }
+
+  @Benchmark
+  public SEXP lapplyAnonymousClosure() {
+    return eval(lapplyClosure);
+  }
+
+  @Benchmark
+  public SEXP defaultArguments() {
+    return eval(defaultArguments);
+  }
+}
@@ -0,0 +1,54 @@
+package org.renjin.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.renjin.primitives.special.ForFunction;
+import org.renjin.sexp.SEXP;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares interpreted {@code for} loops with loops compiled by {@link ForFunction}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class LoopBenchmark extends RBenchmark {
+
+  @Param({"false", "true"})
+  public boolean compile;
+
+  private SEXP sumLoop;
+  private SEXP updateLoop;
+
+  private boolean compileLoops;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    compileLoops = ForFunction.COMPILE_LOOPS;
+    ForFunction.COMPILE_LOOPS = compile;
+
+    setupContext();
+    define("x", data.doubles(100000));
+    define("z", data.doubles(10000));
+
+    sumLoop = parse("{ s <- 0; for(i in seq_along(x)) s <- s + x[i] * x[i]; s }");
+    updateLoop = parse("{ y <- z; for(i in 2:length(y)) y[i] <- y[i - 1] * 0.5 + y[i]; y }");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    ForFunction.COMPILE_LOOPS = compileLoops;
+  }
+
+  @Benchmark
+  public SEXP sumOfSquares() {
+    return eval(sumLoop);
+  }
+
+  @Benchmark
+  public SEXP recurrence() {
+    return eval(updateLoop);
+  }
+}
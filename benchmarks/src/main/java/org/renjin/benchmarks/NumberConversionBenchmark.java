@@ -0,0 +1,99 @@
+package org.renjin.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.renjin.parser.DoubleToDecimal;
+import org.renjin.parser.NumericLiterals;
+
+import java.text.DecimalFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the conversion of doubles to and from strings with the JDK's {@code DecimalFormat},
+ * which {@code NumericLiterals} previously used, and {@code Double.toString()} and {@code Double.parseDouble()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class NumberConversionBenchmark {
+
+  private static final int N = 10000;
+
+  private double[] values;
+  private String[] strings;
+  private char[] buffer;
+  private DecimalFormat decimalFormat;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    values = new BenchmarkData().doubles(N).toDoubleArray();
+    for (int i = 0; i < N; i++) {
+      values[i] = values[i] * Math.pow(10, i % 12 - 4);
+    }
+    strings = new String[N];
+    for (int i = 0; i < N; i++) {
+      strings[i] = DoubleToDecimal.toString(values[i]);
+    }
+    buffer = new char[DoubleToDecimal.MAX_CHARS];
+
+    decimalFormat = new DecimalFormat();
+    decimalFormat.setMinimumFractionDigits(0);
+    decimalFormat.setMaximumFractionDigits(14);
+    decimalFormat.setGroupingUsed(false);
+  }
+
+  @Benchmark
+  public int formatShortest() {
+    int length = 0;
+    for (double value : values) {
+      length += DoubleToDecimal.format(value, buffer, 0);
+    }
+    return length;
+  }
+
+  @Benchmark
+  public int formatLiteral() {
+    int length = 0;
+    for (double value : values) {
+      length += NumericLiterals.toString(value).length();
+    }
+    return length;
+  }
+
+  @Benchmark
+  public int formatDecimalFormat() {
+    int length = 0;
+    for (double value : values) {
+      length += decimalFormat.format(value).length();
+    }
+    return length;
+  }
+
+  @Benchmark
+  public int formatJdk() {
+    int length = 0;
+    for (double value : values) {
+      length += Double.toString(value).length();
+    }
+    return length;
+  }
+
+  @Benchmark
+  public double parseLiteral() {
+    double sum = 0;
+    for (String string : strings) {
+      sum += NumericLiterals.parseDouble(string);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double parseJdk() {
+    double sum = 0;
+    for (String string : strings) {
+      sum += Double.parseDouble(string);
+    }
+    return sum;
+  }
+}
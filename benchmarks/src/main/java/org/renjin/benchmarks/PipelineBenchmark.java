@@ -0,0 +1,55 @@
+package org.renjin.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.renjin.primitives.vector.DeferredComputation;
+import org.renjin.sexp.SEXP;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures deferred vector computations, both when they are reduced
+ * and when they are computed elementwise into a new array by the {@code VectorPipeliner}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class PipelineBenchmark extends RBenchmark {
+
+  @Param({"100000", "1000000"})
+  public int length;
+
+  private SEXP sum;
+  private SEXP mean;
+  private SEXP elementwise;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    setupContext();
+    define("x", data.doubles(length));
+    define("y", data.doubles(length));
+
+    sum = parse("sum(x * y + 1)");
+    mean = parse("mean(sqrt(abs(x)) * y)");
+    elementwise = parse("x * y + sqrt(abs(x))");
+  }
+
+  @Benchmark
+  public SEXP sumOfProducts() {
+    return eval(sum);
+  }
+
+  @Benchmark
+  public SEXP meanOfProducts() {
+    return eval(mean);
+  }
+
+  @Benchmark
+  public SEXP materialize() {
+    // materialize() only computes the reductions in the graph, and leaves
+    // elementwise computations deferred. simplify() copies the result to an array.
+    DeferredComputation computation = (DeferredComputation) eval(elementwise);
+    return context.getSession().getVectorEngine().simplify(computation);
+  }
+}
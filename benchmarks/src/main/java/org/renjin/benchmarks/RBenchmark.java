@@ -0,0 +1,41 @@
+package org.renjin.benchmarks;
+
+import org.renjin.eval.Context;
+import org.renjin.parser.RParser;
+import org.renjin.sexp.SEXP;
+
+/**
+ * Base class for benchmarks that evaluate R code.
+ *
+ * <p>Subclasses create the context and their input data in a {@code Level.Trial} setup
+ * method, so that only the evaluation itself is measured.</p>
+ */
+public abstract class RBenchmark {
+
+  protected Context context;
+  protected BenchmarkData data;
+
+  protected void setupContext() {
+    context = Context.newTopLevelContext();
+    data = new BenchmarkData();
+  }
+
+  protected void define(String name, SEXP value) {
+    context.getGlobalEnvironment().setVariable(name, value);
+  }
+
+  /**
+   * Parses R source. Benchmarks should parse their code once, during setup.
+   */
+  protected SEXP parse(String source) {
+    return RParser.parseSource(source + "\n");
+  }
+
+  /**
+   * Evaluates an expression in the global environment. If the result is a deferred computation,
+   * it is materialized, so that the cost of computing it is included in the measurement.
+   */
+  protected SEXP eval(SEXP expression) {
+    return context.materialize(context.evaluate(expression, context.getGlobalEnvironment()));
+  }
+}
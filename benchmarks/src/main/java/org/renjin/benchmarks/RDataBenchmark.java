@@ -0,0 +1,65 @@
+package org.renjin.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.renjin.primitives.io.serialization.RDataReader;
+import org.renjin.primitives.io.serialization.RDataWriter;
+import org.renjin.sexp.SEXP;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures the time to load a data frame with {@link RDataReader}, from both
+ * uncompressed and gzip-compressed streams.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class RDataBenchmark extends RBenchmark {
+
+  @Param({"10000", "100000"})
+  public int rows;
+
+  private byte[] uncompressed;
+  private byte[] compressed;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    setupContext();
+    define("id", data.integers(rows, rows));
+    define("value", data.doubles(rows));
+    define("label", data.strings(rows, 1000));
+    define("group", data.strings(rows, 20));
+
+    SEXP frame = eval(parse(
+        "data.frame(id = id, value = value, label = label, group = factor(group), stringsAsFactors = FALSE)"));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new RDataWriter(context, out).save(frame);
+    uncompressed = out.toByteArray();
+
+    out = new ByteArrayOutputStream();
+    try(GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      new RDataWriter(context, gzip).save(frame);
+    }
+    compressed = out.toByteArray();
+  }
+
+  @Benchmark
+  public SEXP readUncompressed() throws IOException {
+    return new RDataReader(context, new ByteArrayInputStream(uncompressed)).readFile();
+  }
+
+  @Benchmark
+  public SEXP readCompressed() throws IOException {
+    try(GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      return new RDataReader(context, in).readFile();
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package org.renjin.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.renjin.sexp.SEXP;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code gsub}, {@code grepl} and {@code regexpr} over a character vector.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class RegexBenchmark extends RBenchmark {
+
+  private SEXP gsubFixed;
+  private SEXP gsubRegex;
+  private SEXP gsubPerl;
+  private SEXP grepl;
+  private SEXP regexpr;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    setupContext();
+    define("s", data.sentences(10000, 8));
+
+    gsubFixed = parse("gsub(' ', '_', s, fixed = TRUE)");
+    gsubRegex = parse("gsub('([aeiou])[a-z]', '\\\\1', s)");
+    gsubPerl = parse("gsub('(\\\\w+?)(s|ed|ing)\\\\b', '\\\\1', s, perl = TRUE)");
+    grepl = parse("grepl('^[a-m]+ ', s)");
+    regexpr = parse("regexpr('[xyz]{2}', s)");
+  }
+
+  @Benchmark
+  public SEXP gsubFixed() {
+    return eval(gsubFixed);
+  }
+
+  @Benchmark
+  public SEXP gsubRegex() {
+    return eval(gsubRegex);
+  }
+
+  @Benchmark
+  public SEXP gsubPerl() {
+    return eval(gsubPerl);
+  }
+
+  @Benchmark
+  public SEXP grepl() {
+    return eval(grepl);
+  }
+
+  @Benchmark
+  public SEXP regexpr() {
+    return eval(regexpr);
+  }
+}
@@ -0,0 +1,43 @@
+package org.renjin.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.renjin.sexp.SEXP;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of {@code return()} called in statement position, which is signalled
+ * without an exception, with {@code return()} called from within an assignment, which
+ * still unwinds with a {@code ReturnException}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ReturnBenchmark extends RBenchmark {
+
+  private SEXP statement;
+  private SEXP expression;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    setupContext();
+    eval(parse("statement <- function(x) { if(x > 0) return(x); -x }"));
+    eval(parse("expression <- function(x) { y <- if(x > 0) return(x); -x }"));
+    eval(parse("loop <- function(n, f) { s <- 0; for(i in 1:n) s <- s + f(i); s }"));
+
+    statement = parse("loop(10000L, statement)");
+    expression = parse("loop(10000L, expression)");
+  }
+
+  @Benchmark
+  public SEXP returnFromStatement() {
+    return eval(statement);
+  }
+
+  @Benchmark
+  public SEXP returnFromExpression() {
+    return eval(expression);
+  }
+}
@@ -0,0 +1,72 @@
+package org.renjin.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.renjin.sexp.SEXP;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code match}, {@code order} and {@code unique} on integer, double and character vectors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class SortMatchBenchmark extends RBenchmark {
+
+  private SEXP matchInts;
+  private SEXP matchStrings;
+  private SEXP orderDoubles;
+  private SEXP orderStrings;
+  private SEXP uniqueInts;
+  private SEXP uniqueStrings;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    setupContext();
+    define("i", data.integers(100000, 10000));
+    define("itable", data.integers(10000, 20000));
+    define("d", data.doubles(100000));
+    define("s", data.strings(100000, 5000));
+
+    eval(parse("stable <- rev(unique(s))"));
+
+    matchInts = parse("match(i, itable)");
+    matchStrings = parse("match(s, stable)");
+    orderDoubles = parse("order(d)");
+    orderStrings = parse("order(s)");
+    uniqueInts = parse("unique(i)");
+    uniqueStrings = parse("unique(s)");
+  }
+
+  @Benchmark
+  public SEXP matchIntegers() {
+    return eval(matchInts);
+  }
+
+  @Benchmark
+  public SEXP matchStrings() {
+    return eval(matchStrings);
+  }
+
+  @Benchmark
+  public SEXP orderDoubles() {
+    return eval(orderDoubles);
+  }
+
+  @Benchmark
+  public SEXP orderStrings() {
+    return eval(orderStrings);
+  }
+
+  @Benchmark
+  public SEXP uniqueIntegers() {
+    return eval(uniqueInts);
+  }
+
+  @Benchmark
+  public SEXP uniqueStrings() {
+    return eval(uniqueStrings);
+  }
+}
@@ -22,6 +22,11 @@ public class LengthCall implements Specialization {
     return ValueBounds.INT_PRIMITIVE;
   }
 
+  @Override
+  public boolean isPure() {
+    return true;
+  }
+
   @Override
   public void load(EmitContext emitContext, InstructionAdapter mv, List<IRArgument> arguments) {
     Expression argument = arguments.get(0).getExpression();
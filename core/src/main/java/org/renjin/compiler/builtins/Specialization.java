@@ -15,6 +15,12 @@ public interface Specialization {
 
   ValueBounds getValueBounds();
 
+  /**
+   * @return true if the specialized call has no side effects and its result depends only
+   * on its arguments, so that it can be safely moved or eliminated.
+   */
+  boolean isPure();
+
   void load(EmitContext emitContext, InstructionAdapter mv, List<IRArgument> arguments);
   
 
@@ -27,6 +27,11 @@ public class UnspecializedCall implements Specialization {
     return ValueBounds.UNBOUNDED;
   }
 
+  @Override
+  public boolean isPure() {
+    return false;
+  }
+
   @Override
   public void load(EmitContext emitContext, InstructionAdapter mv, List<IRArgument> arguments) {
     throw new FailedToSpecializeException("failed to specialize");
@@ -0,0 +1,100 @@
+package org.renjin.compiler.cfg;
+
+import com.google.common.collect.Lists;
+
+import java.util.*;
+
+/**
+ * A natural loop in the control flow graph: the set of blocks that can reach a back edge
+ * without passing through the loop's header, which dominates all of them.
+ */
+public class NaturalLoop {
+
+  private final BasicBlock header;
+  private final Set<BasicBlock> blocks = new HashSet<>();
+
+  private NaturalLoop(BasicBlock header) {
+    this.header = header;
+    this.blocks.add(header);
+  }
+
+  /**
+   * Finds all natural loops in the given {@code cfg}, ordered from innermost to outermost.
+   * Back edges to the same header are merged into a single loop.
+   */
+  public static List<NaturalLoop> find(ControlFlowGraph cfg, DominanceTree dominanceTree) {
+    Map<BasicBlock, NaturalLoop> loops = new LinkedHashMap<>();
+    for (BasicBlock tail : cfg.getBasicBlocks()) {
+      for (BasicBlock header : tail.getFlowSuccessors()) {
+        if (header == tail || dominanceTree.strictlyDominates(header, tail)) {
+          NaturalLoop loop = loops.get(header);
+          if (loop == null) {
+            loop = new NaturalLoop(header);
+            loops.put(header, loop);
+          }
+          loop.addBody(tail);
+        }
+      }
+    }
+    List<NaturalLoop> list = Lists.newArrayList(loops.values());
+    Collections.sort(list, new Comparator<NaturalLoop>() {
+      @Override
+      public int compare(NaturalLoop a, NaturalLoop b) {
+        return Integer.compare(a.blocks.size(), b.blocks.size());
+      }
+    });
+    return list;
+  }
+
+  private void addBody(BasicBlock tail) {
+    ArrayDeque<BasicBlock> workList = new ArrayDeque<>();
+    if (blocks.add(tail)) {
+      workList.add(tail);
+    }
+    while (!workList.isEmpty()) {
+      BasicBlock block = workList.pop();
+      for (BasicBlock predecessor : block.getFlowPredecessors()) {
+        if (blocks.add(predecessor)) {
+          workList.add(predecessor);
+        }
+      }
+    }
+  }
+
+  public BasicBlock getHeader() {
+    return header;
+  }
+
+  public Set<BasicBlock> getBlocks() {
+    return blocks;
+  }
+
+  public boolean contains(BasicBlock block) {
+    return blocks.contains(block);
+  }
+
+  /**
+   * @return the single block outside of the loop from which control enters the header, if that
+   * block has no other successors, or {@code null} if the loop has no such pre-header.
+   */
+  public BasicBlock getPreHeader() {
+    BasicBlock preHeader = null;
+    for (BasicBlock predecessor : header.getFlowPredecessors()) {
+      if (!blocks.contains(predecessor)) {
+        if (preHeader != null) {
+          return null;
+        }
+        preHeader = predecessor;
+      }
+    }
+    if (preHeader == null || preHeader.getFlowSuccessors().size() != 1) {
+      return null;
+    }
+    return preHeader;
+  }
+
+  @Override
+  public String toString() {
+    return "loop[" + header + ": " + blocks + "]";
+  }
+}
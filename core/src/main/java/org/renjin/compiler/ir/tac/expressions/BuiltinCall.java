@@ -55,7 +55,15 @@ public class BuiltinCall implements CallExpression {
   
   @Override
   public boolean isDefinitelyPure() {
-    return false;
+    if(!specialization.isPure()) {
+      return false;
+    }
+    for (IRArgument argument : arguments) {
+      if(!argument.getExpression().isDefinitelyPure()) {
+        return false;
+      }
+    }
+    return true;
   }
 
 
@@ -90,7 +98,11 @@ public class BuiltinCall implements CallExpression {
   public ValueBounds getValueBounds() {
     return specialization.getValueBounds();
   }
-  
+
+  public Specialization getSpecialization() {
+    return specialization;
+  }
+
   @Override
   public String toString() {
     return "(" + primitive.name + " " + Joiner.on(" ").join(arguments) + ")";
@@ -5,8 +5,7 @@ import org.renjin.compiler.ir.ValueBounds;
 import org.renjin.primitives.sequence.IntSequence;
 import org.renjin.repackaged.asm.Type;
 import org.renjin.repackaged.asm.commons.InstructionAdapter;
-import org.renjin.sexp.SEXP;
-import org.renjin.sexp.Vector;
+import org.renjin.sexp.*;
 
 import java.util.Map;
 
@@ -17,6 +16,11 @@ import java.util.Map;
 public class ElementAccess extends SpecializedCallExpression {
 
   private ValueBounds valueBounds = ValueBounds.UNBOUNDED;
+
+  /**
+   * True if the index has been proven to lie within the bounds of the vector.
+   */
+  private boolean indexInBounds = false;
   
   public ElementAccess(Expression vector, Expression index) {
     super(vector, index);
@@ -34,6 +38,14 @@ public class ElementAccess extends SpecializedCallExpression {
     return arguments[1];
   }
 
+  public boolean isIndexInBounds() {
+    return indexInBounds;
+  }
+
+  public void setIndexInBounds(boolean indexInBounds) {
+    this.indexInBounds = indexInBounds;
+  }
+
   @Override
   public String toString() {
     return getVector() + "[" + getIndex() + "]";
@@ -67,6 +79,9 @@ public class ElementAccess extends SpecializedCallExpression {
         }
         return 2;
       }
+      if(indexInBounds && loadFromArray(emitContext, mv, vectorBounds.getConstantValue(), resultType)) {
+        return 2;
+      }
     }
     
     if(vector.getType().getSort() == Type.OBJECT) {
@@ -81,6 +96,9 @@ public class ElementAccess extends SpecializedCallExpression {
       if(resultType.equals(Type.INT_TYPE)) {
         mv.invokeinterface(Type.getInternalName(Vector.class), "getElementAsInt",
             Type.getMethodDescriptor(Type.INT_TYPE, Type.INT_TYPE));
+      } else if(resultType.equals(Type.DOUBLE_TYPE)) {
+        mv.invokeinterface(Type.getInternalName(Vector.class), "getElementAsDouble",
+            Type.getMethodDescriptor(Type.DOUBLE_TYPE, Type.INT_TYPE));
       } else {
         throw new UnsupportedOperationException("resultType: " + resultType);
       }
@@ -92,6 +110,34 @@ public class ElementAccess extends SpecializedCallExpression {
     }
   }
 
+  /**
+   * Loads the element directly from the backing array of the vector, which is
+   * safe only if the index is known to be in bounds.
+   */
+  private boolean loadFromArray(EmitContext emitContext, InstructionAdapter mv, SEXP vector, Type resultType) {
+    Class<?> vectorClass;
+    String arrayMethod;
+    Type arrayType;
+    if(vector instanceof DoubleArrayVector && resultType.equals(Type.DOUBLE_TYPE)) {
+      vectorClass = DoubleArrayVector.class;
+      arrayMethod = "toDoubleArrayUnsafe";
+      arrayType = Type.DOUBLE_TYPE;
+    } else if(vector instanceof IntArrayVector && resultType.equals(Type.INT_TYPE)) {
+      vectorClass = IntArrayVector.class;
+      arrayMethod = "toIntArrayUnsafe";
+      arrayType = Type.INT_TYPE;
+    } else {
+      return false;
+    }
+    getVector().load(emitContext, mv);
+    mv.checkcast(Type.getType(vectorClass));
+    mv.invokevirtual(Type.getInternalName(vectorClass), arrayMethod,
+        Type.getMethodDescriptor(Type.getType("[" + arrayType.getDescriptor())), false);
+    getIndex().load(emitContext, mv);
+    mv.aload(arrayType);
+    return true;
+  }
+
   @Override
   public Type getType() {
     return valueBounds.storageType();
@@ -0,0 +1,88 @@
+package org.renjin.compiler.opt;
+
+import org.renjin.compiler.cfg.*;
+import org.renjin.compiler.ir.ValueBounds;
+import org.renjin.compiler.ir.tac.expressions.ElementAccess;
+import org.renjin.compiler.ir.tac.expressions.Expression;
+import org.renjin.compiler.ir.tac.expressions.LValue;
+import org.renjin.compiler.ir.tac.expressions.Length;
+import org.renjin.compiler.ir.tac.statements.Assignment;
+import org.renjin.sexp.IntVector;
+
+/**
+ * Marks {@link ElementAccess}es whose index is a loop's {@link InductionVariable} and whose
+ * vector is known to be at least as long as the induction variable's upper bound, so that
+ * the element can be loaded directly from the vector's backing array.
+ *
+ * <p>The vector's length is known either because the upper bound is the result of
+ * {@code length()} of the same vector, or from the {@link ValueBounds} of both.</p>
+ *
+ * <p>In practice this only covers the access that {@code for} itself generates to load the
+ * loop variable from the loop vector. A subscript written by the user, such as {@code x[i]}
+ * in {@code for(i in seq_along(x))}, is still an unspecialized call to the {@code [} builtin
+ * and is not considered.</p>
+ */
+public class BoundsCheckElimination {
+
+  private final ControlFlowGraph cfg;
+  private final DominanceTree dominanceTree;
+  private final UseDefMap useDefMap;
+
+  private int eliminatedCount = 0;
+
+  public BoundsCheckElimination(ControlFlowGraph cfg, DominanceTree dominanceTree, UseDefMap useDefMap) {
+    this.cfg = cfg;
+    this.dominanceTree = dominanceTree;
+    this.useDefMap = useDefMap;
+  }
+
+  public void execute() {
+    for (NaturalLoop loop : NaturalLoop.find(cfg, dominanceTree)) {
+      InductionVariable inductionVariable = InductionVariable.find(loop, useDefMap);
+      if (inductionVariable != null) {
+        for (BasicBlock block : loop.getBlocks()) {
+          if (inductionVariable.isInRangeIn(block)) {
+            for (Assignment assignment : block.assignments()) {
+              if (assignment.getRHS() instanceof ElementAccess) {
+                ElementAccess access = (ElementAccess) assignment.getRHS();
+                if (access.getIndex().equals(inductionVariable.getCounter()) &&
+                    isLengthAtLeast(access.getVector(), inductionVariable.getUpperBound())) {
+                  access.setIndexInBounds(true);
+                  eliminatedCount++;
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of element accesses proven to be in bounds
+   */
+  public int getEliminatedCount() {
+    return eliminatedCount;
+  }
+
+  private boolean isLengthAtLeast(Expression vector, Expression bound) {
+    if (bound instanceof LValue) {
+      Assignment definition = useDefMap.getDefinition((LValue) bound);
+      if (definition != null && definition.getRHS() instanceof Length &&
+          ((Length) definition.getRHS()).getVector().equals(vector)) {
+        return true;
+      }
+    }
+
+    ValueBounds vectorBounds = vector.getValueBounds();
+    ValueBounds boundBounds = bound.getValueBounds();
+    if (vectorBounds.isLengthConstant() && boundBounds.isConstant() &&
+        boundBounds.getConstantValue() instanceof IntVector &&
+        boundBounds.getConstantValue().length() == 1) {
+
+      IntVector boundValue = (IntVector) boundBounds.getConstantValue();
+      return !boundValue.isElementNA(0) && boundValue.getElementAsInt(0) <= vectorBounds.getLength();
+    }
+    return false;
+  }
+}
@@ -0,0 +1,152 @@
+package org.renjin.compiler.opt;
+
+import org.renjin.compiler.cfg.BasicBlock;
+import org.renjin.compiler.cfg.FlowEdge;
+import org.renjin.compiler.cfg.NaturalLoop;
+import org.renjin.compiler.cfg.UseDefMap;
+import org.renjin.compiler.ir.ssa.PhiFunction;
+import org.renjin.compiler.ir.tac.IRLabel;
+import org.renjin.compiler.ir.tac.expressions.*;
+import org.renjin.compiler.ir.tac.statements.Assignment;
+import org.renjin.compiler.ir.tac.statements.IfStatement;
+import org.renjin.compiler.ir.tac.statements.Statement;
+import org.renjin.sexp.IntVector;
+import org.renjin.sexp.SEXP;
+
+/**
+ * A basic induction variable of a loop: a counter that starts at a non-negative value,
+ * is incremented by one on each iteration, and is tested against an upper bound
+ * before the body of the loop is entered.
+ *
+ * <p>Within the blocks of the loop's body, the counter is known to lie in the
+ * range {@code [0, upperBound)}.</p>
+ */
+public class InductionVariable {
+
+  private final NaturalLoop loop;
+  private final LValue counter;
+  private final Expression upperBound;
+
+  private InductionVariable(NaturalLoop loop, LValue counter, Expression upperBound) {
+    this.loop = loop;
+    this.counter = counter;
+    this.upperBound = upperBound;
+  }
+
+  /**
+   * Tries to find the induction variable that controls the given {@code loop}, which
+   * must be in SSA form.
+   *
+   * @return the induction variable, or {@code null} if the loop is not controlled
+   * by a simple counter
+   */
+  public static InductionVariable find(NaturalLoop loop, UseDefMap useDefMap) {
+    BasicBlock header = loop.getHeader();
+    Statement terminal = header.getTerminal();
+    if (!(terminal instanceof IfStatement)) {
+      return null;
+    }
+    IfStatement test = (IfStatement) terminal;
+    if (!(test.getCondition() instanceof CmpGE)) {
+      return null;
+    }
+
+    // The loop must exit when the condition is true and continue into the body otherwise
+    if (loop.contains(target(header, test.getTrueTarget())) ||
+        !loop.contains(target(header, test.getFalseTarget()))) {
+      return null;
+    }
+
+    CmpGE condition = (CmpGE) test.getCondition();
+    if (!(condition.childAt(0) instanceof LValue)) {
+      return null;
+    }
+    LValue counter = (LValue) condition.childAt(0);
+    Expression upperBound = condition.childAt(1);
+    if (upperBound instanceof LValue && isDefinedIn(loop, useDefMap, (LValue) upperBound)) {
+      return null;
+    }
+
+    // The counter must be a phi function in the header joining a non-negative
+    // initial value and increments of the counter from within the loop
+    Assignment definition = useDefMap.getDefinition(counter);
+    if (definition == null || useDefMap.getDefinitionBlock(counter) != header ||
+        !(definition.getRHS() instanceof PhiFunction)) {
+      return null;
+    }
+    PhiFunction phi = (PhiFunction) definition.getRHS();
+    for (int i = 0; i < phi.getArguments().size(); i++) {
+      FlowEdge incoming = phi.getIncomingEdges().get(i);
+      Variable argument = phi.getArgument(i);
+      Assignment argumentDefinition = useDefMap.getDefinition(argument);
+      if (argumentDefinition == null) {
+        return null;
+      }
+      if (loop.contains(incoming.getPredecessor())) {
+        if (!isIncrementOf(argumentDefinition, counter)) {
+          return null;
+        }
+      } else {
+        if (!isNonNegative(argumentDefinition.getRHS())) {
+          return null;
+        }
+      }
+    }
+    return new InductionVariable(loop, counter, upperBound);
+  }
+
+  private static BasicBlock target(BasicBlock header, IRLabel label) {
+    for (BasicBlock successor : header.getFlowSuccessors()) {
+      if (successor.getLabels() != null && successor.getLabels().contains(label)) {
+        return successor;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isDefinedIn(NaturalLoop loop, UseDefMap useDefMap, LValue variable) {
+    BasicBlock block = useDefMap.getDefinitionBlock(variable);
+    return block != null && loop.contains(block);
+  }
+
+  private static boolean isIncrementOf(Assignment assignment, LValue counter) {
+    return assignment.getRHS() instanceof Increment &&
+        assignment.getRHS().childAt(0).equals(counter);
+  }
+
+  private static boolean isNonNegative(Expression initialValue) {
+    if (initialValue instanceof ReadLoopIt) {
+      return true;
+    }
+    if (initialValue instanceof Constant) {
+      SEXP value = ((Constant) initialValue).getValue();
+      return value instanceof IntVector && value.length() == 1 &&
+          !((IntVector) value).isElementNA(0) &&
+          ((IntVector) value).getElementAsInt(0) >= 0;
+    }
+    return false;
+  }
+
+  public NaturalLoop getLoop() {
+    return loop;
+  }
+
+  public LValue getCounter() {
+    return counter;
+  }
+
+  /**
+   * @return the loop-invariant, exclusive upper bound of the counter within the loop's body
+   */
+  public Expression getUpperBound() {
+    return upperBound;
+  }
+
+  /**
+   * @return true if {@code block} can only be reached from the loop's test with the
+   * counter in the range {@code [0, upperBound)}
+   */
+  public boolean isInRangeIn(BasicBlock block) {
+    return block != loop.getHeader() && loop.contains(block);
+  }
+}
@@ -0,0 +1,133 @@
+package org.renjin.compiler.opt;
+
+import com.google.common.collect.Maps;
+import org.renjin.compiler.builtins.ConstantCall;
+import org.renjin.compiler.builtins.DoubleBinaryOp;
+import org.renjin.compiler.builtins.LengthCall;
+import org.renjin.compiler.builtins.Specialization;
+import org.renjin.compiler.cfg.*;
+import org.renjin.compiler.ir.ssa.PhiFunction;
+import org.renjin.compiler.ir.tac.expressions.*;
+import org.renjin.compiler.ir.tac.statements.Assignment;
+import org.renjin.compiler.ir.tac.statements.Statement;
+
+import java.util.ListIterator;
+import java.util.Map;
+
+/**
+ * Moves assignments whose value cannot change between iterations out of loops and into
+ * the loop's pre-header, so that expressions like {@code length(x)} or {@code n * 2} are
+ * computed only once.
+ *
+ * <p>Must be run on the control flow graph in SSA form, after types have been resolved, as
+ * the purity of builtin calls depends on their specialization.</p>
+ *
+ * <p>The pre-header runs even if the loop body is never entered, so a value that is
+ * {@linkplain Expression#isDefinitelyPure() pure} is not enough: {@code l$name} is pure,
+ * but raises an error if {@code l} is an atomic vector, which would then be raised by a
+ * loop that never evaluates it. Only values that also cannot throw are moved: copies,
+ * lengths and arithmetic on doubles.</p>
+ */
+public class LoopInvariantCodeMotion {
+
+  private final ControlFlowGraph cfg;
+  private final DominanceTree dominanceTree;
+
+  /**
+   * Map from variables to the block in which they are now defined.
+   */
+  private final Map<LValue, BasicBlock> definitionBlocks = Maps.newHashMap();
+
+  private int hoistedCount = 0;
+
+  public LoopInvariantCodeMotion(ControlFlowGraph cfg, DominanceTree dominanceTree) {
+    this.cfg = cfg;
+    this.dominanceTree = dominanceTree;
+  }
+
+  public void execute() {
+    for (BasicBlock block : cfg.getBasicBlocks()) {
+      for (Assignment assignment : block.assignments()) {
+        definitionBlocks.put(assignment.getLHS(), block);
+      }
+    }
+
+    // Loops are ordered from innermost to outermost, so invariants
+    // can be hoisted through several levels of nesting
+    for (NaturalLoop loop : NaturalLoop.find(cfg, dominanceTree)) {
+      BasicBlock preHeader = loop.getPreHeader();
+      if (preHeader != null) {
+        hoist(loop, preHeader);
+      }
+    }
+  }
+
+  /**
+   * @return the number of assignments moved out of loops
+   */
+  public int getHoistedCount() {
+    return hoistedCount;
+  }
+
+  private void hoist(NaturalLoop loop, BasicBlock preHeader) {
+    boolean changed;
+    do {
+      changed = false;
+      for (BasicBlock block : cfg.getBasicBlocks()) {
+        if (loop.contains(block)) {
+          ListIterator<Statement> it = block.getStatements().listIterator();
+          while (it.hasNext()) {
+            Statement statement = it.next();
+            if (statement instanceof Assignment && isInvariant(loop, (Assignment) statement)) {
+              Assignment assignment = (Assignment) statement;
+              it.remove();
+              preHeader.addStatementBeforeJump(assignment);
+              definitionBlocks.put(assignment.getLHS(), preHeader);
+              hoistedCount++;
+              changed = true;
+            }
+          }
+        }
+      }
+    } while (changed);
+  }
+
+  private boolean isInvariant(NaturalLoop loop, Assignment assignment) {
+    Expression rhs = assignment.getRHS();
+    if (rhs instanceof PhiFunction || !rhs.isDefinitelyPure() || !cannotThrow(rhs)) {
+      return false;
+    }
+    if (rhs instanceof LValue) {
+      return isDefinedOutside(loop, (LValue) rhs);
+    }
+    for (int i = 0; i != rhs.getChildCount(); ++i) {
+      Expression operand = rhs.childAt(i);
+      if (operand instanceof LValue) {
+        if (!isDefinedOutside(loop, (LValue) operand)) {
+          return false;
+        }
+      } else if (!(operand instanceof Constant)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean cannotThrow(Expression rhs) {
+    if (rhs instanceof LValue || rhs instanceof Constant || rhs instanceof Length) {
+      return true;
+    }
+    if (rhs instanceof BuiltinCall) {
+      Specialization specialization = ((BuiltinCall) rhs).getSpecialization();
+      return specialization instanceof LengthCall ||
+             specialization instanceof ConstantCall ||
+             specialization instanceof DoubleBinaryOp;
+    }
+    return false;
+  }
+
+  private boolean isDefinedOutside(NaturalLoop loop, LValue variable) {
+    BasicBlock definitionBlock = definitionBlocks.get(variable);
+    return definitionBlock == null || !loop.contains(definitionBlock);
+  }
+}
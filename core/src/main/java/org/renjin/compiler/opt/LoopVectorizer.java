@@ -0,0 +1,271 @@
+package org.renjin.compiler.opt;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.renjin.compiler.NotCompilableException;
+import org.renjin.compiler.ir.tac.RuntimeState;
+import org.renjin.eval.Context;
+import org.renjin.primitives.Primitives;
+import org.renjin.primitives.sequence.IntSequence;
+import org.renjin.sexp.*;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rewrites simple {@code for} loops over {@code seq_along(x)} or {@code 1:n} into the
+ * equivalent vector expression, so that they benefit from the fusion and parallelism
+ * of deferred computations rather than being evaluated element by element.
+ *
+ * <p>Two shapes of loops are recognized:</p>
+ * <ul>
+ *   <li>maps, such as {@code for(i in seq_along(x)) y[i] <- a * x[i] + b}, which are
+ *   rewritten to {@code y[seq_along(x)] <- a * x + b}</li>
+ *   <li>sums, such as {@code for(i in seq_along(x)) s <- s + x[i]^2}, which are rewritten
+ *   to {@code s <- s + sum(x^2)}</li>
+ * </ul>
+ *
+ * <p>The element expression may only use arithmetic and math builtins that have not been
+ * redefined, numeric constants, the loop variable, numeric scalars that do not change
+ * within the loop, and elements {@code x[i]} of numeric vectors as long as the loop.
+ * These operations are all elementwise, so the vector expression computes exactly the
+ * values that the loop would have computed. Note that the sum is accumulated separately
+ * from the initial value of {@code s}, which may change the rounding of the result.</p>
+ */
+public class LoopVectorizer {
+
+  private static final Set<String> ELEMENTWISE_FUNCTIONS = Sets.newHashSet(
+      "+", "-", "*", "/", "^", "sqrt", "exp", "log", "abs", "sin", "cos", "tan", "floor", "ceiling");
+
+  private final Context context;
+  private final Environment rho;
+  private final RuntimeState runtimeState;
+  private final Symbol counter;
+  private final Vector elements;
+
+  /**
+   * The variable assigned by the loop body, which may not otherwise be referenced
+   */
+  private Symbol target;
+
+  /**
+   * Whether the last expression translated by {@link #vectorize(SEXP)} refers to the counter
+   */
+  private boolean dependsOnCounter;
+
+  private LoopVectorizer(Context context, Environment rho, Symbol counter, Vector elements) {
+    this.context = context;
+    this.rho = rho;
+    this.runtimeState = new RuntimeState(context, rho);
+    this.counter = counter;
+    this.elements = elements;
+  }
+
+  /**
+   * Tries to evaluate the loop {@code for(counter in elements) body} as a vector expression.
+   *
+   * @return true if the loop was vectorized and evaluated, or false if the loop
+   * does not have a recognized shape and has not been evaluated.
+   */
+  public static boolean tryVectorize(Context context, Environment rho, Symbol counter, Vector elements, SEXP body) {
+    if(!isSequenceFromOne(elements)) {
+      return false;
+    }
+    LoopVectorizer vectorizer = new LoopVectorizer(context, rho, counter, elements);
+    try {
+      SEXP vectorized = vectorizer.vectorizeStatement(body);
+      if(vectorized == null) {
+        return false;
+      }
+      context.evaluate(vectorized, rho);
+    } catch (NotCompilableException e) {
+      return false;
+    }
+    rho.setVariable(counter, elements.getElementAsSEXP(elements.length() - 1));
+    return true;
+  }
+
+  private static boolean isSequenceFromOne(Vector elements) {
+    if(elements.length() == 0 || !elements.getAttributes().empty()) {
+      return false;
+    }
+    if(elements instanceof IntSequence) {
+      IntSequence sequence = (IntSequence) elements;
+      return sequence.getFrom() == 1 && sequence.getBy() == 1;
+    }
+    if(elements instanceof IntVector) {
+      for (int i = 0; i < elements.length(); i++) {
+        if(elements.getElementAsInt(i) != i + 1) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private SEXP vectorizeStatement(SEXP body) {
+    if(isCallTo(body, "{") && ((FunctionCall) body).getArguments().length() == 1) {
+      return vectorizeStatement(((FunctionCall) body).getArgument(0));
+    }
+    if(!(isCallTo(body, "<-") || isCallTo(body, "=")) || !hasUntaggedArguments((FunctionCall) body, 2)) {
+      return null;
+    }
+    FunctionCall assignment = (FunctionCall) body;
+    SEXP lhs = assignment.getArgument(0);
+    SEXP rhs = assignment.getArgument(1);
+
+    if(isElementOf(lhs) != null) {
+      // y[i] <- f(...)  =>  y[elements] <- f(...)
+      target = isElementOf(lhs);
+      SEXP vector = findVariable(target);
+      if(!isPlainNumeric(vector) || target == counter) {
+        return null;
+      }
+      SEXP value = vectorize(rhs);
+      if(value == null) {
+        return null;
+      }
+      return FunctionCall.newCall(assignment.getFunction(),
+          FunctionCall.newCall(Symbol.get("["), target, elements),
+          value);
+
+    } else if(lhs instanceof Symbol && lhs != counter && isCallTo(rhs, "+") &&
+        hasUntaggedArguments((FunctionCall) rhs, 2) && isBuiltin(Symbol.get("+"))) {
+
+      // s <- s + f(...)  =>  s <- s + sum(f(...))
+      target = (Symbol) lhs;
+      SEXP accumulator = findVariable(target);
+      if(!isPlainNumeric(accumulator) || accumulator.length() != 1) {
+        return null;
+      }
+      FunctionCall sum = (FunctionCall) rhs;
+      SEXP term;
+      if(sum.getArgument(0) == target) {
+        term = sum.getArgument(1);
+      } else if(sum.getArgument(1) == target) {
+        term = sum.getArgument(0);
+      } else {
+        return null;
+      }
+      // A term which does not depend on the counter, such as s <- s + 1, is added once
+      // per iteration, but would be added only once by sum()
+      dependsOnCounter = false;
+      SEXP value = vectorize(term);
+      if(value == null || !dependsOnCounter || !isBuiltin(Symbol.get("sum"))) {
+        return null;
+      }
+      return FunctionCall.newCall(assignment.getFunction(), target,
+          FunctionCall.newCall(Symbol.get("+"), target,
+              FunctionCall.newCall(Symbol.get("sum"), value)));
+    }
+    return null;
+  }
+
+  /**
+   * Translates an expression computing a single element into one computing all elements.
+   *
+   * @return the translated expression, or {@code null} if it cannot be safely translated.
+   */
+  private SEXP vectorize(SEXP exp) {
+    if(exp == counter) {
+      dependsOnCounter = true;
+      return elements;
+
+    } else if(exp instanceof Symbol) {
+      if(exp == target) {
+        return null;
+      }
+      SEXP value = findVariable((Symbol) exp);
+      if(isPlainNumeric(value) && value.length() == 1) {
+        return value;
+      }
+      return null;
+
+    } else if(exp instanceof AtomicVector) {
+      return isPlainNumeric(exp) && exp.length() == 1 ? exp : null;
+
+    } else if(isElementOf(exp) != null) {
+      // x[i] => x, stripped of attributes such as dim that would
+      // otherwise affect the vector operations
+      SEXP value = findVariable(isElementOf(exp));
+      if(isPlainNumeric(value) && value.length() == elements.length()) {
+        dependsOnCounter = true;
+        return value.setAttributes(AttributeMap.EMPTY);
+      }
+      return null;
+
+    } else if(isCallTo(exp, "(") && hasUntaggedArguments((FunctionCall) exp, 1)) {
+      return vectorize(((FunctionCall) exp).getArgument(0));
+
+    } else if(exp instanceof FunctionCall && ((FunctionCall) exp).getFunction() instanceof Symbol) {
+      FunctionCall call = (FunctionCall) exp;
+      Symbol function = (Symbol) call.getFunction();
+      if(!ELEMENTWISE_FUNCTIONS.contains(function.getPrintName()) || !isBuiltin(function)) {
+        return null;
+      }
+      int arity = call.getArguments().length();
+      if(arity < 1 || arity > 2 || !hasUntaggedArguments(call, arity)) {
+        return null;
+      }
+      List<SEXP> arguments = Lists.newArrayList();
+      for (PairList.Node argument : call.getArguments().nodes()) {
+        SEXP vectorized = vectorize(argument.getValue());
+        if(vectorized == null) {
+          return null;
+        }
+        arguments.add(vectorized);
+      }
+      return FunctionCall.newCall(function, arguments.toArray(new SEXP[arguments.size()]));
+    }
+    return null;
+  }
+
+  /**
+   * @return the name of the vector if {@code exp} has the form {@code x[i]}, where {@code i}
+   * is the loop's counter, or {@code null} otherwise.
+   */
+  private Symbol isElementOf(SEXP exp) {
+    if(isCallTo(exp, "[") && hasUntaggedArguments((FunctionCall) exp, 2)) {
+      FunctionCall call = (FunctionCall) exp;
+      if(call.getArgument(0) instanceof Symbol && call.getArgument(1) == counter && isBuiltin(Symbol.get("["))) {
+        return (Symbol) call.getArgument(0);
+      }
+    }
+    return null;
+  }
+
+  private SEXP findVariable(Symbol name) {
+    return runtimeState.findVariable(name);
+  }
+
+  private boolean isBuiltin(Symbol function) {
+    return runtimeState.findFunctionIfExists(function) == Primitives.getBuiltin(function);
+  }
+
+  private static boolean isCallTo(SEXP exp, String functionName) {
+    return exp instanceof FunctionCall &&
+        ((FunctionCall) exp).getFunction() == Symbol.get(functionName);
+  }
+
+  private static boolean hasUntaggedArguments(FunctionCall call, int count) {
+    if(call.getArguments().length() != count) {
+      return false;
+    }
+    for (PairList.Node node : call.getArguments().nodes()) {
+      if(node.hasTag()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if {@code value} is a double, integer or logical vector without a class,
+   * to which the arithmetic operators apply elementwise without dispatching.
+   */
+  private static boolean isPlainNumeric(SEXP value) {
+    return (value instanceof DoubleVector || value instanceof IntVector || value instanceof LogicalVector) &&
+        !value.getAttributes().hasClass();
+  }
+}
@@ -0,0 +1,90 @@
+package org.renjin.compiler.pipeline;
+
+import org.renjin.compiler.pipeline.accessor.Accessor;
+import org.renjin.compiler.pipeline.accessor.Accessors;
+import org.renjin.compiler.pipeline.accessor.InputGraph;
+import org.renjin.primitives.summary.DeferredCumulative;
+import org.renjin.repackaged.asm.Label;
+import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.repackaged.asm.Type;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Computes the cumulative sums or products of a vector into a new array,
+ * using the element rules of {@link DeferredCumulative}.
+ */
+public class CumulativeJitter implements FunctionJitter {
+
+  private final boolean product;
+
+  public CumulativeJitter(boolean product) {
+    this.product = product;
+  }
+
+  @Override
+  public void compute(ComputeMethod method, DeferredNode node) {
+
+    InputGraph inputGraph = new InputGraph(node);
+
+    Accessor accessor = Accessors.create(node.getOperands().get(0), inputGraph);
+    accessor.init(method);
+
+    MethodVisitor mv = method.getVisitor();
+
+    // get the length of the vector
+    int lengthLocal = method.reserveLocal(1);
+    accessor.pushLength(method);
+    mv.visitVarInsn(ISTORE, lengthLocal);
+
+    // allocate the result array
+    int resultLocal = method.reserveLocal(1);
+    mv.visitVarInsn(ILOAD, lengthLocal);
+    mv.visitIntInsn(NEWARRAY, T_DOUBLE);
+    mv.visitVarInsn(ASTORE, resultLocal);
+
+    int accumulatorLocal = method.reserveLocal(2);
+    mv.visitInsn(product ? DCONST_1 : DCONST_0);
+    mv.visitVarInsn(DSTORE, accumulatorLocal);
+
+    int counterLocal = method.reserveLocal(1);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(ISTORE, counterLocal);
+
+    Label loopHead = new Label();
+    mv.visitLabel(loopHead);
+    mv.visitVarInsn(ILOAD, counterLocal);
+    mv.visitVarInsn(ILOAD, lengthLocal);
+
+    Label loopExit = new Label();
+    mv.visitJumpInsn(IF_ICMPEQ, loopExit);
+
+    // accumulator = accumulator (+|*) x[i]
+    mv.visitVarInsn(DLOAD, accumulatorLocal);
+    mv.visitVarInsn(ILOAD, counterLocal);
+    accessor.pushDouble(method);
+    mv.visitInsn(product ? DMUL : DADD);
+    mv.visitVarInsn(DSTORE, accumulatorLocal);
+
+    // result[i] = element(accumulator)
+    mv.visitVarInsn(ALOAD, resultLocal);
+    mv.visitVarInsn(ILOAD, counterLocal);
+    mv.visitVarInsn(DLOAD, accumulatorLocal);
+    if(product) {
+      mv.visitVarInsn(ILOAD, counterLocal);
+      mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(DeferredCumulative.class), "productElement",
+          Type.getMethodDescriptor(Type.DOUBLE_TYPE, Type.DOUBLE_TYPE, Type.INT_TYPE), false);
+    } else {
+      mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(DeferredCumulative.class), "sumElement",
+          Type.getMethodDescriptor(Type.DOUBLE_TYPE, Type.DOUBLE_TYPE), false);
+    }
+    mv.visitInsn(DASTORE);
+
+    mv.visitIincInsn(counterLocal, 1);
+    mv.visitJumpInsn(GOTO, loopHead);
+    mv.visitLabel(loopExit);
+
+    mv.visitVarInsn(ALOAD, resultLocal);
+    mv.visitInsn(ARETURN);
+  }
+}
@@ -3,16 +3,32 @@ package org.renjin.compiler.pipeline;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Maintains a cache of recently used JITted classes.
+ *
+ * <p>If the {@code renjin.jit.cache} system property names a directory, the
+ * generated classes are also stored in that directory by a {@link JitClassStore},
+ * so that they can be reused by later JVM instances.</p>
  */
 public class DeferredJitCache {
 
-  public static final DeferredJitCache INSTANCE = new DeferredJitCache();
+  public static final DeferredJitCache INSTANCE = new DeferredJitCache(JitClassStore.fromSystemProperties());
 
   private final Cache<JitKey, JittedComputation> cache;
 
-  private DeferredJitCache() {
+  /**
+   * The on-disk store of classes, or {@code null} if classes are only cached in memory
+   */
+  private final JitClassStore store;
+
+  private final AtomicLong memoryHits = new AtomicLong();
+  private final AtomicLong storeHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  DeferredJitCache(JitClassStore store) {
+    this.store = store;
     cache = CacheBuilder.newBuilder()
             .softValues()
             .maximumSize(100)
@@ -23,12 +39,54 @@ public class DeferredJitCache {
     JitKey key = node.jitKey();
     JittedComputation computation = cache.getIfPresent(key);
     if(computation != null) {
+      memoryHits.incrementAndGet();
       return computation;
     }
-    DeferredJitter jitter = new DeferredJitter();
-    computation = jitter.compile(node);
+    if(store == null) {
+      misses.incrementAndGet();
+      DeferredJitter jitter = new DeferredJitter();
+      computation = jitter.compile(node);
+
+    } else {
+      String className = store.className(key);
+      byte[] classBytes = store.load(className);
+      if(classBytes != null) {
+        storeHits.incrementAndGet();
+      } else {
+        misses.incrementAndGet();
+        classBytes = new DeferredJitter(className).generate(node);
+        store.store(className, classBytes);
+      }
+      computation = DeferredJitter.load(className, classBytes);
+    }
     cache.put(key, computation);
 
     return computation;
   }
+
+  /**
+   * @return the number of computations found in memory
+   */
+  public long getMemoryHits() {
+    return memoryHits.get();
+  }
+
+  /**
+   * @return the number of computations loaded from the on-disk store
+   */
+  public long getStoreHits() {
+    return storeHits.get();
+  }
+
+  /**
+   * @return the number of computations that had to be generated
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  @Override
+  public String toString() {
+    return "DeferredJitCache{memoryHits=" + memoryHits + ", storeHits=" + storeHits + ", misses=" + misses + "}";
+  }
 }
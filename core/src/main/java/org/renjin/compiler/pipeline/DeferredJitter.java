@@ -9,6 +9,9 @@ import org.renjin.repackaged.asm.util.TraceMethodVisitor;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.renjin.repackaged.asm.Opcodes.*;
 
@@ -46,15 +49,56 @@ import static org.renjin.repackaged.asm.Opcodes.*;
  */
 public class DeferredJitter {
 
+  private static final Map<String, FunctionJitter> JITTERS = new HashMap<>();
+
+  private static final AtomicLong CLASS_COUNTER = new AtomicLong(1);
+
+  static {
+    JITTERS.put("mean", new MeanJitter());
+    JITTERS.put("rowMeans", new RowMeanJitter());
+    JITTERS.put("sum", new SumJitter());
+    JITTERS.put("min", new ReductionJitter(ReductionJitter.MIN));
+    JITTERS.put("max", new ReductionJitter(ReductionJitter.MAX));
+    JITTERS.put("range", new ReductionJitter(ReductionJitter.MIN, ReductionJitter.MAX));
+    JITTERS.put("prod", new ReductionJitter(ReductionJitter.PRODUCT));
+    JITTERS.put("var", new VarianceJitter());
+    JITTERS.put("cumsum", new CumulativeJitter(false));
+    JITTERS.put("cumprod", new CumulativeJitter(true));
+  }
+
   private String className;
   private ClassVisitor cv;
 
   public DeferredJitter() {
-    className = "Jit" + System.identityHashCode(this);
+    this("Jit" + CLASS_COUNTER.getAndIncrement());
+  }
+
+  public DeferredJitter(String className) {
+    this.className = className;
   }
 
   public JittedComputation compile(DeferredNode node)  {
     long startTime = System.nanoTime();
+
+    byte[] classBytes = generate(node);
+    long compileTime = System.nanoTime() - startTime;
+
+    JittedComputation computation = load(className, classBytes);
+
+    long loadTime = System.nanoTime() - startTime - compileTime;
+
+    if(VectorPipeliner.DEBUG) {
+      System.out.println("compile: " + (compileTime/1e6) + "ms");
+      System.out.println("load: " + (loadTime/1e6) + "ms");
+    }
+
+    return computation;
+  }
+
+  /**
+   * Generates the bytecode of a class computing the given node
+   */
+  public byte[] generate(DeferredNode node) {
     ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
     cv = cw;
     cv.visit(V1_6, ACC_PUBLIC + ACC_SUPER, className, null, "java/lang/Object",
@@ -65,18 +109,14 @@ public class DeferredJitter {
 
     cv.visitEnd();
 
-    byte[] classBytes = cw.toByteArray();
-    long compileTime = System.nanoTime() - startTime;
+    return cw.toByteArray();
+  }
 
+  /**
+   * Defines a class generated by {@link #generate(DeferredNode)} and creates a new instance
+   */
+  public static JittedComputation load(String className, byte[] classBytes) {
     Class jitClass = new MyClassLoader().defineClass(className, classBytes);
-
-    long loadTime = System.nanoTime() - startTime - compileTime;
-
-    if(VectorPipeliner.DEBUG) {
-      System.out.println("compile: " + (compileTime/1e6) + "ms");
-      System.out.println("load: " + (loadTime/1e6) + "ms");
-    }
-
     try {
       return (JittedComputation) jitClass.newInstance();
     } catch (Exception e) {
@@ -145,19 +185,22 @@ public class DeferredJitter {
     }
   }
 
+  /**
+   * @return true if there is a {@link FunctionJitter} for the given node's computation
+   */
+  public static boolean canCompile(DeferredNode node) {
+    return JITTERS.containsKey(node.getComputation().getComputationName());
+  }
+
   private FunctionJitter getFunction(DeferredNode node) {
-    if(node.getComputation().getComputationName().equals("mean")) {
-      return new MeanJitter();
-    } else if(node.getComputation().getComputationName().equals("rowMeans")) {
-      return new RowMeanJitter();
-    } else if(node.getComputation().getComputationName().equals("sum")) {
-      return new SumJitter();
-    } else {
+    FunctionJitter jitter = JITTERS.get(node.getComputation().getComputationName());
+    if(jitter == null) {
       throw new UnsupportedOperationException(node.toString());
     }
+    return jitter;
   }
 
-  class MyClassLoader extends ClassLoader {
+  static class MyClassLoader extends ClassLoader {
     public Class defineClass(String name, byte[] b) {
       return defineClass(name, b, 0, b.length);
     }
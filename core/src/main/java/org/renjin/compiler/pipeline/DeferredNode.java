@@ -92,7 +92,8 @@ public class DeferredNode {
    * Checks if this node is "equivalent" (can replace)
    * the given {@code newNode}. Two nodes are equivalent if they are
    * <ul>
-   *   <li>Are both {@link DeferredComputation}s with equal {@code class}es with equivalent operands</li>
+   *   <li>Are both {@link DeferredComputation}s with equal {@code class}es and computation names,
+   *   with equivalent operands</li>
    *   <li>Are both ArrayVectors with the same memory address</li>
    *   <li>Are both scalars with equal values</li>
    * </ul>
@@ -104,6 +105,9 @@ public class DeferredNode {
       return false;
     }
     if(isComputation()) {
+      if(!getComputation().getComputationName().equals(newNode.getComputation().getComputationName())) {
+        return false;
+      }
       if(getOperands().size() != newNode.getOperands().size()) {
         return false;
       }
@@ -167,10 +171,17 @@ public class DeferredNode {
   public JitKey jitKey() {
     List<DeferredNode> nodes = flatten();
     Class[] classes = new Class[nodes.size()];
+    String[] names = new String[nodes.size()];
+    int[] sharing = new int[nodes.size()];
     for(int i=0;i!=classes.length;++i) {
-      classes[i] = nodes.get(i).getVector().getClass();
+      DeferredNode node = nodes.get(i);
+      classes[i] = node.getVector().getClass();
+      if(node.isComputation()) {
+        names[i] = node.getComputation().getComputationName();
+      }
+      sharing[i] = nodes.indexOf(node);
     }
-    return new JitKey(classes);
+    return new JitKey(classes, names, sharing);
   }
 
   public void setResult(Vector result) {
@@ -21,16 +21,14 @@ public class DeferredNodeComputer implements Runnable {
     // TODO: at the moment, we can compile only a small number of summary
     // function, eventually we want to generate bytecode on the fly based
     // on their implementations elsewhere.
-    if(node.getComputation().getComputationName().equals("mean") ||
-        node.getComputation().getComputationName().equals("rowMeans") ||
-        node.getComputation().getComputationName().equals("sum")) {
+    if(DeferredJitter.canCompile(node)) {
       try {
         Vector[] operands = node.flattenVectors();
         JittedComputation computer = DeferredJitCache.INSTANCE.compile(node);
 
         long start = System.nanoTime();
 
-        Vector result = DoubleArrayVector.unsafe(computer.compute(operands));
+        Vector result = DoubleArrayVector.unsafe(computer.compute(operands), node.getVector().getAttributes());
 
         long time = System.nanoTime() - start;
         if(VectorPipeliner.DEBUG) {
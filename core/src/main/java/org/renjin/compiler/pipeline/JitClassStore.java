@@ -0,0 +1,148 @@
+package org.renjin.compiler.pipeline;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.renjin.RenjinVersion;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores the bytecode of jitted classes in a directory, so that later JVM instances
+ * can load them instead of generating them again.
+ *
+ * <p>Classes are stored under a hash of their {@link JitKey} and the Renjin version, as
+ * the generated code refers to Renjin's internal classes. A snapshot version does not
+ * identify the code that generated a class, so for snapshots the size and modification
+ * time of the Renjin jar are added to the version, and the store is not used at all if
+ * Renjin is not loaded from a jar. The names of the stored classes are read once when
+ * the store is opened.</p>
+ *
+ * <p>The store is shared safely between processes: classes are written to a temporary file
+ * and then renamed, so a class file is either complete or absent. Failures to read or
+ * write the directory are logged and otherwise ignored.</p>
+ */
+public class JitClassStore {
+
+  /**
+   * The system property naming the directory in which to store classes. If it
+   * is not set, classes are not stored.
+   */
+  public static final String DIRECTORY_PROPERTY = "renjin.jit.cache";
+
+  private static final Logger LOGGER = Logger.getLogger(JitClassStore.class.getName());
+
+  private static final String SUFFIX = ".class";
+
+  private final File directory;
+  private final String version;
+  private final Set<String> storedNames = Sets.newConcurrentHashSet();
+
+  public JitClassStore(File directory, String version) {
+    this.directory = directory;
+    this.version = version;
+
+    String[] fileNames = directory.list();
+    if(fileNames != null) {
+      for (String fileName : fileNames) {
+        if(fileName.endsWith(SUFFIX)) {
+          storedNames.add(fileName.substring(0, fileName.length() - SUFFIX.length()));
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the store configured by the {@code renjin.jit.cache} system property, or
+   * {@code null} if the property is not set or the directory cannot be created.
+   */
+  public static JitClassStore fromSystemProperties() {
+    String path = System.getProperty(DIRECTORY_PROPERTY);
+    if(path == null || path.isEmpty()) {
+      return null;
+    }
+    File directory = new File(path);
+    if(!directory.isDirectory() && !directory.mkdirs()) {
+      LOGGER.warning("Could not create JIT class cache directory " + directory);
+      return null;
+    }
+    String version = buildVersion(RenjinVersion.getVersionName(), codeSourceFile());
+    if(version == null) {
+      LOGGER.info("Not storing JIT classes: the build of this snapshot version cannot be identified");
+      return null;
+    }
+    return new JitClassStore(directory, version);
+  }
+
+  /**
+   * @param codeSource the jar from which Renjin was loaded, or {@code null}
+   * @return the version under which to store classes, or {@code null} if the build
+   * cannot be identified
+   */
+  static String buildVersion(String version, File codeSource) {
+    // An unfiltered version property means Renjin is running from its own source tree
+    if(!version.endsWith("-SNAPSHOT") && !version.startsWith("${")) {
+      return version;
+    }
+    if(codeSource == null || !codeSource.isFile()) {
+      return null;
+    }
+    return version + "+" + codeSource.length() + "." + codeSource.lastModified();
+  }
+
+  private static File codeSourceFile() {
+    try {
+      CodeSource codeSource = JitClassStore.class.getProtectionDomain().getCodeSource();
+      if(codeSource == null || codeSource.getLocation() == null) {
+        return null;
+      }
+      return new File(codeSource.getLocation().toURI());
+    } catch (URISyntaxException | IllegalArgumentException | SecurityException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return the name of the class for the given key, which is also the name of its file.
+   */
+  public String className(JitKey key) {
+    return "Jit" + Hashing.sha1().hashString(version + "\n" + key, Charsets.UTF_8);
+  }
+
+  /**
+   * @return the bytecode of the class, or {@code null} if it has not been stored.
+   */
+  public byte[] load(String className) {
+    if(!storedNames.contains(className)) {
+      return null;
+    }
+    try {
+      return Files.toByteArray(new File(directory, className + SUFFIX));
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Could not read JIT class " + className, e);
+      storedNames.remove(className);
+      return null;
+    }
+  }
+
+  public void store(String className, byte[] classBytes) {
+    try {
+      File tempFile = File.createTempFile(className, ".tmp", directory);
+      Files.write(classBytes, tempFile);
+      if(tempFile.renameTo(new File(directory, className + SUFFIX))) {
+        storedNames.add(className);
+      } else {
+        tempFile.delete();
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Could not write JIT class " + className, e);
+    }
+  }
+}
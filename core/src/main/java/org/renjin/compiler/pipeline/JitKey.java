@@ -4,15 +4,33 @@ import java.util.Arrays;
 
 /**
  * Uniquely identifies a Jitted computation subgraph.
+ *
+ * <p>The subgraph is identified by the classes and computation names of its nodes, flattened in
+ * depth-first order, and by which of those nodes are shared. The names are needed because
+ * a single class may implement several computations, such as {@code cumsum} and {@code cumprod}. For example, {@code sum(x * x)} and
+ * {@code sum(x * y)} flatten to the same classes, but the former reads the same
+ * operand twice.</p>
  */
 public class JitKey {
 
   private Class[] classes;
+
+  /**
+   * For each flattened node, the name of its computation, or {@code null} if it is not a computation
+   */
+  private String[] names;
+
+  /**
+   * For each flattened node, the index of its first occurrence
+   */
+  private int[] sharing;
   private int hash;
 
-  public JitKey(Class[] classes) {
+  public JitKey(Class[] classes, String[] names, int[] sharing) {
     this.classes = classes;
-    this.hash = Arrays.hashCode(classes);
+    this.names = names;
+    this.sharing = sharing;
+    this.hash = (Arrays.hashCode(classes) * 31 + Arrays.hashCode(names)) * 31 + Arrays.hashCode(sharing);
   }
 
   @Override
@@ -26,6 +44,29 @@ public class JitKey {
       return false;
     }
     JitKey other = (JitKey)obj;
-    return Arrays.equals(classes, other.classes);
+    return Arrays.equals(classes, other.classes) &&
+        Arrays.equals(names, other.names) &&
+        Arrays.equals(sharing, other.sharing);
+  }
+
+  /**
+   * @return a description of the key that is stable across JVM instances.
+   */
+  @Override
+  public String toString() {
+    StringBuilder s = new StringBuilder();
+    for(int i=0;i!=classes.length;++i) {
+      if(i > 0) {
+        s.append(",");
+      }
+      s.append(classes[i].getName());
+      if(names[i] != null) {
+        s.append(":").append(names[i]);
+      }
+      if(sharing[i] != i) {
+        s.append("=").append(sharing[i]);
+      }
+    }
+    return s.toString();
   }
 }
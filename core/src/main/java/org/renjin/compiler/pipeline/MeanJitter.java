@@ -15,7 +15,7 @@ public class MeanJitter implements FunctionJitter {
 
     InputGraph inputGraph = new InputGraph(node);
 
-    Accessor accessor = Accessors.create(node.getOperands().get(0), inputGraph);
+    Accessor accessor = Accessors.createIterator(node.getOperands().get(0), inputGraph);
     accessor.init(method);
 
     MethodVisitor mv = method.getVisitor();
@@ -31,6 +31,11 @@ public class MeanJitter implements FunctionJitter {
 
     mv.visitVarInsn(DSTORE, sumLocal);
 
+    // count the elements, as a filtered vector may have fewer than its length
+    int countLocal = method.reserveLocal(1);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(ISTORE, countLocal);
+
     int counterLocal = method.reserveLocal(1);
     mv.visitInsn(ICONST_0);
     mv.visitVarInsn(ISTORE, counterLocal);
@@ -46,6 +51,10 @@ public class MeanJitter implements FunctionJitter {
     Label l5 = new Label();
     mv.visitLabel(l5);
 
+    Label l6 = new Label();
+    accessor.jumpIfNotSelected(method, counterLocal, l6);
+    mv.visitIincInsn(countLocal, 1);
+
     // load the sum on to the stack, and the next value
     mv.visitVarInsn(DLOAD, sumLocal);
     mv.visitVarInsn(ILOAD, counterLocal);
@@ -55,7 +64,6 @@ public class MeanJitter implements FunctionJitter {
     mv.visitInsn(DADD);
     mv.visitVarInsn(DSTORE, sumLocal);
 
-    Label l6 = new Label();
     mv.visitLabel(l6);
     mv.visitIincInsn(counterLocal, 1);
     mv.visitJumpInsn(GOTO, l3);
@@ -67,7 +75,7 @@ public class MeanJitter implements FunctionJitter {
     mv.visitInsn(DUP);
     mv.visitInsn(ICONST_0);
     mv.visitVarInsn(DLOAD, sumLocal);
-    mv.visitVarInsn(ILOAD, lengthLocal);
+    mv.visitVarInsn(ILOAD, countLocal);
     mv.visitInsn(I2D);
     mv.visitInsn(DDIV);
     mv.visitInsn(DASTORE);
@@ -0,0 +1,117 @@
+package org.renjin.compiler.pipeline;
+
+import org.renjin.compiler.pipeline.accessor.Accessor;
+import org.renjin.compiler.pipeline.accessor.Accessors;
+import org.renjin.compiler.pipeline.accessor.InputGraph;
+import org.renjin.primitives.summary.DeferredMax;
+import org.renjin.primitives.summary.DeferredMin;
+import org.renjin.primitives.summary.DeferredProd;
+import org.renjin.repackaged.asm.Label;
+import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.repackaged.asm.Type;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Computes one or more reductions of a vector in a single pass, combining each element
+ * with an accumulator through a static method, such as {@link DeferredMin#min(double, double)},
+ * that the JVM can inline into the loop.
+ */
+public class ReductionJitter implements FunctionJitter {
+
+  public static final Accumulator MIN = new Accumulator(Double.POSITIVE_INFINITY, DeferredMin.class, "min");
+  public static final Accumulator MAX = new Accumulator(Double.NEGATIVE_INFINITY, DeferredMax.class, "max");
+  public static final Accumulator PRODUCT = new Accumulator(1d, DeferredProd.class, "multiply");
+
+  /**
+   * An initial value and a static method of type {@code (DD)D} that combines
+   * the accumulated value with the next element.
+   */
+  public static class Accumulator {
+    private final double initialValue;
+    private final String owner;
+    private final String methodName;
+
+    public Accumulator(double initialValue, Class<?> owner, String methodName) {
+      this.initialValue = initialValue;
+      this.owner = Type.getInternalName(owner);
+      this.methodName = methodName;
+    }
+  }
+
+  private final Accumulator[] accumulators;
+
+  public ReductionJitter(Accumulator... accumulators) {
+    this.accumulators = accumulators;
+  }
+
+  @Override
+  public void compute(ComputeMethod method, DeferredNode node) {
+
+    InputGraph inputGraph = new InputGraph(node);
+
+    Accessor accessor = Accessors.createIterator(node.getOperands().get(0), inputGraph);
+    accessor.init(method);
+
+    MethodVisitor mv = method.getVisitor();
+
+    // get the length of the vector
+    int lengthLocal = method.reserveLocal(1);
+    accessor.pushLength(method);
+    mv.visitVarInsn(ISTORE, lengthLocal);
+
+    // initialize the accumulators
+    int[] accumulatorLocals = new int[accumulators.length];
+    for (int i = 0; i < accumulators.length; i++) {
+      accumulatorLocals[i] = method.reserveLocal(2);
+      mv.visitLdcInsn(accumulators[i].initialValue);
+      mv.visitVarInsn(DSTORE, accumulatorLocals[i]);
+    }
+
+    int elementLocal = method.reserveLocal(2);
+
+    int counterLocal = method.reserveLocal(1);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(ISTORE, counterLocal);
+
+    Label loopHead = new Label();
+    mv.visitLabel(loopHead);
+    mv.visitVarInsn(ILOAD, counterLocal);
+    mv.visitVarInsn(ILOAD, lengthLocal);
+
+    Label loopExit = new Label();
+    mv.visitJumpInsn(IF_ICMPEQ, loopExit);
+
+    Label next = new Label();
+    accessor.jumpIfNotSelected(method, counterLocal, next);
+
+    // compute the next element once, and combine it with each accumulator
+    mv.visitVarInsn(ILOAD, counterLocal);
+    accessor.pushDouble(method);
+    mv.visitVarInsn(DSTORE, elementLocal);
+
+    for (int i = 0; i < accumulators.length; i++) {
+      mv.visitVarInsn(DLOAD, accumulatorLocals[i]);
+      mv.visitVarInsn(DLOAD, elementLocal);
+      mv.visitMethodInsn(INVOKESTATIC, accumulators[i].owner, accumulators[i].methodName,
+          Type.getMethodDescriptor(Type.DOUBLE_TYPE, Type.DOUBLE_TYPE, Type.DOUBLE_TYPE), false);
+      mv.visitVarInsn(DSTORE, accumulatorLocals[i]);
+    }
+
+    mv.visitLabel(next);
+    mv.visitIincInsn(counterLocal, 1);
+    mv.visitJumpInsn(GOTO, loopHead);
+    mv.visitLabel(loopExit);
+
+    // return the accumulated values
+    mv.visitLdcInsn(accumulators.length);
+    mv.visitIntInsn(NEWARRAY, T_DOUBLE);
+    for (int i = 0; i < accumulators.length; i++) {
+      mv.visitInsn(DUP);
+      mv.visitLdcInsn(i);
+      mv.visitVarInsn(DLOAD, accumulatorLocals[i]);
+      mv.visitInsn(DASTORE);
+    }
+    mv.visitInsn(ARETURN);
+  }
+}
@@ -15,7 +15,7 @@ public class SumJitter implements FunctionJitter {
 
     InputGraph inputGraph = new InputGraph(node);
 
-    Accessor accessor = Accessors.create(node.getOperands().get(0), inputGraph);
+    Accessor accessor = Accessors.createIterator(node.getOperands().get(0), inputGraph);
     accessor.init(method);
 
     MethodVisitor mv = method.getVisitor();
@@ -45,6 +45,9 @@ public class SumJitter implements FunctionJitter {
     Label l5 = new Label();
     mv.visitLabel(l5);
 
+    Label l6 = new Label();
+    accessor.jumpIfNotSelected(method, counterLocal, l6);
+
     // load the sum on to the stack, and the next value
     mv.visitVarInsn(DLOAD, sumLocal);
     mv.visitVarInsn(ILOAD, counterLocal);
@@ -54,7 +57,6 @@ public class SumJitter implements FunctionJitter {
     mv.visitInsn(DADD);
     mv.visitVarInsn(DSTORE, sumLocal);
 
-    Label l6 = new Label();
     mv.visitLabel(l6);
     mv.visitIincInsn(counterLocal, 1);
     mv.visitJumpInsn(GOTO, l3);
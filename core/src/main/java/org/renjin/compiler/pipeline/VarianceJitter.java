@@ -0,0 +1,115 @@
+package org.renjin.compiler.pipeline;
+
+import org.renjin.compiler.pipeline.accessor.Accessor;
+import org.renjin.compiler.pipeline.accessor.Accessors;
+import org.renjin.compiler.pipeline.accessor.InputGraph;
+import org.renjin.repackaged.asm.Label;
+import org.renjin.repackaged.asm.MethodVisitor;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Computes the sample variance in two passes over the vector: the first computes the
+ * mean, and the second the sum of squared deviations from the mean. Elements are
+ * recomputed in the second pass rather than stored.
+ */
+public class VarianceJitter implements FunctionJitter {
+
+  @Override
+  public void compute(ComputeMethod method, DeferredNode node) {
+
+    InputGraph inputGraph = new InputGraph(node);
+
+    Accessor accessor = Accessors.createIterator(node.getOperands().get(0), inputGraph);
+    accessor.init(method);
+
+    MethodVisitor mv = method.getVisitor();
+
+    // get the length of the vector
+    int lengthLocal = method.reserveLocal(1);
+    accessor.pushLength(method);
+    mv.visitVarInsn(ISTORE, lengthLocal);
+
+    int sumLocal = method.reserveLocal(2);
+    int meanLocal = method.reserveLocal(2);
+    int counterLocal = method.reserveLocal(1);
+
+    // a filtered vector may have fewer elements than its length
+    int countLocal = method.reserveLocal(1);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(ISTORE, countLocal);
+
+    // first pass: sum = sum(x), n = length(x)
+    accumulate(method, accessor, lengthLocal, counterLocal, countLocal, sumLocal, -1);
+
+    // mean = sum / n
+    mv.visitVarInsn(DLOAD, sumLocal);
+    mv.visitVarInsn(ILOAD, countLocal);
+    mv.visitInsn(I2D);
+    mv.visitInsn(DDIV);
+    mv.visitVarInsn(DSTORE, meanLocal);
+
+    // second pass: sum = sum((x - mean)^2)
+    accumulate(method, accessor, lengthLocal, counterLocal, -1, sumLocal, meanLocal);
+
+    // return sum / (n - 1)
+    mv.visitInsn(ICONST_1);
+    mv.visitIntInsn(NEWARRAY, T_DOUBLE);
+    mv.visitInsn(DUP);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(DLOAD, sumLocal);
+    mv.visitVarInsn(ILOAD, countLocal);
+    mv.visitInsn(I2D);
+    mv.visitInsn(DCONST_1);
+    mv.visitInsn(DSUB);
+    mv.visitInsn(DDIV);
+    mv.visitInsn(DASTORE);
+    mv.visitInsn(ARETURN);
+  }
+
+  /**
+   * Emits a loop that sums the elements into {@code sumLocal}, or their squared
+   * deviations from {@code meanLocal} if it is not -1, and counts them in
+   * {@code countLocal} if it is not -1.
+   */
+  private void accumulate(ComputeMethod method, Accessor accessor, int lengthLocal, int counterLocal,
+                          int countLocal, int sumLocal, int meanLocal) {
+    MethodVisitor mv = method.getVisitor();
+
+    mv.visitInsn(DCONST_0);
+    mv.visitVarInsn(DSTORE, sumLocal);
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(ISTORE, counterLocal);
+
+    Label loopHead = new Label();
+    mv.visitLabel(loopHead);
+    mv.visitVarInsn(ILOAD, counterLocal);
+    mv.visitVarInsn(ILOAD, lengthLocal);
+
+    Label loopExit = new Label();
+    mv.visitJumpInsn(IF_ICMPEQ, loopExit);
+
+    Label next = new Label();
+    accessor.jumpIfNotSelected(method, counterLocal, next);
+    if(countLocal != -1) {
+      mv.visitIincInsn(countLocal, 1);
+    }
+
+    mv.visitVarInsn(DLOAD, sumLocal);
+    mv.visitVarInsn(ILOAD, counterLocal);
+    accessor.pushDouble(method);
+    if(meanLocal != -1) {
+      mv.visitVarInsn(DLOAD, meanLocal);
+      mv.visitInsn(DSUB);
+      mv.visitInsn(DUP2);
+      mv.visitInsn(DMUL);
+    }
+    mv.visitInsn(DADD);
+    mv.visitVarInsn(DSTORE, sumLocal);
+
+    mv.visitLabel(next);
+    mv.visitIincInsn(counterLocal, 1);
+    mv.visitJumpInsn(GOTO, loopHead);
+    mv.visitLabel(loopExit);
+  }
+}
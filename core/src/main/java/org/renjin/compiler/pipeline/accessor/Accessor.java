@@ -1,6 +1,7 @@
 package org.renjin.compiler.pipeline.accessor;
 
 import org.renjin.compiler.pipeline.ComputeMethod;
+import org.renjin.repackaged.asm.Label;
 import org.renjin.repackaged.asm.MethodVisitor;
 import org.renjin.repackaged.asm.Opcodes;
 
@@ -24,6 +25,15 @@ public abstract class Accessor {
 
   public abstract void pushLength(ComputeMethod method);
 
+  /**
+   * Jumps to {@code notSelected} if the element at the index stored in {@code indexLocal}
+   * does not belong to the vector. Loops over the indices up to {@link #pushLength(ComputeMethod)}
+   * must call this before each {@link #pushDouble(ComputeMethod)} if the accessor was created by
+   * {@link Accessors#createIterator}. Unfiltered accessors emit nothing.
+   */
+  public void jumpIfNotSelected(ComputeMethod method, int indexLocal, Label notSelected) {
+  }
+
   protected final void pushOperandIndex(MethodVisitor mv, int operandIndex) {
     if (operandIndex >= -1 && operandIndex <= 5) {
       mv.visitInsn(Opcodes.ICONST_0 + operandIndex);
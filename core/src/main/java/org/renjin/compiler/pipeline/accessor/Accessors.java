@@ -7,6 +7,19 @@ import org.renjin.sexp.IntArrayVector;
 
 public class Accessors {
 
+  /**
+   * Creates an accessor for a vector that is only iterated over in order, such as the
+   * operand of a reduction, which may skip the elements filtered out by a
+   * {@link org.renjin.primitives.subset.DeferredSelection}.
+   */
+  public static Accessor createIterator(DeferredNode node, InputGraph inputGraph) {
+    if(SelectionAccessor.accept(node)) {
+      return new SelectionAccessor(node, inputGraph);
+    } else {
+      return create(node, inputGraph);
+    }
+  }
+
   public static Accessor create(DeferredNode node, InputGraph inputGraph) {
     if(node.getVector() instanceof DoubleArrayVector) {
       return new DoubleArrayAccessor(inputGraph.getOperandIndex(node));
@@ -0,0 +1,80 @@
+package org.renjin.compiler.pipeline.accessor;
+
+import org.renjin.compiler.pipeline.ComputeMethod;
+import org.renjin.compiler.pipeline.DeferredNode;
+import org.renjin.primitives.subset.DeferredSelection;
+import org.renjin.repackaged.asm.Label;
+import org.renjin.repackaged.asm.MethodVisitor;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.IntVector;
+
+import static org.renjin.repackaged.asm.Opcodes.*;
+
+/**
+ * Iterates over a {@link DeferredSelection} by visiting every index of its source, and
+ * skipping the indices at which the mask is {@code FALSE}.
+ *
+ * <p>Elements can only be accessed in order, after
+ * {@link #jumpIfNotSelected(ComputeMethod, int, Label)} has been called for the same index,
+ * so this accessor can only be used by reductions that iterate over their operand.</p>
+ */
+public class SelectionAccessor extends Accessor {
+
+  private final Accessor source;
+  private final Accessor mask;
+
+  /**
+   * The local variable storing the mask's value at the current index
+   */
+  private int maskLocal;
+
+  public SelectionAccessor(DeferredNode node, InputGraph inputGraph) {
+    this.source = Accessors.create(node.getOperand(0), inputGraph);
+    this.mask = Accessors.create(node.getOperand(1), inputGraph);
+  }
+
+  public static boolean accept(DeferredNode node) {
+    return node.getVector() instanceof DeferredSelection;
+  }
+
+  @Override
+  public void init(ComputeMethod method) {
+    source.init(method);
+    mask.init(method);
+    maskLocal = method.reserveLocal(1);
+  }
+
+  @Override
+  public void pushLength(ComputeMethod method) {
+    source.pushLength(method);
+  }
+
+  @Override
+  public void jumpIfNotSelected(ComputeMethod method, int indexLocal, Label notSelected) {
+    MethodVisitor mv = method.getVisitor();
+    mv.visitVarInsn(ILOAD, indexLocal);
+    mask.pushInt(method);
+    mv.visitInsn(DUP);
+    mv.visitVarInsn(ISTORE, maskLocal);
+    mv.visitJumpInsn(IFEQ, notSelected);
+  }
+
+  @Override
+  public void pushDouble(ComputeMethod method) {
+    MethodVisitor mv = method.getVisitor();
+
+    // a missing value in the mask selects NA
+    Label selected = new Label();
+    Label done = new Label();
+    mv.visitVarInsn(ILOAD, maskLocal);
+    mv.visitLdcInsn(IntVector.NA);
+    mv.visitJumpInsn(IF_ICMPNE, selected);
+    mv.visitInsn(POP);
+    mv.visitLdcInsn(DoubleVector.NA);
+    mv.visitJumpInsn(GOTO, done);
+
+    mv.visitLabel(selected);
+    source.pushDouble(method);
+    mv.visitLabel(done);
+  }
+}
@@ -0,0 +1,241 @@
+package org.renjin.eval;
+
+import org.renjin.sexp.*;
+
+import java.util.Arrays;
+
+/**
+ * Records how the actual arguments supplied at a call site map onto the formal
+ * arguments of a closure.
+ *
+ * <p>Computing a plan runs the same exact, partial and positional passes as
+ * {@link ClosureDispatcher#matchArguments(PairList, PairList)}. Once computed, a plan can be
+ * re-applied to any call with the same formals and the same argument tags, which only
+ * requires comparing tags by identity rather than repeating the string comparisons.</p>
+ */
+public final class ArgumentMatchingPlan {
+
+  /**
+   * Target of an actual argument that is collected into the {@code ...} formal.
+   */
+  private static final int TO_ELLIPSES = -1;
+
+  private final PairList formals;
+  private final PairList.Node[] formalNodes;
+
+  /**
+   * The raw tags of the actual arguments for which this plan was computed.
+   */
+  private final SEXP[] actualTags;
+
+  /**
+   * For each actual argument, the index of the formal to which it is bound,
+   * or {@code TO_ELLIPSES}
+   */
+  private final int[] actualTargets;
+
+  /**
+   * Indices of the formals that have no matching actual argument
+   */
+  private final int[] missingFormals;
+
+  /**
+   * The index of the {@code ...} formal, or -1 if the closure does not accept {@code ...}
+   */
+  private final int ellipsesFormal;
+
+  private ArgumentMatchingPlan(PairList formals, PairList.Node[] formalNodes, SEXP[] actualTags,
+                               int[] actualTargets, int[] missingFormals, int ellipsesFormal) {
+    this.formals = formals;
+    this.formalNodes = formalNodes;
+    this.actualTags = actualTags;
+    this.actualTargets = actualTargets;
+    this.missingFormals = missingFormals;
+    this.ellipsesFormal = ellipsesFormal;
+  }
+
+  /**
+   * Computes the plan for matching {@code actuals} to {@code formals}.
+   *
+   * @return the plan, or {@code null} if the arguments cannot be described by a plan, in which
+   * case the caller should fall back to {@link ClosureDispatcher#matchArguments(PairList, PairList)}
+   * @throws EvalException if the arguments cannot be matched
+   */
+  public static ArgumentMatchingPlan compute(PairList formals, PairList actuals) {
+
+    PairList.Node[] formalNodes = toArray(formals);
+    for (PairList.Node formal : formalNodes) {
+      if (!formal.hasTag()) {
+        return null;
+      }
+    }
+
+    int numActuals = actuals.length();
+    SEXP[] actualTags = new SEXP[numActuals];
+    int k = 0;
+    for (PairList.Node actual : actuals.nodes()) {
+      SEXP tag = actual.getRawTag();
+      if (tag != Null.INSTANCE && !(tag instanceof Symbol)) {
+        return null;
+      }
+      actualTags[k++] = tag;
+    }
+
+    int[] formalSources = new int[formalNodes.length];
+    Arrays.fill(formalSources, -1);
+    int[] actualTargets = new int[numActuals];
+    boolean[] actualMatched = new boolean[numActuals];
+
+    // do exact matching
+    for (int i = 0; i < formalNodes.length; i++) {
+      Symbol name = formalNodes[i].getTag();
+      if (name != Symbols.ELLIPSES) {
+        int match = -1;
+        for (int j = 0; j < numActuals; j++) {
+          if (!actualMatched[j] && actualTags[j] instanceof Symbol &&
+              ((Symbol) actualTags[j]).getPrintName().equals(name.getPrintName())) {
+            if (match != -1) {
+              throw new EvalException(String.format("Multiple named values provided for argument '%s'",
+                  name.getPrintName()));
+            }
+            match = j;
+          }
+        }
+        if (match != -1) {
+          bind(formalSources, actualTargets, actualMatched, i, match);
+        }
+      }
+    }
+
+    // partial matching, only on formals preceding ELLIPSES
+    for (int j = 0; j < numActuals; j++) {
+      if (!actualMatched[j] && actualTags[j] != Null.INSTANCE && actualTags[j] != Symbols.ELLIPSES) {
+        String argumentName = ((Symbol) actualTags[j]).getPrintName();
+        int partialMatch = -1;
+        for (int i = 0; i < formalNodes.length; i++) {
+          Symbol name = formalNodes[i].getTag();
+          if (name == Symbols.ELLIPSES) {
+            break;
+          }
+          if (formalSources[i] == -1 && name.getPrintName().startsWith(argumentName)) {
+            if (partialMatch != -1) {
+              throw new EvalException(String.format("Provided argument '%s' matches multiple named formal arguments",
+                  argumentName));
+            }
+            partialMatch = i;
+          }
+        }
+        if (partialMatch != -1) {
+          bind(formalSources, actualTargets, actualMatched, partialMatch, j);
+        }
+      }
+    }
+
+    // match any unnamed args positionally
+    int ellipsesFormal = -1;
+    int numMissing = 0;
+    int[] missingFormals = new int[formalNodes.length];
+    int nextActual = nextUnmatched(actualMatched, 0);
+    for (int i = 0; i < formalNodes.length; i++) {
+      if (formalSources[i] == -1) {
+        if (formalNodes[i].getTag() == Symbols.ELLIPSES) {
+          ellipsesFormal = i;
+          while (nextActual < numActuals) {
+            actualTargets[nextActual] = TO_ELLIPSES;
+            actualMatched[nextActual] = true;
+            nextActual = nextUnmatched(actualMatched, nextActual + 1);
+          }
+        } else if (nextActual < numActuals && actualTags[nextActual] == Null.INSTANCE) {
+          bind(formalSources, actualTargets, actualMatched, i, nextActual);
+          nextActual = nextUnmatched(actualMatched, nextActual + 1);
+        } else {
+          missingFormals[numMissing++] = i;
+        }
+      }
+    }
+    if (nextActual < numActuals) {
+      throw new EvalException("Unmatched positional arguments");
+    }
+
+    return new ArgumentMatchingPlan(formals, formalNodes, actualTags, actualTargets,
+        Arrays.copyOf(missingFormals, numMissing), ellipsesFormal);
+  }
+
+  private static void bind(int[] formalSources, int[] actualTargets, boolean[] actualMatched,
+                           int formalIndex, int actualIndex) {
+    formalSources[formalIndex] = actualIndex;
+    actualTargets[actualIndex] = formalIndex;
+    actualMatched[actualIndex] = true;
+  }
+
+  private static int nextUnmatched(boolean[] actualMatched, int start) {
+    int i = start;
+    while (i < actualMatched.length && actualMatched[i]) {
+      i++;
+    }
+    return i;
+  }
+
+  private static PairList.Node[] toArray(PairList list) {
+    PairList.Node[] nodes = new PairList.Node[list.length()];
+    int i = 0;
+    for (PairList.Node node : list.nodes()) {
+      nodes[i++] = node;
+    }
+    return nodes;
+  }
+
+  /**
+   * @return true if this plan was computed for the given {@code formals} and for actual
+   * arguments with the same tags as {@code actuals}
+   */
+  public boolean isApplicableTo(PairList formals, PairList actuals) {
+    if (this.formals != formals) {
+      return false;
+    }
+    int k = 0;
+    for (PairList.Node actual : actuals.nodes()) {
+      if (k == actualTags.length || actual.getRawTag() != actualTags[k]) {
+        return false;
+      }
+      k++;
+    }
+    return k == actualTags.length;
+  }
+
+  /**
+   * Binds the {@code actuals} to the closure's formals in {@code innerEnv}, supplying
+   * promises to the default values of any missing formals.
+   */
+  public void bindInto(PairList actuals, Environment innerEnv) {
+    PromisePairList.Builder ellipses = null;
+    if (ellipsesFormal != -1) {
+      ellipses = new PromisePairList.Builder();
+    }
+    int k = 0;
+    for (PairList.Node actual : actuals.nodes()) {
+      int target = actualTargets[k++];
+      if (target == TO_ELLIPSES) {
+        ellipses.add(actual.getRawTag(), actual.getValue());
+      } else {
+        bindFormal(innerEnv, formalNodes[target], actual.getValue());
+      }
+    }
+    if (ellipses != null) {
+      innerEnv.setVariable(formalNodes[ellipsesFormal].getTag(), ellipses.build());
+    }
+    for (int missingFormal : missingFormals) {
+      bindFormal(innerEnv, formalNodes[missingFormal], Symbol.MISSING_ARG);
+    }
+  }
+
+  private static void bindFormal(Environment innerEnv, PairList.Node formal, SEXP value) {
+    if (value == Symbol.MISSING_ARG) {
+      SEXP defaultValue = formal.getValue();
+      if (defaultValue != Symbol.MISSING_ARG) {
+        value = Promise.promiseMissing(innerEnv, defaultValue);
+      }
+    }
+    innerEnv.setVariable(formal.getTag(), value);
+  }
+}
@@ -54,7 +54,7 @@ public class Calls {
         functionEnvironment.setVariable(name, suppliedEnvironment.getVariable(name));
       }
 
-      SEXP result = functionContext.evaluate( closure.getBody(), functionEnvironment);
+      SEXP result = closure.doApply(functionContext);
 
       functionContext.exit();
 
@@ -67,7 +67,13 @@ public class ClosureDispatcher {
     Environment functionEnvironment = functionContext.getEnvironment();
 
     try {
-      matchArgumentsInto(closure.getFormals(), promisedArgs, functionContext, functionEnvironment);
+      if(dispatchChain == null) {
+        matchArgumentsInto(call, closure.getFormals(), promisedArgs, functionContext, functionEnvironment);
+      } else {
+        // S3 methods are called through the generic's call site, so don't let them
+        // evict the plan cached for the generic itself
+        matchArgumentsInto(closure.getFormals(), promisedArgs, functionContext, functionEnvironment);
+      }
 
       if(dispatchChain != null) {
         dispatchChain.populateEnvironment(functionEnvironment);
@@ -118,6 +124,30 @@ public class ClosureDispatcher {
     return null;
   }
   
+  /**
+   * Matches the {@code actuals} to the closure's {@code formals} and binds them in {@code innerEnv},
+   * reusing the {@link ArgumentMatchingPlan} cached on the {@code call} if it was computed for the
+   * same formals and argument tags.
+   */
+  public static void matchArgumentsInto(FunctionCall call, PairList formals, PairList actuals,
+      Context innerContext, Environment innerEnv) {
+
+    if(call == null) {
+      matchArgumentsInto(formals, actuals, innerContext, innerEnv);
+      return;
+    }
+    ArgumentMatchingPlan plan = call.getMatchingPlan();
+    if(plan == null || !plan.isApplicableTo(formals, actuals)) {
+      plan = ArgumentMatchingPlan.compute(formals, actuals);
+      if(plan == null) {
+        matchArgumentsInto(formals, actuals, innerContext, innerEnv);
+        return;
+      }
+      call.setMatchingPlan(plan);
+    }
+    plan.bindInto(actuals, innerEnv);
+  }
+
   public static void matchArgumentsInto(PairList formals, PairList actuals, 
       Context innerContext, Environment innerEnv) {
 
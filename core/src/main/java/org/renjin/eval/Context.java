@@ -32,6 +32,7 @@ import org.renjin.parser.RParser;
 import org.renjin.primitives.Warning;
 import org.renjin.primitives.packaging.NamespaceRegistry;
 import org.renjin.primitives.special.ControlFlowException;
+import org.renjin.primitives.special.StatementFunction;
 import org.renjin.primitives.vector.DeferredComputation;
 import org.renjin.primitives.vector.MemoizedComputation;
 import org.renjin.sexp.*;
@@ -143,7 +144,8 @@ public class Context {
     context.parent = this;
     context.evaluationDepth = evaluationDepth+1;
     context.closure = closure;
-    context.environment = Environment.createChildEnvironment(closure.getEnclosingEnvironment());
+    context.environment = Environment.createChildEnvironment(closure.getEnclosingEnvironment(),
+        closure.createFrame());
     context.session = session;
     context.arguments = arguments;
     context.call= call;
@@ -295,16 +297,16 @@ public class Context {
       Profiler.functionStart((Symbol)fn, functionExpr);
     }
     try {
-      return functionExpr.apply(this, rho, call, call.getArguments());
+      if(functionExpr instanceof BuiltinFunction) {
+        return applyBuiltin((BuiltinFunction) functionExpr, call, rho);
+      } else {
+        return functionExpr.apply(this, rho, call, call.getArguments());
+      }
     } catch (EvalException | ControlFlowException | ConditionException | Error e) {
       throw e;
 
     } catch (Exception e) {
-      String message = e.getMessage();
-      if(message == null) {
-        message = e.getClass().getName();
-      }
-      throw new EvalException(message, e);
+      throw wrapException(e);
       
     } finally {
       if(Profiler.ENABLED && profiling) {
@@ -313,6 +315,92 @@ public class Context {
     }
   }
 
+  /**
+   * Applies a {@link StatementFunction} to a call in statement position, with the same
+   * profiling and exception handling as calls evaluated by {@link #evaluate(SEXP, Environment)}.
+   */
+  public SEXP applyStatement(StatementFunction function, FunctionCall call, Environment rho, boolean inLoop) {
+    clearInvisibleFlag();
+
+    SEXP fn = call.getFunction();
+    boolean profiling = Profiler.ENABLED && fn instanceof Symbol && !((Symbol) fn).isReservedWord();
+    if(Profiler.ENABLED && profiling) {
+      Profiler.functionStart((Symbol)fn, (Function) function);
+    }
+    try {
+      return function.applyStatement(this, rho, call, inLoop);
+
+    } catch (EvalException | ControlFlowException | ConditionException | Error e) {
+      throw e;
+
+    } catch (Exception e) {
+      throw wrapException(e);
+
+    } finally {
+      if(Profiler.ENABLED && profiling) {
+        Profiler.functionEnd();
+      }
+    }
+  }
+
+  private static EvalException wrapException(Exception e) {
+    String message = e.getMessage();
+    if(message == null) {
+      message = e.getClass().getName();
+    }
+    return new EvalException(message, e);
+  }
+
+  /**
+   * Applies a builtin function, passing its evaluated arguments directly to the builtin's
+   * fixed-arity entry point when none of them are objects that could require generic dispatch.
+   * This avoids building argument lists for common scalar calls like {@code i + 1}.
+   */
+  private SEXP applyBuiltin(BuiltinFunction builtin, FunctionCall call, Environment rho) {
+    PairList args = call.getArguments();
+    if(args instanceof PairList.Node) {
+      PairList.Node first = (PairList.Node) args;
+      PairList rest = first.getNext();
+      if(rest == Null.INSTANCE) {
+        if(builtin.isFastApplicable(1) && isFastArgument(first.getValue())) {
+          SEXP arg0 = evaluate(first.getValue(), rho);
+          if(arg0.isObject()) {
+            return builtin.apply(this, rho, call, evaluatedArgument(first, arg0, Null.INSTANCE));
+          }
+          return builtin.apply1(this, rho, arg0);
+        }
+      } else if(rest instanceof PairList.Node && ((PairList.Node) rest).getNext() == Null.INSTANCE) {
+        PairList.Node second = (PairList.Node) rest;
+        if(builtin.isFastApplicable(2) && isFastArgument(first.getValue()) && isFastArgument(second.getValue())) {
+          SEXP arg0 = evaluate(first.getValue(), rho);
+          if(arg0.isObject()) {
+            // the second argument is left unevaluated, as the method may not need it
+            return builtin.apply(this, rho, call, evaluatedArgument(first, arg0, second));
+          }
+          SEXP arg1 = evaluate(second.getValue(), rho);
+          if(arg1.isObject()) {
+            return builtin.apply(this, rho, call, evaluatedArgument(first, arg0,
+                evaluatedArgument(second, arg1, Null.INSTANCE)));
+          }
+          return builtin.apply2(this, rho, arg0, arg1);
+        }
+      }
+    }
+    return builtin.apply(this, rho, call, args);
+  }
+
+  private static boolean isFastArgument(SEXP argument) {
+    return argument != Symbols.ELLIPSES && argument != Symbol.MISSING_ARG;
+  }
+
+  /**
+   * Wraps an argument that has already been evaluated so that it is not evaluated again
+   * when falling back to the builtin's general {@code apply} method.
+   */
+  private static PairList.Node evaluatedArgument(PairList.Node node, SEXP value, PairList next) {
+    return new PairList.Node(node.getRawTag(), new Promise(node.getValue(), value), next);
+  }
+
   private Function evaluateFunction(SEXP functionExp, Environment rho) {
     if(functionExp instanceof Symbol) {
       Symbol symbol = (Symbol) functionExp;
@@ -275,6 +275,12 @@ public class DeferredVectorBuilder {
     for(DeferredArgument argument : arguments) {
       JVar param = method.param(argument.accessorType(), "p" + argument.index);
       params.add(argument.convert(param));
+
+      // NaN propagates through double results, but logical and integer
+      // results must check for missing arguments explicitly
+      if(!overload.isPassNA() && argument.type != ArgumentType.BYTE && type != VectorType.DOUBLE) {
+        method.body()._if(argument.isNA(param))._then()._return(na());
+      }
     }
     returnValue(method.body(), buildInvocation(params));
   }
@@ -0,0 +1,94 @@
+package org.renjin.invoke.codegen;
+
+import com.google.common.collect.Lists;
+import com.sun.codemodel.*;
+import org.renjin.eval.Context;
+import org.renjin.eval.EvalException;
+import org.renjin.invoke.model.PrimitiveModel;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.SEXP;
+
+import java.util.List;
+
+import static com.sun.codemodel.JExpr._new;
+import static com.sun.codemodel.JExpr.lit;
+
+/**
+ * Implements the fixed-arity {@code apply1()} and {@code apply2()} methods of
+ * {@code BuiltinFunction}, which are invoked by the evaluator with already-evaluated,
+ * non-object arguments and delegate directly to the {@code doApply} overload wrapper,
+ * without constructing an argument list.
+ */
+public class FastApplyMethodBuilder {
+
+  private final JCodeModel codeModel;
+  private final JDefinedClass invoker;
+  private final PrimitiveModel primitive;
+
+  public FastApplyMethodBuilder(JCodeModel codeModel, JDefinedClass invoker, PrimitiveModel primitive) {
+    this.codeModel = codeModel;
+    this.invoker = invoker;
+    this.primitive = primitive;
+  }
+
+  public void build() {
+    List<Integer> arities = Lists.newArrayList();
+    for (Integer arity : primitive.getArity()) {
+      if(primitive.isFastApplicable(arity)) {
+        arities.add(arity);
+      }
+    }
+    if(arities.isEmpty()) {
+      return;
+    }
+
+    for (Integer arity : arities) {
+      buildApply(arity);
+    }
+    buildIsFastApplicable(arities);
+  }
+
+  private void buildApply(int arity) {
+    JMethod method = invoker.method(JMod.PUBLIC, SEXP.class, "apply" + arity);
+    JVar context = method.param(Context.class, "context");
+    JVar environment = method.param(Environment.class, "environment");
+
+    JInvocation invocation = JExpr.invoke("doApply")
+        .arg(context)
+        .arg(environment);
+
+    for (int i = 0; i < arity; i++) {
+      invocation.arg(method.param(SEXP.class, "arg" + i));
+    }
+
+    ExceptionWrapper mainTryBlock = new ExceptionWrapper(codeModel, method.body(), context);
+    mainTryBlock.body()._return(invocation);
+
+    JCatchBlock catchBlock = mainTryBlock._catch(codeModel.ref(ArgumentException.class));
+    JVar e = catchBlock.param("e");
+    catchBlock.body()._throw(_new(codeModel.ref(EvalException.class))
+        .arg(context)
+        .arg(lit(primitive.argumentErrorMessage()))
+        .arg(e.invoke("getMessage")));
+
+    mainTryBlock.catchEvalExceptions();
+    mainTryBlock.catchRuntimeExceptions();
+    mainTryBlock.catchExceptions();
+  }
+
+  private void buildIsFastApplicable(List<Integer> arities) {
+    JMethod method = invoker.method(JMod.PUBLIC, boolean.class, "isFastApplicable");
+    JVar arity = method.param(int.class, "arity");
+
+    JExpression condition = null;
+    for (int fastArity : arities) {
+      JExpression test = arity.eq(lit(fastArity));
+      if(condition == null) {
+        condition = test;
+      } else {
+        condition = condition.cor(test);
+      }
+    }
+    method.body()._return(condition);
+  }
+}
@@ -51,6 +51,9 @@ public class InvokerGenerator {
         OverloadWrapperBuilder doApply = new OverloadWrapperBuilder(codeModel, invoker, model, arity);
         doApply.build();
       }
+
+      FastApplyMethodBuilder fastApply = new FastApplyMethodBuilder(codeModel, invoker, model);
+      fastApply.build();
     }
   }
 
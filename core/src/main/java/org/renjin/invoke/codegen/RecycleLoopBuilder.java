@@ -11,6 +11,9 @@ import org.renjin.invoke.codegen.scalars.ScalarType;
 import org.renjin.invoke.codegen.scalars.ScalarTypes;
 import org.renjin.invoke.model.JvmMethod;
 import org.renjin.invoke.model.PrimitiveModel;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.Logical;
+import org.renjin.sexp.LogicalVector;
 import org.renjin.sexp.Null;
 import org.renjin.sexp.Symbols;
 import org.renjin.sexp.Vector;
@@ -116,6 +119,7 @@ public class RecycleLoopBuilder {
   public void build() {
 
     computeResultLength();
+    maybeReturnScalar();
     initializeBuilder();
     loop();
     copyAttributes();
@@ -187,6 +191,49 @@ public class RecycleLoopBuilder {
     return codeModel.ref(resultType.getVectorType()).staticRef("EMPTY");
   }
 
+  /**
+   * Generates a shortcut for the common case of scalar arguments without attributes,
+   * returning the result through {@link WrapperRuntime#wrapResult} so that common
+   * values are served from shared, immutable instances rather than allocating a new builder
+   * and vector for each call.
+   */
+  private void maybeReturnScalar() {
+    if(!isScalarBoxable(resultType.getScalarType())) {
+      return;
+    }
+
+    JExpression condition = cycleCount.eq(lit(1));
+    if(overload.getPreserveAttributesStyle() != PreserveAttributeStyle.NONE) {
+      for(RecycledArgument arg : recycledArguments) {
+        condition = condition.cand(arg.vector.invoke("getAttributes").eq(
+            codeModel.ref(AttributeMap.class).staticRef("EMPTY")));
+      }
+    }
+
+    JBlock scalar = parent._if(condition)._then();
+    if(!overload.isPassNA()) {
+      scalar._if(isCurrentElementMissing())._then()._return(scalarNA());
+    }
+    scalar._return(codeModel.ref(WrapperRuntime.class).staticInvoke("wrapResult").arg(computeCycleResult()));
+  }
+
+  private boolean isScalarBoxable(Class scalarType) {
+    return scalarType.equals(int.class) ||
+           scalarType.equals(double.class) ||
+           scalarType.equals(boolean.class) ||
+           scalarType.equals(Logical.class);
+  }
+
+  private JExpression scalarNA() {
+    Class scalarType = resultType.getScalarType();
+    if(scalarType.equals(boolean.class) || scalarType.equals(Logical.class)) {
+      return codeModel.ref(LogicalVector.class).staticRef("NA_VECTOR");
+    } else {
+      return codeModel.ref(WrapperRuntime.class).staticInvoke("wrapResult")
+          .arg(codeModel.ref(resultType.getVectorType()).staticRef("NA"));
+    }
+  }
+
   private void initializeBuilder() {
 
     // Generate the code to initialize the builder:
@@ -120,11 +120,11 @@ public class WrapperRuntime {
   }
   
   public static SEXP wrapResult(int i) {
-    return new IntArrayVector(i);
+    return IntVector.valueOf(i);
   }
   
   public static SEXP wrapResult(Integer i) {
-    return new IntArrayVector(i == null ? IntVector.NA : i);
+    return IntVector.valueOf(i == null ? IntVector.NA : i);
   }
   
   public static SEXP wrapResult(String s) {
@@ -132,7 +132,7 @@ public class WrapperRuntime {
   }    
  
   public static SEXP wrapResult(boolean b) {
-    return new LogicalArrayVector(b);
+    return LogicalVector.valueOf(b);
   }
   
   public static SEXP wrapResult(float f) {
@@ -140,7 +140,7 @@ public class WrapperRuntime {
   }
   
   public static SEXP wrapResult(double d) {
-    return new DoubleArrayVector(d);
+    return DoubleVector.valueOf(d);
   }
  
   public static SEXP wrapResult(long result) {
@@ -152,7 +152,7 @@ public class WrapperRuntime {
   }
   
   public static SEXP wrapResult(Logical result) {
-    return new LogicalArrayVector(result);
+    return LogicalVector.valueOf(result);
   }
 
 
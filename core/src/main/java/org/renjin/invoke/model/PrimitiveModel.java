@@ -124,6 +124,32 @@ public class PrimitiveModel {
     return max;
   }
 
+  /**
+   * @return true if calls to this primitive with {@code arity} positional arguments
+   * can be applied directly to evaluated, non-object arguments through the fixed-arity
+   * {@code apply1}/{@code apply2} entry points of {@code BuiltinFunction}
+   */
+  public boolean isFastApplicable(int arity) {
+    if(isSpecial() || hasVargs() || arity < 1 || arity > 2) {
+      return false;
+    }
+    List<JvmMethod> overloads = overloadsWithPosArgCountOf(arity);
+    if(overloads.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < arity; i++) {
+      if(!isEvaluated(i)) {
+        return false;
+      }
+    }
+    for (JvmMethod overload : overloads) {
+      if(!overload.isDataParallel()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public boolean hasVargs() {
     for(JvmMethod overload : overloads) {
       for(JvmMethod.Argument argument : overload.getFormals()) {
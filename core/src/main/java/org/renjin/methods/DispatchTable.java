@@ -0,0 +1,111 @@
+package org.renjin.methods;
+
+import com.google.common.collect.Maps;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.SEXP;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Java-side table of the methods selected for a single S4 generic, keyed by the
+ * classes of the signature arguments.
+ *
+ * <p>The table sits in front of the generic's {@code .AllMTable} environment, which holds
+ * the methods defined for each signature, as well as the inherited methods previously selected by
+ * {@code .InheritForDispatch}. Entries are only valid as long as {@code .AllMTable} is neither replaced
+ * nor modified, so that {@code setMethod()} and {@code removeMethod()}, which both reset the
+ * table, clear all the selections cached here.</p>
+ *
+ * <p>The first few signatures seen are held in a small inline cache that is searched linearly,
+ * so that the common monomorphic and polymorphic cases avoid hashing the signature altogether.
+ * Further signatures are stored in a hash table.</p>
+ */
+class DispatchTable {
+
+  static final int INLINE_CACHE_SIZE = 4;
+
+  private Environment mtable;
+  private int mtableModCount;
+
+  private final String[][] inlineSignatures = new String[INLINE_CACHE_SIZE][];
+  private final SEXP[] inlineMethods = new SEXP[INLINE_CACHE_SIZE];
+  private int inlineCount = 0;
+
+  private final Map<Signature, SEXP> methods = Maps.newHashMap();
+
+  /**
+   * @param mtable the generic's current {@code .AllMTable} environment
+   * @param signature the classes of the signature arguments
+   * @return the selected method, or {@code null} if this signature has not yet been dispatched or
+   * the methods table has since been modified.
+   */
+  public SEXP lookup(Environment mtable, String[] signature) {
+    if(!isValid(mtable)) {
+      return null;
+    }
+    for (int i = 0; i < inlineCount; i++) {
+      if(Arrays.equals(inlineSignatures[i], signature)) {
+        return inlineMethods[i];
+      }
+    }
+    if(methods.isEmpty()) {
+      return null;
+    }
+    return methods.get(new Signature(signature));
+  }
+
+  /**
+   * Records the method selected for {@code signature}. The method is selected by looking up, or updating,
+   * {@code mtable}, so the table is only cleared if it was invalid before the selection.
+   *
+   * @param mtable the generic's current {@code .AllMTable} environment
+   * @param mtableModCount the modification count of {@code mtable} before the method was selected
+   */
+  public void put(Environment mtable, int mtableModCount, String[] signature, SEXP method) {
+    if(mtable != this.mtable || mtableModCount != this.mtableModCount) {
+      clear();
+    }
+    this.mtable = mtable;
+    this.mtableModCount = mtable.getModCount();
+
+    if(inlineCount < INLINE_CACHE_SIZE) {
+      inlineSignatures[inlineCount] = signature;
+      inlineMethods[inlineCount] = method;
+      inlineCount++;
+    } else {
+      methods.put(new Signature(signature), method);
+    }
+  }
+
+  private boolean isValid(Environment mtable) {
+    return this.mtable == mtable && this.mtableModCount == mtable.getModCount();
+  }
+
+  private void clear() {
+    Arrays.fill(inlineSignatures, null);
+    Arrays.fill(inlineMethods, null);
+    inlineCount = 0;
+    methods.clear();
+  }
+
+  private static final class Signature {
+    private final String[] classes;
+    private final int hashCode;
+
+    private Signature(String[] classes) {
+      this.classes = classes;
+      this.hashCode = Arrays.hashCode(classes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Signature && Arrays.equals(classes, ((Signature) o).classes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package org.renjin.methods;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 import org.renjin.eval.Calls;
 import org.renjin.eval.Context;
@@ -10,6 +12,7 @@ import org.renjin.primitives.Evaluation;
 import org.renjin.sexp.*;
 
 import java.util.HashMap;
+import java.util.Map;
 
 @SessionScoped
 public class MethodDispatch {
@@ -81,6 +84,11 @@ public class MethodDispatch {
   private Environment methodsNamespace;
   private boolean tableDispatchEnabled = true;
 
+  /**
+   * The methods selected for each generic, keyed by the generic's environment
+   */
+  private final Map<Environment, DispatchTable> dispatchTables = new MapMaker().weakKeys().makeMap();
+
 
 
   public void init(Environment environment) {
@@ -113,6 +121,15 @@ public class MethodDispatch {
     return methodsNamespace;
   }
 
+  private DispatchTable getDispatchTable(Environment genericEnvironment) {
+    DispatchTable table = dispatchTables.get(genericEnvironment);
+    if(table == null) {
+      table = new DispatchTable();
+      dispatchTables.put(genericEnvironment, table);
+    }
+    return table;
+  }
+
   public SEXP standardGeneric(Context context, Symbol fname, Environment ev,
                               SEXP fdef) {
     if(tableDispatchEnabled) {
@@ -158,9 +175,9 @@ public class MethodDispatch {
           fname.asString());
     }
     int nargs =  (int)siglength.asReal();
-    ListVector.Builder classListBuilder = ListVector.newBuilder();
+    StringVector[] classes = new StringVector[nargs];
+    String[] signature = new String[nargs];
     StringVector thisClass;
-    StringBuilder buf = new StringBuilder();
 
     for(int i = 0; i < nargs; i++) {
       Symbol arg_sym = sigargs.getElementAsSEXP(i);
@@ -178,16 +195,22 @@ public class MethodDispatch {
         }
         thisClass = Methods.R_data_class(arg, true);
       }
-      classListBuilder.set(i, thisClass);
-      if(i > 0) {
-        buf.append("#");
-      }
-      buf.append(thisClass.asString());
+      classes[i] = thisClass;
+      signature[i] = thisClass.asString();
     }
-    ListVector classes = classListBuilder.build();
-    method = ((Environment)mtable).getVariable(buf.toString());
-    if(method == Symbol.UNBOUND_VALUE) {
-      method = do_inherited_table(context, classes, fdef, mtable, (Environment)ev);
+    DispatchTable dispatchTable = getDispatchTable(f_env);
+    method = dispatchTable.lookup((Environment) mtable, signature);
+    if(method == null) {
+      int mtableModCount = ((Environment) mtable).getModCount();
+      String label = Joiner.on('#').useForNull("null").join(signature);
+      method = ((Environment)mtable).getVariable(label);
+      if(method == Symbol.UNBOUND_VALUE) {
+        method = do_inherited_table(context, new ListVector(classes), fdef, mtable, (Environment)ev);
+      }
+      /* only remember selections that .InheritForDispatch has also cached in the methods table */
+      if(((Environment) mtable).hasVariable(Symbol.get(label))) {
+        dispatchTable.put((Environment) mtable, mtableModCount, signature, method);
+      }
     }
     /* the rest of this is identical to R_standardGeneric;
          hence the f=method to remind us  */
@@ -0,0 +1,154 @@
+package org.renjin.parser;
+
+import java.math.BigInteger;
+
+/**
+ * Converts decimal numbers to the nearest {@code double}.
+ *
+ * <p>The conversion uses the Eisel-Lemire algorithm: the decimal significand is multiplied by a
+ * precomputed 128-bit approximation of the power of five, and the binary exponent is derived from
+ * the decimal exponent, so that no intermediate value is rounded more than once. Like
+ * {@link DoubleToDecimal}, the conversion is stateless and does not allocate.</p>
+ */
+public final class DecimalToDouble {
+
+  /**
+   * The maximum number of decimal digits that can be held exactly in the significand
+   */
+  public static final int MAX_DIGITS = 18;
+
+  private static final int MIN_EXPONENT = -342;
+  private static final int MAX_EXPONENT = 308;
+
+  private static final int MANTISSA_BITS = 52;
+  private static final int MIN_BINARY_EXPONENT = -1023;
+  private static final int INFINITE_POWER = 0x7FF;
+
+  /**
+   * The range of decimal exponents for which a product could lie exactly halfway between two doubles
+   */
+  private static final int MIN_EXPONENT_ROUND_TO_EVEN = -4;
+  private static final int MAX_EXPONENT_ROUND_TO_EVEN = 23;
+
+  /**
+   * For each decimal exponent q, the high and low halves of 5^q, normalized so that the most
+   * significant bit is set
+   */
+  private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+  private DecimalToDouble() {
+  }
+
+  /**
+   * Computes the {@code double} nearest to {@code w * 10^q}.
+   *
+   * @param w the decimal significand, which must be non-negative
+   * @param q the decimal exponent
+   */
+  public static double toDouble(long w, int q) {
+    if(w == 0 || q < MIN_EXPONENT) {
+      return 0d;
+    }
+    if(q > MAX_EXPONENT) {
+      return Double.POSITIVE_INFINITY;
+    }
+    int lz = Long.numberOfLeadingZeros(w);
+    w <<= lz;
+
+    // Multiply by 5^q, with the 64 bit approximation first, and with the
+    // full 128 bits only if the lower bits of the product are all ones
+    int index = 2 * (q - MIN_EXPONENT);
+    long low = w * POWERS_OF_FIVE[index];
+    long high = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index]);
+    if((high & 0x1FF) == 0x1FF) {
+      long secondHigh = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+      low += secondHigh;
+      if(unsignedLessThan(low, secondHigh)) {
+        high++;
+      }
+    }
+
+    int upperBit = (int) (high >>> 63);
+    long mantissa = high >>> (upperBit + 64 - MANTISSA_BITS - 3);
+    int power2 = power(q) + upperBit - lz - MIN_BINARY_EXPONENT;
+
+    if(power2 <= 0) {
+      // subnormal values
+      if(-power2 + 1 >= 64) {
+        return 0d;
+      }
+      mantissa >>>= -power2 + 1;
+      mantissa += (mantissa & 1);
+      mantissa >>>= 1;
+      power2 = (mantissa < (1L << MANTISSA_BITS)) ? 0 : 1;
+      return assemble(mantissa, power2);
+    }
+
+    // If the product is exactly halfway between two doubles, round to even
+    if(!unsignedLessThan(1, low) &&
+        q >= MIN_EXPONENT_ROUND_TO_EVEN && q <= MAX_EXPONENT_ROUND_TO_EVEN &&
+        (mantissa & 3) == 1) {
+      if((mantissa << (upperBit + 64 - MANTISSA_BITS - 3)) == high) {
+        mantissa &= ~1L;
+      }
+    }
+
+    mantissa += (mantissa & 1);
+    mantissa >>>= 1;
+    if(mantissa >= (2L << MANTISSA_BITS)) {
+      mantissa = 1L << MANTISSA_BITS;
+      power2++;
+    }
+    if(power2 >= INFINITE_POWER) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return assemble(mantissa, power2);
+  }
+
+  private static double assemble(long mantissa, int power2) {
+    long bits = (mantissa & ((1L << MANTISSA_BITS) - 1)) | ((long) power2 << MANTISSA_BITS);
+    return Double.longBitsToDouble(bits);
+  }
+
+  /**
+   * floor(log2(10^q)) + 63
+   */
+  private static int power(int q) {
+    return (((152170 + 65536) * q) >> 16) + 63;
+  }
+
+  private static long unsignedMultiplyHigh(long x, long y) {
+    return DoubleToDecimal.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+  }
+
+  private static boolean unsignedLessThan(long x, long y) {
+    return (x ^ Long.MIN_VALUE) < (y ^ Long.MIN_VALUE);
+  }
+
+  private static long[] powersOfFive() {
+    long[] table = new long[2 * (MAX_EXPONENT - MIN_EXPONENT + 1)];
+    BigInteger five = BigInteger.valueOf(5);
+    BigInteger limit = BigInteger.ONE.shiftLeft(128);
+    for (int q = MIN_EXPONENT; q <= MAX_EXPONENT; q++) {
+      BigInteger c;
+      if(q < 0) {
+        // the reciprocal 2^b / 5^-q, rounded up and then truncated to 128 bits
+        BigInteger power = five.pow(-q);
+        int z = power.subtract(BigInteger.ONE).bitLength();
+        int b = q >= -27 ? z + 127 : 2 * z + 2 * 64;
+        c = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+        if(c.compareTo(limit) >= 0) {
+          c = c.shiftRight(c.bitLength() - 128);
+        }
+      } else {
+        // 5^q, shifted or truncated to 128 bits
+        c = five.pow(q);
+        c = c.bitLength() < 128 ? c.shiftLeft(128 - c.bitLength()) : c.shiftRight(c.bitLength() - 128);
+      }
+      int index = 2 * (q - MIN_EXPONENT);
+      table[index] = c.shiftRight(64).longValue();
+      table[index + 1] = c.longValue();
+    }
+    return table;
+  }
+}
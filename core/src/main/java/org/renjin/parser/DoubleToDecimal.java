@@ -0,0 +1,423 @@
+package org.renjin.parser;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Formats {@code double} values with the shortest decimal representation that reads back to the
+ * same value.
+ *
+ * <p>The digits are computed with Raffaello Giulietti's Schubfach algorithm, which needs only
+ * a few 64-bit multiplications with a precomputed 126-bit approximation of a power of ten, so
+ * that formatting neither allocates nor holds any state. The characters are written to a
+ * caller-supplied {@code char[]}, so that callers such as {@code write.table()} can reuse a
+ * single buffer for all of the values they format.</p>
+ *
+ * <p>Like R, values are written in fixed notation unless scientific notation is shorter, and
+ * exponents have at least two digits, for example {@code 0.0001}, {@code 123456}, {@code 1e+05}
+ * or {@code 1.5e-10}.</p>
+ */
+public final class DoubleToDecimal {
+
+  /**
+   * The maximum number of characters written for a single value, for example
+   * {@code -2.2250738585072014e-308}
+   */
+  public static final int MAX_CHARS = 24;
+
+  /**
+   * The number of digits needed to represent any {@code double} value exactly
+   */
+  public static final int MAX_DIGITS = 17;
+
+  private static final int P = 53;
+  private static final int Q_MIN = -1074;
+  private static final long C_MIN = 1L << (P - 1);
+  private static final int BQ_MASK = 0x7FF;
+  private static final long T_MASK = C_MIN - 1;
+  private static final int C_TINY = 3;
+
+  private static final int K_MIN = -324;
+  private static final int K_MAX = 292;
+
+  private static final long MASK_63 = (1L << 63) - 1;
+
+  /**
+   * The ceiling of 2^64 / 10, so that {@code multiplyHigh(x, DIV_10) == x / 10}
+   * for the values of x used here.
+   */
+  private static final long DIV_10 = 1844674407370955168L;
+
+  /**
+   * For each k, the two halves of g = floor(10^-k * 2^-r) + 1, where r is chosen
+   * such that 2^125 <= g < 2^126
+   */
+  private static final long[] G = powersOfTen();
+
+  private DoubleToDecimal() {
+  }
+
+  /**
+   * Writes {@code value} to {@code buffer}, using {@code '.'} as the decimal point.
+   *
+   * @return the offset after the last character written
+   */
+  public static int format(double value, char[] buffer, int offset) {
+    return format(value, MAX_DIGITS, '.', buffer, offset);
+  }
+
+  /**
+   * Writes {@code value} to {@code buffer}. Infinite values are written as {@code Inf} or {@code -Inf},
+   * and NaN values (including {@code NA}) as {@code NaN}.
+   *
+   * @param decimalPoint the character to use as the decimal point
+   * @param buffer the buffer, which must have room for at least {@link #MAX_CHARS} characters from
+   *               {@code offset}
+   * @return the offset after the last character written
+   */
+  public static int format(double value, char decimalPoint, char[] buffer, int offset) {
+    return format(value, MAX_DIGITS, decimalPoint, buffer, offset);
+  }
+
+  /**
+   * Writes {@code value} to {@code buffer}, with at most {@code digits} significant digits.
+   *
+   * <p>If the shortest representation of {@code value} has more than {@code digits} digits,
+   * {@code value} is rounded to {@code digits} digits, rounding exact ties to even, as {@code sprintf}
+   * does, and trailing zeros are dropped. This is how R formats numbers for {@code as.character()}
+   * and {@code deparse()}, with 15 digits.</p>
+   *
+   * @param digits the maximum number of significant digits, between 1 and {@link #MAX_DIGITS}
+   * @return the offset after the last character written
+   */
+  public static int format(double value, int digits, char decimalPoint, char[] buffer, int offset) {
+    long bits = Double.doubleToRawLongBits(value);
+    long t = bits & T_MASK;
+    int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+
+    if(bq == BQ_MASK) {
+      if(t != 0) {
+        return append("NaN", buffer, offset);
+      }
+      return append(bits < 0 ? "-Inf" : "Inf", buffer, offset);
+    }
+    if(bq == 0 && t == 0) {
+      buffer[offset] = '0';
+      return offset + 1;
+    }
+    if(bits < 0) {
+      buffer[offset++] = '-';
+    }
+    if(bq != 0) {
+      // normal values
+      int mq = -Q_MIN + 1 - bq;
+      long c = C_MIN | t;
+      // integers are their own shortest representation
+      if(0 < mq && mq < P) {
+        long f = c >> mq;
+        if(f << mq == c) {
+          if(digitCount(f) > digits) {
+            return round(f, 0, 0, digits, decimalPoint, buffer, offset);
+          }
+          return layout(f, 0, decimalPoint, buffer, offset);
+        }
+      }
+      return toDecimal(-mq, c, 0, digits, decimalPoint, buffer, offset);
+    }
+    // subnormal values
+    if(digits < MAX_DIGITS) {
+      return roundExactly(Math.abs(value), digits, decimalPoint, buffer, offset);
+    }
+    if(t < C_TINY) {
+      return toDecimal(Q_MIN, 10 * t, -1, digits, decimalPoint, buffer, offset);
+    }
+    return toDecimal(Q_MIN, t, 0, digits, decimalPoint, buffer, offset);
+  }
+
+  /**
+   * Returns the shortest representation of {@code value} as a {@code String}
+   */
+  public static String toString(double value) {
+    return toString(value, MAX_DIGITS);
+  }
+
+  /**
+   * Returns the shortest representation of {@code value} with at most {@code digits} significant digits.
+   */
+  public static String toString(double value, int digits) {
+    char[] buffer = new char[MAX_CHARS];
+    int length = format(value, digits, '.', buffer, 0);
+    return new String(buffer, 0, length);
+  }
+
+  /**
+   * Computes the shortest decimal that rounds to {@code c * 2^q}, and writes it out.
+   */
+  private static int toDecimal(int q, long c, int dk, int digits, char decimalPoint, char[] buffer, int offset) {
+    int out = (int) c & 0x1;
+    long cb = c << 2;
+    long cbr = cb + 2;
+    long cbl;
+    int k;
+    // the interval of values rounding to c * 2^q is asymmetric at the powers of two
+    if(c != C_MIN || q == Q_MIN) {
+      cbl = cb - 2;
+      k = floorLog10Pow2(q);
+    } else {
+      cbl = cb - 1;
+      k = floorLog10ThreeQuartersPow2(q);
+    }
+    int h = q + floorLog2Pow10(-k) + 2;
+
+    long g1 = G[(k - K_MIN) << 1];
+    long g0 = G[((k - K_MIN) << 1) + 1];
+
+    // vb is c * 2^q * 10^-k with two extra bits, rounded to odd, so that its lowest two bits
+    // tell whether the fraction dropped from s is zero, less than, equal to, or greater than a half.
+    long vb = roundOdd(g1, g0, cb << h);
+    long vbl = roundOdd(g1, g0, cbl << h);
+    long vbr = roundOdd(g1, g0, cbr << h);
+
+    long s = vb >> 2;
+    if(digits < MAX_DIGITS) {
+      return round(s, (int) vb & 0x3, k + dk, digits, decimalPoint, buffer, offset);
+    }
+    if(s >= 100) {
+      // try one digit less first
+      long sp10 = 10 * multiplyHigh(s, DIV_10);
+      long tp10 = sp10 + 10;
+      boolean upin = vbl + out <= sp10 << 2;
+      boolean wpin = (tp10 << 2) + out <= vbr;
+      if(upin != wpin) {
+        return layout(upin ? sp10 : tp10, k, decimalPoint, buffer, offset);
+      }
+    }
+    long t = s + 1;
+    boolean uin = vbl + out <= s << 2;
+    boolean win = (t << 2) + out <= vbr;
+    if(uin != win) {
+      return layout(uin ? s : t, k + dk, decimalPoint, buffer, offset);
+    }
+    // both s and t are in the rounding interval: choose the closest, or the even one on a tie
+    long cmp = vb - ((s + t) << 1);
+    return layout(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, decimalPoint, buffer, offset);
+  }
+
+  /**
+   * Writes the value (s + fraction / 4) * 10^e rounded to {@code digits} significant digits.
+   * For normal values, s has at least 16 digits.
+   *
+   * @param fraction the fraction dropped from {@code s}, in quarters, and odd if it is not a
+   *                 multiple of a quarter
+   */
+  private static int round(long s, int fraction, int e, int digits, char decimalPoint, char[] buffer, int offset) {
+    int drop = digitCount(s) - digits;
+    long q;
+    if(drop == 0) {
+      q = s;
+      if(fraction > 2 || fraction == 2 && (q & 0x1) == 1) {
+        q++;
+      }
+    } else {
+      long divisor = POWERS_OF_TEN[drop];
+      long half = divisor / 2;
+      q = s / divisor;
+      long r = s - q * divisor;
+      if(r > half || r == half && (fraction != 0 || (q & 0x1) == 1)) {
+        q++;
+      }
+    }
+    return layout(q, e + drop, decimalPoint, buffer, offset);
+  }
+
+  /**
+   * Writes {@code value} rounded to {@code digits} significant digits, for the subnormal values
+   * that carry too few digits for {@link #round(long, int, int, int, char, char[], int)}
+   */
+  private static int roundExactly(double value, int digits, char decimalPoint, char[] buffer, int offset) {
+    BigDecimal rounded = new BigDecimal(value).round(new MathContext(digits, RoundingMode.HALF_EVEN));
+    return layout(rounded.unscaledValue().longValue(), -rounded.scale(), decimalPoint, buffer, offset);
+  }
+
+  /**
+   * Writes the value {@code f * 10^e}, in fixed notation if it is no wider than scientific notation.
+   */
+  private static int layout(long f, int e, char decimalPoint, char[] buffer, int offset) {
+    while(f % 10 == 0) {
+      f /= 10;
+      e++;
+    }
+    int n = digitCount(f);
+
+    // the exponent of the first digit
+    int exponent = e + n - 1;
+
+    int scientificWidth = n + (n > 1 ? 1 : 0) + (Math.abs(exponent) >= 100 ? 5 : 4);
+    int fixedWidth;
+    if(exponent >= 0) {
+      fixedWidth = n > exponent + 1 ? n + 1 : exponent + 1;
+    } else {
+      fixedWidth = n - exponent + 1;
+    }
+
+    if(fixedWidth <= scientificWidth) {
+      if(exponent < 0) {
+        buffer[offset++] = '0';
+        buffer[offset++] = decimalPoint;
+        for (int i = -1; i > exponent; i--) {
+          buffer[offset++] = '0';
+        }
+        return writeDigits(f, n, buffer, offset);
+      }
+      int integerDigits = exponent + 1;
+      if(n <= integerDigits) {
+        offset = writeDigits(f, n, buffer, offset);
+        for (int i = n; i < integerDigits; i++) {
+          buffer[offset++] = '0';
+        }
+        return offset;
+      }
+      // write all the digits, and then move the fraction to make room for the decimal point
+      int end = writeDigits(f, n, buffer, offset);
+      int point = offset + integerDigits;
+      System.arraycopy(buffer, point, buffer, point + 1, end - point);
+      buffer[point] = decimalPoint;
+      return end + 1;
+    }
+
+    // scientific notation: write the digits one place to the right, and move the first
+    // one back before the decimal point
+    int end = writeDigits(f, n, buffer, offset + 1);
+    buffer[offset] = buffer[offset + 1];
+    if(n > 1) {
+      buffer[offset + 1] = decimalPoint;
+    } else {
+      end = offset + 1;
+    }
+    buffer[end++] = 'e';
+    if(exponent < 0) {
+      buffer[end++] = '-';
+      exponent = -exponent;
+    } else {
+      buffer[end++] = '+';
+    }
+    if(exponent >= 100) {
+      buffer[end++] = (char) ('0' + exponent / 100);
+      exponent %= 100;
+    }
+    buffer[end++] = (char) ('0' + exponent / 10);
+    buffer[end++] = (char) ('0' + exponent % 10);
+    return end;
+  }
+
+  private static int writeDigits(long f, int n, char[] buffer, int offset) {
+    int i = offset + n;
+    // write the low digits eight at a time with int arithmetic
+    while(f > Integer.MAX_VALUE) {
+      long q = f / 100000000;
+      int r = (int) (f - q * 100000000);
+      for (int j = 0; j < 8; j++) {
+        buffer[--i] = (char) ('0' + r % 10);
+        r /= 10;
+      }
+      f = q;
+    }
+    int v = (int) f;
+    while(i > offset) {
+      buffer[--i] = (char) ('0' + v % 10);
+      v /= 10;
+    }
+    return offset + n;
+  }
+
+  private static int digitCount(long f) {
+    int n = 1;
+    long limit = 10;
+    while(n < 19 && f >= limit) {
+      n++;
+      limit *= 10;
+    }
+    return n;
+  }
+
+  private static int append(String s, char[] buffer, int offset) {
+    s.getChars(0, s.length(), buffer, offset);
+    return offset + s.length();
+  }
+
+  /**
+   * Computes the product of g and cp, rounded to odd, where g = g1 * 2^63 + g0
+   */
+  private static long roundOdd(long g1, long g0, long cp) {
+    long x1 = multiplyHigh(g0, cp);
+    long y0 = g1 * cp;
+    long y1 = multiplyHigh(g1, cp);
+    long z = (y0 >>> 1) + x1;
+    long vbp = y1 + (z >>> 63);
+    return vbp | ((z & MASK_63) + MASK_63) >>> 63;
+  }
+
+  /**
+   * The high 64 bits of the 128-bit product of x and y
+   */
+  static long multiplyHigh(long x, long y) {
+    long x1 = x >> 32;
+    long x2 = x & 0xFFFFFFFFL;
+    long y1 = y >> 32;
+    long y2 = y & 0xFFFFFFFFL;
+    long z2 = x2 * y2;
+    long t = x1 * y2 + (z2 >>> 32);
+    long z1 = t & 0xFFFFFFFFL;
+    long z0 = t >> 32;
+    z1 += x2 * y1;
+    return x1 * y1 + z0 + (z1 >> 32);
+  }
+
+  /**
+   * floor(log10(2^e))
+   */
+  private static int floorLog10Pow2(int e) {
+    return (int) (e * 661971961083L >> 41);
+  }
+
+  /**
+   * floor(log10(3/4 * 2^e))
+   */
+  private static int floorLog10ThreeQuartersPow2(int e) {
+    return (int) (e * 661971961083L + -274743187321L >> 41);
+  }
+
+  /**
+   * floor(log2(10^e))
+   */
+  private static int floorLog2Pow10(int e) {
+    return (int) (e * 913124641741L >> 38);
+  }
+
+  private static final long[] POWERS_OF_TEN = {
+      1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+      10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+      1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L };
+
+  private static long[] powersOfTen() {
+    long[] g = new long[(K_MAX - K_MIN + 1) * 2];
+    BigInteger ten = BigInteger.TEN;
+    for (int k = K_MIN; k <= K_MAX; k++) {
+      int p = -k;
+      int shift = 125 - floorLog2Pow10(p);
+      BigInteger beta;
+      if(p >= 0) {
+        beta = ten.pow(p);
+        beta = shift >= 0 ? beta.shiftLeft(shift) : beta.shiftRight(-shift);
+      } else {
+        beta = BigInteger.ONE.shiftLeft(shift).divide(ten.pow(-p));
+      }
+      BigInteger gk = beta.add(BigInteger.ONE);
+      g[(k - K_MIN) << 1] = gk.shiftRight(63).longValue();
+      g[((k - K_MIN) << 1) + 1] = gk.longValue() & MASK_63;
+    }
+    return g;
+  }
+}
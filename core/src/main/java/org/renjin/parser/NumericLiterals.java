@@ -4,13 +4,15 @@ import org.apache.commons.math.complex.Complex;
 import org.renjin.sexp.ComplexVector;
 import org.renjin.sexp.DoubleVector;
 
-import java.text.NumberFormat;
-
 /**
  * Parses and formats numbers to/from strings 
  */
 public class NumericLiterals {
-  public static final NumberFormat REAL_FORMAT = createRealFormat();
+
+  /**
+   * The number of significant digits used by R to convert numbers to strings
+   */
+  public static final int REAL_DIGITS = 15;
 
   /**
    * Formats a {@code double} as a literal
@@ -21,10 +23,6 @@ public class NumericLiterals {
   public static String format(double value, String naString) {
     if(DoubleVector.isNA(value)) {
       return naString;
-    } else if(Double.isNaN(value)) {
-      return "NaN";
-    } else if(Double.isInfinite(value)) {
-      return "Inf";
     } else {
       return toString(value);
     }
@@ -34,13 +32,12 @@ public class NumericLiterals {
     return Integer.toString(value);
   }
 
+  /**
+   * Formats a {@code double} with up to 15 significant digits, as R does
+   * for {@code as.character()}, {@code paste()} and {@code deparse()}.
+   */
   public static String toString(double value) {
-    // TODO: the original R implementation formats numbers based on options,
-    // this is just a quick hack
-    if(value > 100000) {
-      return Double.toString(value);
-    }
-    return REAL_FORMAT.format(value);
+    return DoubleToDecimal.toString(value, REAL_DIGITS);
   }
   
   public static String toString(Complex complex) {
@@ -54,14 +51,6 @@ public class NumericLiterals {
     return sb.toString();
   }
 
-  public static NumberFormat createRealFormat() {
-    NumberFormat format = NumberFormat.getNumberInstance();
-    format.setMinimumFractionDigits(0);
-    format.setMaximumFractionDigits(14);
-    format.setGroupingUsed(false);
-    return format;
-  }
-
   /**
    * Parses a String to a double using the decimal point '.'
    */
@@ -113,7 +102,7 @@ public class NumericLiterals {
    * Parses a string to a double.
    */
   public static double parseDouble(CharSequence s, int startIndex, int endIndex, char dec, boolean NA) {
-    double ans = 0.0, p10 = 10.0, fac = 1.0;
+    double ans = 0.0, fac = 1.0;
     int n;
     int expn = 0;
     int sign = 1;
@@ -164,7 +153,7 @@ public class NumericLiterals {
       return (sign * ans);
     }
 
-    if(( (endIndex-p) > 2) && s.charAt(p) == '0' && (s.charAt(p+1) == 'x' || s.charAt(p+2) == 'X')) {
+    if(( (endIndex-p) > 2) && s.charAt(p) == '0' && (s.charAt(p+1) == 'x' || s.charAt(p+1) == 'X')) {
         /* This will overflow to Inf if appropriate */
       for(p += 2; p<s.length(); p++) {
         if('0' <= s.charAt(p) && s.charAt(p) <= '9') {
@@ -219,21 +208,48 @@ public class NumericLiterals {
       return sign * ans;
     }
 
+    // Accumulate up to 18 significant digits exactly; any further digits only
+    // shift the exponent, and are checked below
+    long significand = 0;
+    int significantDigits = 0;
+    boolean truncated = false;
+    int digitsStart = p;
+    int fractionDigits = 0;
     for ( ; p < endIndex && s.charAt(p) >= '0' && s.charAt(p) <= '9'; p++, ndigits++) {
-      ans = 10 * ans + (s.charAt(p) - '0');
+      int digit = s.charAt(p) - '0';
+      if(significantDigits < DecimalToDouble.MAX_DIGITS) {
+        significand = significand * 10 + digit;
+        if(significand != 0) {
+          significantDigits++;
+        }
+      } else {
+        truncated |= digit != 0;
+        expn++;
+      }
     }
     if ( p < endIndex && s.charAt(p) == dec) {
-      for (p++; p < endIndex && s.charAt(p) >= '0' && s.charAt(p) <= '9'; p++, ndigits++, expn--) {
-        ans = 10 * ans + (s.charAt(p) - '0');
+      for (p++; p < endIndex && s.charAt(p) >= '0' && s.charAt(p) <= '9'; p++, ndigits++, fractionDigits++) {
+        int digit = s.charAt(p) - '0';
+        if(significantDigits < DecimalToDouble.MAX_DIGITS) {
+          significand = significand * 10 + digit;
+          if(significand != 0) {
+            significantDigits++;
+          }
+          expn--;
+        } else {
+          truncated |= digit != 0;
+        }
       }
     }
+    int digitsEnd = p;
     if (ndigits == 0) {
       ans = DoubleVector.NA;
       p = 0; /* back out */
       return (sign * ans);
     }
 
-    if ( p < endIndex && (s.charAt(p) == 'e' || s.charAt(p) == 'E')) {
+    int exponent = 0;
+    if ( p + 1 < endIndex && (s.charAt(p) == 'e' || s.charAt(p) == 'E')) {
       int expsign = 1;
       switch(s.charAt(++p)) {
         case '-':
@@ -245,41 +261,35 @@ public class NumericLiterals {
           break;
       }
       for (n = 0; p < endIndex && s.charAt(p) >= '0' && s.charAt(p) <= '9'; p++) {
-        n = n * 10 + (s.charAt(p) - '0');
+        // larger exponents overflow or underflow in any case
+        if(n < 100000) {
+          n = n * 10 + (s.charAt(p) - '0');
+        }
       }
-      expn += expsign * n;
+      exponent = expsign * n;
+      expn += exponent;
     }
-  
-      /* avoid unnecessary underflow for large negative exponents */
-    if (expn + ndigits < -300) {
-      for (n = 0; n < ndigits; n++) {
-        ans /= 10.0;
-      }
-      expn += ndigits;
+
+    ans = DecimalToDouble.toDouble(significand, expn);
+
+    // If digits were dropped, the value lies between significand and significand + 1.
+    // Only if these round to different doubles do we need all of the digits.
+    if(truncated && ans != DecimalToDouble.toDouble(significand + 1, expn)) {
+      ans = parseAllDigits(s, digitsStart, digitsEnd, dec, exponent - fractionDigits);
     }
-    if (expn < -307) { /* use underflow, not overflow */
-      for (n = -expn, fac = 1.0; n!=0; n >>= 1, p10 *= p10) {
-        if ((n & 1) != 0) {
-          fac /= p10;
-        }
-      }
-      ans *= fac;
-    } else if (expn < 0) { /* positive powers are exact */
-      for (n = -expn, fac = 1.0; n!=0; n >>= 1, p10 *= p10) {
-        if ((n & 1) != 0) {
-          fac *= p10;
-        }
-      }
-      ans /= fac;
-    } else {
-      for (n = expn, fac = 1.0; n!=0; n >>= 1, p10 *= p10) {
-        if ((n & 1) != 0) {
-          fac *= p10;
-        }
+    return (sign * ans);
+  }
+
+  private static double parseAllDigits(CharSequence s, int start, int end, char dec, int exponent) {
+    StringBuilder digits = new StringBuilder(end - start + 8);
+    for (int i = start; i < end; i++) {
+      char c = s.charAt(i);
+      if(c != dec) {
+        digits.append(c);
       }
-      ans *= fac;
     }
-    return (sign * ans);
+    digits.append('E').append(exponent);
+    return Double.parseDouble(digits.toString());
   }
 
   private static boolean nextWordIgnoringCaseIs(CharSequence s, int start, int endIndex, String word) {
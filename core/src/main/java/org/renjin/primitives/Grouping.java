@@ -0,0 +1,303 @@
+package org.renjin.primitives;
+
+import org.renjin.sexp.*;
+
+import java.util.Arrays;
+
+/**
+ * Assigns each element of a vector to a group, such as the level of a factor, and
+ * computes reductions over each group.
+ *
+ * <p>The elements of each group are found with a counting sort: one pass counts the size of
+ * each group, and a second places the index of each element in its group's range of a single
+ * array. Reductions such as {@link #sum(AtomicVector)} do not need even this: they make a single
+ * pass over the elements, accumulating into one array slot per group, so that no vector
+ * is allocated for any group.</p>
+ *
+ * <p>Elements which belong to no group, for example because their factor code is {@code NA},
+ * are left out.</p>
+ */
+public class Grouping {
+
+  private static final int NO_GROUP = -1;
+
+  private final int groupCount;
+
+  /**
+   * The zero-based group of each element, or {@code NO_GROUP}
+   */
+  private final int[] groups;
+
+  /**
+   * The element indexes, ordered by group. Computed on demand.
+   */
+  private int[] order;
+
+  /**
+   * The start of each group's range in {@code order}, followed by the total length
+   */
+  private int[] offsets;
+
+  private Grouping(int[] groups, int groupCount) {
+    this.groups = groups;
+    this.groupCount = groupCount;
+  }
+
+  /**
+   * Groups elements by one-based integer codes, such as those of a factor.
+   *
+   * @param codes the code of each element, recycled if shorter than {@code length}. Codes
+   *              that are {@code NA} or greater than {@code groupCount} belong to no group.
+   * @param groupCount the number of groups, for example the number of levels of a factor
+   * @param length the number of elements to group
+   */
+  public static Grouping fromCodes(AtomicVector codes, int groupCount, int length) {
+    int[] groups = new int[length];
+    int codeCount = codes.length();
+    for (int i = 0; i < length; i++) {
+      int code = codes.getElementAsInt(codeCount == length ? i : i % codeCount);
+      if(IntVector.isNA(code) || code < 1 || code > groupCount) {
+        groups[i] = NO_GROUP;
+      } else {
+        groups[i] = code - 1;
+      }
+    }
+    return new Grouping(groups, groupCount);
+  }
+
+  public int getGroupCount() {
+    return groupCount;
+  }
+
+  /**
+   * @return the number of elements grouped, including those in no group
+   */
+  public int length() {
+    return groups.length;
+  }
+
+  /**
+   * @return the zero-based group of the element at {@code index}, or -1 if it belongs to no group
+   */
+  public int getGroup(int index) {
+    return groups[index];
+  }
+
+  /**
+   * @return the start of {@code group}'s range, as passed to {@link #getIndex(int)}
+   */
+  public int getGroupStart(int group) {
+    sort();
+    return offsets[group];
+  }
+
+  /**
+   * @return the (exclusive) end of {@code group}'s range, as passed to {@link #getIndex(int)}
+   */
+  public int getGroupEnd(int group) {
+    sort();
+    return offsets[group + 1];
+  }
+
+  public int getGroupSize(int group) {
+    sort();
+    return offsets[group + 1] - offsets[group];
+  }
+
+  /**
+   * @return the index of the element at {@code position} when elements are ordered by group.
+   * Within each group, elements remain in their original order.
+   */
+  public int getIndex(int position) {
+    sort();
+    return order[position];
+  }
+
+  private void sort() {
+    if(order != null) {
+      return;
+    }
+    int[] starts = new int[groupCount + 1];
+    for (int i = 0; i < groups.length; i++) {
+      if(groups[i] != NO_GROUP) {
+        starts[groups[i] + 1]++;
+      }
+    }
+    for (int group = 0; group < groupCount; group++) {
+      starts[group + 1] += starts[group];
+    }
+    this.offsets = starts.clone();
+
+    int[] order = new int[starts[groupCount]];
+    for (int i = 0; i < groups.length; i++) {
+      if(groups[i] != NO_GROUP) {
+        order[starts[groups[i]]++] = i;
+      }
+    }
+    this.order = order;
+  }
+
+  /**
+   * @return the number of elements in each group
+   */
+  public IntVector count() {
+    int[] counts = new int[groupCount];
+    for (int i = 0; i < groups.length; i++) {
+      if(groups[i] != NO_GROUP) {
+        counts[groups[i]]++;
+      }
+    }
+    return IntArrayVector.unsafe(counts);
+  }
+
+  /**
+   * Sums the elements of {@code x} in each group, as {@code sum()} would. Empty groups are {@code NA}.
+   *
+   * @return an integer vector if {@code x} is integer or logical, or a double vector otherwise. Integer
+   * sums which overflow are {@code NA}.
+   */
+  public AtomicVector sum(AtomicVector x) {
+    if(isIntegral(x)) {
+      long[] sums = new long[groupCount];
+      boolean[] seen = new boolean[groupCount];
+      boolean[] na = new boolean[groupCount];
+      for (int i = 0; i < groups.length; i++) {
+        int group = groups[i];
+        if(group != NO_GROUP && !na[group]) {
+          seen[group] = true;
+          int value = x.getElementAsInt(i);
+          if(IntVector.isNA(value)) {
+            na[group] = true;
+          } else {
+            sums[group] += value;
+          }
+        }
+      }
+      int[] result = new int[groupCount];
+      for (int group = 0; group < groupCount; group++) {
+        if(!seen[group] || na[group] || sums[group] < Integer.MIN_VALUE || sums[group] > Integer.MAX_VALUE) {
+          result[group] = IntVector.NA;
+        } else {
+          result[group] = (int) sums[group];
+        }
+      }
+      return IntArrayVector.unsafe(result);
+    } else {
+      double[] sums = new double[groupCount];
+      boolean[] seen = new boolean[groupCount];
+      boolean[] na = new boolean[groupCount];
+      for (int i = 0; i < groups.length; i++) {
+        int group = groups[i];
+        if(group != NO_GROUP && !na[group]) {
+          seen[group] = true;
+          double value = x.getElementAsDouble(i);
+          if(DoubleVector.isNA(value)) {
+            na[group] = true;
+          } else {
+            sums[group] += value;
+          }
+        }
+      }
+      return DoubleArrayVector.unsafe(withNA(sums, seen, na));
+    }
+  }
+
+  /**
+   * Computes the mean of the elements of {@code x} in each group, as {@code mean()} would.
+   * Empty groups are {@code NA}.
+   */
+  public DoubleVector mean(AtomicVector x) {
+    double[] sums = new double[groupCount];
+    int[] counts = new int[groupCount];
+    for (int i = 0; i < groups.length; i++) {
+      int group = groups[i];
+      if(group != NO_GROUP) {
+        sums[group] += x.getElementAsDouble(i);
+        counts[group]++;
+      }
+    }
+    for (int group = 0; group < groupCount; group++) {
+      sums[group] = counts[group] == 0 ? DoubleVector.NA : sums[group] / counts[group];
+    }
+    return DoubleArrayVector.unsafe(sums);
+  }
+
+  /**
+   * Finds the smallest element of {@code x} in each group, as {@code min()} would.
+   * Empty groups are {@code NA}.
+   */
+  public AtomicVector min(AtomicVector x) {
+    return extreme(x, false);
+  }
+
+  /**
+   * Finds the largest element of {@code x} in each group, as {@code max()} would.
+   * Empty groups are {@code NA}.
+   */
+  public AtomicVector max(AtomicVector x) {
+    return extreme(x, true);
+  }
+
+  private AtomicVector extreme(AtomicVector x, boolean max) {
+    if(isIntegral(x)) {
+      int[] result = new int[groupCount];
+      boolean[] seen = new boolean[groupCount];
+      boolean[] na = new boolean[groupCount];
+      for (int i = 0; i < groups.length; i++) {
+        int group = groups[i];
+        if(group != NO_GROUP && !na[group]) {
+          int value = x.getElementAsInt(i);
+          if(IntVector.isNA(value)) {
+            na[group] = true;
+          } else if(!seen[group] || (max ? value > result[group] : value < result[group])) {
+            result[group] = value;
+            seen[group] = true;
+          }
+        }
+      }
+      for (int group = 0; group < groupCount; group++) {
+        if(!seen[group] || na[group]) {
+          result[group] = IntVector.NA;
+        }
+      }
+      return IntArrayVector.unsafe(result);
+    } else {
+      double[] result = new double[groupCount];
+      Arrays.fill(result, max ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY);
+      boolean[] seen = new boolean[groupCount];
+      boolean[] na = new boolean[groupCount];
+      for (int i = 0; i < groups.length; i++) {
+        int group = groups[i];
+        if(group != NO_GROUP && !na[group]) {
+          seen[group] = true;
+          double value = x.getElementAsDouble(i);
+          if(DoubleVector.isNA(value)) {
+            na[group] = true;
+          } else if(Double.isNaN(value) || (max ? value > result[group] : value < result[group])) {
+            // NaN is kept unless an NA is found later
+            if(!Double.isNaN(result[group])) {
+              result[group] = value;
+            }
+          }
+        }
+      }
+      return DoubleArrayVector.unsafe(withNA(result, seen, na));
+    }
+  }
+
+  private static boolean isIntegral(AtomicVector x) {
+    return x instanceof IntVector || x instanceof LogicalVector;
+  }
+
+  /**
+   * Sets the result of each group which had no elements, or an {@code NA} element, to {@code NA}
+   */
+  private static double[] withNA(double[] values, boolean[] seen, boolean[] na) {
+    for (int i = 0; i < values.length; i++) {
+      if(!seen[i] || na[i]) {
+        values[i] = DoubleVector.NA;
+      }
+    }
+    return values;
+  }
+}
@@ -26,6 +26,7 @@ import org.apache.commons.math.util.MathUtils;
 import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.*;
+import org.renjin.primitives.summary.DeferredCumulative;
 import org.renjin.sexp.*;
 
 import java.math.BigDecimal;
@@ -396,6 +397,9 @@ public class MathGroup {
 
   @Builtin
   public static DoubleVector cumsum(DoubleVector source) {
+    if(source.isDeferred()) {
+      return DeferredCumulative.sum(source, source.getAttributes().copyNames());
+    }
     return cumulativeRealSum(source);
   }
   
@@ -498,6 +502,9 @@ public class MathGroup {
   
   @Builtin
   public static DoubleVector cumprod(DoubleVector source) {
+    if(source.isDeferred()) {
+      return DeferredCumulative.product(source, source.getAttributes().copyNames());
+    }
     return cumulativeRealProduct(source);
   }
 
@@ -676,6 +676,7 @@ public class Primitives {
     f("seq_along", Sequences.class, "seqAlong", 1);
     f("list", Vectors.class, "list", 1);
     f("split",  Split.class, 11);
+    f("groupReduce",  Split.class, 11);
     f("is.loaded", /*isloaded*/ null, -1);
     f(".C", Native.class, -1);
     f(".Fortran", Native.class, -1);
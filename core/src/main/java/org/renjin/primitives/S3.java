@@ -489,7 +489,7 @@ public class S3 {
         return next;
       } else {
         Environment methodTable = getMethodTable();
-        GenericMethod function = findNext(methodTable, genericMethodName, "default");
+        GenericMethod function = findNext(methodTable, Collections.singletonList("default"), null);
         if(function != null) {
           return function;
         }
@@ -506,17 +506,46 @@ public class S3 {
     }
 
     public GenericMethod findNext() {
-      Environment methodTable = getMethodTable();
-      GenericMethod method;
-      
+      return findNext(getMethodTable(), classes, group);
+    }
+
+    /**
+     * Finds the first method for {@code classes}, using the session's {@link S3DispatchCache}
+     * if none of the environments involved have changed since the last identical resolution.
+     */
+    private GenericMethod findNext(Environment methodTable, List<String> classes, String group) {
+      S3DispatchCache cache = context.getSession().getSingleton(S3DispatchCache.class);
+      S3DispatchCache.Key key = new S3DispatchCache.Key(genericMethodName, group, classes,
+          callingEnvironment.getParent(), methodTable);
+
+      S3DispatchCache.Resolution resolution = cache.get(key, callingEnvironment);
+      if(resolution == null) {
+        List<Symbol> candidates = Lists.newArrayList();
+        resolution = resolve(methodTable, classes, group, candidates);
+        cache.put(key, callingEnvironment, candidates, resolution);
+
+      } else if(S3DispatchCache.isNotFound(resolution)) {
+        resolution = null;
+      }
+
+      if(resolution == null) {
+        return null;
+      }
+      return new GenericMethod(this, resolution.getMethod(), resolution.getClassName(), resolution.getFunction());
+    }
+
+    private S3DispatchCache.Resolution resolve(Environment methodTable, List<String> classes, String group,
+                                               List<Symbol> candidates) {
+      S3DispatchCache.Resolution method;
+
       for(String className : classes) {
-        
-        method = findNext(methodTable, genericMethodName, className);
+
+        method = resolve(methodTable, genericMethodName, className, candidates);
         if(method != null) {
           return method;
         }
         if(group != null) {
-          method = findNext(methodTable, group, className);
+          method = resolve(methodTable, group, className, candidates);
           if(method != null) {
             return method;
           }
@@ -525,14 +554,17 @@ public class S3 {
       return null;
     }
 
-    private GenericMethod findNext(Environment methodTable, String name, String className) {
+    private S3DispatchCache.Resolution resolve(Environment methodTable, String name, String className,
+                                               List<Symbol> candidates) {
       Symbol method = Symbol.get(name + "." + className);
+      candidates.add(method);
       SEXP function = callingEnvironment.findFunction(context, method);
       if(function != null) {
-        return new GenericMethod(this, method, className, (Function) function);
+        return new S3DispatchCache.Resolution(method, className, (Function) function);
         
       } else if(methodTable != null && methodTable.hasVariable(method)) {
-        return new GenericMethod(this, method, className, (Function) methodTable.getVariable(method).force(context));
+        return new S3DispatchCache.Resolution(method, className,
+            (Function) methodTable.getVariable(method).force(context));
       
       } else {
         return null;
@@ -0,0 +1,218 @@
+package org.renjin.primitives;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.Function;
+import org.renjin.sexp.Symbol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Caches the resolution of S3 methods within a {@link org.renjin.eval.Session}.
+ *
+ * <p>Resolving an S3 method requires looking up {@code generic.class} for each of the object's
+ * classes along the whole chain of enclosing environments, and then in the S3 methods table of the
+ * generic's namespace. The result of a resolution is cached, keyed by the generic, the group,
+ * the class vector, the enclosing environment of the call, and the methods table.</p>
+ *
+ * <p>Each entry records the modification count of every environment on the search path and of the
+ * methods table at the time of the resolution, and is only used if none have since changed. Defining,
+ * removing, or registering a method, or attaching a package, therefore invalidates the entries that
+ * might be affected.</p>
+ *
+ * <p>The check is coarse: any assignment to an environment invalidates every entry whose search
+ * path includes it, whether or not the name assigned is a method. The global environment is on the
+ * search path of nearly every call, so every global assignment in practice flushes all entries. The
+ * cache pays off in code that dispatches repeatedly between global assignments, such as loops within
+ * functions.</p>
+ */
+public class S3DispatchCache {
+
+  private static final Resolution NOT_FOUND = new Resolution(null, null, null);
+
+  private final Cache<Key, Entry> cache = CacheBuilder.newBuilder()
+      .maximumSize(1000)
+      .build();
+
+  /**
+   * The result of a resolution.
+   */
+  static class Resolution {
+    private final Symbol method;
+    private final String className;
+    private final Function function;
+
+    Resolution(Symbol method, String className, Function function) {
+      this.method = method;
+      this.className = className;
+      this.function = function;
+    }
+
+    public Symbol getMethod() {
+      return method;
+    }
+
+    public String getClassName() {
+      return className;
+    }
+
+    public Function getFunction() {
+      return function;
+    }
+  }
+
+  static final class Key {
+    private final String generic;
+    private final String group;
+    private final List<String> classes;
+    private final Environment enclosingEnvironment;
+    private final Environment methodTable;
+
+    Key(String generic, String group, List<String> classes, Environment enclosingEnvironment,
+        Environment methodTable) {
+      this.generic = generic;
+      this.group = group;
+      this.classes = new ArrayList<>(classes);
+      this.enclosingEnvironment = enclosingEnvironment;
+      this.methodTable = methodTable;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return generic.equals(key.generic) &&
+          (group == null ? key.group == null : group.equals(key.group)) &&
+          classes.equals(key.classes) &&
+          enclosingEnvironment == key.enclosingEnvironment &&
+          methodTable == key.methodTable;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = generic.hashCode();
+      result = 31 * result + (group != null ? group.hashCode() : 0);
+      result = 31 * result + classes.hashCode();
+      result = 31 * result + java.lang.System.identityHashCode(enclosingEnvironment);
+      result = 31 * result + java.lang.System.identityHashCode(methodTable);
+      return result;
+    }
+  }
+
+  private static class Entry {
+
+    /**
+     * The names of all the methods that were tried
+     */
+    private final Symbol[] candidates;
+
+    /**
+     * The enclosing environment of the call and all of its parents
+     */
+    private final Environment[] searchPath;
+    private final int[] modCounts;
+
+    private final int methodTableModCount;
+
+    /**
+     * The method found, or {@code null} if no method was found
+     */
+    private final Resolution resolution;
+
+    private Entry(Key key, List<Symbol> candidates, Resolution resolution) {
+      this.candidates = candidates.toArray(new Symbol[candidates.size()]);
+      this.resolution = resolution;
+
+      List<Environment> environments = new ArrayList<>();
+      for (Environment env = key.enclosingEnvironment; env != Environment.EMPTY; env = env.getParent()) {
+        environments.add(env);
+      }
+      this.searchPath = environments.toArray(new Environment[environments.size()]);
+      this.modCounts = new int[searchPath.length];
+      for (int i = 0; i < searchPath.length; i++) {
+        modCounts[i] = searchPath[i].getModCount();
+      }
+      this.methodTableModCount = modCount(key.methodTable);
+    }
+
+    private boolean isValid(Key key) {
+      Environment env = key.enclosingEnvironment;
+      for (int i = 0; i < searchPath.length; i++) {
+        if(env != searchPath[i] || env.getModCount() != modCounts[i]) {
+          return false;
+        }
+        env = env.getParent();
+      }
+      return env == Environment.EMPTY &&
+          modCount(key.methodTable) == methodTableModCount;
+    }
+  }
+
+  /**
+   * Looks up a previous resolution.
+   *
+   * @param key the generic, classes and environments of the resolution
+   * @param callingEnvironment the environment from which the method is being resolved. Only its
+   *                           enclosing environment forms part of the key, so a cached resolution is
+   *                           only used if this environment does not itself bind any of the methods.
+   * @return the cached resolution, or {@code null} if there is no valid cached resolution.
+   * Use {@link #isNotFound(Resolution)} to distinguish a cached failure to find a method.
+   */
+  Resolution get(Key key, Environment callingEnvironment) {
+    Entry entry = cache.getIfPresent(key);
+    if(entry == null) {
+      return null;
+    }
+    if(!entry.isValid(key)) {
+      cache.invalidate(key);
+      return null;
+    }
+    if(bindsAny(callingEnvironment, entry.candidates)) {
+      return null;
+    }
+    if(entry.resolution == null) {
+      return NOT_FOUND;
+    }
+    return entry.resolution;
+  }
+
+  /**
+   * Stores the result of a resolution
+   *
+   * @param candidates the names of all the methods looked up during the resolution
+   * @param resolution the method found, or {@code null} if none was found.
+   */
+  void put(Key key, Environment callingEnvironment, List<Symbol> candidates, Resolution resolution) {
+    // Bindings in the calling environment itself are specific to this call
+    if(!bindsAny(callingEnvironment, candidates.toArray(new Symbol[candidates.size()]))) {
+      cache.put(key, new Entry(key, candidates, resolution));
+    }
+  }
+
+  static boolean isNotFound(Resolution resolution) {
+    return resolution == NOT_FOUND;
+  }
+
+  private static boolean bindsAny(Environment environment, Symbol[] symbols) {
+    for (Symbol symbol : symbols) {
+      if(environment.hasVariable(symbol)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int modCount(Environment environment) {
+    if(environment == null) {
+      return 0;
+    }
+    return environment.getModCount();
+  }
+}
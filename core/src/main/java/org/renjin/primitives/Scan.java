@@ -123,10 +123,10 @@ public class Scan {
   }
 
   private static class StringReader implements Scanner {
-    private final StringVector.Builder builder;
+    private final DictionaryStringVector.Builder builder;
 
     private StringReader() {
-      this.builder = new StringVector.Builder();
+      this.builder = new DictionaryStringVector.Builder();
     }
 
     public void read(String value) {
@@ -1,64 +1,90 @@
 package org.renjin.primitives;
 
-import com.google.common.collect.Maps;
+import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.Internal;
 import org.renjin.sexp.*;
 
-import java.util.Map;
-
 public class Split {
   private Split() {}
 
 
   @Internal
   public static ListVector split(Vector toSplit, IntVector factors) {
-    Map<Integer, SplitBuilder> map = Maps.newHashMap();
-
-    int length = Math.max(toSplit.length(), factors.length());
-
-    for(int i=0;i!=length;++i) {
-      int factorIndex = i % factors.length();
-      int splitIndex = factors.getElementAsInt(factorIndex);
-      if(!IntVector.isNA(splitIndex)) {
-        SplitBuilder splitBuilder = map.get(splitIndex);
-        if (splitBuilder == null) {
-          splitBuilder = new SplitBuilder(toSplit);
-          map.put(splitIndex, splitBuilder);
-        }
-        splitBuilder.add(toSplit, i);
-      }
-    }
 
     StringVector levels = (StringVector) factors.getAttributes().get(Symbols.LEVELS);
 
-    ListVector.NamedBuilder resultList = new ListVector.NamedBuilder();
-    for(Integer split : map.keySet()) {
-      resultList.add(levels.getElementAsString(split-1), map.get(split).build());
+    // If the factor is longer than the vector, the remaining codes are ignored
+    Grouping grouping = Grouping.fromCodes(factors, levels.length(), toSplit.length());
+
+    // Like R, return a (possibly empty) element for each level
+    ListVector.NamedBuilder resultList = new ListVector.NamedBuilder(0, levels.length());
+    for(int group=0;group!=levels.length();++group) {
+      SplitBuilder splitBuilder = new SplitBuilder(toSplit, grouping.getGroupSize(group));
+      for(int position=grouping.getGroupStart(group);position!=grouping.getGroupEnd(group);++position) {
+        splitBuilder.add(toSplit, grouping.getIndex(position));
+      }
+      resultList.add(levels.getElementAsString(group), splitBuilder.build());
     }
 
     return resultList.build();
   }
 
+  /**
+   * Reduces each group of {@code x} with one of the functions {@code sum}, {@code mean},
+   * {@code min}, {@code max} or {@code length}, in a single pass and without
+   * splitting {@code x} into separate vectors.
+   *
+   * @param x the vector to reduce
+   * @param groups the one-based group of each element of {@code x}, or NA
+   * @param groupCount the number of groups
+   * @param function the name of the reduction
+   * @return a vector with the result for each group, which is {@code NA} for empty groups
+   */
+  @Internal
+  public static AtomicVector groupReduce(AtomicVector x, IntVector groups, int groupCount, String function) {
+    if(groups.length() != x.length()) {
+      throw new EvalException("arguments must have same length");
+    }
+    Grouping grouping = Grouping.fromCodes(groups, groupCount, x.length());
+    switch (function) {
+      case "sum":
+        return grouping.sum(x);
+      case "mean":
+        return grouping.mean(x);
+      case "min":
+        return grouping.min(x);
+      case "max":
+        return grouping.max(x);
+      case "length":
+        int[] counts = grouping.count().toIntArray();
+        for (int group = 0; group < counts.length; group++) {
+          if(counts[group] == 0) {
+            counts[group] = IntVector.NA;
+          }
+        }
+        return IntArrayVector.unsafe(counts);
+      default:
+        throw new EvalException("unsupported reduction '%s'", function);
+    }
+  }
 
   private static class SplitBuilder {
     private Vector.Builder source;
     private AtomicVector sourceNames;
     private StringVector.Builder names;
 
-    public SplitBuilder(Vector toSplit) {
-      this.source = toSplit.newBuilderWithInitialCapacity(0);
+    public SplitBuilder(Vector toSplit, int size) {
+      this.source = toSplit.newBuilderWithInitialCapacity(size);
       this.sourceNames = toSplit.getNames();
       if(sourceNames != Null.INSTANCE) {
-        names = new StringArrayVector.Builder();
+        names = new StringArrayVector.Builder(0, size);
       }
     }
 
     public void add(Vector source, int sourceIndex) {
-      if(sourceIndex < source.length()) {
-        this.source.addFrom(source, sourceIndex);
-        if (names != null) {
-          names.add(sourceNames.getElementAsString(sourceIndex));
-        }
+      this.source.addFrom(source, sourceIndex);
+      if (names != null) {
+        names.add(sourceNames.getElementAsString(sourceIndex));
       }
     }
 
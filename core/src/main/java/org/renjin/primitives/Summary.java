@@ -25,8 +25,7 @@ import org.apache.commons.math.complex.Complex;
 import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.*;
-import org.renjin.primitives.summary.DeferredMean;
-import org.renjin.primitives.summary.DeferredSum;
+import org.renjin.primitives.summary.*;
 import org.renjin.sexp.*;
 
 import java.io.IOException;
@@ -44,6 +43,10 @@ public class Summary {
   public static SEXP min(@ArgumentList ListVector arguments,
                          @NamedFlag("na.rm") boolean removeNA) {
 
+    if(isDeferredSummaryArgument(arguments, removeNA)) {
+      return new DeferredMin((Vector) arguments.get(0), AttributeMap.EMPTY);
+    }
+
     return new RangeCalculator()
             .setRemoveNA(removeNA)
             .addList(arguments)
@@ -55,12 +58,29 @@ public class Summary {
   public static SEXP max(@ArgumentList ListVector arguments,
                          @NamedFlag("na.rm") boolean removeNA) {
 
+    if(isDeferredSummaryArgument(arguments, removeNA)) {
+      return new DeferredMax((Vector) arguments.get(0), AttributeMap.EMPTY);
+    }
+
     return new RangeCalculator()
             .setRemoveNA(removeNA)
             .addList(arguments)
             .getMaximum();
   }
 
+  /**
+   * @return true if the summary can be computed as part of the deferred pipeline:
+   * that is, if the only argument is a non-empty, deferred double vector, and NAs are
+   * not to be removed.
+   */
+  private static boolean isDeferredSummaryArgument(ListVector arguments, boolean removeNA) {
+    if(arguments.length() == 1 && !removeNA && arguments.get(0) instanceof DoubleVector) {
+      DoubleVector argument = (DoubleVector) arguments.get(0);
+      return argument.isDeferred() && argument.length() > 0;
+    }
+    return false;
+  }
+
 
   /**
    * range returns a vector containing the minimum and maximum of all the given arguments.
@@ -83,6 +103,10 @@ public class Summary {
     // another oddity: the min() and max() functions do not accept lists or 
     // other recursive structures. The range() implementation does.
 
+    if(isDeferredSummaryArgument(arguments, removeNA)) {
+      return new DeferredRange((Vector) arguments.get(0), AttributeMap.EMPTY);
+    }
+
     return new RangeCalculator()
             .setRemoveNA(removeNA)
             .setRecursive(true)
@@ -222,6 +246,10 @@ public class Summary {
   @GroupGeneric
   public static AtomicVector prod(@ArgumentList ListVector arguments, @NamedFlag("na.rm") boolean removeNA) {
 
+    if(isDeferredSummaryArgument(arguments, removeNA)) {
+      return new DeferredProd((Vector) arguments.get(0), AttributeMap.EMPTY);
+    }
+
     double realProduct = realProduct(arguments, removeNA);
     Complex complexProduct = complexProduct(arguments, removeNA);
     
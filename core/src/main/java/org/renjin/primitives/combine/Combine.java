@@ -22,12 +22,15 @@
 package org.renjin.primitives.combine;
 
 import com.google.common.base.Function;
+import com.google.common.base.Strings;
 import com.google.common.collect.Iterables;
 import org.renjin.invoke.annotations.*;
+import org.renjin.primitives.vector.GrowableVectors;
 import org.renjin.sexp.ListVector;
 import org.renjin.sexp.NamedValue;
 import org.renjin.sexp.Null;
 import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Vector;
 
 /**
  * Implementation of the combine-related functions, including c(), list(), unlist(),
@@ -45,6 +48,15 @@ public class Combine {
   public static SEXP c(@ArgumentList ListVector arguments,
                        @NamedFlag("recursive") boolean recursive) {
 
+    // Fast path for x <- c(x, v) in a loop
+    if(arguments.length() == 2 &&
+        Strings.isNullOrEmpty(arguments.getName(0)) && Strings.isNullOrEmpty(arguments.getName(1))) {
+      Vector appended = GrowableVectors.tryAppend(arguments.getElementAsSEXP(0), arguments.getElementAsSEXP(1));
+      if(appended != null) {
+        return appended;
+      }
+    }
+
     // Iterate over all the vectors in the argument
     // list to determine which vector type to use
     Inspector inspector = new Inspector(recursive);
@@ -1,24 +1,41 @@
 package org.renjin.primitives.io.connections;
 
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import com.google.common.base.Charsets;
+
+import java.io.*;
+import java.nio.charset.Charset;
 
 public abstract class AbstractConnection implements Connection {
 
+  /**
+   * The number of characters buffered by the line reader
+   */
+  private static final int READER_BUFFER_SIZE = 64 * 1024;
+
   private PushbackBufferedReader reader;
   private PrintWriter writer;
   
   @Override
   public final PushbackBufferedReader getReader() throws IOException {
     if(this.reader == null) {
-      this.reader =
-          new PushbackBufferedReader(
-          new InputStreamReader(getInputStream()));
+      this.reader = new PushbackBufferedReader(openReader(getInputStream()), READER_BUFFER_SIZE);
     }
     return this.reader;
   }
 
+  /**
+   * Creates a reader for the given stream in the default charset, using the
+   * faster {@link Utf8StreamReader} if the default charset is UTF-8 or ASCII.
+   */
+  static Reader openReader(InputStream in) {
+    Charset charset = Charset.defaultCharset();
+    if(charset.equals(Charsets.UTF_8) || charset.equals(Charsets.US_ASCII)) {
+      return new Utf8StreamReader(in);
+    } else {
+      return new InputStreamReader(in, charset);
+    }
+  }
+
   @Override
   public final PrintWriter getPrintWriter() throws IOException {
     if(writer == null) {
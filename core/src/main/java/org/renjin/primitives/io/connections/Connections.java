@@ -54,6 +54,11 @@ public class Connections {
   private static final String STD_OUT = "stdout";
   private static final String STD_IN = "stdin";
   private static final String STD_ERR = "stderr";
+
+  /**
+   * The maximum number of lines to make room for up front when reading a batch of lines
+   */
+  private static final int MAX_INITIAL_LINES = 10000;
   
   /**
    * Opens a connection to a gzipped file.
@@ -219,8 +224,16 @@ public class Connections {
   public static StringVector readLines(@Current Context context, SEXP connection, int numLines, boolean ok, 
       boolean warn, String encoding) throws IOException {
     
+    // The connection keeps its reader open between calls, so a large file can be
+    // read in batches of numLines without holding more than one batch in memory
     PushbackBufferedReader reader = getConnection(context, connection).getReader();
-    StringVector.Builder lines = new StringVector.Builder();
+    // Log files often repeat the same lines, so store each distinct line only once
+    DictionaryStringVector.Builder lines;
+    if(numLines > 0) {
+      lines = new DictionaryStringVector.Builder(Math.min(numLines, MAX_INITIAL_LINES));
+    } else {
+      lines = new DictionaryStringVector.Builder();
+    }
     String line;
     while((line=reader.readLine())!=null) {
       lines.add(line);
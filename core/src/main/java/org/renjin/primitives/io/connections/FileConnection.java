@@ -70,7 +70,8 @@ public class FileConnection extends AbstractConnection {
     in.unread(b2);
     in.unread(b1);
     if(b1 == GzFileConnection.GZIP_MAGIC_BYTE1 && b2 == GzFileConnection.GZIP_MAGIC_BYTE2) {
-      return new GZIPInputStream(in);
+      // Decompress on a separate thread, ahead of the reader
+      return new ReadAheadInputStream(new GZIPInputStream(in, ReadAheadInputStream.CHUNK_SIZE));
     } else {
       return in;
     }
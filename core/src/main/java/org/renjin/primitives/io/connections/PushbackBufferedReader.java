@@ -22,6 +22,10 @@ public class PushbackBufferedReader extends Reader {
     this.reader = new BufferedReader(reader);
   }
 
+  public PushbackBufferedReader(Reader reader, int bufferSize) {
+    this.reader = new BufferedReader(reader, bufferSize);
+  }
+
   @Override
   public void close() throws IOException {
     reader.close();
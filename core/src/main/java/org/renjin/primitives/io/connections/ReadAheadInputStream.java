@@ -0,0 +1,248 @@
+package org.renjin.primitives.io.connections;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InputStream which reads from its source on a background thread, a few chunks
+ * ahead of the consumer.
+ *
+ * <p>This is used to decompress gzipped files while the calling thread is busy
+ * decoding and parsing the previous chunk. The number of chunks in flight is fixed,
+ * so memory use stays constant no matter how large the source is.</p>
+ *
+ * <p>The reading thread is only started by the first read, and stops once it has
+ * waited {@link #IDLE_TIMEOUT_MILLIS} for the consumer to free a buffer. It holds no
+ * reference to this stream, so a stream that is abandoned without being closed does
+ * not keep a thread alive, and its buffers can be collected. If the consumer
+ * resumes reading, a new thread is started.</p>
+ */
+public class ReadAheadInputStream extends InputStream {
+
+  public static final int CHUNK_SIZE = 64 * 1024;
+
+  static final long IDLE_TIMEOUT_MILLIS = 5000;
+
+  private static final int CHUNK_COUNT = 4;
+
+  /**
+   * How often the consumer checks whether the reading thread has stopped
+   * while it waits for a chunk
+   */
+  private static final long POLL_MILLIS = 50;
+
+  private static final Chunk END = new Chunk(null, 0, null);
+
+  private final InputStream source;
+
+  private final long idleTimeoutMillis;
+
+  /**
+   * Empty buffers, waiting to be filled by the reading thread
+   */
+  private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(CHUNK_COUNT);
+
+  /**
+   * Chunks filled by the reading thread, followed by either {@code END} or an error.
+   * There is room for one more chunk than there are buffers, so the
+   * reading thread never blocks when signaling the end of the stream.
+   */
+  private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(CHUNK_COUNT + 1);
+
+  private Thread thread;
+
+  private Chunk current;
+  private int pos;
+
+  public ReadAheadInputStream(InputStream source) {
+    this(source, IDLE_TIMEOUT_MILLIS);
+  }
+
+  ReadAheadInputStream(InputStream source, long idleTimeoutMillis) {
+    this.source = source;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if(!nextChunk()) {
+      return -1;
+    }
+    return current.buffer[pos++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if(len == 0) {
+      return 0;
+    }
+    if(!nextChunk()) {
+      return -1;
+    }
+    int n = Math.min(len, current.length - pos);
+    System.arraycopy(current.buffer, pos, b, off, n);
+    pos += n;
+    return n;
+  }
+
+  @Override
+  public int available() throws IOException {
+    if(current == null || current == END) {
+      return 0;
+    }
+    return current.length - pos;
+  }
+
+  /**
+   * @return true if the reading thread is currently running
+   */
+  boolean isReading() {
+    return thread != null && thread.isAlive();
+  }
+
+  /**
+   * Ensures that there are unread bytes in the current chunk, waiting for the
+   * reading thread if necessary.
+   *
+   * @return false if the end of the stream has been reached
+   */
+  private boolean nextChunk() throws IOException {
+    if(current != null && pos < current.length) {
+      return true;
+    }
+    if(current == END) {
+      return false;
+    }
+    if(current != null) {
+      free.add(current.buffer);
+    }
+    if(thread == null) {
+      for (int i = 0; i < CHUNK_COUNT; i++) {
+        free.add(new byte[CHUNK_SIZE]);
+      }
+      startReading();
+    }
+    try {
+      current = takeChunk();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    pos = 0;
+    if(current.error != null) {
+      IOException error = current.error;
+      current = END;
+      throw new IOException(error.getMessage(), error);
+    }
+    return current != END;
+  }
+
+  private Chunk takeChunk() throws InterruptedException {
+    while(true) {
+      Chunk chunk = filled.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+      if(chunk != null) {
+        return chunk;
+      }
+      if(!thread.isAlive()) {
+        // The reading thread stopped while we were away, after queuing everything it read
+        chunk = filled.poll();
+        if(chunk != null) {
+          return chunk;
+        }
+        startReading();
+      }
+    }
+  }
+
+  private void startReading() {
+    thread = new Thread(new Reader(source, free, filled, idleTimeoutMillis), "renjin-read-ahead");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stops the reading thread and closes the source.
+   *
+   * <p>The source is closed here, on the caller's thread, rather than by the reading thread:
+   * some sources, such as those opened through commons-vfs, track their open streams per thread
+   * and would otherwise never be released.</p>
+   */
+  @Override
+  public void close() throws IOException {
+    if(thread != null) {
+      thread.interrupt();
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    current = END;
+    source.close();
+  }
+
+  private static class Chunk {
+    private final byte[] buffer;
+    private final int length;
+    private final IOException error;
+
+    private Chunk(byte[] buffer, int length, IOException error) {
+      this.buffer = buffer;
+      this.length = length;
+      this.error = error;
+    }
+  }
+
+  /**
+   * Fills free buffers from the source. This is a static class so that the thread
+   * does not keep the stream itself reachable.
+   */
+  private static class Reader implements Runnable {
+
+    private final InputStream source;
+    private final BlockingQueue<byte[]> free;
+    private final BlockingQueue<Chunk> filled;
+    private final long idleTimeoutMillis;
+
+    private Reader(InputStream source, BlockingQueue<byte[]> free, BlockingQueue<Chunk> filled,
+                   long idleTimeoutMillis) {
+      this.source = source;
+      this.free = free;
+      this.filled = filled;
+      this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    @Override
+    public void run() {
+      try {
+        while(true) {
+          byte[] buffer = free.poll(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+          if(buffer == null) {
+            // The consumer has stopped reading, at least for now
+            return;
+          }
+          int length = 0;
+          int read = 0;
+          while(length < buffer.length && (read = source.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+          }
+          if(length > 0) {
+            filled.put(new Chunk(buffer, length, null));
+          }
+          if(read == -1) {
+            filled.put(END);
+            return;
+          }
+        }
+      } catch (InterruptedException e) {
+        // The stream has been closed
+      } catch (IOException e) {
+        filled.offer(new Chunk(null, 0, e));
+      }
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package org.renjin.primitives.io.connections;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Reader which decodes UTF-8 (and so also ASCII) bytes from an {@code InputStream}
+ * through a large buffer.
+ *
+ * <p>Unlike {@code InputStreamReader}, runs of ASCII bytes are copied straight into
+ * the caller's buffer without going through a {@code CharsetDecoder}, which makes
+ * reading large text files considerably faster. Malformed input is replaced
+ * with U+FFFD.</p>
+ */
+public class Utf8StreamReader extends Reader {
+
+  public static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final char REPLACEMENT = '\uFFFD';
+
+  private final InputStream in;
+  private final byte[] buffer;
+  private int pos;
+  private int limit;
+  private boolean eof;
+
+  /**
+   * The low surrogate of a supplementary character that did not
+   * fit in the caller's buffer
+   */
+  private char pendingLowSurrogate;
+
+  public Utf8StreamReader(InputStream in) {
+    this(in, BUFFER_SIZE);
+  }
+
+  public Utf8StreamReader(InputStream in, int bufferSize) {
+    this.in = in;
+    this.buffer = new byte[Math.max(bufferSize, 4)];
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    if(len == 0) {
+      return 0;
+    }
+    int n = 0;
+    if(pendingLowSurrogate != 0) {
+      cbuf[off + n++] = pendingLowSurrogate;
+      pendingLowSurrogate = 0;
+    }
+    while(n < len) {
+      if(pos == limit) {
+        // Only block for more input if we have nothing to return yet
+        if(n > 0 || !fill()) {
+          break;
+        }
+      }
+
+      // Fast path for ASCII
+      int end = Math.min(limit, pos + (len - n));
+      while(pos < end && buffer[pos] >= 0) {
+        cbuf[off + n++] = (char) buffer[pos++];
+      }
+      if(n == len || pos == limit) {
+        continue;
+      }
+
+      int lead = buffer[pos] & 0xFF;
+      int length = sequenceLength(lead);
+      if(length == 0) {
+        cbuf[off + n++] = REPLACEMENT;
+        pos++;
+        continue;
+      }
+      if(pos + length > limit && !eof) {
+        if(n > 0) {
+          break;
+        }
+        fill();
+        continue;
+      }
+
+      // As in the JDK's decoder, a malformed or truncated sequence is replaced by a single
+      // U+FFFD covering only the bytes that were a valid prefix; decoding resumes at the
+      // first offending byte.
+      int available = Math.min(length, limit - pos);
+      int codePoint = lead & (0xFF >> (length + 1));
+      int i = 1;
+      while(i < available && isContinuation(lead, i, buffer[pos + i])) {
+        codePoint = (codePoint << 6) | (buffer[pos + i] & 0x3F);
+        i++;
+      }
+      pos += i;
+      if(i < length || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+        cbuf[off + n++] = REPLACEMENT;
+      } else if(codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+        cbuf[off + n++] = (char) codePoint;
+      } else {
+        cbuf[off + n++] = Character.highSurrogate(codePoint);
+        if(n < len) {
+          cbuf[off + n++] = Character.lowSurrogate(codePoint);
+        } else {
+          pendingLowSurrogate = Character.lowSurrogate(codePoint);
+        }
+      }
+    }
+    if(n == 0 && eof) {
+      return -1;
+    }
+    return n;
+  }
+
+  /**
+   * Moves any unread bytes to the start of the buffer and reads as many
+   * more as are available.
+   *
+   * @return false if the end of the stream has been reached
+   */
+  private boolean fill() throws IOException {
+    if(eof) {
+      return false;
+    }
+    int remaining = limit - pos;
+    System.arraycopy(buffer, pos, buffer, 0, remaining);
+    pos = 0;
+    limit = remaining;
+    int read = in.read(buffer, limit, buffer.length - limit);
+    if(read == -1) {
+      eof = true;
+      return false;
+    }
+    limit += read;
+    return true;
+  }
+
+  private static int sequenceLength(int lead) {
+    if(lead >= 0xC2 && lead <= 0xDF) {
+      return 2;
+    } else if(lead >= 0xE0 && lead <= 0xEF) {
+      return 3;
+    } else if(lead >= 0xF0 && lead <= 0xF4) {
+      return 4;
+    } else {
+      // continuation bytes, overlong leads, and out of range leads
+      return 0;
+    }
+  }
+
+  /**
+   * Checks the byte at {@code index} of a sequence starting with {@code lead}. The range of the
+   * second byte depends on the lead byte, so that overlong forms and code points beyond
+   * U+10FFFF are rejected as soon as possible.
+   */
+  private static boolean isContinuation(int lead, int index, byte b) {
+    int value = b & 0xFF;
+    if(index == 1) {
+      switch (lead) {
+        case 0xE0:
+          return value >= 0xA0 && value <= 0xBF;
+        case 0xF0:
+          return value >= 0x90 && value <= 0xBF;
+        case 0xF4:
+          return value >= 0x80 && value <= 0x8F;
+      }
+    }
+    return value >= 0x80 && value <= 0xBF;
+  }
+
+  @Override
+  public boolean ready() throws IOException {
+    return pendingLowSurrogate != 0 || pos < limit || in.available() > 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
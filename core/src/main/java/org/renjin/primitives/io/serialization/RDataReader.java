@@ -552,11 +552,13 @@ public class RDataReader implements AutoCloseable {
 
   private SEXP readStringVector(int flags) throws IOException {
     int length = in.readInt();
-    String[] values = new String[length];
+    // Each element is serialized as a separate CHARSEXP, so encode them with a
+    // dictionary to avoid keeping a copy of every repeated string
+    DictionaryStringVector.Builder values = new DictionaryStringVector.Builder(length);
     for(int i=0;i!=length;++i) {
-      values[i] = ((CHARSEXP)readExp()).getValue();
+      values.add(((CHARSEXP)readExp()).getValue());
     }
-    return new StringArrayVector(values, readAttributes(flags));
+    return values.build(readAttributes(flags));
   }
 
   private SEXP readComplexExp(int flags) throws IOException {
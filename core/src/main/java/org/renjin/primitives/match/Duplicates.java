@@ -4,8 +4,10 @@ import com.google.common.collect.Maps;
 import org.renjin.invoke.annotations.Internal;
 import org.renjin.primitives.match.DuplicateSearchAlgorithm.Action;
 import org.renjin.sexp.AtomicVector;
+import org.renjin.sexp.DictionaryStringVector;
 import org.renjin.sexp.Vector;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 
@@ -65,6 +67,10 @@ public class Duplicates {
       DuplicateSearchAlgorithm<ResultType> algorithm) {
    
     algorithm.init(x);
+
+    if(x instanceof DictionaryStringVector) {
+      return searchCodes((DictionaryStringVector) x, fromLast, algorithm);
+    }
     
     /** Maps elements -> first encountered index */
     HashMap<Object, Integer> seen = Maps.newHashMap();
@@ -86,5 +92,35 @@ public class Duplicates {
       }
     }
     return algorithm.getResult();
-  }  
+  }
+
+  /**
+   * Searches a dictionary-encoded vector by its codes, which are already
+   * unique for each distinct value.
+   */
+  private static <ResultType> ResultType searchCodes(
+      DictionaryStringVector x,
+      boolean fromLast,
+      DuplicateSearchAlgorithm<ResultType> algorithm) {
+
+    /** Maps codes -> first encountered index */
+    int[] seen = new int[x.getDictionarySize()];
+    Arrays.fill(seen, -1);
+
+    int length = x.length();
+    for(int i = 0; i < length; i++) {
+      int index = fromLast ? length - 1 - i : i;
+      int code = x.getCode(index);
+      int originalIndex = seen[code];
+      if(originalIndex == -1) {
+        algorithm.onUnique(index);
+        seen[code] = index;
+      } else {
+        if(algorithm.onDuplicate(index, originalIndex) == Action.STOP) {
+          return algorithm.getResult();
+        }
+      }
+    }
+    return algorithm.getResult();
+  }
 }
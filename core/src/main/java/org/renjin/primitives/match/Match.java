@@ -76,6 +76,11 @@ public class Match {
     
     
     // Check for special cases that we can handle quickly...
+
+    // Are we matching dictionary-encoded strings? Then we only need to match each distinct value
+    if(search instanceof DictionaryStringVector && table instanceof StringVector && incomparables.length() == 0) {
+      return matchDictionary((DictionaryStringVector) search, (StringVector) table, noMatch);
+    }
     
     // Are we matching against an unadulterated row.names vector?
     IntSequence sequence = isStringSequence(table);
@@ -104,6 +109,30 @@ public class Match {
     return IntArrayVector.unsafe(matches);
   }
 
+  /**
+   * Match each entry in the dictionary of {@code search} against the table, and then
+   * look up the result for each element by its code.
+   */
+  private static IntVector matchDictionary(DictionaryStringVector search, StringVector table, int noMatch) {
+    HashMap<String, Integer> tableIndex = new HashMap<>();
+    for (int i = 0; i < table.length(); i++) {
+      String value = table.getElementAsString(i);
+      if(!tableIndex.containsKey(value)) {
+        tableIndex.put(value, i + 1);
+      }
+    }
+    int[] entryMatches = new int[search.getDictionarySize()];
+    for (int code = 0; code < entryMatches.length; code++) {
+      Integer pos = tableIndex.get(search.getDictionaryEntry(code));
+      entryMatches[code] = pos == null ? noMatch : pos;
+    }
+    int[] matches = new int[search.length()];
+    for (int i = 0; i < matches.length; i++) {
+      matches[i] = entryMatches[search.getCode(i)];
+    }
+    return IntArrayVector.unsafe(matches);
+  }
+
   /**
    * Match a vector against a string sequence, for example as.character(1:1000)
    */
@@ -29,7 +29,7 @@ import org.renjin.sexp.PairList;
 import org.renjin.sexp.SEXP;
 import org.renjin.sexp.SpecialFunction;
 
-public class BeginFunction extends SpecialFunction {
+public class BeginFunction extends SpecialFunction implements StatementFunction {
 
   public BeginFunction() {
     super("{");
@@ -37,13 +37,21 @@ public class BeginFunction extends SpecialFunction {
   
   @Override
   public SEXP apply(Context context, Environment rho, FunctionCall call, PairList args) {
-    if(args == Null.INSTANCE) {
+    return ControlFlow.throwIfSignal(rho, applyStatement(context, rho, call, false));
+  }
+
+  @Override
+  public SEXP applyStatement(Context context, Environment rho, FunctionCall call, boolean inLoop) {
+    if(call.getArguments() == Null.INSTANCE) {
       context.setInvisibleFlag();
       return Null.INSTANCE;
     } else {
       SEXP lastResult = Null.INSTANCE;
       for (SEXP sexp : call.getArguments().values()) {
-        lastResult = context.evaluate( sexp, rho);
+        lastResult = ControlFlow.evaluateStatement(context, rho, sexp, inLoop);
+        if(ControlFlow.isSignal(lastResult)) {
+          return lastResult;
+        }
       }
       return lastResult;
     }
@@ -28,7 +28,7 @@ import org.renjin.sexp.PairList;
 import org.renjin.sexp.SEXP;
 import org.renjin.sexp.SpecialFunction;
 
-public class BreakFunction extends SpecialFunction {
+public class BreakFunction extends SpecialFunction implements StatementFunction {
 
   public BreakFunction() {
     super("break");
@@ -39,4 +39,13 @@ public class BreakFunction extends SpecialFunction {
   public SEXP apply(Context context, Environment rho, FunctionCall call, PairList args) {
     throw BreakException.INSTANCE;
   }
+
+  @Override
+  public SEXP applyStatement(Context context, Environment rho, FunctionCall call, boolean inLoop) {
+    if(inLoop) {
+      return ControlFlow.BREAK;
+    } else {
+      throw BreakException.INSTANCE;
+    }
+  }
 }
@@ -0,0 +1,115 @@
+package org.renjin.primitives.special;
+
+import org.renjin.eval.Context;
+import org.renjin.sexp.*;
+
+/**
+ * Signals {@code return()}, {@code break} and {@code next} without exceptions in the common
+ * case where they are called in statement position: directly in the body of a closure or loop,
+ * or nested only within the statements of <code>{</code> and {@code if} calls.
+ *
+ * <p>In statement position, these calls are evaluated by
+ * {@link #evaluateStatement(Context, Environment, SEXP, boolean)}, which returns a signal that
+ * is passed back up through the enclosing statements. Elsewhere, for example when
+ * {@code return()} is called from within an argument, the {@link ControlFlowException}s are
+ * still thrown.</p>
+ */
+public final class ControlFlow {
+
+  public static final SEXP BREAK = new Signal("break");
+  public static final SEXP NEXT = new Signal("next");
+
+  private static final Symbol BEGIN = Symbol.get("{");
+  private static final Symbol IF = Symbol.get("if");
+  private static final Symbol RETURN = Symbol.get("return");
+  private static final Symbol BREAK_SYMBOL = Symbol.get("break");
+  private static final Symbol NEXT_SYMBOL = Symbol.get("next");
+  private static final Symbol FOR = Symbol.get("for");
+  private static final Symbol WHILE = Symbol.get("while");
+  private static final Symbol REPEAT = Symbol.get("repeat");
+
+  private ControlFlow() { }
+
+  /**
+   * Evaluates an expression in statement position.
+   *
+   * @param inLoop true if the statement is within the body of a loop
+   * @return the value of the statement, {@link #BREAK}, {@link #NEXT} or
+   * a {@link Return} signal
+   */
+  public static SEXP evaluateStatement(Context context, Environment rho, SEXP statement, boolean inLoop) {
+    if(statement instanceof FunctionCall) {
+      FunctionCall call = (FunctionCall) statement;
+      SEXP fn = call.getFunction();
+      if(fn == BEGIN || fn == IF || fn == RETURN || fn == BREAK_SYMBOL || fn == NEXT_SYMBOL ||
+          fn == FOR || fn == WHILE || fn == REPEAT) {
+        Function function = rho.findFunction(context, (Symbol) fn);
+        if(function instanceof StatementFunction) {
+          return context.applyStatement((StatementFunction) function, call, rho, inLoop);
+        }
+      }
+    }
+    return context.evaluate(statement, rho);
+  }
+
+  /**
+   * @return true if {@code result} is a control flow signal rather than a value
+   */
+  public static boolean isSignal(SEXP result) {
+    return result instanceof Signal;
+  }
+
+  /**
+   * Converts a {@link Return} signal from a statement evaluated outside of statement
+   * position back into a {@link ReturnException}.
+   */
+  public static SEXP throwIfSignal(Environment rho, SEXP result) {
+    if(result instanceof Return) {
+      throw new ReturnException(rho, ((Return) result).getValue());
+    } else if(result == BREAK) {
+      throw BreakException.INSTANCE;
+    } else if(result == NEXT) {
+      throw NextException.INSTANCE;
+    }
+    return result;
+  }
+
+  private static class Signal extends AbstractSEXP {
+    private final String name;
+
+    private Signal(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String getTypeName() {
+      return "signal";
+    }
+
+    @Override
+    public void accept(SexpVisitor visitor) {
+      throw new UnsupportedOperationException(name);
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  /**
+   * Signals a call to {@code return()} in statement position
+   */
+  public static final class Return extends Signal {
+    private final SEXP value;
+
+    Return(SEXP value) {
+      super("return");
+      this.value = value;
+    }
+
+    public SEXP getValue() {
+      return value;
+    }
+  }
+}
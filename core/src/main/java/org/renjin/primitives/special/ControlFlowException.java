@@ -29,4 +29,13 @@ package org.renjin.primitives.special;
  *
  */
 public class ControlFlowException extends RuntimeException {
+
+  /**
+   * Control flow exceptions are thrown routinely, so skip the expensive
+   * capture of the stack trace.
+   */
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
 }
@@ -33,6 +33,9 @@ import org.renjin.compiler.ir.ssa.SsaTransformer;
 import org.renjin.compiler.ir.tac.IRBody;
 import org.renjin.compiler.ir.tac.IRBodyBuilder;
 import org.renjin.compiler.ir.tac.RuntimeState;
+import org.renjin.compiler.opt.BoundsCheckElimination;
+import org.renjin.compiler.opt.LoopInvariantCodeMotion;
+import org.renjin.compiler.opt.LoopVectorizer;
 import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
 import org.renjin.eval.Profiler;
@@ -40,7 +43,7 @@ import org.renjin.primitives.Deparse;
 import org.renjin.sexp.*;
 
 
-public class ForFunction extends SpecialFunction {
+public class ForFunction extends SpecialFunction implements StatementFunction {
 
   public static boolean COMPILE_LOOPS = Boolean.getBoolean("renjin.compile.loops");
   
@@ -53,8 +56,11 @@ public class ForFunction extends SpecialFunction {
 
   @Override
   public SEXP apply(Context context, Environment rho, FunctionCall call, PairList _args_unused) {
+    return ControlFlow.throwIfSignal(rho, applyStatement(context, rho, call, false));
+  }
 
-    
+  @Override
+  public SEXP applyStatement(Context context, Environment rho, FunctionCall call, boolean inLoop) {
     PairList args = call.getArguments();
     Symbol symbol = args.getElementAsSEXP(0);
     SEXP elementsExp = context.evaluate(args.getElementAsSEXP(1), rho);
@@ -69,6 +75,12 @@ public class ForFunction extends SpecialFunction {
       Profiler.loopStart(call, elements);
     }
 
+    if(COMPILE_LOOPS && elements.length() > COMPILE_THRESHOLD &&
+        LoopVectorizer.tryVectorize(context, rho, symbol, elements, statement)) {
+      context.setInvisibleFlag();
+      return Null.INSTANCE;
+    }
+
     int i = 0;
     
     try {
@@ -88,7 +100,12 @@ public class ForFunction extends SpecialFunction {
           }
 
           rho.setVariable(symbol, elements.getElementAsSEXP(i));
-          context.evaluate(statement, rho);
+          SEXP result = ControlFlow.evaluateStatement(context, rho, statement, true);
+          if(result == ControlFlow.BREAK) {
+            break;
+          } else if(result instanceof ControlFlow.Return) {
+            return result;
+          }
         } catch (BreakException e) {
           break;
         } catch (NextException e) {
@@ -127,6 +144,9 @@ public class ForFunction extends SpecialFunction {
       
       types.verifyFunctionAssumptions(runtimeState);
 
+      new BoundsCheckElimination(cfg, dTree, useDefMap).execute();
+      new LoopInvariantCodeMotion(cfg, dTree).execute();
+
       ssaTransformer.removePhiFunctions(types);
       
       ByteCodeEmitter emitter = new ByteCodeEmitter(cfg, types);
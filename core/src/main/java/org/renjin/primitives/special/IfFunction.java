@@ -24,7 +24,7 @@ package org.renjin.primitives.special;
 import org.renjin.eval.Context;
 import org.renjin.sexp.*;
 
-public class IfFunction extends SpecialFunction {
+public class IfFunction extends SpecialFunction implements StatementFunction {
 
   public IfFunction() {
     super("if");
@@ -32,6 +32,11 @@ public class IfFunction extends SpecialFunction {
 
   @Override
   public SEXP apply(Context context, Environment rho, FunctionCall call, PairList args) {
+    return ControlFlow.throwIfSignal(rho, applyStatement(context, rho, call, false));
+  }
+
+  @Override
+  public SEXP applyStatement(Context context, Environment rho, FunctionCall call, boolean inLoop) {
     SEXP condition = 
         context.materialize(
           context.evaluate( call.getArguments().getElementAsSEXP(0), rho));
@@ -40,11 +45,11 @@ public class IfFunction extends SpecialFunction {
     condition = context.materialize(condition);
 
     if (asLogicalNoNA(context, call, condition)) {
-      return context.evaluate( call.getArguments().getElementAsSEXP(1), rho); /* true value */
+      return ControlFlow.evaluateStatement(context, rho, call.getArguments().getElementAsSEXP(1), inLoop); /* true value */
 
     } else {
       if (call.getArguments().length() == 3) {
-        return context.evaluate( call.getArguments().getElementAsSEXP(2), rho); /* else value */
+        return ControlFlow.evaluateStatement(context, rho, call.getArguments().getElementAsSEXP(2), inLoop); /* else value */
       } else {
         context.setInvisibleFlag();
         return Null.INSTANCE;   /* no else, evaluates to NULL */
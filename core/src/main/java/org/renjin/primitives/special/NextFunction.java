@@ -28,7 +28,7 @@ import org.renjin.sexp.PairList;
 import org.renjin.sexp.SEXP;
 import org.renjin.sexp.SpecialFunction;
 
-public class NextFunction extends SpecialFunction {
+public class NextFunction extends SpecialFunction implements StatementFunction {
 
   public NextFunction() {
     super("next");
@@ -38,4 +38,13 @@ public class NextFunction extends SpecialFunction {
   public SEXP apply(Context context, Environment rho, FunctionCall call, PairList args) {
     throw NextException.INSTANCE;
   }
+
+  @Override
+  public SEXP applyStatement(Context context, Environment rho, FunctionCall call, boolean inLoop) {
+    if(inLoop) {
+      return ControlFlow.NEXT;
+    } else {
+      throw NextException.INSTANCE;
+    }
+  }
 }
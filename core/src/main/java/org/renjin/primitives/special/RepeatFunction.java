@@ -29,7 +29,7 @@ import org.renjin.sexp.PairList;
 import org.renjin.sexp.SEXP;
 import org.renjin.sexp.SpecialFunction;
 
-public class RepeatFunction extends SpecialFunction {
+public class RepeatFunction extends SpecialFunction implements StatementFunction {
 
   public RepeatFunction() {
     super("repeat");
@@ -37,11 +37,21 @@ public class RepeatFunction extends SpecialFunction {
   
   @Override
   public SEXP apply(Context context, Environment rho, FunctionCall call, PairList args) {
-    SEXP statement = args.getElementAsSEXP(0);
+    return ControlFlow.throwIfSignal(rho, applyStatement(context, rho, call, false));
+  }
+
+  @Override
+  public SEXP applyStatement(Context context, Environment rho, FunctionCall call, boolean inLoop) {
+    SEXP statement = call.getArguments().getElementAsSEXP(0);
 
     while(true) {
       try {
-        context.evaluate( statement, rho);
+        SEXP result = ControlFlow.evaluateStatement(context, rho, statement, true);
+        if(result == ControlFlow.BREAK) {
+          break;
+        } else if(result instanceof ControlFlow.Return) {
+          return result;
+        }
       } catch(BreakException e) {
         break;
       } catch(NextException e) {
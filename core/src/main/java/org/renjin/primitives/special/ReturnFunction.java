@@ -29,7 +29,7 @@ import org.renjin.sexp.PairList;
 import org.renjin.sexp.SEXP;
 import org.renjin.sexp.SpecialFunction;
 
-public class ReturnFunction extends SpecialFunction {
+public class ReturnFunction extends SpecialFunction implements StatementFunction {
 
   public ReturnFunction() {
     super("return");
@@ -43,4 +43,13 @@ public class ReturnFunction extends SpecialFunction {
       throw new ReturnException(rho, Null.INSTANCE);
     }
   }
+
+  @Override
+  public SEXP applyStatement(Context context, Environment rho, FunctionCall call, boolean inLoop) {
+    if(call.getArguments().length() > 0) {
+      return new ControlFlow.Return(context.evaluate(call.getArgument(0), rho));
+    } else {
+      return new ControlFlow.Return(Null.INSTANCE);
+    }
+  }
 }
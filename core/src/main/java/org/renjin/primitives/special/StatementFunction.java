@@ -0,0 +1,23 @@
+package org.renjin.primitives.special;
+
+import org.renjin.eval.Context;
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.FunctionCall;
+import org.renjin.sexp.SEXP;
+
+/**
+ * Special functions which, when called in statement position, signal {@code return},
+ * {@code break} and {@code next} by returning one of the {@link ControlFlow} signals
+ * instead of throwing a {@link ControlFlowException}.
+ */
+public interface StatementFunction {
+
+  /**
+   * Applies this function to a call in statement position.
+   *
+   * @param inLoop true if the call is nested only within statements of a loop body,
+   *               so that {@code break} and {@code next} can be signalled to the loop directly.
+   * @return the value of the call, or a {@link ControlFlow} signal
+   */
+  SEXP applyStatement(Context context, Environment rho, FunctionCall call, boolean inLoop);
+}
@@ -29,7 +29,7 @@ import org.renjin.sexp.PairList;
 import org.renjin.sexp.SEXP;
 import org.renjin.sexp.SpecialFunction;
 
-public class WhileFunction extends SpecialFunction {
+public class WhileFunction extends SpecialFunction implements StatementFunction {
 
   public WhileFunction() {
     super("while");
@@ -37,6 +37,12 @@ public class WhileFunction extends SpecialFunction {
   
   @Override
   public SEXP apply(Context context, Environment rho, FunctionCall call, PairList args) {
+    return ControlFlow.throwIfSignal(rho, applyStatement(context, rho, call, false));
+  }
+
+  @Override
+  public SEXP applyStatement(Context context, Environment rho, FunctionCall call, boolean inLoop) {
+    PairList args = call.getArguments();
     SEXP condition = args.getElementAsSEXP(0);
     SEXP statement = args.getElementAsSEXP(1);
 
@@ -44,7 +50,12 @@ public class WhileFunction extends SpecialFunction {
 
       try {
 
-        context.evaluate( statement, rho);
+        SEXP result = ControlFlow.evaluateStatement(context, rho, statement, true);
+        if(result == ControlFlow.BREAK) {
+          break;
+        } else if(result instanceof ControlFlow.Return) {
+          return result;
+        }
 
       } catch(BreakException e) {
         break;
@@ -0,0 +1,103 @@
+package org.renjin.primitives.subset;
+
+import org.renjin.primitives.vector.DeferredComputation;
+import org.renjin.sexp.*;
+
+/**
+ * Lazily-evaluated selection of the elements of a double vector by a logical mask of
+ * the same length, as in {@code x[x > 0]}.
+ *
+ * <p>Reductions such as {@code sum(x[x > 0])} iterate over the source and the mask together
+ * and skip the unselected elements, so that neither the mask nor the selection is allocated.
+ * Otherwise the selection is computed on first access in two passes: the first counts the
+ * selected elements, and the second fills an array of exactly that length.</p>
+ */
+public class DeferredSelection extends DoubleVector implements DeferredComputation {
+
+  private final DoubleVector source;
+  private final LogicalVector mask;
+
+  private int length = -1;
+  private double[] result;
+
+  public DeferredSelection(DoubleVector source, LogicalVector mask, AttributeMap attributes) {
+    super(attributes);
+    this.source = source;
+    this.mask = mask;
+  }
+
+  /**
+   * @return true if {@code source} or {@code mask} is itself deferred, and {@code source[mask]}
+   * is a plain selection of elements that does not have to recycle the mask or select names.
+   */
+  public static boolean accept(Vector source, LogicalVector mask) {
+    return source instanceof DoubleVector &&
+        source.getAttributes().empty() &&
+        source.length() == mask.length() &&
+        (source.isDeferred() || mask.isDeferred());
+  }
+
+  @Override
+  public Vector[] getOperands() {
+    return new Vector[] { source, mask };
+  }
+
+  @Override
+  public String getComputationName() {
+    return "select";
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new DeferredSelection(source, mask, attributes);
+  }
+
+  @Override
+  public int length() {
+    if(length == -1) {
+      int count = 0;
+      for(int i=0;i!=mask.length();++i) {
+        if(mask.getElementAsRawLogical(i) != 0) {
+          count++;
+        }
+      }
+      length = count;
+    }
+    return length;
+  }
+
+  @Override
+  public double getElementAsDouble(int index) {
+    if(result == null) {
+      result = compute();
+    }
+    return result[index];
+  }
+
+  private double[] compute() {
+    double[] values = new double[length()];
+    int resultIndex = 0;
+    for(int i=0;i!=mask.length();++i) {
+      int selected = mask.getElementAsRawLogical(i);
+      if(selected != 0) {
+        values[resultIndex++] = IntVector.isNA(selected) ? DoubleVector.NA : source.getElementAsDouble(i);
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public int getComputationDepth() {
+    return Math.max(source.getComputationDepth(), mask.getComputationDepth()) + 1;
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return result != null;
+  }
+
+  @Override
+  public boolean isDeferred() {
+    return result == null;
+  }
+}
@@ -49,6 +49,18 @@ class IndexSubscript implements Subscript {
     throw new EvalException("attempt to select more than one element");
   }
 
+  /**
+   * @return the largest number of elements this subscript can select, found without computing them:
+   * positive subscripts select at most one element each, while negative subscripts select at most
+   * every element of the source.
+   */
+  public int getMaxSelectedLength() {
+    if(computeIndexSign() == -1) {
+      return sourceLength;
+    }
+    return subscript.length();
+  }
+
   @Override
   public IndexIterator computeIndexes() {
     int sign = computeIndexSign();
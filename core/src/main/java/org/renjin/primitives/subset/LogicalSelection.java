@@ -21,8 +21,17 @@ class LogicalSelection implements SelectionStrategy {
 
   @Override
   public SEXP getVectorSubset(Context context, Vector source, boolean drop) {
+    if(DeferredSelection.accept(source, mask)) {
+      return new DeferredSelection((DoubleVector) source, mask, AttributeMap.EMPTY);
+    }
+
     LogicalSubscript subscript = new LogicalSubscript(this.mask, source.length());
-    
+
+    Vector view = VectorIndexSelection.buildView(context, source, mask, subscript,
+        Math.max(mask.length(), source.length()));
+    if(view != null) {
+      return view;
+    }
     return VectorIndexSelection.buildSelection(source, subscript, drop);
   }
 
@@ -0,0 +1,75 @@
+package org.renjin.primitives.subset;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.renjin.sexp.AtomicVector;
+import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.IntVector;
+
+import java.util.Arrays;
+
+/**
+ * Caches the indexes computed from subscripts within a {@link org.renjin.eval.Session}, so
+ * that vectors subset by the same subscript share a single index.
+ *
+ * <p>{@code [.data.frame} subsets every column with the same row subscript, so all of the
+ * columns of the result can be views through one {@code int[]}, computed once. Entries are keyed
+ * by the identity of the subscript, which cannot change once created, and by the length of the
+ * source; they are dropped once the subscript is no longer reachable.</p>
+ */
+public class SubsetIndexCache {
+
+  private final Cache<AtomicVector, Entry> cache = CacheBuilder.newBuilder()
+      .weakKeys()
+      .maximumSize(32)
+      .build();
+
+  private static class Entry {
+    private final int sourceLength;
+    private final IntArrayVector index;
+
+    private Entry(int sourceLength, IntArrayVector index) {
+      this.sourceLength = sourceLength;
+      this.index = index;
+    }
+  }
+
+  /**
+   * @return the index previously stored for {@code subscriptVector} and a source of
+   * {@code sourceLength} elements, or {@code null} if there is none.
+   */
+  IntArrayVector get(AtomicVector subscriptVector, int sourceLength) {
+    Entry entry = cache.getIfPresent(subscriptVector);
+    if(entry == null || entry.sourceLength != sourceLength) {
+      return null;
+    }
+    return entry.index;
+  }
+
+  void put(AtomicVector subscriptVector, int sourceLength, IntArrayVector index) {
+    cache.put(subscriptVector, new Entry(sourceLength, index));
+  }
+
+  /**
+   * @return the zero-based positions selected by {@code subscript} from a source of
+   * {@code sourceLength} elements, with -1 for {@code NA} and out of bounds positions.
+   */
+  static IntArrayVector computeIndex(Subscript subscript, int sourceLength) {
+    int[] positions = new int[16];
+    int length = 0;
+
+    IndexIterator it = subscript.computeIndexes();
+    int index;
+    while((index=it.next()) != IndexIterator.EOF) {
+      if(length == positions.length) {
+        positions = Arrays.copyOf(positions, positions.length * 2);
+      }
+      if(IntVector.isNA(index) || index >= sourceLength) {
+        positions[length++] = -1;
+      } else {
+        positions[length++] = index;
+      }
+    }
+    return IntArrayVector.unsafe(Arrays.copyOf(positions, length));
+  }
+}
@@ -27,6 +27,7 @@ import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.*;
 import org.renjin.methods.MethodDispatch;
 import org.renjin.primitives.Types;
+import org.renjin.primitives.vector.GrowableVectors;
 import org.renjin.sexp.*;
 
 import java.util.Collections;
@@ -297,6 +298,14 @@ public class Subsetting {
 
     Vector replacement = (Vector) replacementExp;
 
+    // Fast path for x[length(x)+1] <- v in a loop
+    if(source instanceof AtomicVector && argumentList.length() == 2) {
+      Vector appended = GrowableVectors.tryAppendAt(source, argumentList.getElementAsSEXP(0), replacement);
+      if(appended != null) {
+        return appended;
+      }
+    }
+
     // Special case: if both source and replacement have length 0, then return source without
     // even checking subscripts
     if(source.length() == 0 && replacement.length() == 0) {
@@ -340,6 +349,14 @@ public class Subsetting {
 
     SEXP replacement = argumentList.getElementAsSEXP(argumentList.length() - 1);
 
+    // Fast path for x[[length(x)+1]] <- v in a loop
+    if(source instanceof AtomicVector && argumentList.length() == 2) {
+      Vector appended = GrowableVectors.tryAppendAt(source, argumentList.getElementAsSEXP(0), replacement);
+      if(appended != null) {
+        return appended;
+      }
+    }
+
     List<SEXP> subscripts = Lists.newArrayListWithCapacity(argumentList.length() - 1);
     for (int i = 0; i < argumentList.length() - 1; i++) {
       subscripts.add(argumentList.get(i));
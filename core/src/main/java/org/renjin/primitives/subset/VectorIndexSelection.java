@@ -2,6 +2,7 @@ package org.renjin.primitives.subset;
 
 import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
+import org.renjin.primitives.subset.view.IndexedViews;
 import org.renjin.sexp.*;
 
 import static org.renjin.primitives.subset.SubsetAssertions.checkBounds;
@@ -12,6 +13,17 @@ import static org.renjin.primitives.subset.SubsetAssertions.checkBounds;
  */
 class VectorIndexSelection implements SelectionStrategy {
 
+  /**
+   * The minimum number of elements to select before we create a view rather than a copy
+   */
+  private static final int MIN_VIEW_LENGTH = 1024;
+
+  /**
+   * The largest ratio of source length to selected length for which we create a view.
+   * Sparser selections are copied, so that they do not keep a large source reachable.
+   */
+  private static final int MAX_VIEW_SPARSITY = 8;
+
   private final AtomicVector subscript;
 
   public VectorIndexSelection(AtomicVector subscript) {
@@ -20,7 +32,52 @@ class VectorIndexSelection implements SelectionStrategy {
 
   @Override
   public SEXP getVectorSubset(Context context, Vector source, boolean drop) {
-    return buildSelection(source, new IndexSubscript(this.subscript, source.length()), drop);
+    IndexSubscript subscript = new IndexSubscript(this.subscript, source.length());
+    Vector view = buildView(context, source, this.subscript, subscript, subscript.getMaxSelectedLength());
+    if(view != null) {
+      return view;
+    }
+    return buildSelection(source, subscript, drop);
+  }
+
+  /**
+   * Selects elements from a large vector by creating a view through an index shared
+   * with other vectors selected by the same subscript, rather than copying them.
+   *
+   * @param maxSelectedLength the largest number of elements that {@code subscript} can select, used to
+   *                          reject selections that are too small before their index is computed.
+   * @return the view, or {@code null} if the selection should be copied instead.
+   */
+  static Vector buildView(Context context, Vector source, AtomicVector subscriptVector, Subscript subscript,
+                          int maxSelectedLength) {
+    if(source.length() < MIN_VIEW_LENGTH || !IndexedViews.accept(source) || isOneDimensionalArray(source) ||
+        !acceptViewLength(maxSelectedLength, source.length())) {
+      return null;
+    }
+
+    // Only indexes used by a view are cached, so that rejected selections are not kept reachable
+    SubsetIndexCache cache = context.getSession().getSingleton(SubsetIndexCache.class);
+    IntArrayVector index = cache.get(subscriptVector, source.length());
+    if(index == null) {
+      index = SubsetIndexCache.computeIndex(subscript, source.length());
+      if(!acceptViewLength(index.length(), source.length())) {
+        return null;
+      }
+      cache.put(subscriptVector, source.length(), index);
+    }
+
+    AttributeMap attributes = AttributeMap.EMPTY;
+    AtomicVector sourceNames = source.getNames();
+    if(sourceNames instanceof StringVector) {
+      attributes = AttributeMap.builder()
+          .setNames((StringVector) IndexedViews.select(sourceNames, index, AttributeMap.EMPTY))
+          .build();
+    }
+    return IndexedViews.select(source, index, attributes);
+  }
+
+  private static boolean acceptViewLength(int length, int sourceLength) {
+    return length >= MIN_VIEW_LENGTH && (long) length * MAX_VIEW_SPARSITY >= sourceLength;
   }
 
   public static Vector buildSelection(Vector source, Subscript subscript, boolean drop) {
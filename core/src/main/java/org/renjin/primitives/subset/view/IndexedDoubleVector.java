@@ -0,0 +1,68 @@
+package org.renjin.primitives.subset.view;
+
+import org.renjin.sexp.*;
+
+/**
+ * View of the elements of a double vector at the positions of an index.
+ *
+ * @see IndexedView
+ */
+public class IndexedDoubleVector extends DoubleVector implements IndexedView {
+
+  private final DoubleVector source;
+  private final IntArrayVector index;
+  private final int[] positions;
+
+  public IndexedDoubleVector(DoubleVector source, IntArrayVector index, AttributeMap attributes) {
+    super(attributes);
+    this.source = source;
+    this.index = index;
+    this.positions = index.toIntArrayUnsafe();
+  }
+
+  @Override
+  public Vector getSource() {
+    return source;
+  }
+
+  @Override
+  public IntArrayVector getIndex() {
+    return index;
+  }
+
+  @Override
+  public Vector[] getOperands() {
+    return new Vector[] { source, index };
+  }
+
+  @Override
+  public String getComputationName() {
+    return "select";
+  }
+
+  @Override
+  public boolean isDeferred() {
+    return true;
+  }
+
+  @Override
+  public int length() {
+    return positions.length;
+  }
+
+  @Override
+  public double getElementAsDouble(int index) {
+    int position = positions[index];
+    return position == -1 ? DoubleVector.NA : source.getElementAsDouble(position);
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return source.isConstantAccessTime();
+  }
+
+  @Override
+  protected DoubleVector cloneWithNewAttributes(AttributeMap attributes) {
+    return new IndexedDoubleVector(source, index, attributes);
+  }
+}
@@ -0,0 +1,68 @@
+package org.renjin.primitives.subset.view;
+
+import org.renjin.sexp.*;
+
+/**
+ * View of the elements of an integer vector at the positions of an index.
+ *
+ * @see IndexedView
+ */
+public class IndexedIntVector extends IntVector implements IndexedView {
+
+  private final IntVector source;
+  private final IntArrayVector index;
+  private final int[] positions;
+
+  public IndexedIntVector(IntVector source, IntArrayVector index, AttributeMap attributes) {
+    super(attributes);
+    this.source = source;
+    this.index = index;
+    this.positions = index.toIntArrayUnsafe();
+  }
+
+  @Override
+  public Vector getSource() {
+    return source;
+  }
+
+  @Override
+  public IntArrayVector getIndex() {
+    return index;
+  }
+
+  @Override
+  public Vector[] getOperands() {
+    return new Vector[] { source, index };
+  }
+
+  @Override
+  public String getComputationName() {
+    return "select";
+  }
+
+  @Override
+  public boolean isDeferred() {
+    return true;
+  }
+
+  @Override
+  public int length() {
+    return positions.length;
+  }
+
+  @Override
+  public int getElementAsInt(int index) {
+    int position = positions[index];
+    return position == -1 ? IntVector.NA : source.getElementAsInt(position);
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return source.isConstantAccessTime();
+  }
+
+  @Override
+  protected IntVector cloneWithNewAttributes(AttributeMap attributes) {
+    return new IndexedIntVector(source, index, attributes);
+  }
+}
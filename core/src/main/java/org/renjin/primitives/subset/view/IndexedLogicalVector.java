@@ -0,0 +1,68 @@
+package org.renjin.primitives.subset.view;
+
+import org.renjin.sexp.*;
+
+/**
+ * View of the elements of a logical vector at the positions of an index.
+ *
+ * @see IndexedView
+ */
+public class IndexedLogicalVector extends LogicalVector implements IndexedView {
+
+  private final LogicalVector source;
+  private final IntArrayVector index;
+  private final int[] positions;
+
+  public IndexedLogicalVector(LogicalVector source, IntArrayVector index, AttributeMap attributes) {
+    super(attributes);
+    this.source = source;
+    this.index = index;
+    this.positions = index.toIntArrayUnsafe();
+  }
+
+  @Override
+  public Vector getSource() {
+    return source;
+  }
+
+  @Override
+  public IntArrayVector getIndex() {
+    return index;
+  }
+
+  @Override
+  public Vector[] getOperands() {
+    return new Vector[] { source, index };
+  }
+
+  @Override
+  public String getComputationName() {
+    return "select";
+  }
+
+  @Override
+  public boolean isDeferred() {
+    return true;
+  }
+
+  @Override
+  public int length() {
+    return positions.length;
+  }
+
+  @Override
+  public int getElementAsRawLogical(int index) {
+    int position = positions[index];
+    return position == -1 ? LogicalVector.NA : source.getElementAsRawLogical(position);
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return source.isConstantAccessTime();
+  }
+
+  @Override
+  protected LogicalVector cloneWithNewAttributes(AttributeMap attributes) {
+    return new IndexedLogicalVector(source, index, attributes);
+  }
+}
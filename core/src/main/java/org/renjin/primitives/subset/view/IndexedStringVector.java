@@ -0,0 +1,68 @@
+package org.renjin.primitives.subset.view;
+
+import org.renjin.sexp.*;
+
+/**
+ * View of the elements of a character vector at the positions of an index.
+ *
+ * @see IndexedView
+ */
+public class IndexedStringVector extends StringVector implements IndexedView {
+
+  private final StringVector source;
+  private final IntArrayVector index;
+  private final int[] positions;
+
+  public IndexedStringVector(StringVector source, IntArrayVector index, AttributeMap attributes) {
+    super(attributes);
+    this.source = source;
+    this.index = index;
+    this.positions = index.toIntArrayUnsafe();
+  }
+
+  @Override
+  public Vector getSource() {
+    return source;
+  }
+
+  @Override
+  public IntArrayVector getIndex() {
+    return index;
+  }
+
+  @Override
+  public Vector[] getOperands() {
+    return new Vector[] { source, index };
+  }
+
+  @Override
+  public String getComputationName() {
+    return "select";
+  }
+
+  @Override
+  public boolean isDeferred() {
+    return true;
+  }
+
+  @Override
+  public int length() {
+    return positions.length;
+  }
+
+  @Override
+  public String getElementAsString(int index) {
+    int position = positions[index];
+    return position == -1 ? null : source.getElementAsString(position);
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return source.isConstantAccessTime();
+  }
+
+  @Override
+  protected StringVector cloneWithNewAttributes(AttributeMap attributes) {
+    return new IndexedStringVector(source, index, attributes);
+  }
+}
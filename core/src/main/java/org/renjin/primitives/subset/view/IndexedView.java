@@ -0,0 +1,21 @@
+package org.renjin.primitives.subset.view;
+
+import org.renjin.primitives.vector.DeferredComputation;
+import org.renjin.sexp.IntArrayVector;
+import org.renjin.sexp.Vector;
+
+/**
+ * A vector which is a selection of the elements of a source vector, gathered through
+ * an index rather than copied.
+ *
+ * <p>The index holds the zero-based position in the source of each element, or -1 for elements
+ * which are {@code NA} because their subscript was {@code NA} or out of bounds. The same index
+ * may be shared between several views, as when each column of a data frame is subset by the same
+ * rows.</p>
+ */
+public interface IndexedView extends DeferredComputation {
+
+  Vector getSource();
+
+  IntArrayVector getIndex();
+}
@@ -0,0 +1,59 @@
+package org.renjin.primitives.subset.view;
+
+import org.renjin.sexp.*;
+
+/**
+ * Creates {@link IndexedView}s over vectors.
+ */
+public final class IndexedViews {
+
+  private IndexedViews() {
+  }
+
+  /**
+   * @return true if a view can be created over {@code source}
+   */
+  public static boolean accept(Vector source) {
+    return (source instanceof DoubleVector ||
+            source instanceof IntVector ||
+            source instanceof LogicalVector ||
+            source instanceof StringVector) &&
+        source.isConstantAccessTime();
+  }
+
+  /**
+   * Creates a view of the elements of {@code source} at the positions in {@code index}.
+   *
+   * <p>If {@code source} is itself a view, the new view selects directly from the original
+   * source, through the composition of the two indexes, so that views never form chains.</p>
+   */
+  public static AtomicVector select(Vector source, IntArrayVector index, AttributeMap attributes) {
+    if(source instanceof IndexedView) {
+      IndexedView view = (IndexedView) source;
+      index = compose(view.getIndex(), index);
+      source = view.getSource();
+    }
+    if(source instanceof DoubleVector) {
+      return new IndexedDoubleVector((DoubleVector) source, index, attributes);
+    } else if(source instanceof IntVector) {
+      return new IndexedIntVector((IntVector) source, index, attributes);
+    } else if(source instanceof LogicalVector) {
+      return new IndexedLogicalVector((LogicalVector) source, index, attributes);
+    } else if(source instanceof StringVector) {
+      return new IndexedStringVector((StringVector) source, index, attributes);
+    } else {
+      throw new IllegalArgumentException("source: " + source.getTypeName());
+    }
+  }
+
+  private static IntArrayVector compose(IntArrayVector inner, IntArrayVector outer) {
+    int[] innerPositions = inner.toIntArrayUnsafe();
+    int[] outerPositions = outer.toIntArrayUnsafe();
+    int[] positions = new int[outerPositions.length];
+    for (int i = 0; i < positions.length; i++) {
+      int position = outerPositions[i];
+      positions[i] = position == -1 ? -1 : innerPositions[position];
+    }
+    return IntArrayVector.unsafe(positions);
+  }
+}
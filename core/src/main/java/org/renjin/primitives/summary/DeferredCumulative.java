@@ -0,0 +1,117 @@
+package org.renjin.primitives.summary;
+
+import org.renjin.primitives.vector.MemoizedComputation;
+import org.renjin.sexp.*;
+
+/**
+ * The cumulative sums or products of a vector, as computed by
+ * {@code cumsum(x)} or {@code cumprod(x)}.
+ */
+public class DeferredCumulative extends DoubleVector implements MemoizedComputation {
+
+  private final Vector vector;
+  private final boolean product;
+  private double[] result;
+
+  private DeferredCumulative(Vector vector, boolean product, AttributeMap attributes) {
+    super(attributes);
+    this.vector = vector;
+    this.product = product;
+  }
+
+  public static DeferredCumulative sum(Vector vector, AttributeMap attributes) {
+    return new DeferredCumulative(vector, false, attributes);
+  }
+
+  public static DeferredCumulative product(Vector vector, AttributeMap attributes) {
+    return new DeferredCumulative(vector, true, attributes);
+  }
+
+  @Override
+  public Vector[] getOperands() {
+    return new Vector[] { vector };
+  }
+
+  @Override
+  public String getComputationName() {
+    return product ? "cumprod" : "cumsum";
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new DeferredCumulative(vector, product, attributes);
+  }
+
+  @Override
+  public double getElementAsDouble(int index) {
+    if(result == null) {
+      result = calculate();
+    }
+    return result[index];
+  }
+
+  private double[] calculate() {
+    double[] values = new double[vector.length()];
+    double accumulator = product ? 1 : 0;
+    for(int i=0;i!=values.length;++i) {
+      double x = vector.getElementAsDouble(i);
+      if(product) {
+        accumulator *= x;
+        values[i] = productElement(accumulator, i);
+      } else {
+        accumulator += x;
+        values[i] = sumElement(accumulator);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * @return the element of {@code cumsum(x)} with the given running sum: once the
+   * sum is NaN, all remaining elements are NA.
+   */
+  public static double sumElement(double sum) {
+    return Double.isNaN(sum) ? DoubleVector.NA : sum;
+  }
+
+  /**
+   * @return the {@code i}-th element of {@code cumprod(x)}: NaN products are NA,
+   * except for the first element, which is copied as-is.
+   */
+  public static double productElement(double product, int i) {
+    return i > 0 && Double.isNaN(product) ? DoubleVector.NA : product;
+  }
+
+  @Override
+  public int length() {
+    return vector.length();
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return false;
+  }
+
+  @Override
+  public boolean isCalculated() {
+    return result != null;
+  }
+
+  @Override
+  public boolean isDeferred() {
+    return !isCalculated();
+  }
+
+  @Override
+  public Vector forceResult() {
+    if(result == null) {
+      result = calculate();
+    }
+    return DoubleArrayVector.unsafe(result, getAttributes());
+  }
+
+  @Override
+  public void setResult(Vector result) {
+    this.result = ((AtomicVector) result).toDoubleArray();
+  }
+}
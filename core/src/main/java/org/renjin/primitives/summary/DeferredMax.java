@@ -0,0 +1,46 @@
+package org.renjin.primitives.summary;
+
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Vector;
+
+public class DeferredMax extends DeferredSummary {
+
+  public DeferredMax(Vector vector, AttributeMap attributes) {
+    super(vector, attributes);
+  }
+
+  @Override
+  protected double calculate() {
+    double max = Double.NEGATIVE_INFINITY;
+    for(int i=0;i!=vector.length();++i) {
+      max = max(max, vector.getElementAsDouble(i));
+    }
+    return max;
+  }
+
+  /**
+   * Accumulates the maximum of {@code max} and {@code x}, where any NA trumps NaN,
+   * which in turn trumps all other values, as in {@code max()}.
+   */
+  public static double max(double max, double x) {
+    if(Double.isNaN(max)) {
+      return DoubleVector.isNA(x) ? x : max;
+    }
+    if(Double.isNaN(x) || x > max) {
+      return x;
+    }
+    return max;
+  }
+
+  @Override
+  public String getComputationName() {
+    return "max";
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new DeferredMax(vector, attributes);
+  }
+}
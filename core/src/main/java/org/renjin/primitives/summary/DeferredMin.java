@@ -0,0 +1,46 @@
+package org.renjin.primitives.summary;
+
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Vector;
+
+public class DeferredMin extends DeferredSummary {
+
+  public DeferredMin(Vector vector, AttributeMap attributes) {
+    super(vector, attributes);
+  }
+
+  @Override
+  protected double calculate() {
+    double min = Double.POSITIVE_INFINITY;
+    for(int i=0;i!=vector.length();++i) {
+      min = min(min, vector.getElementAsDouble(i));
+    }
+    return min;
+  }
+
+  /**
+   * Accumulates the minimum of {@code min} and {@code x}, where any NA trumps NaN,
+   * which in turn trumps all other values, as in {@code min()}.
+   */
+  public static double min(double min, double x) {
+    if(Double.isNaN(min)) {
+      return DoubleVector.isNA(x) ? x : min;
+    }
+    if(Double.isNaN(x) || x < min) {
+      return x;
+    }
+    return min;
+  }
+
+  @Override
+  public String getComputationName() {
+    return "min";
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new DeferredMin(vector, attributes);
+  }
+}
@@ -0,0 +1,46 @@
+package org.renjin.primitives.summary;
+
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Vector;
+
+public class DeferredProd extends DeferredSummary {
+
+  public DeferredProd(Vector vector, AttributeMap attributes) {
+    super(vector, attributes);
+  }
+
+  @Override
+  protected double calculate() {
+    double product = 1;
+    for(int i=0;i!=vector.length();++i) {
+      product = multiply(product, vector.getElementAsDouble(i));
+    }
+    return product;
+  }
+
+  /**
+   * Accumulates the product of {@code product} and {@code x}, where
+   * NA trumps all other values, as in {@code prod()}.
+   */
+  public static double multiply(double product, double x) {
+    if(DoubleVector.isNA(product)) {
+      return product;
+    }
+    if(DoubleVector.isNA(x)) {
+      return x;
+    }
+    return product * x;
+  }
+
+  @Override
+  public String getComputationName() {
+    return "prod";
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new DeferredProd(vector, attributes);
+  }
+}
@@ -0,0 +1,85 @@
+package org.renjin.primitives.summary;
+
+import org.renjin.primitives.vector.MemoizedComputation;
+import org.renjin.sexp.*;
+
+/**
+ * The minimum and maximum of a vector, as computed by {@code range(x)}.
+ */
+public class DeferredRange extends DoubleVector implements MemoizedComputation {
+
+  private final Vector vector;
+  private double[] result;
+
+  public DeferredRange(Vector vector, AttributeMap attributes) {
+    super(attributes);
+    this.vector = vector;
+  }
+
+  @Override
+  public Vector[] getOperands() {
+    return new Vector[] { vector };
+  }
+
+  @Override
+  public String getComputationName() {
+    return "range";
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new DeferredRange(vector, attributes);
+  }
+
+  @Override
+  public double getElementAsDouble(int index) {
+    if(result == null) {
+      result = calculate();
+    }
+    return result[index];
+  }
+
+  private double[] calculate() {
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    for(int i=0;i!=vector.length();++i) {
+      double x = vector.getElementAsDouble(i);
+      min = DeferredMin.min(min, x);
+      max = DeferredMax.max(max, x);
+    }
+    return new double[] { min, max };
+  }
+
+  @Override
+  public int length() {
+    return 2;
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return false;
+  }
+
+  @Override
+  public boolean isCalculated() {
+    return result != null;
+  }
+
+  @Override
+  public boolean isDeferred() {
+    return !isCalculated();
+  }
+
+  @Override
+  public Vector forceResult() {
+    if(result == null) {
+      result = calculate();
+    }
+    return new DoubleArrayVector(result);
+  }
+
+  @Override
+  public void setResult(Vector result) {
+    this.result = ((AtomicVector) result).toDoubleArray();
+  }
+}
@@ -0,0 +1,42 @@
+package org.renjin.primitives.summary;
+
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.SEXP;
+import org.renjin.sexp.Vector;
+
+/**
+ * The sample variance of a vector, as computed by {@code var(x)}, using
+ * the same two-pass algorithm as {@code cov()}.
+ */
+public class DeferredVariance extends DeferredSummary {
+
+  public DeferredVariance(Vector vector, AttributeMap attributes) {
+    super(vector, attributes);
+  }
+
+  @Override
+  protected double calculate() {
+    int n = vector.length();
+    double sum = 0;
+    for(int i=0;i!=n;++i) {
+      sum += vector.getElementAsDouble(i);
+    }
+    double mean = sum / n;
+    double sumOfSquares = 0;
+    for(int i=0;i!=n;++i) {
+      double deviate = vector.getElementAsDouble(i) - mean;
+      sumOfSquares += deviate * deviate;
+    }
+    return sumOfSquares / (n - 1d);
+  }
+
+  @Override
+  public String getComputationName() {
+    return "var";
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new DeferredVariance(vector, attributes);
+  }
+}
@@ -0,0 +1,116 @@
+package org.renjin.primitives.vector;
+
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.SEXP;
+
+import java.util.Arrays;
+
+/**
+ * Double vector backed by an over-allocated buffer, created by appending single
+ * elements with {@code c(x, v)} or {@code x[[length(x)+1]] <- v}.
+ *
+ * @see GrowableVectors
+ */
+public class GrowableDoubleVector extends DoubleVector {
+
+  private final Buffer buffer;
+
+  /**
+   * The buffer's array when this vector was created. Its elements below {@code length} are
+   * never modified, and as the field is final they are safely published to other threads.
+   */
+  private final double[] values;
+  private final int length;
+
+  private GrowableDoubleVector(Buffer buffer, double[] values, int length, AttributeMap attributes) {
+    super(attributes);
+    this.buffer = buffer;
+    this.values = values;
+    this.length = length;
+  }
+
+  /**
+   * @return a new vector with {@code value} appended to the elements of {@code vector}.
+   * Unless {@code vector} is the longest vector sharing its buffer, its elements are
+   * first copied into a new buffer.
+   */
+  public static GrowableDoubleVector append(DoubleVector vector, double value) {
+    if(vector instanceof GrowableDoubleVector) {
+      GrowableDoubleVector growable = (GrowableDoubleVector) vector;
+      double[] values = growable.buffer.append(growable.length, value);
+      if(values != null) {
+        return new GrowableDoubleVector(growable.buffer, values, growable.length + 1, AttributeMap.EMPTY);
+      }
+    }
+    Buffer buffer = new Buffer(vector);
+    double[] values = buffer.append(vector.length(), value);
+    return new GrowableDoubleVector(buffer, values, vector.length() + 1, AttributeMap.EMPTY);
+  }
+
+  @Override
+  protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+    return new GrowableDoubleVector(buffer, values, length, attributes);
+  }
+
+  @Override
+  public double getElementAsDouble(int index) {
+    return values[index];
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return true;
+  }
+
+  @Override
+  public double[] toDoubleArray() {
+    return Arrays.copyOf(values, length);
+  }
+
+  /**
+   * Storage shared by all vectors appended to from the same origin. Elements below
+   * {@code size} are never modified, so each vector sees a stable prefix of the buffer.
+   */
+  private static class Buffer {
+    private double[] values;
+    private int size;
+
+    Buffer(DoubleVector vector) {
+      size = vector.length();
+      if(vector instanceof DoubleArrayVector) {
+        values = Arrays.copyOf(((DoubleArrayVector) vector).toDoubleArrayUnsafe(), GrowableVectors.grow(size));
+      } else {
+        values = new double[GrowableVectors.grow(size)];
+        for (int i = 0; i < size; i++) {
+          values[i] = vector.getElementAsDouble(i);
+        }
+      }
+    }
+
+    /**
+     * Appends {@code value} if no other vector has yet appended to the first {@code expectedSize}
+     * elements. Vectors on different threads may append to the same vector, so the check and
+     * the append are made atomically.
+     *
+     * @return the array holding the new element, or {@code null} if the position after
+     * {@code expectedSize} is already taken.
+     */
+    synchronized double[] append(int expectedSize, double value) {
+      if(size != expectedSize) {
+        return null;
+      }
+      if(size == values.length) {
+        values = Arrays.copyOf(values, GrowableVectors.grow(size));
+      }
+      values[size++] = value;
+      return values;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package org.renjin.primitives.vector;
+
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.StringVector;
+
+import java.util.Arrays;
+
+/**
+ * Character vector backed by an over-allocated buffer, created by appending single
+ * elements with {@code c(x, v)} or {@code x[[length(x)+1]] <- v}.
+ *
+ * @see GrowableVectors
+ */
+public class GrowableStringVector extends StringVector {
+
+  private final Buffer buffer;
+
+  /**
+   * The buffer's array when this vector was created. Its elements below {@code length} are
+   * never modified, and as the field is final they are safely published to other threads.
+   */
+  private final String[] values;
+  private final int length;
+
+  private GrowableStringVector(Buffer buffer, String[] values, int length, AttributeMap attributes) {
+    super(attributes);
+    this.buffer = buffer;
+    this.values = values;
+    this.length = length;
+  }
+
+  /**
+   * @return a new vector with {@code value} appended to the elements of {@code vector}.
+   * Unless {@code vector} is the longest vector sharing its buffer, its elements are
+   * first copied into a new buffer.
+   */
+  public static GrowableStringVector append(StringVector vector, String value) {
+    if(vector instanceof GrowableStringVector) {
+      GrowableStringVector growable = (GrowableStringVector) vector;
+      String[] values = growable.buffer.append(growable.length, value);
+      if(values != null) {
+        return new GrowableStringVector(growable.buffer, values, growable.length + 1, AttributeMap.EMPTY);
+      }
+    }
+    Buffer buffer = new Buffer(vector);
+    String[] values = buffer.append(vector.length(), value);
+    return new GrowableStringVector(buffer, values, vector.length() + 1, AttributeMap.EMPTY);
+  }
+
+  @Override
+  protected StringVector cloneWithNewAttributes(AttributeMap attributes) {
+    return new GrowableStringVector(buffer, values, length, attributes);
+  }
+
+  @Override
+  public String getElementAsString(int index) {
+    return values[index];
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return true;
+  }
+
+  /**
+   * Storage shared by all vectors appended to from the same origin. Elements below
+   * {@code size} are never modified, so each vector sees a stable prefix of the buffer.
+   */
+  private static class Buffer {
+    private String[] values;
+    private int size;
+
+    Buffer(StringVector vector) {
+      size = vector.length();
+      values = new String[GrowableVectors.grow(size)];
+      for (int i = 0; i < size; i++) {
+        values[i] = vector.getElementAsString(i);
+      }
+    }
+
+    /**
+     * Appends {@code value} if no other vector has yet appended to the first {@code expectedSize}
+     * elements. Vectors on different threads may append to the same vector, so the check and
+     * the append are made atomically.
+     *
+     * @return the array holding the new element, or {@code null} if the position after
+     * {@code expectedSize} is already taken.
+     */
+    synchronized String[] append(int expectedSize, String value) {
+      if(size != expectedSize) {
+        return null;
+      }
+      if(size == values.length) {
+        values = Arrays.copyOf(values, GrowableVectors.grow(size));
+      }
+      values[size++] = value;
+      return values;
+    }
+  }
+}
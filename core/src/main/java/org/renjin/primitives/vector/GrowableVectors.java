@@ -0,0 +1,84 @@
+package org.renjin.primitives.vector;
+
+import org.renjin.sexp.*;
+
+/**
+ * Appends single elements to vectors in amortized constant time.
+ *
+ * <p>Building up a result with {@code x <- c(x, v)} or {@code x[[length(x)+1]] <- v}
+ * would otherwise copy the whole vector on each iteration. Instead, the elements are
+ * stored in a buffer with spare capacity that is shared between the vector and the
+ * vector produced by appending to it. A buffer is only extended in place by its
+ * longest vector, so no vector ever observes a change to its own elements.</p>
+ */
+public class GrowableVectors {
+
+  /**
+   * Vectors shorter than this are copied as usual, so that {@code c(a, b)} of
+   * a few scalars does not allocate spare capacity.
+   */
+  public static final int MIN_LENGTH = 8;
+
+  private static final int MIN_CAPACITY = 16;
+
+  private GrowableVectors() {
+  }
+
+  /**
+   * Tries to append {@code element} to {@code vector}.
+   *
+   * @return the new vector, or {@code null} if the arguments do not qualify, in which case
+   * the caller should fall back to the general implementation.
+   */
+  public static Vector tryAppend(SEXP vector, SEXP element) {
+    if(element.length() != 1 || !element.getAttributes().empty() ||
+        !vector.getAttributes().empty()) {
+      return null;
+    }
+    if(vector.length() < MIN_LENGTH && !isGrowable(vector)) {
+      return null;
+    }
+
+    if(vector instanceof DoubleVector) {
+      if(element instanceof DoubleVector || element instanceof IntVector) {
+        return GrowableDoubleVector.append((DoubleVector) vector, ((AtomicVector) element).getElementAsDouble(0));
+      }
+    } else if(vector instanceof IntVector) {
+      if(element instanceof IntVector) {
+        return GrowableIntVector.append((IntVector) vector, ((IntVector) element).getElementAsInt(0));
+      }
+    } else if(vector instanceof StringVector) {
+      if(element instanceof StringVector) {
+        return GrowableStringVector.append((StringVector) vector, ((StringVector) element).getElementAsString(0));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Tries to assign {@code element} to {@code vector[[index]]}, where {@code index}
+   * must point just past the end of the vector.
+   *
+   * @return the new vector, or {@code null} if the arguments do not qualify.
+   */
+  public static Vector tryAppendAt(SEXP vector, SEXP index, SEXP element) {
+    if(index.length() != 1 || !index.getAttributes().empty() ||
+        !(index instanceof IntVector || index instanceof DoubleVector)) {
+      return null;
+    }
+    if(((AtomicVector) index).getElementAsDouble(0) != vector.length() + 1) {
+      return null;
+    }
+    return tryAppend(vector, element);
+  }
+
+  private static boolean isGrowable(SEXP vector) {
+    return vector instanceof GrowableDoubleVector ||
+        vector instanceof GrowableIntVector ||
+        vector instanceof GrowableStringVector;
+  }
+
+  static int grow(int size) {
+    return Math.max(MIN_CAPACITY, size + (size >> 1) + 1);
+  }
+}
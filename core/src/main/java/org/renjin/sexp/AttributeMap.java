@@ -2,14 +2,12 @@ package org.renjin.sexp;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import org.renjin.eval.EvalException;
 import org.renjin.primitives.vector.ConvertingStringVector;
 import org.renjin.primitives.vector.RowNamesVector;
 
-import java.util.IdentityHashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 
 /**
@@ -23,7 +21,13 @@ import java.util.Map;
  * determine how the value is interpreted. The
  * The most commonly accessed attributes
  * are stored in this structure as direct pointers, others in an
- * IdentityHashMap.
+ * immutable list of entries.
+ *
+ * <p>Maps are shared rather than copied wherever possible: a {@link Builder} which ends up with
+ * exactly the attributes of the map it started from, or of the single map it combined attributes
+ * from, returns that map itself rather than a new one. The result of {@code x + 1} therefore has
+ * the same {@code AttributeMap} instance as {@code x}, and checking whether two values have the same
+ * attributes is usually just a comparison of references.</p>
  */
 public class AttributeMap {
   private StringVector classes = null;
@@ -31,7 +35,12 @@ public class AttributeMap {
   private IntVector dim = null;
   private ListVector dimNames = null;
 
-  private Map<Symbol, SEXP> map;
+  private Entries map;
+
+  /**
+   * The hash code, computed on first use, or zero
+   */
+  private int hashCode;
 
   public static boolean CATCH_DEFINED = false;
 
@@ -73,7 +82,9 @@ public class AttributeMap {
       list.add(Symbols.DIMNAMES);
     }
     if(map != null) {
-      list.addAll(map.keySet());
+      for (int i = 0; i < map.size(); i++) {
+        list.add(map.getKey(i));
+      }
     }
     return list;
   }
@@ -104,8 +115,8 @@ public class AttributeMap {
       list.add(Symbols.DIMNAMES, dimNames);
     }
     if(map != null) {
-      for(Map.Entry<Symbol, SEXP> entry : map.entrySet()) {
-        list.add(entry.getKey(), entry.getValue());
+      for (int i = 0; i < map.size(); i++) {
+        list.add(map.getKey(i), map.getValue(i));
       }
     }
   }
@@ -218,6 +229,8 @@ public class AttributeMap {
   public AttributeMap copyNames() {
     if(names == null ) {
       return AttributeMap.EMPTY;
+    } else if(classes == null && dim == null && dimNames == null && map == null) {
+      return this;
     } else {
       AttributeMap attributes = new AttributeMap();
       attributes.names = names;
@@ -233,17 +246,11 @@ public class AttributeMap {
   public AttributeMap copyStructural() {
     if(classes == null && map == null) {
       return this;
-    } else if(dim != null || names != null || (map != null && map.containsKey(Symbols.DIMNAMES))) {
+    } else if(dim != null || names != null) {
       AttributeMap copy = new AttributeMap();
       copy.dim = this.dim;
       copy.names = this.names;
-      if(this.map != null) {
-        SEXP dimnames = map.get(Symbols.DIMNAMES);
-        if(dimnames != null) {
-          copy.map = Maps.newIdentityHashMap();
-          copy.map.put(Symbols.DIMNAMES, dimnames);
-        }
-      }
+      copy.dimNames = this.dimNames;
       return copy;
     } else {
       return AttributeMap.EMPTY;
@@ -309,32 +316,31 @@ public class AttributeMap {
       return false;
     }
 
+    // The cached hash codes cannot be used to rule out equality: ListVector, for one,
+    // hashes by identity but compares its elements
     AttributeMap that = (AttributeMap) o;
+    return equal(classes, that.classes) &&
+        equal(names, that.names) &&
+        equal(dim, that.dim) &&
+        equal(dimNames, that.dimNames) &&
+        equal(map, that.map);
+  }
 
-    if (classes != null ? !classes.equals(that.classes) : that.classes != null) {
-      return false;
-    }
-    if (names != null ? !names.equals(that.names) : that.names != null) {
-      return false;
-    }
-    if (dim != null ? !dim.equals(that.dim) : that.dim != null) {
-      return false;
-    }
-    if (dimNames != null ? !dimNames.equals(that.dimNames) : that.dimNames != null) {
-      return false;
-    }
-    return !(map != null ? !map.equals(that.map) : that.map != null);
-
+  private static boolean equal(Object a, Object b) {
+    return a == b || (a != null && a.equals(b));
   }
 
   @Override
   public int hashCode() {
-    int result = classes != null ? classes.hashCode() : 0;
-    result = 31 * result + (names != null ? names.hashCode() : 0);
-    result = 31 * result + (dim != null ? dim.hashCode() : 0);
-    result = 31 * result + (dimNames != null ? dimNames.hashCode() : 0);
-    result = 31 * result + (map != null ? map.hashCode() : 0);
-    return result;
+    if(hashCode == 0) {
+      int result = classes != null ? classes.hashCode() : 0;
+      result = 31 * result + (names != null ? names.hashCode() : 0);
+      result = 31 * result + (dim != null ? dim.hashCode() : 0);
+      result = 31 * result + (dimNames != null ? dimNames.hashCode() : 0);
+      result = 31 * result + (map != null ? map.hashCode() : 0);
+      hashCode = result;
+    }
+    return hashCode;
   }
 
   public static Builder newBuilder() {
@@ -347,10 +353,16 @@ public class AttributeMap {
     private IntVector dim = null;
     private ListVector dimNames = null;
 
-    private Map<Symbol, SEXP> map;
+    private Entries map;
 
     private boolean empty = true;
 
+    /**
+     * The map whose attributes this builder currently holds exactly, or {@code null}
+     * if the attributes have been changed since.
+     */
+    private AttributeMap base = AttributeMap.EMPTY;
+
     public Builder() {
     }
 
@@ -359,9 +371,8 @@ public class AttributeMap {
       this.names = attributes.names;
       this.dim = attributes.dim;
       this.dimNames = attributes.dimNames;
-      if(attributes.map != null) {
-        this.map = new IdentityHashMap<>(attributes.map);
-      }
+      this.map = attributes.map;
+      this.base = attributes;
       updateEmptyFlag();
     }
 
@@ -373,22 +384,20 @@ public class AttributeMap {
      */
     public Builder setDim(SEXP value) {
       if(value instanceof Null) {
-        this.dim = null;
-        updateEmptyFlag();
+        remove(Symbols.DIM);
       } else {
         if (!(value instanceof Vector)) {
           throw new EvalException("Invalid dim attribute of type '%s'", value.getTypeName());
         }
         if (value instanceof IntVector) {
-          dim = (IntVector) value;
+          setDim((IntVector) value);
         } else {
           IntArrayVector.Builder dimVector = new IntArrayVector.Builder(0, value.length());
           for (int i = 0; i < value.length(); i++) {
             dimVector.add(((AtomicVector) value).getElementAsInt(i));
           }
-          dim = dimVector.build();
+          setDim(dimVector.build());
         }
-        this.empty = false;
       }
       return this;
     }
@@ -398,20 +407,24 @@ public class AttributeMap {
      */
     public Builder setDim(IntVector dim) {
       assert dim != null;
-      this.dim = dim;
+      if(this.dim != dim) {
+        this.dim = dim;
+        this.base = null;
+      }
       this.empty = false;
       return this;
     }
 
     public Builder setDim(int rows, int cols) {
-      this.dim = new IntArrayVector(rows, cols);
-      this.empty = false;
-      return this;
+      return setDim(new IntArrayVector(rows, cols));
     }
 
     public Builder setNames(StringVector names) {
       assert names != null;
-      this.names = names;
+      if(this.names != names) {
+        this.names = names;
+        this.base = null;
+      }
       this.empty = false;
       return this;
     }
@@ -427,14 +440,14 @@ public class AttributeMap {
             throw new EvalException("'names' vector must be a character");
           }
         }
-        this.names = (StringVector) names;
-        this.empty = false;
+        setNames((StringVector) names);
       }
       return this;
     }
 
     public Builder setClass(String... classNames) {
       this.classes = new StringArrayVector(classNames);
+      this.base = null;
       this.empty = false;
       return this;
     }
@@ -449,7 +462,11 @@ public class AttributeMap {
       if(value.length() == 0) {
         return remove(Symbols.CLASS);
       }
-      this.classes = toNameVector(value);
+      StringVector classes = toNameVector(value);
+      if(this.classes != classes) {
+        this.classes = classes;
+        this.base = null;
+      }
       this.empty = false;
       return this;
     }
@@ -464,7 +481,10 @@ public class AttributeMap {
       if (!(value instanceof ListVector)) {
         throw new EvalException("'dimnames' must be a list");
       }
-      this.dimNames = (ListVector) value;
+      if(this.dimNames != value) {
+        this.dimNames = (ListVector) value;
+        this.base = null;
+      }
       this.empty = false;
       return this;
     }
@@ -511,15 +531,15 @@ public class AttributeMap {
           setDimNames(value);
 
         } else {
-          this.empty = false;
-          if(map == null) {
-            map = Maps.newIdentityHashMap();
-          }
           if(name == Symbols.ROW_NAMES) {
-            map.put(name, validateRowNames(value));
-          } else {
-            map.put(name, value);
+            value = validateRowNames(value);
           }
+          Entries updated = Entries.put(map, name, value);
+          if(updated != map) {
+            this.map = updated;
+            this.base = null;
+          }
+          this.empty = false;
         }
       }
       return this;
@@ -550,37 +570,49 @@ public class AttributeMap {
 
     public Builder remove(Symbol name) {
       if(name == Symbols.CLASS) {
-        this.classes = null;
+        if(classes != null) {
+          this.classes = null;
+          this.base = null;
+        }
       } else if(name == Symbols.NAMES) {
-        this.names = null;
+        if(names != null) {
+          this.names = null;
+          this.base = null;
+        }
       } else if(name == Symbols.DIM) {
-        this.dim = null;
+        if(dim != null) {
+          this.dim = null;
+          this.base = null;
+        }
       } else if(name == Symbols.DIMNAMES) {
-        this.dimNames = null;
-      } else if(map != null) {
-        map.remove(name);
+        if(dimNames != null) {
+          this.dimNames = null;
+          this.base = null;
+        }
+      } else {
+        Entries updated = Entries.remove(map, name);
+        if(updated != map) {
+          this.map = updated;
+          this.base = null;
+        }
       }
       updateEmptyFlag();
       return this;
     }
 
     private void updateEmptyFlag() {
-      this.empty = (classes == null && dim == null && dimNames == null && names == null &&
-          (map == null || map.isEmpty()));
+      this.empty = (classes == null && dim == null && dimNames == null && names == null && map == null);
     }
 
     public Builder removeDim() {
-      dim = null;
-      dimNames = null;
-      updateEmptyFlag();
+      remove(Symbols.DIM);
+      remove(Symbols.DIMNAMES);
       return this;
     }
 
 
     public Builder removeDimnames() {
-      dimNames = null;
-      updateEmptyFlag();
-      return this;
+      return remove(Symbols.DIMNAMES);
     }
 
     public SEXP get(String what) {
@@ -596,8 +628,11 @@ public class AttributeMap {
         return dim;
       } else if(name == Symbols.DIMNAMES) {
         return dimNames;
-      } else if(map != null && map.containsKey(name)) {
-        return map.get(name);
+      } else if(map != null) {
+        SEXP value = map.get(name);
+        if(value != null) {
+          return value;
+        }
       }
       return Null.INSTANCE;
     }
@@ -630,6 +665,28 @@ public class AttributeMap {
     }
 
     private Builder combineFrom(AttributeMap other, boolean all) {
+
+      // Combining with nothing, or with the attributes we already hold exactly, changes nothing
+      if(other == AttributeMap.EMPTY || other == base) {
+        return this;
+      }
+
+      // Combining a single map into an empty builder yields that map, unless
+      // some of its attributes would be dropped
+      if(base == AttributeMap.EMPTY && (all || (other.classes == null && other.map == null)) &&
+          (other.names == null || other.dim == null)) {
+        this.classes = other.classes;
+        this.names = other.names;
+        this.dim = other.dim;
+        this.dimNames = other.dimNames;
+        this.map = other.map;
+        this.base = other;
+        this.empty = false;
+        return this;
+      }
+
+      this.base = null;
+
       if(other.names != null) {
         if(this.names == null && this.dim == null) {
           this.names = other.names;
@@ -659,11 +716,11 @@ public class AttributeMap {
         }
         if (other.map != null) {
           if (this.map == null) {
-            this.map = new IdentityHashMap<>(other.map);
+            this.map = other.map;
           } else {
-            for (Map.Entry<Symbol, SEXP> entry : other.map.entrySet()) {
-              if (!this.map.containsKey(entry.getKey())) {
-                this.map.put(entry.getKey(), entry.getValue());
+            for (int i = 0; i < other.map.size(); i++) {
+              if (this.map.get(other.map.getKey(i)) == null) {
+                this.map = Entries.put(this.map, other.map.getKey(i), other.map.getValue(i));
               }
             }
           }
@@ -691,6 +748,20 @@ public class AttributeMap {
      * @param attributes
      */
     public Builder addAllFrom(AttributeMap attributes) {
+      if(attributes == AttributeMap.EMPTY || attributes == base) {
+        return this;
+      }
+      if(base == AttributeMap.EMPTY) {
+        this.classes = attributes.classes;
+        this.names = attributes.names;
+        this.dim = attributes.dim;
+        this.dimNames = attributes.dimNames;
+        this.map = attributes.map;
+        this.base = attributes;
+        this.empty = false;
+        return this;
+      }
+      this.base = null;
       if(attributes.classes != null) {
         this.classes = attributes.classes;
         this.empty = false;
@@ -708,13 +779,10 @@ public class AttributeMap {
         this.empty = false;
       }
       if(attributes.map != null) {
-        for(Map.Entry<Symbol, SEXP> entry : attributes.map.entrySet()) {
-          if(this.map == null) {
-            this.map = Maps.newIdentityHashMap();
-          }
-          this.map.put(entry.getKey(), entry.getValue());
-          this.empty = false;
+        for (int i = 0; i < attributes.map.size(); i++) {
+          this.map = Entries.put(this.map, attributes.map.getKey(i), attributes.map.getValue(i));
         }
+        this.empty = false;
       }
       return this;
     }
@@ -732,6 +800,10 @@ public class AttributeMap {
         return AttributeMap.EMPTY;
       }
       assert !reallyEmpty() : "empty flag is wrong";
+
+      if(base != null) {
+        return base;
+      }
       
       AttributeMap attributes = new AttributeMap();
       attributes.classes = classes;
@@ -742,9 +814,7 @@ public class AttributeMap {
         attributes.names = names;
       }
 
-      if(map != null && !map.isEmpty()) {
-        attributes.map = map;
-      }
+      attributes.map = map;
       return attributes;
     
     }
@@ -772,15 +842,21 @@ public class AttributeMap {
 
       assert !reallyEmpty() : "empty flag is wrong";
 
+      if(base != null) {
+        // The dimnames of an existing map have already been validated against its dim,
+        // but the dim and names must still match this length
+        validateDim(length);
+        if(validateNames(length) == names) {
+          return base;
+        }
+      }
+
       AttributeMap attributes = new AttributeMap();
       attributes.classes = classes;
       attributes.dim = validateDim(length);
       attributes.dimNames = validateDimNames();
       attributes.names = validateNames(length);
-
-      if(map != null && !map.isEmpty()) {
-        attributes.map = map;
-      }
+      attributes.map = map;
       return attributes;
     }
 
@@ -878,6 +954,9 @@ public class AttributeMap {
 
     private StringVector toNameVector(SEXP sexp) {
       if(sexp instanceof StringVector) {
+        if(sexp.getAttributes() == AttributeMap.EMPTY) {
+          return (StringVector) sexp;
+        }
         return (StringVector)sexp.setAttributes(AttributeMap.EMPTY);
       } else if(sexp instanceof Vector) {
         return StringArrayVector.fromVector((Vector) sexp);
@@ -941,4 +1020,133 @@ public class AttributeMap {
   public String getPackage() {
     return getString(Symbols.PACKAGE);
   }
+
+  /**
+   * Immutable list of the attributes other than {@code class}, {@code names}, {@code dim}
+   * and {@code dimnames}, in the order in which they were set.
+   *
+   * <p>Objects rarely have more than a few such attributes, so adding or removing an attribute
+   * copies the arrays rather than updating a tree. Either way, an {@code Entries} instance never
+   * changes once created, so it is shared freely between builders and the maps they build.</p>
+   */
+  private static final class Entries {
+    private final Symbol[] keys;
+    private final SEXP[] values;
+
+    private Entries(Symbol[] keys, SEXP[] values) {
+      this.keys = keys;
+      this.values = values;
+    }
+
+    public int size() {
+      return keys.length;
+    }
+
+    public Symbol getKey(int i) {
+      return keys[i];
+    }
+
+    public SEXP getValue(int i) {
+      return values[i];
+    }
+
+    /**
+     * @return the value of the attribute {@code name}, or {@code null} if it is not present
+     */
+    public SEXP get(Symbol name) {
+      int i = indexOf(name);
+      return i == -1 ? null : values[i];
+    }
+
+    private int indexOf(Symbol name) {
+      for (int i = 0; i < keys.length; i++) {
+        if(keys[i] == name) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * @return {@code entries} with the attribute {@code name} set to {@code value}, which is
+     * {@code entries} itself if the attribute already had this value.
+     */
+    public static Entries put(Entries entries, Symbol name, SEXP value) {
+      if(entries == null) {
+        return new Entries(new Symbol[] { name }, new SEXP[] { value });
+      }
+      int i = entries.indexOf(name);
+      if(i != -1) {
+        if(entries.values[i] == value) {
+          return entries;
+        }
+        SEXP[] values = entries.values.clone();
+        values[i] = value;
+        return new Entries(entries.keys, values);
+      }
+      int size = entries.keys.length;
+      Symbol[] keys = Arrays.copyOf(entries.keys, size + 1);
+      SEXP[] values = Arrays.copyOf(entries.values, size + 1);
+      keys[size] = name;
+      values[size] = value;
+      return new Entries(keys, values);
+    }
+
+    /**
+     * @return {@code entries} without the attribute {@code name}, or {@code null} if none remain
+     */
+    public static Entries remove(Entries entries, Symbol name) {
+      if(entries == null) {
+        return null;
+      }
+      int i = entries.indexOf(name);
+      if(i == -1) {
+        return entries;
+      }
+      int size = entries.keys.length;
+      if(size == 1) {
+        return null;
+      }
+      Symbol[] keys = new Symbol[size - 1];
+      SEXP[] values = new SEXP[size - 1];
+      System.arraycopy(entries.keys, 0, keys, 0, i);
+      System.arraycopy(entries.values, 0, values, 0, i);
+      System.arraycopy(entries.keys, i + 1, keys, i, size - i - 1);
+      System.arraycopy(entries.values, i + 1, values, i, size - i - 1);
+      return new Entries(keys, values);
+    }
+
+    /**
+     * Two lists of entries are equal if they have the same attributes, in any order,
+     * with identical values.
+     */
+    @Override
+    public boolean equals(Object o) {
+      if(this == o) {
+        return true;
+      }
+      if(!(o instanceof Entries)) {
+        return false;
+      }
+      Entries that = (Entries) o;
+      if(keys.length != that.keys.length) {
+        return false;
+      }
+      for (int i = 0; i < keys.length; i++) {
+        if(that.get(keys[i]) != values[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = 0;
+      for (int i = 0; i < keys.length; i++) {
+        hash += System.identityHashCode(keys[i]) ^ System.identityHashCode(values[i]);
+      }
+      return hash;
+    }
+  }
 }
@@ -67,4 +67,42 @@ public abstract class BuiltinFunction extends PrimitiveFunction {
       SEXP arguments[]) {
     throw new UnsupportedOperationException(getName());
   }
+
+  /**
+   * @return true if this {@code BuiltinFunction} can be applied to {@code arity} evaluated
+   * arguments through {@link #apply1(Context, Environment, SEXP)} or
+   * {@link #apply2(Context, Environment, SEXP, SEXP)}.
+   */
+  public boolean isFastApplicable(int arity) {
+    return false;
+  }
+
+  /**
+   * Applies this {@code BuiltinFunction} to a single evaluated argument, without
+   * building an argument list. The caller is responsible for ensuring that the argument is
+   * not an object: no generic dispatch is attempted.
+   *
+   * @param context the runtime context in which to evaluate this function
+   * @param rho the environment from which the function was called
+   * @param arg0 the <b><i>evaluated</i></b> argument
+   * @return the result of the function
+   */
+  public SEXP apply1(Context context, Environment rho, SEXP arg0) {
+    throw new UnsupportedOperationException(getName());
+  }
+
+  /**
+   * Applies this {@code BuiltinFunction} to two evaluated arguments, without
+   * building an argument list. The caller is responsible for ensuring that neither argument
+   * is an object: no generic dispatch is attempted.
+   *
+   * @param context the runtime context in which to evaluate this function
+   * @param rho the environment from which the function was called
+   * @param arg0 the first <b><i>evaluated</i></b> argument
+   * @param arg1 the second <b><i>evaluated</i></b> argument
+   * @return the result of the function
+   */
+  public SEXP apply2(Context context, Environment rho, SEXP arg0, SEXP arg1) {
+    throw new UnsupportedOperationException(getName());
+  }
 }
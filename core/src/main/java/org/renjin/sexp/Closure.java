@@ -24,6 +24,7 @@ package org.renjin.sexp;
 import com.google.common.base.Objects;
 import org.renjin.eval.ClosureDispatcher;
 import org.renjin.eval.Context;
+import org.renjin.primitives.special.ControlFlow;
 import org.renjin.primitives.special.ReturnException;
 
 
@@ -43,6 +44,11 @@ public class Closure extends AbstractSEXP implements Function {
   private SEXP body;
   private PairList formals;
 
+  /**
+   * The slots of this closure's call frames, computed on the first call.
+   */
+  private transient ClosureFrame.Layout frameLayout;
+
   public Closure(Environment enclosingEnvironment, PairList formals, SEXP body, AttributeMap attributes) {
     super(attributes);
     this.enclosingEnvironment = enclosingEnvironment;
@@ -87,7 +93,7 @@ public class Closure extends AbstractSEXP implements Function {
     Context functionContext = callingContext.beginFunction(callingEnvironment, call, this, promisedArgs);
     Environment functionEnvironment = functionContext.getEnvironment();    
 
-    ClosureDispatcher.matchArgumentsInto(getFormals(), promisedArgs, functionContext, functionEnvironment);
+    ClosureDispatcher.matchArgumentsInto(call, getFormals(), promisedArgs, functionContext, functionEnvironment);
 
     SEXP result;
     try {
@@ -103,8 +109,24 @@ public class Closure extends AbstractSEXP implements Function {
     return result;
   }
 
+  /**
+   * @return a new, empty frame for the environment of a call to this closure
+   */
+  public Frame createFrame() {
+    ClosureFrame.Layout layout = frameLayout;
+    if(layout == null) {
+      layout = ClosureFrame.Layout.of(formals, body);
+      frameLayout = layout;
+    }
+    return new ClosureFrame(layout);
+  }
+
   public SEXP doApply(Context functionContext) {
-    return functionContext.evaluate(body);
+    SEXP result = ControlFlow.evaluateStatement(functionContext, functionContext.getEnvironment(), body, false);
+    if(result instanceof ControlFlow.Return) {
+      return ((ControlFlow.Return) result).getValue();
+    }
+    return result;
   }
    
 
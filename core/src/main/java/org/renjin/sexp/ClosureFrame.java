@@ -0,0 +1,225 @@
+package org.renjin.sexp;
+
+import org.renjin.eval.Context;
+import org.renjin.eval.EvalException;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Frame for the environment of a closure call.
+ *
+ * <p>The formal arguments and the local variables assigned in the closure's body are
+ * stored in a fixed array of slots, laid out once per {@link Closure}. Variables created
+ * dynamically, for example through {@code assign()} or {@code eval()}, are stored
+ * in a map that is only allocated when needed.</p>
+ */
+public class ClosureFrame implements Frame {
+
+  private final Layout layout;
+  private final SEXP[] values;
+  private IdentityHashMap<Symbol, SEXP> overflow;
+
+  /**
+   * Bloom-esque filter keeping track of which functions have
+   * been (potentially) set into this frame.
+   */
+  private int functionFilter = 0;
+
+  public ClosureFrame(Layout layout) {
+    this.layout = layout;
+    this.values = new SEXP[layout.symbols.length];
+  }
+
+  @Override
+  public Set<Symbol> getSymbols() {
+    Set<Symbol> symbols = new HashSet<Symbol>();
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        symbols.add(layout.symbols[i]);
+      }
+    }
+    if (overflow != null) {
+      symbols.addAll(overflow.keySet());
+    }
+    return symbols;
+  }
+
+  @Override
+  public SEXP getVariable(Symbol name) {
+    SEXP value = get(name);
+    return value == null ? Symbol.UNBOUND_VALUE : value;
+  }
+
+  private SEXP get(Symbol name) {
+    int slot = layout.indexOf(name);
+    if (slot != -1) {
+      return values[slot];
+    }
+    if (overflow != null) {
+      return overflow.get(name);
+    }
+    return null;
+  }
+
+  @Override
+  public Function getFunction(Context context, Symbol name) {
+    if (functionFilter != 0 && (functionFilter & name.hashBit()) != 0) {
+      SEXP value = get(name);
+      if (value != null) {
+        value = value.force(context);
+        if (value == Symbol.MISSING_ARG) {
+          throw new EvalException("argument '%s' is missing with no default", name.toString());
+        }
+        if (value instanceof Function) {
+          return (Function) value;
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean isMissingArgument(Symbol name) {
+    if (functionFilter != 0 && (functionFilter & name.hashBit()) != 0) {
+      return get(name) == Symbol.MISSING_ARG;
+    }
+    return false;
+  }
+
+  @Override
+  public void setVariable(Symbol name, SEXP value) {
+    int slot = layout.indexOf(name);
+    if (slot != -1) {
+      values[slot] = value;
+    } else {
+      if (overflow == null) {
+        overflow = new IdentityHashMap<Symbol, SEXP>();
+      }
+      overflow.put(name, value);
+    }
+    // we add Promises to the function filter because they *could* be
+    // functions
+    if (value instanceof Function || value instanceof Promise ||
+        value == Symbol.MISSING_ARG) {
+      functionFilter |= name.hashBit();
+    }
+  }
+
+  @Override
+  public void remove(Symbol name) {
+    int slot = layout.indexOf(name);
+    if (slot != -1) {
+      values[slot] = null;
+    } else if (overflow != null) {
+      overflow.remove(name);
+    }
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(values, null);
+    overflow = null;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        sb.append(layout.symbols[i]).append(" = ").append(values[i]).append("\n");
+      }
+    }
+    if (overflow != null) {
+      for (Entry<Symbol, SEXP> entry : overflow.entrySet()) {
+        sb.append(entry.getKey()).append(" = ").append(entry.getValue()).append("\n");
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Assigns slots to the formals and statically-known local variables of a closure.
+   */
+  public static class Layout {
+
+    /**
+     * Slots are found by a linear scan, so only the first variables of very large
+     * functions are given slots.
+     */
+    private static final int MAX_SLOTS = 32;
+
+    private static final Symbol ASSIGN = Symbol.get("<-");
+    private static final Symbol EQUALS = Symbol.get("=");
+    private static final Symbol FOR = Symbol.get("for");
+    private static final Symbol FUNCTION = Symbol.get("function");
+
+    private final Symbol[] symbols;
+
+    /**
+     * Union of the hash bits of all slotted symbols, so that lookups of
+     * other symbols can usually skip the scan.
+     */
+    private final int mask;
+
+    private Layout(Set<Symbol> symbols) {
+      this.symbols = symbols.toArray(new Symbol[symbols.size()]);
+      int mask = 0;
+      for (Symbol symbol : this.symbols) {
+        mask |= symbol.hashBit();
+      }
+      this.mask = mask;
+    }
+
+    public static Layout of(PairList formals, SEXP body) {
+      Set<Symbol> symbols = new LinkedHashSet<Symbol>();
+      for (PairList.Node formal : formals.nodes()) {
+        if (formal.hasTag()) {
+          addSymbol(symbols, formal.getTag());
+        }
+      }
+      addLocals(symbols, body);
+      return new Layout(symbols);
+    }
+
+    private static void addLocals(Set<Symbol> symbols, SEXP exp) {
+      if (exp instanceof FunctionCall) {
+        FunctionCall call = (FunctionCall) exp;
+        SEXP function = call.getFunction();
+        if (function == FUNCTION) {
+          // nested closures have their own frames
+          return;
+        }
+        if ((function == ASSIGN || function == EQUALS || function == FOR) &&
+            call.getArguments().length() > 0 && call.getArgument(0) instanceof Symbol) {
+          addSymbol(symbols, call.<Symbol>getArgument(0));
+        }
+        addLocals(symbols, function);
+        for (PairList.Node node : call.getArguments().nodes()) {
+          addLocals(symbols, node.getValue());
+        }
+      }
+    }
+
+    private static void addSymbol(Set<Symbol> symbols, Symbol symbol) {
+      if (symbols.size() < MAX_SLOTS) {
+        symbols.add(symbol);
+      }
+    }
+
+    private int indexOf(Symbol name) {
+      if ((mask & name.hashBit()) != 0) {
+        for (int i = 0; i < symbols.length; i++) {
+          if (symbols[i] == name) {
+            return i;
+          }
+        }
+      }
+      return -1;
+    }
+  }
+}
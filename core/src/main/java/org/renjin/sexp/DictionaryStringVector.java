@@ -0,0 +1,173 @@
+package org.renjin.sexp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Implementation of StringVector which stores each distinct value once, in a dictionary,
+ * and each element as an integer code into this dictionary.
+ *
+ * <p>Character columns read from logs and delimited files often have millions of elements
+ * but only a few thousand distinct values. Storing them as codes costs four bytes per
+ * element rather than a reference plus a separate String for each element, and allows
+ * functions such as {@code match()} and {@code unique()} to work on the codes directly.</p>
+ *
+ * <p>The dictionary may include {@code NA}.</p>
+ */
+public class DictionaryStringVector extends StringVector {
+
+  private final String[] dictionary;
+  private final int[] codes;
+
+  public DictionaryStringVector(String[] dictionary, int[] codes, AttributeMap attributes) {
+    super(attributes);
+    this.dictionary = dictionary;
+    this.codes = codes;
+  }
+
+  @Override
+  public int length() {
+    return codes.length;
+  }
+
+  @Override
+  public String getElementAsString(int index) {
+    return dictionary[codes[index]];
+  }
+
+  /**
+   * @return the index into the dictionary of the element at {@code index}
+   */
+  public int getCode(int index) {
+    return codes[index];
+  }
+
+  public int getDictionarySize() {
+    return dictionary.length;
+  }
+
+  public String getDictionaryEntry(int code) {
+    return dictionary[code];
+  }
+
+  @Override
+  public boolean isConstantAccessTime() {
+    return true;
+  }
+
+  @Override
+  protected DictionaryStringVector cloneWithNewAttributes(AttributeMap attributes) {
+    return new DictionaryStringVector(dictionary, codes, attributes);
+  }
+
+  /**
+   * Encodes {@code vector} with a dictionary, if it has few enough distinct values to
+   * make this worthwhile.
+   *
+   * @return a {@code DictionaryStringVector} with the same elements and attributes as
+   * {@code vector}, or {@code vector} itself
+   */
+  public static StringVector encode(StringVector vector) {
+    if(vector instanceof DictionaryStringVector) {
+      return vector;
+    }
+    Builder builder = new Builder(vector.length());
+    for (int i = 0; i < vector.length(); i++) {
+      builder.add(vector.getElementAsString(i));
+    }
+    if(!builder.isEncoded()) {
+      return vector;
+    }
+    return builder.build(vector.getAttributes());
+  }
+
+  /**
+   * Builds a StringVector one element at a time, encoding it with a dictionary
+   * unless most of the elements turn out to be distinct.
+   */
+  public static class Builder {
+
+    /**
+     * The number of elements after which we check whether dictionary encoding is paying off
+     */
+    private static final int SAMPLE_SIZE = 4096;
+
+    private final HashMap<String, Integer> index = new HashMap<>();
+    private final ArrayList<String> dictionary = new ArrayList<>();
+    private int[] codes;
+    private int length;
+
+    /**
+     * The elements, once we have given up on encoding them
+     */
+    private ArrayList<String> values;
+
+    public Builder() {
+      this(15);
+    }
+
+    public Builder(int initialCapacity) {
+      this.codes = new int[Math.max(initialCapacity, 1)];
+    }
+
+    public void add(String value) {
+      if(values != null) {
+        values.add(value);
+        return;
+      }
+      Integer code = index.get(value);
+      if(code == null) {
+        code = dictionary.size();
+        dictionary.add(value);
+        index.put(value, code);
+      }
+      if(length == codes.length) {
+        codes = Arrays.copyOf(codes, codes.length * 2);
+      }
+      codes[length++] = code;
+
+      if(length == SAMPLE_SIZE && !isEncoded()) {
+        giveUp();
+      }
+    }
+
+    public int length() {
+      return values == null ? length : values.size();
+    }
+
+    /**
+     * @return true if there are few enough distinct values so far to make a dictionary worthwhile
+     */
+    private boolean isEncoded() {
+      return values == null && dictionary.size() <= length / 2;
+    }
+
+    private void giveUp() {
+      values = new ArrayList<>(Math.max(length * 2, codes.length));
+      for (int i = 0; i < length; i++) {
+        values.add(dictionary.get(codes[i]));
+      }
+      codes = null;
+      index.clear();
+      dictionary.clear();
+    }
+
+    public StringVector build() {
+      return build(AttributeMap.EMPTY);
+    }
+
+    public StringVector build(AttributeMap attributes) {
+      if(isEncoded()) {
+        return new DictionaryStringVector(
+            dictionary.toArray(new String[dictionary.size()]),
+            Arrays.copyOf(codes, length),
+            attributes);
+      }
+      if(values == null) {
+        giveUp();
+      }
+      return new StringArrayVector(values, attributes);
+    }
+  }
+}
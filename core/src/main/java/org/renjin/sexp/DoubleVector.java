@@ -333,10 +333,66 @@ public abstract class DoubleVector extends AbstractAtomicVector implements Itera
     return isNaN(getElementAsDouble(index));
   }
   
+  /**
+   * Returns a {@code DoubleVector} of length one containing {@code value}. Small
+   * whole numbers, which are common results of counters and index arithmetic,
+   * are served from a cache of shared instances, which are not backed by an array
+   * that could be modified in place.
+   */
   public static DoubleVector valueOf(double value) {
+    if(value >= ValueCache.LOW && value <= ValueCache.HIGH) {
+      int i = (int) value;
+      // exclude fractions and -0.0, which compares equal to 0.0
+      if(i == value && (i != 0 || Double.doubleToRawLongBits(value) == 0L)) {
+        return ValueCache.VALUES[i - ValueCache.LOW];
+      }
+    }
     return new DoubleArrayVector(value);
   }
 
+  private static class ValueCache {
+    private static final int LOW = -128;
+    private static final int HIGH = 1024;
+    private static final DoubleVector[] VALUES = new DoubleVector[HIGH - LOW + 1];
+
+    static {
+      for(int i = 0; i < VALUES.length; ++i) {
+        VALUES[i] = new CachedDoubleVector(LOW + i);
+      }
+    }
+  }
+
+  private static final class CachedDoubleVector extends DoubleVector {
+    private final double value;
+
+    private CachedDoubleVector(double value) {
+      this.value = value;
+    }
+
+    @Override
+    public int length() {
+      return 1;
+    }
+
+    @Override
+    public double getElementAsDouble(int index) {
+      if(index != 0) {
+        throw new ArrayIndexOutOfBoundsException(index);
+      }
+      return value;
+    }
+
+    @Override
+    public boolean isConstantAccessTime() {
+      return true;
+    }
+
+    @Override
+    protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+      return new DoubleArrayVector(new double[] { value }, attributes);
+    }
+  }
+
   public static class DoubleType extends Type {
     public DoubleType() {
       super(Order.DOUBLE);
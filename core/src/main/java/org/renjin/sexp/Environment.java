@@ -67,10 +67,17 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
   private Set<Symbol> lockedBindings;
 
   /**
-   * Keeps track of the number of times setVariable() has been called on this 
-   * environment.
+   * Keeps track of the number of times setVariable(), remove(), clear() or 
+   * setParent() has been called on this environment.
    */
   private transient int modCount = 0;
+
+  /**
+   * Another environment with the same frame, whose bindings change whenever the
+   * bindings of this environment change. The base namespace shares the frame of
+   * the base environment.
+   */
+  private transient Environment sharesFrameWith;
   
   /**
    * The root of the environment hierarchy.
@@ -128,6 +135,8 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
   public static Environment createBaseNamespaceEnvironment(Environment globalEnv, Environment baseEnvironment) {
     Environment ns = createChildEnvironment(globalEnv, baseEnvironment.getFrame());
     ns.name = "namespace:base";
+    ns.sharesFrameWith = baseEnvironment;
+    baseEnvironment.sharesFrameWith = ns;
     return ns;
   }
 
@@ -154,10 +163,19 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
 
   public void remove(Symbol symbol) {
     frame.remove(symbol);
+    bindingsModified();
   }
   
   public void clear() {
     frame.clear();
+    bindingsModified();
+  }
+
+  private void bindingsModified() {
+    modCount++;
+    if(sharesFrameWith != null) {
+      sharesFrameWith.modCount++;
+    }
   }
 
 
@@ -236,7 +254,7 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
       throw new EvalException("cannot add bindings to a locked environment");
     }
     frame.setVariable(symbol, value);
-    modCount++;
+    bindingsModified();
   }
 
   /**
@@ -344,6 +362,13 @@ public class Environment extends AbstractSEXP implements Recursive, HasNamedValu
     return modCount + parent.getCumulativeModCount();
   }
   
+  /**
+   * @return the number of modifications to the bindings or the parent of this environment
+   */
+  public int getModCount() {
+    return modCount;
+  }
+  
   public Frame getFrame() {
     return frame;
   }
@@ -21,6 +21,8 @@
 
 package org.renjin.sexp;
 
+import org.renjin.eval.ArgumentMatchingPlan;
+
 /**
  * Expression representing a call to an R function, consisting of
  * a function reference and a list of arguments.
@@ -32,6 +34,12 @@ public class FunctionCall extends PairList.Node {
   public static final String TYPE_NAME = "language";
   public static final String IMPLICIT_CLASS = "call";
 
+  /**
+   * The argument matching plan most recently used to call a closure from this
+   * call site. Plans are immutable, so racing writes are harmless.
+   */
+  private transient ArgumentMatchingPlan matchingPlan;
+
   public FunctionCall(SEXP function, PairList arguments) {
     super(function, arguments);
   }
@@ -56,6 +64,14 @@ public class FunctionCall extends PairList.Node {
     return nextNode == null ? Null.INSTANCE : nextNode;
   }
 
+  public ArgumentMatchingPlan getMatchingPlan() {
+    return matchingPlan;
+  }
+
+  public void setMatchingPlan(ArgumentMatchingPlan matchingPlan) {
+    this.matchingPlan = matchingPlan;
+  }
+
   public <X extends SEXP> X getArgument(int index) {
     return getArguments().<X>getElementAsSEXP(index);
   }
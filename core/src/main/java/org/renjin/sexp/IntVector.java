@@ -308,7 +308,59 @@ public abstract class IntVector extends AbstractAtomicVector implements Iterable
     }
   }
 
+  /**
+   * Returns an {@code IntVector} of length one containing {@code value}. Small
+   * values, which are common results of counters and index arithmetic, are
+   * served from a cache of shared instances, which are not backed by an array
+   * that could be modified in place.
+   */
   public static IntVector valueOf(int value) {
+    if(value >= ValueCache.LOW && value <= ValueCache.HIGH) {
+      return ValueCache.VALUES[value - ValueCache.LOW];
+    }
     return new IntArrayVector(value);
   }
+
+  private static class ValueCache {
+    private static final int LOW = -128;
+    private static final int HIGH = 1024;
+    private static final IntVector[] VALUES = new IntVector[HIGH - LOW + 1];
+
+    static {
+      for(int i = 0; i < VALUES.length; ++i) {
+        VALUES[i] = new CachedIntVector(LOW + i);
+      }
+    }
+  }
+
+  private static final class CachedIntVector extends IntVector {
+    private final int value;
+
+    private CachedIntVector(int value) {
+      this.value = value;
+    }
+
+    @Override
+    public int length() {
+      return 1;
+    }
+
+    @Override
+    public int getElementAsInt(int i) {
+      if(i != 0) {
+        throw new ArrayIndexOutOfBoundsException(i);
+      }
+      return value;
+    }
+
+    @Override
+    public boolean isConstantAccessTime() {
+      return true;
+    }
+
+    @Override
+    protected SEXP cloneWithNewAttributes(AttributeMap attributes) {
+      return new IntArrayVector(new int[] { value }, attributes);
+    }
+  }
 }
@@ -5,12 +5,16 @@ package org.renjin.stats.internals;
 import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.Builtin;
 import org.renjin.invoke.annotations.Internal;
-import org.renjin.sexp.AtomicVector;
-import org.renjin.sexp.DoubleVector;
-import org.renjin.sexp.Vector;
+import org.renjin.primitives.summary.DeferredVariance;
+import org.renjin.sexp.*;
 
 public class Covariance {
 
+  /**
+   * The index of the "everything" option for the {@code use} argument of {@code cov}
+   */
+  private static final int EVERYTHING = 4;
+
   @Internal
   public static DoubleVector cor(AtomicVector x, AtomicVector y, int naMethod, boolean kendall) {
 
@@ -30,6 +34,12 @@ public class Covariance {
       throw new EvalException("kendall=true nyi");
     }
 
+    // var(x) of a deferred vector can be computed as part of the deferred pipeline
+    if(x instanceof DoubleVector && x.isDeferred() && x.length() > 0 && y == Null.INSTANCE &&
+        naMethod == EVERYTHING && x.getAttribute(Symbols.DIM) == Null.INSTANCE) {
+      return new DeferredVariance(x, AttributeMap.EMPTY);
+    }
+
     return new VarianceCalculator(x, y, naMethod)
     .withCovarianceMethod()
     .calculate();
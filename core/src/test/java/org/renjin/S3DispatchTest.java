@@ -126,6 +126,53 @@ public class S3DispatchTest extends EvalTestCase {
     assertThat( eval("x[9]"), equalTo(c_i(9)));
   }
 
+  @Test
+  public void redefinedMethodIsDispatched() {
+    eval("describe <- function(x) UseMethod('describe') ");
+    eval("describe.foo <- function(x) 'foo' ");
+    eval("describe.default <- function(x) 'default' ");
+    eval("x <- structure(1, class=c('bar', 'foo')) ");
+
+    assertThat( eval("describe(x)"), equalTo(c("foo")));
+    assertThat( eval("describe(x)"), equalTo(c("foo")));
+
+    eval("describe.bar <- function(x) 'bar' ");
+    assertThat( eval("describe(x)"), equalTo(c("bar")));
+
+    eval("describe.bar <- function(x) 'bar2' ");
+    assertThat( eval("describe(x)"), equalTo(c("bar2")));
+
+    eval("rm(describe.bar, describe.foo) ");
+    assertThat( eval("describe(x)"), equalTo(c("default")));
+  }
+
+  @Test
+  public void methodsDefinedInCallingEnvironment() {
+    eval("describe <- function(x) UseMethod('describe') ");
+    eval("describe.default <- function(x) 'default' ");
+    eval("x <- structure(1, class='foo') ");
+
+    assertThat( eval("describe(x)"), equalTo(c("default")));
+
+    eval("describe <- function(x) { describe.foo <- function(x) 'local'; UseMethod('describe') }");
+    assertThat( eval("describe(x)"), equalTo(c("local")));
+    eval("describe <- function(x) UseMethod('describe') ");
+    assertThat( eval("describe(x)"), equalTo(c("default")));
+  }
+
+  @Test
+  public void methodDefinedInBaseNamespaceIsDispatched() {
+    eval("describe <- function(x) UseMethod('describe') ");
+    eval("describe.default <- function(x) 'default' ");
+    eval("x <- structure(1, class='foo') ");
+
+    assertThat( eval("describe(x)"), equalTo(c("default")));
+
+    // The base namespace shares its frame with the base environment on the search path
+    eval("assign('describe.foo', function(x) 'base', envir = .BaseNamespaceEnv) ");
+    assertThat( eval("describe(x)"), equalTo(c("base")));
+  }
+
   @Test
   public void test() {
     eval("`[.svyrep.design`<-function(x, i, j, drop=FALSE) missing(i) ");
@@ -94,6 +94,33 @@ public class ForLoopCompilerTest extends EvalTestCase {
     eval("x <- numeric(10000); for(i in seq_along(x)) { y <- x; x[i] <- sqrt(i) }"); 
   }
 
+  @Test
+  public void loopOverDoubleVector() {
+    eval(" x <- as.numeric(1:500) ");
+    eval(" s <- 0 ");
+    eval(" for(v in x) s <- s + v ");
+
+    assertThat(eval("s"), closeTo(c(125250), 0.01));
+  }
+
+  @Test
+  public void loopWithInvariantLength() {
+    eval(" x <- as.numeric(1:500) ");
+    eval(" s <- 0 ");
+    eval(" for(i in seq_along(x)) s <- s + i / length(x) ");
+
+    assertThat(eval("s"), closeTo(c(250.5), 0.01));
+  }
+
+  @Test
+  public void vectorizedMap() {
+    eval(" x <- as.numeric(1:500) ");
+    eval(" y <- numeric(500) ");
+    eval(" for(i in seq_along(x)) y[i] <- sqrt(x[i]) * 2 ");
+
+    assertThat(eval("y[c(1, 4, 500)]"), closeTo(c(2, 4, 44.72136), 0.0001));
+  }
+
   @Test
   public void verifyFunctionRedefinitionIsRespected() throws IOException {
     assertThat(eval("{ s <- 0; for(i in 1:10000) { if(i>100) { sqrt <- sin; }; s <- s + sqrt(i) }; s }"), 
@@ -0,0 +1,89 @@
+package org.renjin.compiler.opt;
+
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+import org.renjin.compiler.TypeSolver;
+import org.renjin.compiler.cfg.ControlFlowGraph;
+import org.renjin.compiler.cfg.DominanceTree;
+import org.renjin.compiler.cfg.UseDefMap;
+import org.renjin.compiler.ir.ssa.SsaTransformer;
+import org.renjin.compiler.ir.tac.IRBody;
+import org.renjin.compiler.ir.tac.IRBodyBuilder;
+import org.renjin.compiler.ir.tac.RuntimeState;
+import org.renjin.parser.RParser;
+import org.renjin.sexp.FunctionCall;
+import org.renjin.sexp.Vector;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+
+public class LoopOptimizationTest extends EvalTestCase {
+
+  private ControlFlowGraph cfg;
+  private DominanceTree dominanceTree;
+  private UseDefMap useDefMap;
+
+  @Test
+  public void lengthOfInvariantVectorIsHoisted() {
+    eval("x <- as.numeric(1:100)");
+    eval("z <- 1:10");
+    eval("s <- 0");
+    buildLoop("for(v in x) s <- s + v * length(z)");
+
+    LoopInvariantCodeMotion licm = new LoopInvariantCodeMotion(cfg, dominanceTree);
+    licm.execute();
+
+    assertThat(licm.getHoistedCount(), equalTo(1));
+  }
+
+  @Test
+  public void loopVectorAccessIsInBounds() {
+    eval("x <- as.numeric(1:100)");
+    eval("s <- 0");
+    buildLoop("for(v in x) s <- s + v");
+
+    BoundsCheckElimination bce = new BoundsCheckElimination(cfg, dominanceTree, useDefMap);
+    bce.execute();
+
+    assertThat(bce.getEliminatedCount(), equalTo(1));
+  }
+
+  @Test
+  public void loopVariantCallIsNotHoisted() {
+    eval("x <- as.numeric(1:100)");
+    eval("s <- 0");
+    buildLoop("for(v in x) s <- s + length(s)");
+
+    LoopInvariantCodeMotion licm = new LoopInvariantCodeMotion(cfg, dominanceTree);
+    licm.execute();
+
+    assertThat(licm.getHoistedCount(), equalTo(0));
+  }
+
+  @Test
+  public void invariantCallThatMayThrowIsNotHoisted() {
+    eval("x <- as.numeric(1:100)");
+    eval("z <- 1:10");
+    eval("s <- 0");
+    buildLoop("for(v in x) s <- s + v * z$a");
+
+    LoopInvariantCodeMotion licm = new LoopInvariantCodeMotion(cfg, dominanceTree);
+    licm.execute();
+
+    assertThat(licm.getHoistedCount(), equalTo(0));
+  }
+
+  private void buildLoop(String loop) {
+    FunctionCall call = (FunctionCall) RParser.parseSource(loop + "\n").getElementAsSEXP(0);
+    Vector elements = (Vector) topLevelContext.evaluate(call.getArgument(1));
+    RuntimeState runtimeState = new RuntimeState(topLevelContext, global);
+    IRBody body = new IRBodyBuilder(runtimeState).buildLoopBody(call, elements);
+
+    cfg = new ControlFlowGraph(body);
+    dominanceTree = new DominanceTree(cfg);
+    new SsaTransformer(cfg, dominanceTree).transform();
+    useDefMap = new UseDefMap(cfg);
+    new TypeSolver(cfg, useDefMap).execute();
+  }
+}
@@ -0,0 +1,84 @@
+package org.renjin.compiler.opt;
+
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+import org.renjin.parser.RParser;
+import org.renjin.sexp.FunctionCall;
+import org.renjin.sexp.Symbol;
+import org.renjin.sexp.Vector;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+
+public class LoopVectorizerTest extends EvalTestCase {
+
+  @Test
+  public void map() {
+    eval("x <- as.numeric(1:1000)");
+    eval("y <- numeric(1000)");
+    eval("a <- 2");
+
+    assertThat(vectorize("for(i in seq_along(x)) y[i] <- a * x[i] + 1"), equalTo(true));
+    assertThat(eval("y[c(1, 1000)]"), equalTo(c(3, 2001)));
+    assertThat(eval("i"), equalTo(c_i(1000)));
+  }
+
+  @Test
+  public void sum() {
+    eval("x <- as.numeric(1:1000)");
+    eval("s <- 0");
+
+    assertThat(vectorize("for(i in 1:length(x)) { s <- s + x[i]^2 }"), equalTo(true));
+    assertThat(eval("s"), closeTo(c(333833500), 1e-6));
+  }
+
+  @Test
+  public void constantTermsAreNotSummed() {
+    eval("s <- 0");
+    eval("k <- 3");
+
+    assertThat(vectorize("for(i in 1:1000) s <- s + 1"), equalTo(false));
+    assertThat(vectorize("for(i in 1:1000) s <- s + k"), equalTo(false));
+    assertThat(vectorize("for(i in 1:1000) s <- s + 2 * k"), equalTo(false));
+
+    eval("for(i in 1:1000) s <- s + 1");
+    assertThat(eval("s"), equalTo(c(1000)));
+  }
+
+  @Test
+  public void loopCounterAsValue() {
+    eval("y <- numeric(0)");
+
+    assertThat(vectorize("for(i in 1:500) y[i] <- i / 2"), equalTo(true));
+    assertThat(eval("length(y)"), equalTo(c_i(500)));
+    assertThat(eval("y[500]"), equalTo(c(250)));
+  }
+
+  @Test
+  public void loopCarriedDependenciesAreNotVectorized() {
+    eval("x <- as.numeric(1:1000)");
+    eval("y <- numeric(1000)");
+    eval("s <- 0");
+
+    assertThat(vectorize("for(i in seq_along(x)) y[i] <- y[i - 1] + x[i]"), equalTo(false));
+    assertThat(vectorize("for(i in seq_along(x)) s <- s * x[i]"), equalTo(false));
+    assertThat(vectorize("for(i in seq_along(x)) s <- s + s * x[i]"), equalTo(false));
+  }
+
+  @Test
+  public void redefinedOperatorsAreNotVectorized() {
+    eval("x <- as.numeric(1:1000)");
+    eval("y <- numeric(1000)");
+    eval("`*` <- function(a, b) 42");
+
+    assertThat(vectorize("for(i in seq_along(x)) y[i] <- 2 * x[i]"), equalTo(false));
+  }
+
+  private boolean vectorize(String loop) {
+    FunctionCall call = (FunctionCall) RParser.parseSource(loop + "\n").getElementAsSEXP(0);
+    Vector elements = (Vector) topLevelContext.evaluate(call.getArgument(1), global);
+    return LoopVectorizer.tryVectorize(topLevelContext, global, (Symbol) call.getArgument(0),
+        elements, call.getArgument(2));
+  }
+}
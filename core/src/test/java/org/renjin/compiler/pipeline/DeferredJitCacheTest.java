@@ -0,0 +1,91 @@
+package org.renjin.compiler.pipeline;
+
+import com.google.common.io.Files;
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+import org.renjin.primitives.summary.DeferredSum;
+import org.renjin.primitives.vector.DeferredComputation;
+import org.renjin.sexp.AttributeMap;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.Vector;
+
+import java.io.File;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class DeferredJitCacheTest extends EvalTestCase {
+
+  @Test
+  public void classesAreReusedFromStore() {
+    File directory = Files.createTempDir();
+
+    DeferredJitCache first = new DeferredJitCache(new JitClassStore(directory, "1.0"));
+    assertThat(compute(first, "sum(x * 2)")[0], equalTo(1001000d));
+    assertThat(compute(first, "sum(x * 2)")[0], equalTo(1001000d));
+    assertThat(first.getMisses(), equalTo(1L));
+    assertThat(first.getMemoryHits(), equalTo(1L));
+
+    // A new JVM instance would load the class rather than generating it again
+    DeferredJitCache second = new DeferredJitCache(new JitClassStore(directory, "1.0"));
+    assertThat(compute(second, "sum(x * 3)")[0], equalTo(1501500d));
+    assertThat(second.getStoreHits(), equalTo(1L));
+    assertThat(second.getMisses(), equalTo(0L));
+
+    // ...unless it is a different version
+    DeferredJitCache upgraded = new DeferredJitCache(new JitClassStore(directory, "1.1"));
+    compute(upgraded, "sum(x * 2)");
+    assertThat(upgraded.getStoreHits(), equalTo(0L));
+    assertThat(upgraded.getMisses(), equalTo(1L));
+  }
+
+  @Test
+  public void snapshotVersionsIncludeTheBuild() throws Exception {
+    File jar = File.createTempFile("renjin-core", ".jar");
+    Files.write(new byte[] { 1, 2, 3 }, jar);
+    jar.setLastModified(1000000L);
+
+    assertThat(JitClassStore.buildVersion("1.0", null), equalTo("1.0"));
+    assertThat(JitClassStore.buildVersion("1.1-SNAPSHOT", jar), equalTo("1.1-SNAPSHOT+3.1000000"));
+    assertThat(JitClassStore.buildVersion("1.1-SNAPSHOT", jar.getParentFile()), nullValue());
+    assertThat(JitClassStore.buildVersion("1.1-SNAPSHOT", null), nullValue());
+  }
+
+  @Test
+  public void sharedOperandsAreDistinguished() {
+    eval(" x <- as.double(1:1000) ");
+    eval(" y <- as.double(2:1001) ");
+
+    assertThat(jitKey("sum(x * x)"), not(equalTo(jitKey("sum(x * y)"))));
+
+    // sum(x * y) would otherwise reuse the class compiled for sum(x * x)
+    DeferredJitCache cache = new DeferredJitCache(null);
+    assertThat(compute(cache, "sum(x * x)")[0], equalTo(333833500d));
+    assertThat(compute(cache, "sum(x * y)")[0], equalTo(334334000d));
+  }
+
+  @Test
+  public void computationNamesAreDistinguished() {
+    eval(" x <- as.double(1:1000) ");
+
+    JitKey cumsum = new DeferredGraph((DeferredComputation) eval("cumsum(x * 2)")).getRoot().jitKey();
+    JitKey cumprod = new DeferredGraph((DeferredComputation) eval("cumprod(x * 2)")).getRoot().jitKey();
+
+    assertThat(cumsum, not(equalTo(cumprod)));
+    assertThat(cumsum.toString(), not(equalTo(cumprod.toString())));
+  }
+
+  private double[] compute(DeferredJitCache cache, String expression) {
+    eval(" x <- as.double(1:1000) ");
+    DeferredNode node = new DeferredGraph(new DeferredSum((Vector) eval(expression.substring(4, expression.length() - 1)),
+        AttributeMap.EMPTY)).getRoot();
+    return cache.compile(node).compute(node.flattenVectors());
+  }
+
+  private JitKey jitKey(String expression) {
+    DeferredSum sum = (DeferredSum) eval(expression);
+    return new DeferredGraph(sum).getRoot().jitKey();
+  }
+}
@@ -0,0 +1,89 @@
+package org.renjin.parser;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class DoubleToDecimalTest {
+
+  @Test
+  public void fixedNotation() {
+    assertThat(DoubleToDecimal.toString(0), equalTo("0"));
+    assertThat(DoubleToDecimal.toString(-0d), equalTo("0"));
+    assertThat(DoubleToDecimal.toString(1.5), equalTo("1.5"));
+    assertThat(DoubleToDecimal.toString(-1000), equalTo("-1000"));
+    assertThat(DoubleToDecimal.toString(123456), equalTo("123456"));
+    assertThat(DoubleToDecimal.toString(0.1), equalTo("0.1"));
+    assertThat(DoubleToDecimal.toString(0.0001), equalTo("1e-04"));
+    assertThat(DoubleToDecimal.toString(0.00012), equalTo("0.00012"));
+    assertThat(DoubleToDecimal.toString(1d / 3d), equalTo("0.3333333333333333"));
+    assertThat(DoubleToDecimal.toString(0.1 + 0.2), equalTo("0.30000000000000004"));
+  }
+
+  @Test
+  public void scientificNotation() {
+    assertThat(DoubleToDecimal.toString(1e5), equalTo("1e+05"));
+    assertThat(DoubleToDecimal.toString(1e-20), equalTo("1e-20"));
+    assertThat(DoubleToDecimal.toString(1.234e-5), equalTo("1.234e-05"));
+    assertThat(DoubleToDecimal.toString(1e23), equalTo("1e+23"));
+    assertThat(DoubleToDecimal.toString(Double.MAX_VALUE), equalTo("1.7976931348623157e+308"));
+    assertThat(DoubleToDecimal.toString(Double.MIN_VALUE), equalTo("4.9e-324"));
+  }
+
+  @Test
+  public void specialValues() {
+    assertThat(DoubleToDecimal.toString(Double.NaN), equalTo("NaN"));
+    assertThat(DoubleToDecimal.toString(Double.POSITIVE_INFINITY), equalTo("Inf"));
+    assertThat(DoubleToDecimal.toString(Double.NEGATIVE_INFINITY), equalTo("-Inf"));
+  }
+
+  @Test
+  public void decimalPoint() {
+    char[] buffer = new char[DoubleToDecimal.MAX_CHARS + 1];
+    buffer[0] = ' ';
+    int end = DoubleToDecimal.format(-2.5, ',', buffer, 1);
+    assertThat(new String(buffer, 0, end), equalTo(" -2,5"));
+  }
+
+  @Test
+  public void significantDigits() {
+    assertThat(DoubleToDecimal.toString(Math.PI, 7), equalTo("3.141593"));
+    assertThat(DoubleToDecimal.toString(0.125, 2), equalTo("0.12"));
+    assertThat(DoubleToDecimal.toString(0.375, 2), equalTo("0.38"));
+    assertThat(DoubleToDecimal.toString(999999.5, 6), equalTo("1e+06"));
+    assertThat(DoubleToDecimal.toString(Double.MIN_VALUE, 15), equalTo("4.94065645841247e-324"));
+  }
+
+  @Test
+  public void significantDigitsAreCorrectlyRounded() {
+    Random random = new Random(43);
+    for (int i = 0; i < 100000; i++) {
+      double value = Double.longBitsToDouble(random.nextLong() & Long.MAX_VALUE);
+      if(!Double.isNaN(value) && !Double.isInfinite(value) && value != 0) {
+        int digits = 1 + random.nextInt(16);
+        BigDecimal expected = new BigDecimal(value).round(new MathContext(digits, RoundingMode.HALF_EVEN));
+        BigDecimal actual = new BigDecimal(DoubleToDecimal.toString(value, digits));
+        assertThat(actual.compareTo(expected), equalTo(0));
+      }
+    }
+  }
+
+  @Test
+  public void roundTrip() {
+    Random random = new Random(42);
+    char[] buffer = new char[DoubleToDecimal.MAX_CHARS];
+    for (int i = 0; i < 100000; i++) {
+      double value = Double.longBitsToDouble(random.nextLong());
+      if(!Double.isNaN(value) && !Double.isInfinite(value)) {
+        int length = DoubleToDecimal.format(value, buffer, 0);
+        assertThat(Double.parseDouble(new String(buffer, 0, length)), equalTo(value));
+      }
+    }
+  }
+}
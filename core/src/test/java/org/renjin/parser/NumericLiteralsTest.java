@@ -128,5 +128,33 @@ public class NumericLiteralsTest {
   public void exponent() {
     assertThat(parseDouble("1e+06"), equalTo(1e6));
   }
-  
+
+  @Test
+  public void parseIsCorrectlyRounded() {
+    assertThat(parseDouble("0.1"), equalTo(0.1));
+    assertThat(parseDouble("2.2250738585072014E-308"), equalTo(Double.MIN_NORMAL));
+    assertThat(parseDouble("4.9e-324"), equalTo(Double.MIN_VALUE));
+    assertThat(parseDouble("1.7976931348623157e308"), equalTo(Double.MAX_VALUE));
+    assertThat(parseDouble("1e309"), equalTo(Double.POSITIVE_INFINITY));
+    assertThat(parseDouble("1e-400"), equalTo(0d));
+    assertThat(parseDouble("9007199254740993"), equalTo(9007199254740992d));
+    assertThat(parseDouble("0.1000000000000000055511151231257827"), equalTo(0.1));
+    assertThat(parseDouble("123456789012345678901234567890"), equalTo(1.2345678901234568E29));
+  }
+
+  @Test
+  public void parseWithDecimalComma() {
+    assertThat(NumericLiterals.parseDouble("3,25", 0, 4, ',', false), equalTo(3.25));
+  }
+
+  @Test
+  public void toStringUses15Digits() {
+    assertThat(NumericLiterals.toString(1d / 3d), equalTo("0.333333333333333"));
+    assertThat(NumericLiterals.toString(0.1 + 0.2), equalTo("0.3"));
+    assertThat(NumericLiterals.toString(100000), equalTo("1e+05"));
+    assertThat(NumericLiterals.toString(123456), equalTo("123456"));
+    assertThat(NumericLiterals.toString(1e-20), equalTo("1e-20"));
+    assertThat(NumericLiterals.toString(Double.NEGATIVE_INFINITY), equalTo("-Inf"));
+    assertThat(NumericLiterals.format(DoubleVector.NA, "NA"), equalTo("NA"));
+  }
 }
@@ -923,5 +923,99 @@ public class EvaluationTest extends EvalTestCase {
     eval("f <- function(x = NULL) g(y = x)");
     assertThat(eval("f()"), equalTo(c(false)));
   }
-}
 
+  @Test
+  public void scalarBuiltinCallsStillDispatchOnObjects() {
+    eval("Ops.foo <- function(e1, e2) 'dispatched'");
+    eval("x <- structure(1, class='foo')");
+    eval("f <- function(a, b) a - b");
+
+    assertThat(eval("x + 1"), equalTo(c("dispatched")));
+    assertThat(eval("1 + x"), equalTo(c("dispatched")));
+    assertThat(eval("f(2, x)"), equalTo(c("dispatched")));
+    assertThat(eval("-x"), equalTo(c("dispatched")));
+  }
+
+  @Test
+  public void scalarBuiltinCallsPreserveAttributes() {
+    eval("x <- c(a=1)");
+    assertThat(eval("names(x + 1)"), equalTo(c("a")));
+    assertThat(eval("names(2 * x)"), equalTo(c("a")));
+  }
+
+  @Test
+  public void scalarBuiltinCallsEvaluateNestedCallsOnce() {
+    eval("n <- 0");
+    eval("g <- function() { n <<- n + 1; structure(n, class='foo') }");
+    eval("Ops.foo <- function(e1, e2) unclass(e1) * 10");
+
+    assertThat(eval("g() + 1"), equalTo(c(10)));
+    assertThat(eval("n"), equalTo(c(1)));
+  }
+  @Test
+  public void argumentMatchingPlanIsReusedAtCallSite() {
+    eval("f <- function(alpha, beta = alpha * 2, ...) alpha + beta + length(list(...))");
+    eval("g <- function(n) { s <- 0; for(i in 1:n) s <- s + f(be=i, 1, 100, 200); s }");
+
+    assertThat(eval("g(3)"), equalTo(c(15)));
+    assertThat(eval("sapply(1:3, function(i) f(i))"), equalTo(c(3, 6, 9)));
+  }
+
+  @Test
+  public void argumentMatchingPlanIsRecomputedWhenTagsChange() {
+    eval("f <- function(x, y = 10) x - y");
+    eval("g <- function(...) f(...)");
+
+    assertThat(eval("g(1)"), equalTo(c(-9)));
+    assertThat(eval("g(1, 2)"), equalTo(c(-1)));
+    assertThat(eval("g(y = 1, 2)"), equalTo(c(1)));
+    assertThat(eval("g(x = 5)"), equalTo(c(-5)));
+    assertThat(eval("g(1)"), equalTo(c(-9)));
+  }
+
+  @Test
+  public void returnFromNestedStatements() {
+    eval("f <- function(x) { if(x > 0) { if(x > 10) return('big') else return('small') }; 'negative' }");
+    assertThat(eval("f(20)"), equalTo(c("big")));
+    assertThat(eval("f(5)"), equalTo(c("small")));
+    assertThat(eval("f(-1)"), equalTo(c("negative")));
+
+    eval("g <- function(x) { for(i in x) { while(TRUE) { if(i > 2) return(i); break } }; 0 }");
+    assertThat(eval("g(1:5)"), equalTo(c_i(3)));
+    assertThat(eval("g(1:2)"), equalTo(c(0)));
+  }
+
+  @Test
+  public void breakAndNextFromNestedStatements() {
+    eval("f <- function(n) { s <- 0; for(i in 1:n) { if(i %% 2 == 0) { next }; if(i > 7) break; s <- s + i }; s }");
+    assertThat(eval("f(10)"), equalTo(c(16)));
+
+    eval("g <- function() { i <- 0; repeat { i <- i + 1; y <- if(i > 3) break else i }; i }");
+    assertThat(eval("g()"), equalTo(c(4)));
+  }
+
+  @Test
+  public void returnOutsideOfStatementPosition() {
+    eval("f <- function(x) { y <- if(x) return('early'); 'late' }");
+    assertThat(eval("f(TRUE)"), equalTo(c("early")));
+    assertThat(eval("f(FALSE)"), equalTo(c("late")));
+
+    eval("g <- function() { lapply(1:3, function(i) if(i == 2) return('two') else i)[[2]] }");
+    assertThat(eval("g()"), equalTo(c("two")));
+  }
+
+  @Test
+  public void returnKeepsVisibility() {
+    eval("f <- function(x) { if(x) return(invisible(1)); 2 }");
+    eval("f(TRUE)");
+    assertThat(topLevelContext.getSession().isInvisible(), equalTo(true));
+  }
+
+  @Test(expected = EvalException.class)
+  public void argumentMatchingPlanReportsUnmatchedArguments() {
+    eval("f <- function(x) x");
+    eval("g <- function(...) f(...)");
+    eval("g(1)");
+    eval("g(1, 2)");
+  }
+}
@@ -2,6 +2,8 @@ package org.renjin.primitives;
 
 import org.junit.Test;
 import org.renjin.EvalTestCase;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.IntVector;
 
 import java.io.IOException;
 
@@ -54,6 +56,42 @@ public class SplitTest extends EvalTestCase {
     assertThat(eval("x$`3`"), equalTo(c_i(2)));
   }
   
+  @Test
+  public void splitKeepsEmptyLevels() {
+    assumingBasePackagesLoad();
+
+    eval("x <- split(1:6, factor(c(1,1,2,NA,2,1), levels=1:3))");
+    assertThat(eval("names(x)"), equalTo(c("1", "2", "3")));
+    assertThat(eval("x[[1]]"), equalTo(c_i(1, 2, 6)));
+    assertThat(eval("x[[2]]"), equalTo(c_i(3, 5)));
+    assertThat(eval("x[[3]]"), equalTo(c_i()));
+  }
+
+  @Test
+  public void groupReduce() {
+    assertThat(eval(".Internal(groupReduce(c(1,2,3,4,5), c(1L,2L,1L,NA,1L), 3L, 'sum'))"), equalTo(c(9, 2, DoubleVector.NA)));
+    assertThat(eval(".Internal(groupReduce(c(1L,2L,3L,4L,5L), c(1L,2L,1L,NA,1L), 3L, 'sum'))"), equalTo(c_i(9, 2, IntVector.NA)));
+    assertThat(eval(".Internal(groupReduce(c(1L,NA,3L,4L,5L), c(1L,1L,2L,2L,2L), 2L, 'max'))"), equalTo(c_i(IntVector.NA, 5)));
+    assertThat(eval(".Internal(groupReduce(c(1,2,3,4,5), c(1L,2L,1L,2L,1L), 2L, 'mean'))"), equalTo(c(3, 3)));
+    assertThat(eval(".Internal(groupReduce(c(1,2,3,4,5), c(1L,2L,1L,2L,1L), 2L, 'min'))"), equalTo(c(1, 2)));
+    assertThat(eval(".Internal(groupReduce(c(1,2,NA,4,5), c(1L,2L,1L,2L,1L), 3L, 'length'))"), equalTo(c_i(3, 2, IntVector.NA)));
+  }
+
+  @Test
+  public void tapplyReductions() {
+    assumingBasePackagesLoad();
+
+    eval("x <- c(10, 20, 30, 40, 50, NA)");
+    eval("g <- factor(c('a', 'b', 'a', 'b', 'a', 'c'), levels = c('a', 'b', 'c', 'd'))");
+
+    assertThat(eval("as.vector(tapply(x, g, sum))"), equalTo(c(90, 60, DoubleVector.NA, DoubleVector.NA)));
+    assertThat(eval("as.vector(tapply(x, g, mean))"), equalTo(c(30, 30, DoubleVector.NA, DoubleVector.NA)));
+    assertThat(eval("as.vector(tapply(x, g, length))"), equalTo(c_i(3, 2, 1, IntVector.NA)));
+    assertThat(eval("dimnames(tapply(x, g, max))[[1]]"), equalTo(c("a", "b", "c", "d")));
+    assertThat(eval("identical(tapply(x, list(g, c(1, 1, 2, 2, 1, 2)), min), tapply(x, list(g, c(1, 1, 2, 2, 1, 2)), function(v) min(v)))"),
+        equalTo(c(true)));
+  }
+
   @Test
   public void splitWithNames() {
     assumingBasePackagesLoad();
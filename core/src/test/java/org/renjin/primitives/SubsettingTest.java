@@ -26,11 +26,14 @@ import org.junit.Test;
 import org.renjin.EvalTestCase;
 import org.renjin.eval.EvalException;
 import org.renjin.primitives.special.DollarFunction;
+import org.renjin.primitives.subset.view.IndexedView;
 import org.renjin.sexp.*;
 
 import java.io.IOException;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.renjin.ExpMatchers.logicalVectorOf;
 
@@ -1490,4 +1493,53 @@ public class SubsettingTest extends EvalTestCase {
     eval("x <- c(1,2,3)");
     eval("x$foo <- 99");
   }
+
+  @Test
+  public void largeSubsetsAreViews() {
+    eval("x <- as.double(1:5000)");
+    eval("names(x) <- paste0('n', 1:5000)");
+    eval("y <- x[c(2001:5000, NA, 6000)]");
+
+    assertThat(eval("y"), instanceOf(IndexedView.class));
+    assertThat(eval("length(y)"), equalTo(c_i(3002)));
+    assertThat(eval("y[c(1, 3000:3002)]"), equalTo(c(2001, 5000, DoubleVector.NA, DoubleVector.NA)));
+    assertThat(eval("names(y)[1:2]"), equalTo(c("n2001", "n2002")));
+    assertThat(eval("is.na(names(y)[3001])"), equalTo(c(true)));
+
+    // Views of views select directly from the original source
+    eval("z <- y[-1]");
+    assertThat(((IndexedView) eval("z")).getSource(), sameInstance(eval("x")));
+    assertThat(eval("z[1]"), equalTo(c(2002)));
+
+    // Writes materialize the view
+    eval("y[1] <- 99");
+    assertThat(eval("y"), instanceOf(DoubleArrayVector.class));
+    assertThat(eval("c(y[1:2], x[2001])"), equalTo(c(99, 2002, 2001)));
+  }
+
+  @Test
+  public void smallSubsetsAreCopied() {
+    eval("x <- as.double(1:5000)");
+
+    assertThat(eval("x[1:10]"), instanceOf(DoubleArrayVector.class));
+    assertThat(eval("x[1:600]"), instanceOf(DoubleArrayVector.class));
+  }
+
+  @Test
+  public void dataFrameRowsShareIndex() {
+    eval("df <- data.frame(a=1:5000, b=as.double(1:5000), c=rep(c('x','y'), 2500), d=rep(c(TRUE,FALSE), 2500), " +
+        "stringsAsFactors=FALSE)");
+    eval("s <- df[df$a > 1000, ]");
+
+    IndexedView a = (IndexedView) eval("s$a");
+    IndexedView b = (IndexedView) eval("s$b");
+    assertThat(eval("s$c"), instanceOf(IndexedView.class));
+    assertThat(eval("s$d"), instanceOf(IndexedView.class));
+    assertThat(a.getIndex(), sameInstance(b.getIndex()));
+
+    assertThat(eval("dim(s)"), equalTo(c_i(4000, 4)));
+    assertThat(eval("s$b[1:2]"), equalTo(c(1001, 1002)));
+    assertThat(eval("s$c[1:3]"), equalTo(c("x", "y", "x")));
+    assertThat(eval("sum(s$d)"), equalTo(c_i(2000)));
+  }
 }
\ No newline at end of file
@@ -61,6 +61,22 @@ public class ConnectionsTest extends EvalTestCase {
 
   }
  
+  @Test
+  public void readTextGzInBatches() throws IOException {
+
+    String path = getClass().getResource("/org/renjin/tobin.txt.gz").getFile();
+    topLevelContext.getGlobalEnvironment().setVariable("conn",
+        Connections.file(topLevelContext, path, "rt", false, "UTF-8", false));
+
+    eval("n <- 0L");
+    eval("repeat { batch <- .Internal(readLines(conn, 5, TRUE, FALSE, 'UTF-8')); " +
+        "if(length(batch) == 0) break; n <- n + length(batch); last <- batch }");
+
+    assertThat(eval("n"), equalTo(c_i(21)));
+    assertThat(eval("last"), equalTo(c("0       53.1    251")));
+    eval("close(conn)");
+  }
+
   @Test
   public void summary() {
     eval("x <- .Internal(summary.connection(.Internal(stdin())))");
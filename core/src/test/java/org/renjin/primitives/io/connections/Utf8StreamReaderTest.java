@@ -0,0 +1,125 @@
+package org.renjin.primitives.io.connections;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CharStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class Utf8StreamReaderTest {
+
+  @Test
+  public void multiByteCharactersAcrossBufferBoundaries() throws IOException {
+    String text = "ascii, café, €100, 中文, 😀 and more\n";
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      sb.append(text);
+    }
+    byte[] bytes = sb.toString().getBytes(Charsets.UTF_8);
+
+    // Small buffers force every possible split of each sequence
+    for (int bufferSize = 4; bufferSize < 12; bufferSize++) {
+      assertThat(decode(bytes, bufferSize), equalTo(sb.toString()));
+    }
+  }
+
+  @Test
+  public void malformedInputIsReplacedLikeTheJdk() throws IOException {
+    byte[] bytes = new byte[] { 'a', (byte)0xC3, 'b', (byte)0x80, (byte)0xED, (byte)0xA0, (byte)0x80, 'c',
+        (byte)0xE2, (byte)0x82 };
+
+    String expected = new String(bytes, Charsets.UTF_8);
+
+    assertThat(decode(bytes, 64), equalTo(expected));
+  }
+
+  @Test
+  public void invalidSecondBytesAreReplacedOneByOne() throws IOException {
+    byte[] bytes = new byte[] { (byte)0xE0, (byte)0x80, (byte)0x80, 'a', (byte)0xF4, (byte)0x9A, (byte)0x80,
+        (byte)0x80, 'b', (byte)0xF0, (byte)0x80, 'c', (byte)0xF4, (byte)0x8F };
+
+    assertThat(decode(bytes, 64), equalTo(new String(bytes, Charsets.UTF_8)));
+  }
+
+  @Test
+  public void randomBytes() throws IOException {
+    Random random = new Random(42);
+    for (int i = 0; i < 200; i++) {
+      byte[] bytes = new byte[random.nextInt(200)];
+      for (int j = 0; j < bytes.length; j++) {
+        // Favour lead and continuation bytes so that most sequences are nearly valid
+        bytes[j] = (byte) (random.nextBoolean() ? 0x80 + random.nextInt(0x80) : random.nextInt(0x100));
+      }
+      String expected = new String(bytes, Charsets.UTF_8);
+      for (int bufferSize = 4; bufferSize < 8; bufferSize++) {
+        assertThat(decode(bytes, bufferSize), equalTo(expected));
+      }
+    }
+  }
+
+  @Test
+  public void randomText() throws IOException {
+    Random random = new Random(42);
+    StringBuilder sb = new StringBuilder();
+    while(sb.length() < 100000) {
+      int codePoint = random.nextBoolean() ? random.nextInt(128) : random.nextInt(0x30000);
+      if(codePoint < Character.MIN_SURROGATE || codePoint > Character.MAX_SURROGATE) {
+        sb.appendCodePoint(codePoint);
+      }
+    }
+    byte[] bytes = sb.toString().getBytes(Charsets.UTF_8);
+
+    assertThat(decode(bytes, 1000), equalTo(sb.toString()));
+    assertThat(decode(bytes, Utf8StreamReader.BUFFER_SIZE),
+        equalTo(CharStreams.toString(new InputStreamReader(new ByteArrayInputStream(bytes), Charsets.UTF_8))));
+  }
+
+  @Test
+  public void readAhead() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      sb.append("line ").append(i).append('\n');
+    }
+    byte[] bytes = sb.toString().getBytes(Charsets.UTF_8);
+
+    PushbackBufferedReader reader = new PushbackBufferedReader(
+        new Utf8StreamReader(new ReadAheadInputStream(new ByteArrayInputStream(bytes))));
+    for (int i = 0; i < 100000; i++) {
+      assertThat(reader.readLine(), equalTo("line " + i));
+    }
+    assertThat(reader.readLine(), equalTo(null));
+    reader.close();
+  }
+
+  @Test
+  public void readAheadThreadStopsWhenIdle() throws Exception {
+    byte[] bytes = new byte[ReadAheadInputStream.CHUNK_SIZE * 10];
+    new Random(1).nextBytes(bytes);
+
+    ReadAheadInputStream in = new ReadAheadInputStream(new ByteArrayInputStream(bytes), 100);
+    assertThat(in.isReading(), equalTo(false));
+
+    assertThat(in.read(), equalTo(bytes[0] & 0xFF));
+    for (int i = 0; i < 100 && in.isReading(); i++) {
+      Thread.sleep(50);
+    }
+    assertThat(in.isReading(), equalTo(false));
+
+    // Reading resumes where it stopped
+    byte[] rest = ByteStreams.toByteArray(in);
+    assertThat(rest, equalTo(Arrays.copyOfRange(bytes, 1, bytes.length)));
+    in.close();
+  }
+
+  private String decode(byte[] bytes, int bufferSize) throws IOException {
+    return CharStreams.toString(new Utf8StreamReader(new ByteArrayInputStream(bytes), bufferSize));
+  }
+}
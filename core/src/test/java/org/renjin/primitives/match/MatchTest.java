@@ -23,9 +23,11 @@ package org.renjin.primitives.match;
 
 import org.junit.Test;
 import org.renjin.EvalTestCase;
+import org.renjin.sexp.DictionaryStringVector;
 import org.renjin.sexp.IntVector;
 import org.renjin.sexp.SEXP;
 import org.renjin.sexp.StringArrayVector;
+import org.renjin.sexp.StringVector;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
@@ -121,6 +123,22 @@ public class MatchTest extends EvalTestCase {
     assertThat( eval(" .Internal(duplicated(c(2,2,3,3), FALSE, TRUE)) "), equalTo( c(true, false,true,false) ));
   }
  
+  @Test
+  public void dictionaryEncodedStrings() {
+    DictionaryStringVector.Builder builder = new DictionaryStringVector.Builder();
+    for (int i = 0; i < 100; i++) {
+      builder.add(i % 10 == 9 ? StringVector.NA : "abc".substring(i % 3, i % 3 + 1));
+    }
+    topLevelContext.getGlobalEnvironment().setVariable("x", builder.build());
+
+    assertThat( eval(".Internal(match(x[1:10], c('c', NA, 'b'), 0L, NULL))"), equalTo( c_i(0, 3, 1, 0, 3, 1, 0, 3, 1, 2)));
+    assertThat( eval(".Internal(unique(x, FALSE, FALSE))"), equalTo( c("a", "b", "c", null)));
+    assertThat( eval(".Internal(unique(x, FALSE, TRUE))"), equalTo( c("a", "b", "c", null)));
+    assertThat( eval(".Internal(anyDuplicated(x, FALSE, FALSE))"), equalTo( c_i(4)));
+    assertThat( eval("levels(factor(x))"), equalTo( c("a", "b", "c")));
+    assertThat( eval("as.vector(table(x))"), equalTo( c_i(30, 30, 30)));
+  }
+
   @Test
   public void whichWithEmptyNames() {
     eval("x <- which(c(a=FALSE, b=FALSE, c=FALSE))");
@@ -0,0 +1,47 @@
+package org.renjin.primitives.subset;
+
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+import org.renjin.primitives.subset.view.IndexedView;
+import org.renjin.sexp.AtomicVector;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+public class SubsetIndexCacheTest extends EvalTestCase {
+
+  @Test
+  public void indexesOfViewsAreShared() {
+    eval("x <- as.double(1:5000)");
+    eval("y <- x * 2");
+    eval("i <- 2001:5000");
+
+    assertThat(eval("x[i]"), instanceOf(IndexedView.class));
+    assertThat(eval("y[i]"), instanceOf(IndexedView.class));
+    assertThat(((IndexedView) eval("y[i]")).getIndex(), sameInstance(cached("i", 5000)));
+  }
+
+  @Test
+  public void rejectedIndexesAreNotCached() {
+    eval("x <- paste0('n', 1:5000)");
+
+    // Too short to be a view, which is known from the subscript alone
+    eval("i <- 1:100");
+    assertThat(eval("x[i]"), not(instanceOf(IndexedView.class)));
+    assertThat(cached("i", 5000), nullValue());
+
+    // Too sparse, which is only known once the index is computed
+    eval("m <- rep(c(TRUE, rep(FALSE, 99)), 50)");
+    assertThat(eval("x[m]"), not(instanceOf(IndexedView.class)));
+    assertThat(cached("m", 5000), nullValue());
+
+    eval("n <- -(1:4500)");
+    assertThat(eval("x[n]"), not(instanceOf(IndexedView.class)));
+    assertThat(cached("n", 5000), nullValue());
+  }
+
+  private Object cached(String subscriptName, int sourceLength) {
+    return topLevelContext.getSession().getSingleton(SubsetIndexCache.class)
+        .get((AtomicVector) eval(subscriptName), sourceLength);
+  }
+}
@@ -2,8 +2,15 @@ package org.renjin.primitives.summary;
 
 import org.junit.Test;
 import org.renjin.EvalTestCase;
+import org.renjin.compiler.pipeline.DeferredGraph;
+import org.renjin.compiler.pipeline.DeferredNode;
+import org.renjin.primitives.subset.DeferredSelection;
+import org.renjin.primitives.vector.DeferredComputation;
+import org.renjin.sexp.*;
+import org.renjin.stats.internals.Covariance;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertThat;
 
 public class DeferredSummaryTest extends EvalTestCase {
@@ -19,4 +26,87 @@ public class DeferredSummaryTest extends EvalTestCase {
     // ensure that the result is cached and correct
     assertThat(eval("x"), equalTo(c(5000050000d)));
   }
+
+  @Test
+  public void fusedReductions() {
+    eval(" x <- as.double(1:1000) ");
+    eval(" y <- sqrt(x) ");
+
+    assertThat(materialize("max(abs(x - y))"), equalTo(c(1000 - Math.sqrt(1000))));
+    assertThat(materialize("min(x - y)"), equalTo(c(0)));
+    assertThat(materialize("range(y * 2)"), equalTo(c(2, 2 * Math.sqrt(1000))));
+    assertThat(materialize("prod(x / x)"), equalTo(c(1)));
+
+    Vector variance = Covariance.cov((AtomicVector) eval("x * 2"), Null.INSTANCE, 4, false);
+    assertThat(variance, instanceOf(DeferredVariance.class));
+    assertThat(topLevelContext.materialize(variance), closeTo(c(4 * 1000 * 1001 / 12d), 1e-6));
+  }
+
+  @Test
+  public void missingValues() {
+    eval(" x <- c(as.double(1:1000), NA, NaN) ");
+
+    assertThat(materialize("is.na(max(x * 2))"), equalTo(c(true)));
+    assertThat(materialize("is.nan(max(x[-1001] * 2))"), equalTo(c(true)));
+    assertThat(materialize("prod(x * 0)"), equalTo(c(DoubleVector.NA)));
+  }
+
+  @Test
+  public void cumulative() {
+    eval(" x <- as.double(1:1000) ");
+
+    assertThat(materialize("cumsum(x * 2)[c(1, 3, 1000)]"), equalTo(c(2, 12, 1001000)));
+    assertThat(materialize("cumprod(x / x)[1000]"), equalTo(c(1)));
+    assertThat(materialize("cumsum(c(x, NA, 1) * 2)[1001:1002]"), equalTo(c(DoubleVector.NA, DoubleVector.NA)));
+
+    eval(" names(x) <- x ");
+    assertThat(materialize("names(cumsum(x * 2))[1000]"), equalTo(c("1000")));
+  }
+
+  @Test
+  public void cumsumAndCumprodOfSameOperand() {
+    eval(" x <- as.double(1:1000) ");
+    eval(" y <- x / x ");
+
+    // cumsum and cumprod are computed by the same class, but must not be merged
+    DeferredNode root = new DeferredGraph((DeferredComputation) eval("cumsum(y) - cumprod(y)")).getRoot();
+    assertThat(root.getOperand(0).getDebugLabel(), equalTo("cumsum"));
+    assertThat(root.getOperand(1).getDebugLabel(), equalTo("cumprod"));
+
+    Vector difference = (Vector) materialize("cumsum(y) - cumprod(y)");
+    assertThat(difference.getElementAsDouble(0), equalTo(0d));
+    assertThat(difference.getElementAsDouble(999), equalTo(999d));
+
+    difference = (Vector) materialize("cumprod(y) - cumsum(y)");
+    assertThat(difference.getElementAsDouble(999), equalTo(-999d));
+  }
+
+  @Test
+  public void selection() {
+    eval(" x <- as.double(1:1000) - 500 ");
+    eval(" y <- sqrt(abs(x)) ");
+
+    assertThat(eval("x[x > 0]"), instanceOf(DeferredSelection.class));
+    assertThat(materialize("sum(x[x > 0])"), equalTo(c(125250)));
+    assertThat(materialize("sum(x[x > 0 & y < 10])"), equalTo(c(4950)));
+    assertThat(materialize("mean(x[x > 0])"), equalTo(c(250.5)));
+    assertThat(materialize("max(x[x < 0])"), equalTo(c(-1)));
+    assertThat(materialize("range(x[x > 0])"), equalTo(c(1, 500)));
+    assertThat(materialize("sum(x[x > 0] * 2)"), equalTo(c(250500)));
+    assertThat(materialize("sum(x[x > 1e6])"), equalTo(c(0)));
+    assertThat(eval("x[x > 0][c(1, 500)]"), equalTo(c(1, 500)));
+    assertThat(eval("length(x[x > 0])"), equalTo(c_i(500)));
+
+    // missing values in the mask select NA
+    eval(" z <- c(x, NA) ");
+    assertThat(materialize("sum(z[z > 0])"), equalTo(c(DoubleVector.NA)));
+    assertThat(eval("length(z[z > 0])"), equalTo(c_i(501)));
+  }
+
+  /**
+   * Evaluates {@code expression}, forcing the result through the vector pipeline
+   */
+  private SEXP materialize(String expression) {
+    return topLevelContext.materialize(eval(expression));
+  }
 }
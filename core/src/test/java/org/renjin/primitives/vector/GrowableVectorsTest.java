@@ -0,0 +1,109 @@
+package org.renjin.primitives.vector;
+
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+import org.renjin.sexp.DoubleArrayVector;
+import org.renjin.sexp.DoubleVector;
+import org.renjin.sexp.SEXP;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+
+
+public class GrowableVectorsTest extends EvalTestCase {
+
+  @Test
+  public void appendSharesBuffer() {
+    DoubleVector x = new DoubleArrayVector(1, 2, 3, 4, 5, 6, 7, 8);
+    DoubleVector a = (DoubleVector) GrowableVectors.tryAppend(x, DoubleVector.valueOf(9));
+    DoubleVector b = (DoubleVector) GrowableVectors.tryAppend(a, DoubleVector.valueOf(10));
+
+    // Appending to a vector that is no longer at the end of its buffer must not
+    // overwrite the element appended to b
+    DoubleVector c = (DoubleVector) GrowableVectors.tryAppend(a, DoubleVector.valueOf(99));
+
+    assertThat(a.length(), equalTo(9));
+    assertThat(b.length(), equalTo(10));
+    assertThat(b.getElementAsDouble(9), equalTo(10d));
+    assertThat(c.length(), equalTo(10));
+    assertThat(c.getElementAsDouble(9), equalTo(99d));
+  }
+
+  @Test
+  public void concurrentAppendsKeepTheirOwnElement() throws Exception {
+    // Two threads append different values to the same vectors at the same time
+    final DoubleVector[] origins = new DoubleVector[20000];
+    for (int i = 0; i < origins.length; i++) {
+      origins[i] = (DoubleVector) GrowableVectors.tryAppend(new DoubleArrayVector(1, 2, 3, 4, 5, 6, 7, 8),
+          DoubleVector.valueOf(9));
+    }
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    List<Future<DoubleVector[]>> futures = new ArrayList<>();
+    for (int thread = 0; thread < 2; thread++) {
+      final double value = 100 + thread;
+      futures.add(executor.submit(new Callable<DoubleVector[]>() {
+        @Override
+        public DoubleVector[] call() throws Exception {
+          DoubleVector[] appended = new DoubleVector[origins.length];
+          start.await();
+          for (int i = 0; i < origins.length; i++) {
+            appended[i] = (DoubleVector) GrowableVectors.tryAppend(origins[i], DoubleVector.valueOf(value));
+          }
+          return appended;
+        }
+      }));
+    }
+    start.countDown();
+    executor.shutdown();
+
+    for (int thread = 0; thread < 2; thread++) {
+      for (DoubleVector appended : futures.get(thread).get()) {
+        assertThat(appended.length(), equalTo(10));
+        assertThat(appended.getElementAsDouble(9), equalTo(100d + thread));
+      }
+    }
+  }
+
+  @Test
+  public void shortVectorsAreNotGrown() {
+    assertThat(GrowableVectors.tryAppend(new DoubleArrayVector(1, 2), DoubleVector.valueOf(3)), equalTo(null));
+  }
+
+  @Test
+  public void combineInLoop() {
+    eval("x <- numeric(0)");
+    eval("for(i in 1:1000) x <- c(x, i * 2)");
+
+    SEXP x = eval("x");
+    assertThat(x, instanceOf(GrowableDoubleVector.class));
+    assertThat(eval("length(x)"), equalTo(c_i(1000)));
+    assertThat(eval("x[c(1, 500, 1000)]"), equalTo(c(2, 1000, 2000)));
+  }
+
+  @Test
+  public void assignPastEndInLoop() {
+    eval("x <- character(0)");
+    eval("for(i in 1:100) x[[length(x)+1]] <- as.character(i)");
+    eval("y <- 1:10");
+    eval("for(i in 11:20) y[length(y)+1] <- i");
+
+    assertThat(eval("x[c(1, 100)]"), equalTo(c("1", "100")));
+    assertThat(eval("y"), equalTo(c_i(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20)));
+  }
+
+  @Test
+  public void typeChangesFallBack() {
+    eval("x <- 1:10");
+    eval("x <- c(x, 1.5)");
+    eval("y <- c(x, 'a')");
+
+    assertThat(eval("typeof(x)"), equalTo(c("double")));
+    assertThat(eval("y[11:12]"), equalTo(c("1.5", "a")));
+  }
+}
@@ -0,0 +1,106 @@
+package org.renjin.sexp;
+
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class AttributeMapTest extends EvalTestCase {
+
+  @Test
+  public void unchangedBuilderReturnsSameMap() {
+    AttributeMap attributes = AttributeMap.builder()
+        .setNames(new StringArrayVector("a", "b"))
+        .set("foo", new IntArrayVector(1))
+        .build();
+
+    assertThat(attributes.copy().build(), sameInstance(attributes));
+    assertThat(attributes.copy().set("foo", attributes.get("foo")).build(), sameInstance(attributes));
+    assertThat(attributes.copy().remove(Symbols.DIM).build(), sameInstance(attributes));
+    assertThat(new AttributeMap.Builder().combineFrom(attributes).build(), sameInstance(attributes));
+    assertThat(attributes.copy().combineFrom(attributes).build(), sameInstance(attributes));
+  }
+
+  @Test
+  public void changesDoNotAffectOriginal() {
+    AttributeMap attributes = AttributeMap.builder()
+        .set("foo", new IntArrayVector(1))
+        .set("bar", new IntArrayVector(2))
+        .build();
+
+    AttributeMap.Builder builder = attributes.copy();
+    builder.set("foo", new IntArrayVector(3));
+    builder.remove(Symbol.get("bar"));
+    AttributeMap changed = builder.build();
+
+    // Changing the builder after it has been built must not affect either map
+    builder.set("baz", new IntArrayVector(4));
+
+    assertThat(changed, not(sameInstance(attributes)));
+    assertThat(attributes.get("foo"), equalTo((SEXP) new IntArrayVector(1)));
+    assertThat(attributes.get("bar"), equalTo((SEXP) new IntArrayVector(2)));
+    assertThat(changed.get("foo"), equalTo((SEXP) new IntArrayVector(3)));
+    assertThat(changed.has(Symbol.get("bar")), equalTo(false));
+    assertThat(changed.has(Symbol.get("baz")), equalTo(false));
+  }
+
+  @Test
+  public void attributesAreKeptInOrder() {
+    eval("x <- 1:3");
+    eval("attr(x, 'z') <- 1");
+    eval("attr(x, 'a') <- 2");
+    eval("attr(x, 'm') <- 3");
+    eval("attr(x, 'a') <- NULL");
+
+    assertThat(eval("names(attributes(x))"), equalTo(c("z", "m")));
+  }
+
+  @Test
+  public void arithmeticSharesAttributes() {
+    eval("x <- c(a=1, b=2, c=3)");
+    eval("y <- x * 2");
+    eval("m <- matrix(1:4, 2, dimnames=list(c('a','b'), c('c','d')))");
+    eval("n <- m + m");
+
+    assertThat(eval("y").getAttributes(), sameInstance(eval("x").getAttributes()));
+    assertThat(eval("n").getAttributes(), sameInstance(eval("m").getAttributes()));
+    assertThat(eval("names(y)"), equalTo(c("a", "b", "c")));
+    assertThat(eval("dimnames(n)[[2]]"), equalTo(c("c", "d")));
+  }
+
+  @Test
+  public void equalMapsHaveEqualHashCodes() {
+    AttributeMap a = AttributeMap.builder()
+        .setNames(new StringArrayVector("x", "y"))
+        .set("foo", Symbols.CLASS)
+        .set("bar", Symbols.DIM)
+        .build();
+    AttributeMap b = AttributeMap.builder()
+        .set("bar", Symbols.DIM)
+        .set("foo", Symbols.CLASS)
+        .setNames(new StringArrayVector("x", "y"))
+        .build();
+
+    assertThat(a, equalTo(b));
+    assertThat(a.hashCode(), equalTo(b.hashCode()));
+  }
+
+  @Test
+  public void mapsWithEqualDimNamesAreEqualAfterHashing() {
+    AttributeMap a = AttributeMap.builder()
+        .setDim(1, 2)
+        .setDimNames(new ListVector(Null.INSTANCE, new StringArrayVector("x", "y")))
+        .build();
+    AttributeMap b = AttributeMap.builder()
+        .setDim(1, 2)
+        .setDimNames(new ListVector(Null.INSTANCE, new StringArrayVector("x", "y")))
+        .build();
+
+    a.hashCode();
+    b.hashCode();
+    assertThat(a, equalTo(b));
+  }
+}
@@ -0,0 +1,45 @@
+package org.renjin.sexp;
+
+import org.junit.Test;
+import org.renjin.EvalTestCase;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+
+public class ClosureFrameTest extends EvalTestCase {
+
+  @Test
+  public void formalsAndLocalsAreStoredInSlots() {
+    ClosureFrame.Layout layout = ClosureFrame.Layout.of(
+        PairList.Node.singleton(Symbol.get("x"), Symbol.MISSING_ARG),
+        Symbol.get("x"));
+    ClosureFrame frame = new ClosureFrame(layout);
+
+    assertThat(frame.getVariable(Symbol.get("x")), equalTo((SEXP) Symbol.UNBOUND_VALUE));
+    frame.setVariable(Symbol.get("x"), IntVector.valueOf(1));
+    frame.setVariable(Symbol.get("y"), IntVector.valueOf(2));
+    assertThat(frame.getVariable(Symbol.get("x")), equalTo((SEXP) IntVector.valueOf(1)));
+    assertThat(frame.getVariable(Symbol.get("y")), equalTo((SEXP) IntVector.valueOf(2)));
+    assertThat(frame.getSymbols().size(), equalTo(2));
+
+    frame.remove(Symbol.get("x"));
+    assertThat(frame.getVariable(Symbol.get("x")), equalTo((SEXP) Symbol.UNBOUND_VALUE));
+  }
+
+  @Test
+  public void dynamicallyAssignedVariables() {
+    eval("f <- function(a) { y <- 1; assign('z', a + y); eval(quote(w <- z * 2)); sort(ls()) }");
+    assertThat(eval("f(1)"), equalTo(c("a", "w", "y", "z")));
+
+    eval("g <- function(a) { b <- a; rm(b); exists('b', inherits = FALSE) }");
+    assertThat(eval("g(1)"), equalTo(c(false)));
+  }
+
+  @Test
+  public void localsDoNotLeakBetweenCalls() {
+    eval("f <- function(first) { if(first) x <- 1; exists('x', inherits = FALSE) }");
+    assertThat(eval("f(TRUE)"), equalTo(c(true)));
+    assertThat(eval("f(FALSE)"), equalTo(c(false)));
+  }
+}
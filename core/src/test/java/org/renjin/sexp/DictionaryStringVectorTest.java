@@ -0,0 +1,51 @@
+package org.renjin.sexp;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+
+public class DictionaryStringVectorTest {
+
+  @Test
+  public void repeatedValuesAreEncoded() {
+    DictionaryStringVector.Builder builder = new DictionaryStringVector.Builder();
+    for (int i = 0; i < 10000; i++) {
+      builder.add(i % 3 == 0 ? StringVector.NA : ("level" + (i % 7)));
+    }
+    StringVector vector = builder.build();
+
+    assertThat(vector, instanceOf(DictionaryStringVector.class));
+    assertThat(vector.length(), equalTo(10000));
+    assertThat(((DictionaryStringVector) vector).getDictionarySize(), equalTo(8));
+    assertThat(vector.isElementNA(0), equalTo(true));
+    assertThat(vector.getElementAsString(1), equalTo("level1"));
+    assertThat(vector.getElementAsString(9998), equalTo("level2"));
+  }
+
+  @Test
+  public void distinctValuesAreNotEncoded() {
+    DictionaryStringVector.Builder builder = new DictionaryStringVector.Builder();
+    for (int i = 0; i < 10000; i++) {
+      builder.add("line " + i);
+    }
+    StringVector vector = builder.build();
+
+    assertThat(vector, instanceOf(StringArrayVector.class));
+    assertThat(vector.length(), equalTo(10000));
+    assertThat(vector.getElementAsString(9999), equalTo("line 9999"));
+  }
+
+  @Test
+  public void encodeKeepsAttributes() {
+    StringVector vector = new StringArrayVector(new String[] { "a", "b", "a", "a" },
+        AttributeMap.builder().setNames(new StringArrayVector("w", "x", "y", "z")).build());
+
+    StringVector encoded = DictionaryStringVector.encode(vector);
+
+    assertThat(encoded, instanceOf(DictionaryStringVector.class));
+    assertThat(encoded, equalTo((StringVector) vector));
+    assertThat(encoded.getNames().getElementAsString(3), equalTo("z"));
+  }
+}
@@ -2,7 +2,12 @@ package org.renjin.sexp;
 
 import org.junit.Test;
 
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
 
 public class DoubleVectorTest {
 
@@ -10,4 +15,31 @@ public class DoubleVectorTest {
   public void notWiderThanComplex() {
     assertFalse(DoubleVector.VECTOR_TYPE.isWiderThanOrEqualTo(ComplexVector.VECTOR_TYPE));
   }
+
+  @Test
+  public void valueOfSharesSmallWholeNumbers() {
+    assertThat(DoubleVector.valueOf(42), sameInstance(DoubleVector.valueOf(42)));
+    assertThat(DoubleVector.valueOf(0.5), not(sameInstance(DoubleVector.valueOf(0.5))));
+  }
+
+  @Test
+  public void valueOfDoesNotExposeSharedArray() {
+    assertThat(DoubleVector.valueOf(42), not(instanceOf(DoubleArrayVector.class)));
+
+    SEXP named = DoubleVector.valueOf(42).setAttribute(Symbols.NAMES, StringVector.valueOf("x"));
+    assertThat(named, instanceOf(DoubleArrayVector.class));
+    assertThat(((DoubleArrayVector) named).toDoubleArrayUnsafe()[0], equalTo(42d));
+    assertThat(DoubleVector.valueOf(42).getAttributes(), equalTo(AttributeMap.EMPTY));
+  }
+
+  @Test
+  public void valueOfPreservesNegativeZero() {
+    DoubleVector negativeZero = DoubleVector.valueOf(-0d);
+    assertThat(1d / negativeZero.getElementAsDouble(0), equalTo(Double.NEGATIVE_INFINITY));
+  }
+
+  @Test
+  public void valueOfPreservesNA() {
+    assertThat(DoubleVector.isNA(DoubleVector.valueOf(DoubleVector.NA).getElementAsDouble(0)), equalTo(true));
+  }
 }
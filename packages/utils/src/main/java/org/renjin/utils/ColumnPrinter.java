@@ -1,7 +1,11 @@
 package org.renjin.utils;
 
 
+/**
+ * Formats the values of a column of a table. Printers only read from their column, so a single
+ * printer may format different rows on several threads at once.
+ */
 public interface ColumnPrinter {
   
-  void print(int rowNumber);
+  void print(int rowNumber, TextBuffer buffer);
 }
@@ -2,40 +2,26 @@ package org.renjin.utils;
 
 import org.renjin.sexp.DoubleVector;
 
-import java.io.PrintWriter;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-
 
 public class DoublePrinter implements ColumnPrinter {
 
-  private final PrintWriter writer;
   private final DoubleVector vector;
-  private String naSymbol;
-  private final DecimalFormat format;
+  private final String naSymbol;
+  private final char decimal;
 
-  public DoublePrinter(PrintWriter writer, DoubleVector vector, String decimal, String naSymbol) {
-    this.writer = writer;
+  public DoublePrinter(DoubleVector vector, String decimal, String naSymbol) {
     this.vector = vector;
     this.naSymbol = naSymbol;
-
-    DecimalFormatSymbols symbols = new DecimalFormatSymbols();
-    symbols.setDecimalSeparator(decimal.charAt(0));
-    
-    this.format = new DecimalFormat();
-    format.setGroupingUsed(false);
-    format.setDecimalFormatSymbols(symbols);
-    format.setMinimumIntegerDigits(0);
-    format.setMaximumFractionDigits(6);
+    this.decimal = decimal.charAt(0);
   }
 
   @Override
-  public void print(int rowNumber) {
+  public void print(int rowNumber, TextBuffer buffer) {
     double value = vector.getElementAsDouble(rowNumber);
     if(DoubleVector.isNA(value)) {
-      writer.write(naSymbol);
+      buffer.append(naSymbol);
     } else {
-      writer.write(format.format(value));
+      buffer.append(value, decimal);
     }
   }
 }
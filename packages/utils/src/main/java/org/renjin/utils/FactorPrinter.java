@@ -6,33 +6,32 @@ import org.renjin.sexp.IntVector;
 import org.renjin.sexp.SEXP;
 import org.renjin.sexp.Symbols;
 
-import java.io.PrintWriter;
-
 
 public class FactorPrinter implements ColumnPrinter {
   
-  private PrintWriter writer;
   private IntVector vector;
   private String naSymbol;
   private String[] levels;
 
-  public FactorPrinter(PrintWriter writer, IntVector vector, boolean quote, String naSymbol) {
-    this.writer = writer;
+  public FactorPrinter(IntVector vector, boolean quote, boolean escape, String naSymbol) {
     this.vector = vector;
     this.naSymbol = naSymbol;
-    this.levels = formatLevels(vector, quote);
+    this.levels = formatLevels(vector, quote, escape);
   }
 
-  private String[] formatLevels(IntVector vector, boolean quote) {
+  private String[] formatLevels(IntVector vector, boolean quote, boolean escape) {
     SEXP attribute = vector.getAttribute(Symbols.LEVELS);
     if(!(attribute instanceof AtomicVector)) {
       throw new EvalException("Expected 'levels' attribute of type character");
     }
     AtomicVector levelsVector = (AtomicVector) attribute;
     String[] levels = new String[levelsVector.length()];
+    TextBuffer buffer = new TextBuffer(64);
     for(int i=0;i!=levelsVector.length();++i) {
       if(quote) {
-        levels[i] = "\"" + levelsVector.getElementAsString(i) + "\"";
+        buffer.clear();
+        StringPrinter.appendQuoted(buffer, levelsVector.getElementAsString(i), escape);
+        levels[i] = new String(buffer.getChars(), 0, buffer.length());
       } else {
         levels[i] = levelsVector.getElementAsString(i);
       }
@@ -42,12 +41,12 @@ public class FactorPrinter implements ColumnPrinter {
 
 
   @Override
-  public void print(int index) {
+  public void print(int index, TextBuffer buffer) {
     int valueIndex = vector.getElementAsInt(index);
     if (IntVector.isNA(valueIndex) || valueIndex > levels.length) {
-      writer.write(naSymbol);
+      buffer.append(naSymbol);
     } else {
-      writer.write(levels[valueIndex-1]);
+      buffer.append(levels[valueIndex-1]);
     }
   }
 }
@@ -2,27 +2,23 @@ package org.renjin.utils;
 
 import org.renjin.sexp.IntVector;
 
-import java.io.PrintWriter;
-
 public class IntPrinter implements ColumnPrinter {
   
-  private PrintWriter writer;
   private IntVector vector;
   private String naSymbol;
 
-  public IntPrinter(PrintWriter writer, IntVector vector, String naSymbol) {
-    this.writer = writer;
+  public IntPrinter(IntVector vector, String naSymbol) {
     this.vector = vector;
     this.naSymbol = naSymbol;
   }
 
   @Override
-  public void print(int index) {
+  public void print(int index, TextBuffer buffer) {
     int value = vector.getElementAsInt(index);
     if(IntVector.isNA(value)) {
-      writer.write(naSymbol);
+      buffer.append(naSymbol);
     } else {
-      writer.print(value);
+      buffer.append(value);
     }
   }
 }
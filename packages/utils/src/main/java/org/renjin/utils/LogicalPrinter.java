@@ -3,29 +3,25 @@ package org.renjin.utils;
 import org.renjin.sexp.IntVector;
 import org.renjin.sexp.LogicalVector;
 
-import java.io.PrintWriter;
-
 
 public class LogicalPrinter implements ColumnPrinter {
-  private PrintWriter writer;
   private LogicalVector vector;
   private String naSymbol;
 
-  public LogicalPrinter(PrintWriter writer, LogicalVector vector, String naSymbol) {
-    this.writer = writer;
+  public LogicalPrinter(LogicalVector vector, String naSymbol) {
     this.vector = vector;
     this.naSymbol = naSymbol;
   }
 
   @Override
-  public void print(int index) {
+  public void print(int index, TextBuffer buffer) {
     int value = vector.getElementAsRawLogical(index);
     if(IntVector.isNA(value)) {
-      writer.write(naSymbol);
+      buffer.append(naSymbol);
     } else if(value == 0) {
-      writer.write("FALSE");
+      buffer.append("FALSE");
     } else {
-      writer.write("TRUE");
+      buffer.append("TRUE");
     }
   }
 }
@@ -2,36 +2,49 @@ package org.renjin.utils;
 
 import org.renjin.sexp.StringVector;
 
-import java.io.PrintWriter;
-
 
 public class StringPrinter implements ColumnPrinter {
 
-  private PrintWriter writer;
   private StringVector vector;
   private boolean quote;
+  private boolean escape;
   private String naSymbol;
 
-  public StringPrinter(PrintWriter writer, StringVector vector, boolean quote, String naSymbol) {
-    this.writer = writer;
+  /**
+   * @param escape if {@code true}, embedded quotes are escaped with a backslash, otherwise they are doubled
+   */
+  public StringPrinter(StringVector vector, boolean quote, boolean escape, String naSymbol) {
     this.vector = vector;
     this.quote = quote;
+    this.escape = escape;
     this.naSymbol = naSymbol;
   }
 
   @Override
-  public void print(int index) {
+  public void print(int index, TextBuffer buffer) {
     String value = vector.getElementAsString(index);
     if(value == null) {
-      writer.write(naSymbol);
+      buffer.append(naSymbol);
+    } else if(quote) {
+      appendQuoted(buffer, value, escape);
     } else {
-      if(quote) {
-        writer.write('"');
-      }
-      writer.write(value);
-      if(quote) {
-        writer.write('"');
+      buffer.append(value);
+    }
+  }
+
+  static void appendQuoted(TextBuffer buffer, String value, boolean escape) {
+    buffer.append('"');
+    if(value.indexOf('"') == -1) {
+      buffer.append(value);
+    } else {
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if(c == '"') {
+          buffer.append(escape ? '\\' : '"');
+        }
+        buffer.append(c);
       }
     }
+    buffer.append('"');
   }
 }
@@ -0,0 +1,903 @@
+package org.renjin.utils;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.Selectors;
+import org.apache.commons.vfs2.provider.local.LocalFile;
+import org.renjin.eval.Context;
+import org.renjin.eval.EvalException;
+import org.renjin.invoke.annotations.Current;
+import org.renjin.parser.NumericLiterals;
+import org.renjin.primitives.files.Files;
+import org.renjin.sexp.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Reads a delimited text file, such as a CSV file, directly into a {@code data.frame}.
+ *
+ * <p>This is the fast path of {@code read.table()} for local files, which otherwise reads the file a line
+ * at a time with {@code scan()} and then converts each column with {@code type.convert()}. The file is
+ * memory-mapped and split into chunks of whole records, which are tokenized in parallel. The fields
+ * of each column are parsed straight into numbers while checking them against each of the types tried by
+ * {@link Tables#typeconvert}, so that only the columns that turn out to be character vectors or factors
+ * need to be read as strings, in a second pass over the chunks.</p>
+ *
+ * <p>Fields are separated by a single character, and may be quoted by any of the {@code quote} characters,
+ * in which case they may contain the separator, line breaks, and doubled quotes. The file is assumed to
+ * be UTF-8 encoded.</p>
+ *
+ * <p>If the file cannot be read this way, for example because it is compressed, or because a record
+ * has more fields than the first lines of the file, {@link #read} returns {@code NULL} and
+ * {@code read.table()} falls back to {@code scan()}.</p>
+ */
+public class TableReader {
+
+  /**
+   * The size of the chunks of records that are parsed in parallel
+   */
+  static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+  /**
+   * The number of records used to determine the number of columns and whether the file has a header
+   */
+  private static final int HEAD_RECORDS = 5;
+
+  private final byte separator;
+  private final byte[] quotes;
+  private final boolean hasCommentChar;
+  private final byte commentChar;
+  private final char decimal;
+  private final boolean stripWhite;
+  private final boolean fill;
+  private final char[][] naStrings;
+
+  private TableReader(String sep, String quote, String dec, StringVector naStrings, boolean fill,
+                      boolean stripWhite, String commentChar) {
+    this.separator = (byte) sep.charAt(0);
+    this.quotes = new byte[quote.length()];
+    for (int i = 0; i < quotes.length; i++) {
+      quotes[i] = (byte) quote.charAt(i);
+    }
+    this.hasCommentChar = !commentChar.isEmpty();
+    this.commentChar = hasCommentChar ? (byte) commentChar.charAt(0) : 0;
+    this.decimal = dec.charAt(0);
+    this.stripWhite = stripWhite;
+    this.fill = fill;
+
+    List<char[]> na = Lists.newArrayList();
+    for (int i = 0; i < naStrings.length(); i++) {
+      if(!naStrings.isElementNA(i)) {
+        na.add(naStrings.getElementAsString(i).toCharArray());
+      }
+    }
+    this.naStrings = na.toArray(new char[na.size()][]);
+  }
+
+  /**
+   * Reads a delimited text file into a {@code data.frame}, following the rules of {@code read.table()}.
+   *
+   * @param header {@code TRUE} if the first record contains the column names, {@code FALSE} if it does not,
+   *               or {@code NA} if the file has a header only if the first record has one field less than
+   *               the records that follow it.
+   * @param skip the number of lines to skip before reading
+   * @param nrows the maximum number of records to read, or zero or less to read them all
+   * @param asIs {@code TRUE} if character columns should not be converted to factors
+   * @return the {@code data.frame}, or {@code NULL} if the file cannot be read by this reader.
+   */
+  public static SEXP read(@Current Context context, String path, LogicalVector header, String sep,
+                          String quote, String dec, StringVector naStrings, int skip, int nrows,
+                          boolean fill, boolean stripWhite, String commentChar, boolean asIs) throws IOException {
+
+    if(!isSupported(sep, quote, dec, commentChar)) {
+      return Null.INSTANCE;
+    }
+
+    FileObject fileObject = context.resolveFile(Files.pathExpand(path));
+    if(!(fileObject instanceof LocalFile) || !fileObject.exists()) {
+      return Null.INSTANCE;
+    }
+    File file = fileObject.getFileSystem().replicateFile(fileObject, Selectors.SELECT_SELF);
+
+    TableReader reader = new TableReader(sep, quote, dec, naStrings, fill, stripWhite, commentChar);
+
+    try(RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+      ListVector dataFrame = reader.read(randomAccessFile.getChannel(), header.getElementAsLogical(0),
+          skip, nrows, asIs);
+      if(dataFrame == null) {
+        return Null.INSTANCE;
+      }
+      return dataFrame;
+    }
+  }
+
+  private static boolean isSupported(String sep, String quote, String dec, String commentChar) {
+    if(sep.length() != 1 || dec.length() != 1 || commentChar.length() > 1) {
+      return false;
+    }
+    char separator = sep.charAt(0);
+    if(separator >= 0x80 || separator == '\n' || separator == '\r' || quote.indexOf(separator) != -1) {
+      return false;
+    }
+    for (int i = 0; i < quote.length(); i++) {
+      if(quote.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    if(!commentChar.isEmpty()) {
+      char comment = commentChar.charAt(0);
+      if(comment >= 0x80 || comment == separator || quote.indexOf(comment) != -1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private ListVector read(FileChannel channel, Logical header, int skip, int nrows, boolean asIs) throws IOException {
+    long size = channel.size();
+    if(isCompressed(channel, size)) {
+      return null;
+    }
+
+    long start = skipLines(channel, size, skip);
+    if(start >= size) {
+      return null;
+    }
+
+    // Read the first few records to count the columns and find the header, as read.table() does
+    long headLength = Math.min(size - start, CHUNK_SIZE);
+    Tokenizer head = new Tokenizer(map(channel, start, headLength), (int) headLength, start + headLength == size);
+    int maxHeadRecords = Math.min(HEAD_RECORDS, nrows <= 0 ? HEAD_RECORDS : (header == Logical.TRUE ? 1 : 0) + nrows);
+    int headRecords = 0;
+    int firstFieldCount = 0;
+    int columnCount = 0;
+    String[] firstRecord = null;
+    int firstRecordEnd = 0;
+    while(headRecords < maxHeadRecords && head.next()) {
+      if(head.isTruncated()) {
+        return null;
+      }
+      if(headRecords == 0) {
+        firstFieldCount = head.fieldCount;
+        firstRecord = head.getFields();
+        firstRecordEnd = head.position;
+      }
+      columnCount = Math.max(columnCount, head.fieldCount);
+      headRecords++;
+    }
+    if(headRecords == 0) {
+      return null;
+    }
+
+    boolean rowNamesColumn = (columnCount - firstFieldCount) == 1;
+    boolean hasHeader = header == Logical.NA ? rowNamesColumn : header == Logical.TRUE;
+    if(!hasHeader) {
+      rowNamesColumn = false;
+    }
+    if(hasHeader && firstFieldCount + (rowNamesColumn ? 1 : 0) < columnCount) {
+      // more columns than column names
+      return null;
+    }
+
+    String[] names = new String[columnCount];
+    if(hasHeader) {
+      if(rowNamesColumn) {
+        names[0] = "row.names";
+      }
+      System.arraycopy(firstRecord, 0, names, rowNamesColumn ? 1 : 0, firstFieldCount);
+    } else {
+      for (int i = 0; i < columnCount; i++) {
+        names[i] = "V" + (i + 1);
+      }
+    }
+
+    long dataStart = hasHeader ? start + firstRecordEnd : start;
+
+    ExecutorService executor;
+    if(size - dataStart > CHUNK_SIZE) {
+      executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    } else {
+      executor = MoreExecutors.sameThreadExecutor();
+    }
+    try {
+      List<Chunk> chunks = split(channel, size, dataStart, nrows, columnCount, executor);
+      for (Chunk chunk : chunks) {
+        if(!get(chunk.parsed)) {
+          return null;
+        }
+      }
+      return build(chunks, names, columnCount, rowNamesColumn, asIs, executor);
+
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Splits the file into chunks of whole records, starting at {@code dataStart}, and submits each chunk
+   * to be parsed as soon as its end is found.
+   */
+  private List<Chunk> split(FileChannel channel, long size, long dataStart, int nrows, final int columnCount,
+                            ExecutorService executor) throws IOException {
+    List<Chunk> chunks = Lists.newArrayList();
+    long position = dataStart;
+    long remainingRecords = nrows <= 0 ? Long.MAX_VALUE : nrows;
+    long windowLength = Math.min(size - position, 2L * CHUNK_SIZE);
+
+    while(position < size && remainingRecords > 0) {
+      windowLength = Math.min(windowLength, size - position);
+      boolean endOfFile = position + windowLength == size;
+      ByteBuffer buffer = map(channel, position, windowLength);
+      Tokenizer tokenizer = new Tokenizer(buffer, (int) windowLength, endOfFile);
+
+      int records = 0;
+      int end = 0;
+      boolean truncated = false;
+      while(tokenizer.next()) {
+        if(tokenizer.isTruncated()) {
+          truncated = true;
+          break;
+        }
+        records++;
+        end = tokenizer.position;
+        if(records == remainingRecords || end >= CHUNK_SIZE) {
+          break;
+        }
+      }
+      if(!truncated && records < remainingRecords && end < CHUNK_SIZE) {
+        // Include any trailing blank lines
+        end = tokenizer.position;
+      }
+      if(truncated && records == 0) {
+        // A single record does not fit in the window
+        if(windowLength >= Integer.MAX_VALUE) {
+          throw new EvalException("Record is too long");
+        }
+        windowLength = Math.min(Integer.MAX_VALUE, windowLength * 2);
+        continue;
+      }
+
+      final Chunk chunk = new Chunk(buffer, end, records);
+      chunk.parsed = executor.submit(new Callable<Boolean>() {
+        @Override
+        public Boolean call() {
+          return chunk.parse(columnCount);
+        }
+      });
+      chunks.add(chunk);
+
+      position += end;
+      remainingRecords -= records;
+    }
+    return chunks;
+  }
+
+  private ListVector build(List<Chunk> chunks, String[] names, int columnCount, boolean rowNamesColumn,
+                           boolean asIs, ExecutorService executor) throws IOException {
+
+    int rowCount = 0;
+    for (Chunk chunk : chunks) {
+      chunk.rowOffset = rowCount;
+      rowCount += chunk.records;
+    }
+
+    // Find the first type accepted by every chunk of each column
+    final boolean[] stringColumns = new boolean[columnCount];
+    final String[][] strings = new String[columnCount][];
+    boolean anyStringColumns = false;
+    for (int column = 0; column < columnCount; column++) {
+      if(columnType(chunks, column) == ColumnType.STRING || (column == 0 && rowNamesColumn)) {
+        stringColumns[column] = true;
+        strings[column] = new String[rowCount];
+        anyStringColumns = true;
+      }
+    }
+
+    // Read the text of character columns in a second pass
+    if(anyStringColumns) {
+      List<Future<?>> futures = Lists.newArrayList();
+      for (final Chunk chunk : chunks) {
+        futures.add(executor.submit(new Runnable() {
+          @Override
+          public void run() {
+            chunk.readStrings(stringColumns, strings);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        get(future);
+      }
+    }
+
+    ListVector.NamedBuilder dataFrame = new ListVector.NamedBuilder();
+    for (int column = 0; column < columnCount; column++) {
+      if(column == 0 && rowNamesColumn) {
+        continue;
+      }
+      if(stringColumns[column]) {
+        StringVector vector = new StringArrayVector(strings[column]);
+        if(asIs) {
+          dataFrame.add(names[column], DictionaryStringVector.encode(vector));
+        } else {
+          dataFrame.add(names[column], Tables.buildFactor(vector, Collections.<String>emptySet()));
+        }
+      } else {
+        dataFrame.add(names[column], buildNumeric(chunks, column, columnType(chunks, column), rowCount));
+      }
+    }
+
+    if(rowNamesColumn) {
+      dataFrame.setAttribute(Symbols.ROW_NAMES, buildRowNames(strings[0]));
+    } else {
+      dataFrame.setAttribute(Symbols.ROW_NAMES, new IntArrayVector(IntVector.NA, -rowCount));
+    }
+    dataFrame.setAttribute(Symbols.CLASS, StringArrayVector.valueOf("data.frame"));
+
+    return dataFrame.build();
+  }
+
+  private ColumnType columnType(List<Chunk> chunks, int column) {
+    boolean logical = true;
+    boolean integer = true;
+    boolean numeric = true;
+    for (Chunk chunk : chunks) {
+      ColumnChunk columnChunk = chunk.columns[column];
+      logical &= columnChunk.logical;
+      integer &= columnChunk.integer;
+      numeric &= columnChunk.numeric;
+    }
+    if(logical) {
+      return ColumnType.LOGICAL;
+    } else if(integer) {
+      return ColumnType.INTEGER;
+    } else if(numeric) {
+      return ColumnType.DOUBLE;
+    } else {
+      return ColumnType.STRING;
+    }
+  }
+
+  private Vector buildNumeric(List<Chunk> chunks, int column, ColumnType type, int rowCount) {
+    switch (type) {
+      case DOUBLE: {
+        double[] values = new double[rowCount];
+        for (Chunk chunk : chunks) {
+          System.arraycopy(chunk.columns[column].values, 0, values, chunk.rowOffset, chunk.records);
+        }
+        return DoubleArrayVector.unsafe(values);
+      }
+      case INTEGER:
+      case LOGICAL: {
+        int[] values = new int[rowCount];
+        for (Chunk chunk : chunks) {
+          double[] chunkValues = chunk.columns[column].values;
+          for (int i = 0; i < chunk.records; i++) {
+            double value = chunkValues[i];
+            values[chunk.rowOffset + i] = DoubleVector.isNA(value) ? IntVector.NA : (int) value;
+          }
+        }
+        if(type == ColumnType.LOGICAL) {
+          return LogicalArrayVector.unsafe(values);
+        } else {
+          return IntArrayVector.unsafe(values);
+        }
+      }
+      default:
+        throw new IllegalArgumentException("type: " + type);
+    }
+  }
+
+  private StringVector buildRowNames(String[] rowNames) {
+    Set<String> unique = Sets.newHashSetWithExpectedSize(rowNames.length);
+    for (String rowName : rowNames) {
+      if(rowName == null) {
+        throw new EvalException("missing values in 'row.names' are not allowed");
+      }
+      if(!unique.add(rowName)) {
+        throw new EvalException("duplicate 'row.names' are not allowed");
+      }
+    }
+    return new StringArrayVector(rowNames);
+  }
+
+  private static boolean isCompressed(FileChannel channel, long size) throws IOException {
+    if(size < 2) {
+      return false;
+    }
+    ByteBuffer magic = map(channel, 0, 2);
+    return (magic.get(0) & 0xFF) == 0x1f && (magic.get(1) & 0xFF) == 0x8b;
+  }
+
+  /**
+   * @return the position following the first {@code skip} lines of the file
+   */
+  private static long skipLines(FileChannel channel, long size, int skip) throws IOException {
+    long position = 0;
+    while(skip > 0 && position < size) {
+      int length = (int) Math.min(size - position, CHUNK_SIZE);
+      ByteBuffer buffer = map(channel, position, length);
+      int i = 0;
+      while(skip > 0 && i < length) {
+        byte b = buffer.get(i++);
+        if(b == '\n') {
+          skip--;
+        } else if(b == '\r') {
+          if(i < length && buffer.get(i) == '\n') {
+            i++;
+          }
+          skip--;
+        }
+      }
+      position += i;
+    }
+    return position;
+  }
+
+  private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+    return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+  }
+
+  private static <T> T get(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new EvalException("Interrupted while reading table");
+    } catch (ExecutionException e) {
+      if(e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private enum ColumnType {
+    LOGICAL,
+    INTEGER,
+    DOUBLE,
+    STRING
+  }
+
+  /**
+   * The values of one column within a chunk, together with the types that
+   * can represent all of them.
+   */
+  private static class ColumnChunk {
+    private final double[] values;
+    private boolean logical = true;
+    private boolean integer = true;
+    private boolean numeric = true;
+
+    private ColumnChunk(int records) {
+      this.values = new double[records];
+    }
+  }
+
+  /**
+   * A run of whole records within the file
+   */
+  private class Chunk {
+    private final ByteBuffer buffer;
+    private final int length;
+    private final int records;
+    private int rowOffset;
+
+    private ColumnChunk[] columns;
+    private Future<Boolean> parsed;
+
+    private Chunk(ByteBuffer buffer, int length, int records) {
+      this.buffer = buffer;
+      this.length = length;
+      this.records = records;
+    }
+
+    /**
+     * Parses the fields of each record as logical or numeric values
+     *
+     * @return false if a record has more than {@code columnCount} fields, or has fewer and
+     * {@code fill} is false.
+     */
+    private boolean parse(int columnCount) {
+      columns = new ColumnChunk[columnCount];
+      for (int i = 0; i < columnCount; i++) {
+        columns[i] = new ColumnChunk(records);
+      }
+
+      Tokenizer tokenizer = new Tokenizer(buffer.duplicate(), length, true);
+      FieldText text = new FieldText();
+      int record = 0;
+      while(tokenizer.next()) {
+        if(tokenizer.fieldCount > columnCount || (tokenizer.fieldCount < columnCount && !fill)) {
+          return false;
+        }
+        for (int i = 0; i < columnCount; i++) {
+          ColumnChunk column = columns[i];
+          if(i >= tokenizer.fieldCount) {
+            column.values[record] = DoubleVector.NA;
+          } else if(!column.logical && !column.integer && !column.numeric) {
+            // This column will be read as text in any case
+            column.values[record] = DoubleVector.NA;
+          } else {
+            tokenizer.decode(i, text);
+            column.values[record] = parseValue(column, text);
+          }
+        }
+        record++;
+      }
+      return true;
+    }
+
+    private double parseValue(ColumnChunk column, FieldText text) {
+      if(isNA(text)) {
+        return DoubleVector.NA;
+      }
+      if(text.matches("T") || text.matches("TRUE")) {
+        column.integer = false;
+        column.numeric = false;
+        return 1;
+      }
+      if(text.matches("F") || text.matches("FALSE")) {
+        column.integer = false;
+        column.numeric = false;
+        return 0;
+      }
+      column.logical = false;
+      if(!column.integer && !column.numeric) {
+        return DoubleVector.NA;
+      }
+      double value;
+      try {
+        value = NumericLiterals.parseDouble(text, 0, text.length(), decimal, false);
+      } catch (RuntimeException e) {
+        value = DoubleVector.NA;
+      }
+      if(DoubleVector.isNA(value)) {
+        column.integer = false;
+        column.numeric = false;
+      } else if(((double) (int) value) != value || value == IntVector.NA) {
+        // -2147483648 cannot be represented as an integer, as it is used for NA
+        column.integer = false;
+      }
+      return value;
+    }
+
+    private void readStrings(boolean[] stringColumns, String[][] strings) {
+      Tokenizer tokenizer = new Tokenizer(buffer.duplicate(), length, true);
+      FieldText text = new FieldText();
+      int row = rowOffset;
+      while(tokenizer.next()) {
+        for (int i = 0; i < stringColumns.length; i++) {
+          if(stringColumns[i]) {
+            if(i < tokenizer.fieldCount) {
+              tokenizer.decode(i, text);
+              // Empty fields are only missing in logical and numeric columns
+              strings[i][row] = isNAString(text) ? null : text.toString();
+            } else {
+              strings[i][row] = "";
+            }
+          }
+        }
+        row++;
+      }
+    }
+  }
+
+  private boolean isNA(FieldText text) {
+    return text.length() == 0 || isNAString(text);
+  }
+
+  /**
+   * @return true if {@code text} is one of the {@code na.strings}
+   */
+  private boolean isNAString(FieldText text) {
+    for (char[] naString : naStrings) {
+      if(text.matches(naString)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Splits records into fields.
+   */
+  private class Tokenizer {
+    private final ByteBuffer buffer;
+    private final int limit;
+
+    /**
+     * True if {@code limit} is the end of a record
+     */
+    private final boolean complete;
+
+    private int position = 0;
+    private boolean truncated;
+
+    private int fieldCount;
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private boolean[] fieldQuoted = new boolean[16];
+
+    private Tokenizer(ByteBuffer buffer, int limit, boolean complete) {
+      this.buffer = buffer;
+      this.limit = limit;
+      this.complete = complete;
+    }
+
+    /**
+     * Reads the next record, skipping blank lines.
+     *
+     * @return false if there are no further records
+     */
+    private boolean next() {
+      while(position < limit) {
+        if(readRecord()) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * @return true if the last record read runs into the end of the buffer, which is not
+     * the end of the record.
+     */
+    private boolean isTruncated() {
+      return truncated;
+    }
+
+    /**
+     * @return false if the record is a blank line
+     */
+    private boolean readRecord() {
+      int recordStart = position;
+      fieldCount = 0;
+      truncated = false;
+
+      while(true) {
+        readField();
+        if(position < limit && buffer.get(position) == separator) {
+          position++;
+          continue;
+        }
+        break;
+      }
+
+      // Skip any comment
+      if(hasCommentChar) {
+        while(position < limit && !isLineTerminator(buffer.get(position))) {
+          position++;
+        }
+      }
+
+      if(position >= limit) {
+        truncated = !complete;
+      } else if(buffer.get(position) == '\r') {
+        position++;
+        if(position < limit && buffer.get(position) == '\n') {
+          position++;
+        }
+      } else {
+        position++;
+      }
+
+      boolean blank = fieldCount == 1 && fieldStart[0] == recordStart &&
+          fieldEnd[0] == recordStart && !fieldQuoted[0];
+
+      return !blank;
+    }
+
+    private void readField() {
+      if(stripWhite) {
+        while(position < limit && isWhitespace(buffer.get(position))) {
+          position++;
+        }
+      }
+      int start = position;
+      boolean quoted = false;
+      if(position < limit && isQuote(buffer.get(position))) {
+        quoted = true;
+        byte quote = buffer.get(position++);
+        while(position < limit) {
+          byte b = buffer.get(position++);
+          if(b == quote) {
+            if(position < limit && buffer.get(position) == quote) {
+              position++;
+            } else {
+              break;
+            }
+          }
+        }
+      }
+      while(position < limit) {
+        byte b = buffer.get(position);
+        if(b == separator || isLineTerminator(b) || (hasCommentChar && b == commentChar)) {
+          break;
+        }
+        position++;
+      }
+      int end = position;
+      if(stripWhite) {
+        while(end > start && isWhitespace(buffer.get(end - 1))) {
+          end--;
+        }
+      }
+      addField(start, end, quoted);
+    }
+
+    private void addField(int start, int end, boolean quoted) {
+      if(fieldCount == fieldStart.length) {
+        int newLength = fieldCount * 2;
+        fieldStart = Arrays.copyOf(fieldStart, newLength);
+        fieldEnd = Arrays.copyOf(fieldEnd, newLength);
+        fieldQuoted = Arrays.copyOf(fieldQuoted, newLength);
+      }
+      fieldStart[fieldCount] = start;
+      fieldEnd[fieldCount] = end;
+      fieldQuoted[fieldCount] = quoted;
+      fieldCount++;
+    }
+
+    /**
+     * Decodes the text of a field of the current record, removing any quotes.
+     */
+    private void decode(int field, FieldText text) {
+      int p = fieldStart[field];
+      int end = fieldEnd[field];
+      text.clear();
+      if(fieldQuoted[field]) {
+        byte quote = buffer.get(p++);
+        while(p < end) {
+          byte b = buffer.get(p++);
+          if(b == quote) {
+            if(p < end && buffer.get(p) == quote) {
+              p++;
+            } else {
+              break;
+            }
+          }
+          text.append(b);
+        }
+      }
+      while(p < end) {
+        text.append(buffer.get(p++));
+      }
+      text.decode();
+    }
+
+    private String[] getFields() {
+      FieldText text = new FieldText();
+      String[] fields = new String[fieldCount];
+      for (int i = 0; i < fieldCount; i++) {
+        decode(i, text);
+        fields[i] = text.toString();
+      }
+      return fields;
+    }
+
+    private boolean isQuote(byte b) {
+      for (byte quote : quotes) {
+        if(b == quote) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean isWhitespace(byte b) {
+      return (b == ' ' || b == '\t') && b != separator;
+    }
+
+    private boolean isLineTerminator(byte b) {
+      return b == '\n' || b == '\r';
+    }
+  }
+
+  /**
+   * The decoded text of a single field, reused from one field to the next
+   */
+  private static class FieldText implements CharSequence {
+    private byte[] bytes = new byte[64];
+    private int byteCount;
+    private char[] chars = new char[64];
+    private int length;
+
+    private void clear() {
+      byteCount = 0;
+    }
+
+    private void append(byte b) {
+      if(byteCount == bytes.length) {
+        bytes = Arrays.copyOf(bytes, byteCount * 2);
+      }
+      bytes[byteCount++] = b;
+    }
+
+    private void decode() {
+      boolean ascii = true;
+      for (int i = 0; i < byteCount; i++) {
+        if(bytes[i] < 0) {
+          ascii = false;
+          break;
+        }
+      }
+      if(ascii) {
+        ensureCapacity(byteCount);
+        for (int i = 0; i < byteCount; i++) {
+          chars[i] = (char) bytes[i];
+        }
+        length = byteCount;
+      } else {
+        String string = new String(bytes, 0, byteCount, Charsets.UTF_8);
+        ensureCapacity(string.length());
+        string.getChars(0, string.length(), chars, 0);
+        length = string.length();
+      }
+    }
+
+    private void ensureCapacity(int capacity) {
+      if(chars.length < capacity) {
+        chars = new char[Math.max(capacity, chars.length * 2)];
+      }
+    }
+
+    private boolean matches(String string) {
+      if(string.length() != length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if(chars[i] != string.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean matches(char[] string) {
+      if(string.length != length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if(chars[i] != string[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if(index >= length) {
+        throw new IndexOutOfBoundsException("index: " + index);
+      }
+      return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+      return new String(chars, 0, length);
+    }
+  }
+}
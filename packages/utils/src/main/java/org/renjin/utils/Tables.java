@@ -67,7 +67,7 @@ public class Tables {
     if(converter != null) {
       return converter.build(vector, naSet);
     } else if(asIs) {
-      return vector;
+      return DictionaryStringVector.encode(vector);
     } else {
       return buildFactor(vector, naSet);
     }
@@ -86,7 +86,10 @@ public class Tables {
     return set;
   }
 
-  private static Vector buildFactor(StringVector vector, Set<String> naStrings) {
+  static Vector buildFactor(StringVector vector, Set<String> naStrings) {
+    if(vector instanceof DictionaryStringVector) {
+      return buildFactor((DictionaryStringVector) vector, naStrings);
+    }
     Map<String, Integer> codes = Maps.newHashMap();
     IntArrayVector.Builder factor = new IntArrayVector.Builder(vector.length());
     for(int i=0;i!=vector.length();++i) {
@@ -109,6 +112,35 @@ public class Tables {
     return factor.build();
   }
 
+  /**
+   * Builds a factor from a dictionary-encoded vector, looking up each distinct value only once.
+   * Levels are numbered in order of first appearance, as above.
+   */
+  private static Vector buildFactor(DictionaryStringVector vector, Set<String> naStrings) {
+    int[] levelOfCode = new int[vector.getDictionarySize()];
+    StringVector.Builder levels = StringVector.newBuilder();
+    int[] factor = new int[vector.length()];
+    for(int i=0;i!=factor.length;++i) {
+      int code = vector.getCode(i);
+      int level = levelOfCode[code];
+      if(level == 0) {
+        String element = vector.getDictionaryEntry(code);
+        if(isNa(element, naStrings)) {
+          level = IntVector.NA;
+        } else {
+          levels.add(element);
+          level = levels.length();
+        }
+        levelOfCode[code] = level;
+      }
+      factor[i] = level;
+    }
+    AttributeMap.Builder attributes = AttributeMap.builder();
+    attributes.setClass("factor");
+    attributes.set(Symbols.LEVELS, levels.build());
+    return IntArrayVector.unsafe(factor, attributes.build());
+  }
+
   private static boolean isNa(String string, Set<String> naStrings) {
     return Strings.isNullOrEmpty(string) || naStrings.contains(string);
   }
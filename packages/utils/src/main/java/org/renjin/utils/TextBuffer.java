@@ -0,0 +1,90 @@
+package org.renjin.utils;
+
+import org.renjin.parser.DoubleToDecimal;
+
+import java.util.Arrays;
+
+/**
+ * Growable buffer of characters to which {@link ColumnPrinter}s write their values. Unlike
+ * {@code StringBuilder}, the backing array is exposed so that numbers can be formatted into it in place,
+ * and the buffer can be reused for each block of rows.
+ */
+class TextBuffer {
+
+  private static final int MAX_INT_CHARS = 11;
+
+  private char[] chars;
+  private int length;
+
+  TextBuffer(int capacity) {
+    this.chars = new char[capacity];
+  }
+
+  public char[] getChars() {
+    return chars;
+  }
+
+  public int length() {
+    return length;
+  }
+
+  public void clear() {
+    length = 0;
+  }
+
+  public void append(char c) {
+    ensureCapacity(1);
+    chars[length++] = c;
+  }
+
+  public void append(String s) {
+    int n = s.length();
+    ensureCapacity(n);
+    s.getChars(0, n, chars, length);
+    length += n;
+  }
+
+  /**
+   * Appends the shortest representation of {@code value} that reads back to the same value.
+   */
+  public void append(double value, char decimalPoint) {
+    ensureCapacity(DoubleToDecimal.MAX_CHARS);
+    length = DoubleToDecimal.format(value, decimalPoint, chars, length);
+  }
+
+  public void append(int value) {
+    ensureCapacity(MAX_INT_CHARS);
+    if(value < 0) {
+      if(value == Integer.MIN_VALUE) {
+        append(Integer.toString(value));
+        return;
+      }
+      chars[length++] = '-';
+      value = -value;
+    }
+    int end = length + digitCount(value);
+    int i = end;
+    do {
+      chars[--i] = (char) ('0' + value % 10);
+      value /= 10;
+    } while(value != 0);
+    length = end;
+  }
+
+  private static int digitCount(int value) {
+    int n = 1;
+    while(n < 10 && value >= POWERS_OF_TEN[n]) {
+      n++;
+    }
+    return n;
+  }
+
+  private static final int[] POWERS_OF_TEN = {
+      1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000 };
+
+  private void ensureCapacity(int n) {
+    if(length + n > chars.length) {
+      chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + n));
+    }
+  }
+}
@@ -1,88 +1,238 @@
 package org.renjin.utils;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
 import org.renjin.invoke.annotations.Current;
 import org.renjin.primitives.io.connections.Connection;
 import org.renjin.primitives.io.connections.Connections;
+import org.renjin.primitives.io.connections.FileConnection;
 import org.renjin.sexp.*;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.*;
 
 /**
- * Implementation of write table
+ * Implementation of write table.
+ *
+ * <p>Rows are formatted in blocks into reusable character buffers. When writing a large table to a file,
+ * the blocks are formatted and encoded in parallel, and the encoded bytes are written to the file in order,
+ * one block at a time.</p>
  */
 public class WriteTable {
 
+  /**
+   * The number of rows formatted at a time
+   */
+  static final int BLOCK_ROWS = 8192;
 
   public static void write(@Current Context context,
                            ListVector dataFrame,
                            SEXP connHandle,
-                           int numRows, 
+                           int numRows,
                            int numColumns,
                            Vector rowNames,
                            String sep,
                            String eol,
-                           String na, 
+                           String na,
                            String dec,
-                           SEXP quote, 
+                           SEXP quote,
                            SEXP quoteMethod) throws IOException {
 
-    
+
     Connection connection = Connections.getConnection(context, connHandle);
     PrintWriter writer = connection.getPrintWriter();
 
+    boolean escape = quoteMethod instanceof LogicalVector &&
+        ((LogicalVector) quoteMethod).getElementAsLogical(0) == Logical.TRUE;
+
+    // Large tables written to files are formatted in parallel
+    int threads = 1;
+    if(numRows > BLOCK_ROWS && connection instanceof FileConnection) {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+
     // Setup printers
     List<ColumnPrinter> printers = Lists.newArrayList();
 
     if(rowNames != Null.INSTANCE) {
       // rownames are quoted unless quote is FALSE
-      printers.add(new StringPrinter(writer, (StringVector) rowNames, isColumnQuoted(quote, 0), na));
+      printers.add(new StringPrinter((StringVector) rowNames, isColumnQuoted(quote, 0), escape, na));
     }
 
     for (int i = 0; i < dataFrame.length(); i++) {
       
       SEXP column = dataFrame.getElementAsSEXP(i);
-      
+
+      // Deferred columns are computed as they are read, so compute
+      // them up front before reading them from several threads
+      if(threads > 1) {
+        column = context.materialize(column);
+      }
+
       if(column instanceof StringVector) {
-        printers.add(new StringPrinter(writer, (StringVector)column, isColumnQuoted(quote, i), na));
+        printers.add(new StringPrinter((StringVector)column, isColumnQuoted(quote, i), escape, na));
         
       } else if(column instanceof IntVector) {
         if(column.inherits("factor")) {
-          printers.add(new FactorPrinter(writer, (IntVector) column, isColumnQuoted(quote, i), na));
+          printers.add(new FactorPrinter((IntVector) column, isColumnQuoted(quote, i), escape, na));
         } else {
-          printers.add(new IntPrinter(writer, (IntVector) column, na));
+          printers.add(new IntPrinter((IntVector) column, na));
         }
       } else if(column instanceof DoubleVector) {
-        printers.add(new DoublePrinter(writer, (DoubleVector) column, dec, na));
+        printers.add(new DoublePrinter((DoubleVector) column, dec, na));
 
       } else if(column instanceof LogicalVector) {
-        printers.add(new LogicalPrinter(writer, (LogicalVector) column, na));
+        printers.add(new LogicalPrinter((LogicalVector) column, na));
       } else {
         throw new EvalException("Unsupported column type " + column.getTypeName());
       }
     }
 
-    for(int i=0;i!=numRows;++i) {
-      for(int j=0;j!=printers.size();++j) {
-        if(j > 0) {
-          writer.print(sep);
+    ExecutorService executor;
+    if(threads > 1) {
+      executor = Executors.newFixedThreadPool(threads);
+    } else {
+      executor = MoreExecutors.sameThreadExecutor();
+    }
+
+    try {
+      // Blocks are encoded straight to bytes only if we can write to the underlying
+      // stream. The column names have already been written to the connection's PrintWriter,
+      // so flush them first.
+      OutputStream out = null;
+      Charset charset = null;
+      if(connection instanceof FileConnection) {
+        writer.flush();
+        out = connection.getOutputStream();
+        charset = Charset.defaultCharset();
+      }
+
+      // Format at most two blocks per thread ahead of the output
+      Deque<Block> free = new ArrayDeque<>();
+      for (int i = 0; i < threads * 2; i++) {
+        free.add(new Block(printers, sep, eol, charset));
+      }
+      Deque<Future<Block>> pending = new ArrayDeque<>();
+
+      for (int startRow = 0; startRow < numRows; startRow += BLOCK_ROWS) {
+        if(free.isEmpty()) {
+          free.add(writeBlock(pending.removeFirst(), writer, out));
         }
-        printers.get(j).print(i);
+        Block block = free.removeFirst();
+        block.startRow = startRow;
+        block.endRow = Math.min(numRows, startRow + BLOCK_ROWS);
+        pending.add(executor.submit(block));
+      }
+      while(!pending.isEmpty()) {
+        writeBlock(pending.removeFirst(), writer, out);
+      }
+      if(out != null) {
+        out.flush();
       }
-      writer.print(eol);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static Block writeBlock(Future<Block> future, PrintWriter writer, OutputStream out) throws IOException {
+    Block block;
+    try {
+      block = future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new EvalException("Interrupted while writing table");
+    } catch (ExecutionException e) {
+      if(e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+    if(out != null) {
+      out.write(block.bytes.array(), 0, block.bytes.position());
+    } else {
+      writer.write(block.text.getChars(), 0, block.text.length());
     }
+    return block;
   }
-  
+
+  /**
+   * A block of rows, formatted and optionally encoded into buffers that are reused for each block.
+   */
+  private static class Block implements Callable<Block> {
+
+    private final List<ColumnPrinter> printers;
+    private final String sep;
+    private final String eol;
+    private final CharsetEncoder encoder;
+
+    private final TextBuffer text = new TextBuffer(BLOCK_ROWS * 32);
+    private ByteBuffer bytes;
+
+    private int startRow;
+    private int endRow;
+
+    private Block(List<ColumnPrinter> printers, String sep, String eol, Charset charset) {
+      this.printers = printers;
+      this.sep = sep;
+      this.eol = eol;
+      if(charset == null) {
+        this.encoder = null;
+      } else {
+        // Replace unmappable characters, as a PrintWriter would
+        this.encoder = charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      }
+    }
+
+    @Override
+    public Block call() throws Exception {
+      text.clear();
+      for(int i=startRow;i!=endRow;++i) {
+        for(int j=0;j!=printers.size();++j) {
+          if(j > 0) {
+            text.append(sep);
+          }
+          printers.get(j).print(i, text);
+        }
+        text.append(eol);
+      }
+      if(encoder != null) {
+        encode();
+      }
+      return this;
+    }
+
+    private void encode() {
+      int maxBytes = (int) Math.ceil(text.length() * (double) encoder.maxBytesPerChar());
+      if(bytes == null || bytes.capacity() < maxBytes) {
+        bytes = ByteBuffer.allocate(maxBytes);
+      }
+      bytes.clear();
+      encoder.reset();
+      encoder.encode(CharBuffer.wrap(text.getChars(), 0, text.length()), bytes, true);
+      encoder.flush(bytes);
+    }
+  }
+
   private static boolean isColumnQuoted(SEXP quote, int index) {
-    
+
     if(quote instanceof LogicalVector) {
       return ((LogicalVector) quote).getElementAsLogical(0) == Logical.TRUE;
     }
-    
+
     if(quote instanceof IntVector) {
       int[] columns = ((IntVector) quote).toIntArray();
       for (int i = 0; i < columns.length; i++) {
@@ -0,0 +1,92 @@
+package org.renjin.script;
+
+import org.renjin.sexp.Environment;
+import org.renjin.sexp.ExpressionVector;
+import org.renjin.sexp.Frame;
+import org.renjin.sexp.HashFrame;
+import org.renjin.sexp.Symbol;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A script that has been parsed once and can be evaluated repeatedly,
+ * either in the engine's global environment or against a set of
+ * {@link Bindings}.
+ */
+public class RenjinCompiledScript extends CompiledScript {
+
+  private final RenjinScriptEngine engine;
+  private final ExpressionVector source;
+
+  RenjinCompiledScript(RenjinScriptEngine engine, ExpressionVector source) {
+    this.engine = engine;
+    this.source = source;
+  }
+
+  /**
+   * @return the parsed expressions that make up this script
+   */
+  public ExpressionVector getSource() {
+    return source;
+  }
+
+  @Override
+  public Object eval() throws ScriptException {
+    return eval(engine.getContext());
+  }
+
+  @Override
+  public Object eval(ScriptContext context) throws ScriptException {
+    return engine.eval(engine.unwrapContext(context), source);
+  }
+
+  /**
+   * Evaluates this script in a new environment whose frame is backed by
+   * {@code bindings} and whose parent is the global environment, so that
+   * assignments made by the script are visible through the bindings.
+   *
+   * <p>Bindings created by {@link RenjinScriptEngine#createBindings()} are used as the frame
+   * directly. Any other {@code Bindings} are copied into a new frame, and the contents of that
+   * frame are copied back once the script has finished, even if it failed.</p>
+   */
+  @Override
+  public Object eval(Bindings bindings) throws ScriptException {
+    if(bindings instanceof RenjinBindings) {
+      return eval(((RenjinBindings) bindings).getFrame());
+    }
+    RenjinBindings copy = new RenjinBindings(new HashFrame());
+    copy.putAll(bindings);
+    try {
+      return eval(copy.getFrame());
+    } finally {
+      copyBack(copy.getFrame(), bindings);
+    }
+  }
+
+  private Object eval(Frame frame) throws ScriptException {
+    Environment global = engine.getTopLevelContext().getGlobalEnvironment();
+    Environment rho = Environment.createChildEnvironment(global, frame);
+
+    return engine.eval(engine.getTopLevelContext(), rho, source);
+  }
+
+  private static void copyBack(Frame frame, Bindings bindings) {
+    Set<String> removed = new HashSet<>(bindings.keySet());
+    for (Symbol symbol : frame.getSymbols()) {
+      bindings.put(symbol.getPrintName(), frame.getVariable(symbol));
+      removed.remove(symbol.getPrintName());
+    }
+    bindings.keySet().removeAll(removed);
+  }
+
+  @Override
+  public ScriptEngine getEngine() {
+    return engine;
+  }
+}
@@ -1,6 +1,8 @@
 package org.renjin.script;
 
-import com.google.common.io.CharSource;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.CharStreams;
 import org.renjin.eval.Context;
 import org.renjin.eval.EvalException;
 import org.renjin.eval.Session;
@@ -18,7 +20,7 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 
-public class RenjinScriptEngine implements ScriptEngine, Invocable {
+public class RenjinScriptEngine implements ScriptEngine, Invocable, Compilable {
 
   private final RenjinScriptEngineFactory factory;
 
@@ -27,6 +29,14 @@ public class RenjinScriptEngine implements ScriptEngine, Invocable {
 
   // jsr context, which wrap renjincore context.
   private final ScriptContext scriptContext;
+
+  /**
+   * Recently parsed sources, so that hosts which evaluate the same script
+   * repeatedly don't pay for lexing and parsing on each invocation.
+   */
+  private final Cache<SourceKey, ExpressionVector> parseCache = CacheBuilder.newBuilder()
+      .maximumSize(PARSE_CACHE_SIZE)
+      .build();
   
   RenjinScriptEngine(RenjinScriptEngineFactory factory, Session session) {
     super();
@@ -106,7 +116,7 @@ public class RenjinScriptEngine implements ScriptEngine, Invocable {
   @Override
   public Object eval(String script) throws ScriptException {
     String filename = getFilenameFromContext(scriptContext,INLINE_STRING);
-    return eval(topLevelContext, RParser.parseSource(script + "\n", filename));
+    return eval(topLevelContext, parse(script, filename));
   }
   
   @Override
@@ -114,40 +124,62 @@ public class RenjinScriptEngine implements ScriptEngine, Invocable {
       throws ScriptException {
     //TODO: agreement to bind name.
     String filename = getFilenameFromContext(scriptContext,INLINE_STRING);
-    SEXP source = RParser.parseSource(script + "\n", filename);
-    return eval(unwrapContext(scriptContext), source);
+    return eval(unwrapContext(scriptContext), parse(script, filename));
   }
 
   @Override
   public Object eval(Reader reader) throws ScriptException {
     String filename = getFilenameFromContext(scriptContext,INLINE_STRING);
-    return eval(reader, topLevelContext, filename);
+    return eval(topLevelContext, parse(reader, filename));
   }
   
   @Override
   public Object eval(final Reader reader, ScriptContext scriptContext)
       throws ScriptException {
     String filename = getFilenameFromContext(scriptContext,UNKNOWN);
-    return eval(reader, unwrapContext(scriptContext), filename);
+    return eval(unwrapContext(scriptContext), parse(reader, filename));
+  }
+
+  @Override
+  public CompiledScript compile(String script) throws ScriptException {
+    String filename = getFilenameFromContext(scriptContext,INLINE_STRING);
+    return new RenjinCompiledScript(this, parse(script, filename));
+  }
+
+  @Override
+  public CompiledScript compile(Reader reader) throws ScriptException {
+    String filename = getFilenameFromContext(scriptContext,UNKNOWN);
+    return new RenjinCompiledScript(this, parse(reader, filename));
   }
 
-  private Object eval(Reader reader, Context context, String filename) throws ScriptException {
-    SEXP source;
+  private ExpressionVector parse(Reader reader, String filename) throws ScriptException {
+    String script;
     try {
-      // terminate with '\n'
-      CharSource terminated = CharSource.concat(
-          newReaderSupplier(reader),
-          CharSource.wrap("\n"));
-      source = RParser.parseSource(terminated, new CHARSEXP(filename) );
+      script = CharStreams.toString(reader);
     } catch (IOException e) {
       throw new ScriptException(e);
     }
-    return eval(context, source);
+    return parse(script, filename);
+  }
+
+  private ExpressionVector parse(String script, String filename) {
+    SourceKey key = new SourceKey(script, filename);
+    ExpressionVector source = parseCache.getIfPresent(key);
+    if(source == null) {
+      // terminate with '\n'
+      source = RParser.parseSource(script + "\n", filename);
+      parseCache.put(key, source);
+    }
+    return source;
   }
   
-  private Object eval(Context context, SEXP source) {
+  Object eval(Context context, SEXP source) {
+    return eval(context, context.getEnvironment(), source);
+  }
+
+  Object eval(Context context, Environment rho, SEXP source) {
     try {
-      return context.evaluate( source, context.getEnvironment());
+      return context.evaluate( source, rho);
     } catch(BreakException e) {
       throw new EvalException("no loop for break");
     } catch(NextException e) {
@@ -165,16 +197,7 @@ public class RenjinScriptEngine implements ScriptEngine, Invocable {
   }
   
 
-  private CharSource newReaderSupplier(final Reader reader) {
-    return new CharSource() {
-      @Override
-      public Reader openStream() throws IOException {
-        return reader;
-      }      
-    };
-  }
-
-  private Context unwrapContext(ScriptContext scriptContext) {
+  Context unwrapContext(ScriptContext scriptContext) {
     return ((RenjinScriptContext)scriptContext).getContext();
   }
 
@@ -191,6 +214,42 @@ public class RenjinScriptEngine implements ScriptEngine, Invocable {
 
   private static final String INLINE_STRING="inline-string";
   private static final String UNKNOWN="unknown";
+  private static final int PARSE_CACHE_SIZE = 100;
+
+  /**
+   * Identifies a parsed source by its text and the filename recorded in its
+   * source references.
+   */
+  private static final class SourceKey {
+    private final String script;
+    private final String filename;
+    private final int hashCode;
+
+    private SourceKey(String script, String filename) {
+      this.script = script;
+      this.filename = filename;
+      this.hashCode = 31 * script.hashCode() + filename.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if(this == o) {
+        return true;
+      }
+      if(!(o instanceof SourceKey)) {
+        return false;
+      }
+      SourceKey other = (SourceKey) o;
+      return hashCode == other.hashCode &&
+          script.equals(other.script) &&
+          filename.equals(other.filename);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
 
   @Override
   public ScriptEngineFactory getFactory() {
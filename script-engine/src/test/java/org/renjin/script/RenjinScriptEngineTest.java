@@ -137,4 +137,43 @@ public class RenjinScriptEngineTest {
     assertThat(vector.getElementAsString(0), equalTo("hello world"));
   }
   
+  @Test
+  public void compiledScriptCanBeEvaluatedRepeatedly() throws ScriptException {
+    CompiledScript script = ((Compilable) engine).compile("x <- x + 1; x");
+    engine.put("x", 1);
+
+    assertThat(script.eval(), CoreMatchers.<Object>equalTo(new DoubleArrayVector(2)));
+    assertThat(script.eval(), CoreMatchers.<Object>equalTo(new DoubleArrayVector(3)));
+  }
+
+  @Test
+  public void compiledScriptWithBindings() throws ScriptException {
+    engine.eval("f <- function(x) x * 2");
+    CompiledScript script = ((Compilable) engine).compile("y <- f(x)");
+
+    Bindings first = engine.createBindings();
+    first.put("x", 2);
+    script.eval(first);
+
+    Bindings second = engine.createBindings();
+    second.put("x", 21);
+    script.eval(second);
+
+    assertThat(first.get("y"), CoreMatchers.<Object>equalTo(new DoubleArrayVector(4)));
+    assertThat(second.get("y"), CoreMatchers.<Object>equalTo(new DoubleArrayVector(42)));
+  }
+
+  @Test
+  public void compiledScriptWithSimpleBindings() throws ScriptException {
+    CompiledScript script = ((Compilable) engine).compile("y <- x * 2; rm(z)");
+
+    Bindings bindings = new SimpleBindings();
+    bindings.put("x", 21);
+    bindings.put("z", 1);
+    script.eval(bindings);
+
+    assertThat(bindings.get("y"), CoreMatchers.<Object>equalTo(new DoubleArrayVector(42)));
+    assertThat(bindings.containsKey("z"), equalTo(false));
+  }
+  
 }
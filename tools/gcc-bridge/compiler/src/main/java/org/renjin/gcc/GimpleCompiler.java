@@ -1,11 +1,17 @@
 package org.renjin.gcc;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
 import org.renjin.gcc.analysis.*;
 import org.renjin.gcc.codegen.FunctionGenerator;
@@ -19,8 +25,10 @@ import org.renjin.gcc.codegen.type.record.RecordTypeStrategy;
 import org.renjin.gcc.codegen.type.record.RecordTypeStrategyBuilder;
 import org.renjin.gcc.gimple.GimpleCompilationUnit;
 import org.renjin.gcc.gimple.GimpleFunction;
+import org.renjin.gcc.gimple.GimpleVarDecl;
 import org.renjin.gcc.gimple.type.GimpleRecordTypeDef;
 import org.renjin.gcc.link.LinkSymbol;
+import org.renjin.gcc.link.LinkSymbolIndex;
 import org.renjin.gcc.symbols.GlobalSymbolTable;
 
 import java.io.File;
@@ -31,6 +39,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.*;
 
 /**
  * Compiles a set of {@link GimpleCompilationUnit}s to bytecode
@@ -72,12 +81,17 @@ public class GimpleCompiler  {
   
   private Predicate<GimpleFunction> entryPointPredicate = new DefaultEntryPointPredicate();
 
+  private int threadCount = 1;
+
+  private File incrementalDirectory;
+
   public GimpleCompiler() {
     functionBodyTransformers.add(FunctionCallPruner.INSTANCE);
     functionBodyTransformers.add(LocalVariablePruner.INSTANCE);
     functionBodyTransformers.add(VoidPointerTypeDeducer.INSTANCE);
     functionBodyTransformers.add(ResultDeclRewriter.INSTANCE);
     functionBodyTransformers.add(LocalVariableInitializer.INSTANCE);
+    functionBodyTransformers.add(EscapeAnalyzer.INSTANCE);
     globalSymbolTable = new GlobalSymbolTable(typeOracle);
     globalSymbolTable.addDefaults();
     providedRecordTypes.put("tm", org.renjin.gcc.runtime.tm.class);
@@ -197,12 +211,18 @@ public class GimpleCompiler  {
 
       // Finally, run code generation
       TreeLogger codegenLogger = rootLogger.branch("Generating bytecode");
-      for (UnitClassGenerator generator : unitClassGenerators) {
-        generator.emit(codegenLogger);
-        writeClass(generator.getClassName(), generator.toByteArray());
+      UnitClassCache cache = null;
+      if(incrementalDirectory != null) {
+        incrementalDirectory.mkdirs();
+        cache = new UnitClassCache(incrementalDirectory, hashSharedState(units));
+      }
+      emitClasses(codegenLogger, unitClassGenerators, cache);
+      if(cache != null && verbose) {
+        System.out.println("Reused " + cache.getHits() + " of " + (cache.getHits() + cache.getMisses()) +
+            " compilation units");
       }
 
-      // Write link metadata to META-INF/org.renjin.gcc.symbols
+      // Write link metadata to META-INF/org.renjin.gcc.symbols.index
       writeLinkMetadata();
 
       // If requested, generate a single class that wraps all exported functions
@@ -220,6 +240,100 @@ public class GimpleCompiler  {
     }
   }
 
+  /**
+   * Generates the classes of the compilation units, in parallel if a thread count
+   * greater than one has been set.
+   */
+  private void emitClasses(final TreeLogger logger, List<UnitClassGenerator> generators,
+                           final UnitClassCache cache) throws Exception {
+
+    if(threadCount <= 1) {
+      for (UnitClassGenerator generator : generators) {
+        emitClass(logger, generator, cache);
+      }
+      return;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Future<Void>> futures = Lists.newArrayList();
+      for (final UnitClassGenerator generator : generators) {
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            emitClass(logger, generator, cache);
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          Throwables.propagateIfInstanceOf(e.getCause(), Exception.class);
+          throw Throwables.propagate(e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void emitClass(TreeLogger logger, UnitClassGenerator generator, UnitClassCache cache) throws IOException {
+    HashCode key = null;
+    byte[] classBytes = null;
+    if(cache != null) {
+      key = cache.key(generator.getUnit(), generator.getClassName());
+      if(key != null) {
+        classBytes = cache.get(key);
+      }
+    }
+    if(classBytes == null) {
+      generator.emit(logger);
+      classBytes = generator.toByteArray();
+      if(key != null) {
+        cache.put(key, classBytes);
+      }
+    }
+    writeClass(generator.getClassName(), classBytes);
+  }
+
+  /**
+   * Hashes the state that all compilation units share, and on which the code generated for
+   * each unit depends: the record types, the global variables and the global functions.
+   */
+  private HashCode hashSharedState(List<GimpleCompilationUnit> units) {
+    Hasher hasher = Hashing.sha1().newHasher();
+    hasher.putString(Strings.nullToEmpty(GimpleCompiler.class.getPackage().getImplementationVersion()), Charsets.UTF_8);
+    hasher.putString(packageName + "\n" + trampolineClassName + "\n" + recordClassPrefix + "\n", Charsets.UTF_8);
+
+    for (RecordTypeStrategy strategy : typeOracle.getRecordTypes()) {
+      hasher.putString(strategy.getRecordTypeDef() + " => " + strategy + "\n", Charsets.UTF_8);
+    }
+    for (GimpleCompilationUnit unit : units) {
+      for (GimpleVarDecl decl : unit.getGlobalVariables()) {
+        hasher.putString(decl.getType() + " " + decl.getMangledName() + " " + decl.isAddressable() + "\n", Charsets.UTF_8);
+      }
+    }
+
+    // Sort the functions, as they are stored in a hash map
+    Map<String, String> functions = Maps.newTreeMap();
+    for (Map.Entry<String, CallGenerator> entry : globalSymbolTable.getFunctions()) {
+      String description = entry.getValue().getClass().getName();
+      if (entry.getValue() instanceof FunctionCallGenerator) {
+        FunctionCallGenerator functionCallGenerator = (FunctionCallGenerator) entry.getValue();
+        if (functionCallGenerator.getStrategy() instanceof FunctionGenerator) {
+          description = ((FunctionGenerator) functionCallGenerator.getStrategy()).getMethodHandle().toString();
+        }
+      }
+      functions.put(entry.getKey(), description);
+    }
+    for (Map.Entry<String, String> function : functions.entrySet()) {
+      hasher.putString(function.getKey() + " => " + function.getValue() + "\n", Charsets.UTF_8);
+    }
+    return hasher.hash();
+  }
+
   private void compileRecords(List<GimpleCompilationUnit> units) throws IOException {
     RecordTypeStrategyBuilder builder = new RecordTypeStrategyBuilder(
         typeOracle,
@@ -242,18 +356,19 @@ public class GimpleCompiler  {
 
   private void writeLinkMetadata() throws IOException {
 
+    List<LinkSymbol> symbols = Lists.newArrayList();
     for (Map.Entry<String, CallGenerator> entry : globalSymbolTable.getFunctions()) {
       if (entry.getValue() instanceof FunctionCallGenerator) {
         FunctionCallGenerator functionCallGenerator = (FunctionCallGenerator) entry.getValue();
         if (functionCallGenerator.getStrategy() instanceof FunctionGenerator) {
           FunctionGenerator functionGenerator = (FunctionGenerator) functionCallGenerator.getStrategy();
           for (String mangledName : functionGenerator.getMangledNames()) {
-            LinkSymbol symbol = LinkSymbol.forFunction(mangledName, functionGenerator.getMethodHandle());
-            symbol.write(outputDirectory);
+            symbols.add(LinkSymbol.forFunction(mangledName, functionGenerator.getMethodHandle()));
           }
         }
       }
     }
+    LinkSymbolIndex.write(outputDirectory, symbols);
   }
 
 
@@ -299,6 +414,28 @@ public class GimpleCompiler  {
     return className.toString();
   }
 
+  /**
+   * Sets the number of threads used to generate the classes of independent compilation units.
+   * Defaults to one, so that classes are generated on the calling thread.
+   */
+  public void setThreadCount(int threadCount) {
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * Enables incremental compilation: the classes generated for each compilation unit are
+   * stored in the given directory, and reused by later builds if neither the unit nor the
+   * state it shares with other units has changed.
+   *
+   * <p>Link symbols resolved from dependencies are not part of the key under which classes are
+   * stored, and development builds of the compiler have no implementation version, so the
+   * directory must be cleared when dependencies or the compiler change. Incremental compilation
+   * is therefore off unless a directory is set.</p>
+   */
+  public void setIncrementalDirectory(File directory) {
+    this.incrementalDirectory = directory;
+  }
+
   public boolean isVerbose() {
     return verbose;
   }
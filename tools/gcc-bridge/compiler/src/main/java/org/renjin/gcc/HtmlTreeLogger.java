@@ -36,19 +36,19 @@ public class HtmlTreeLogger extends TreeLogger {
   }
   
   @Override
-  public void log(Level level, String message) {
+  public synchronized void log(Level level, String message) {
     children.add(new HtmlTreeLogger(Level.DEBUG, message)); 
   }
 
   @Override
-  public TreeLogger branch(Level level, String message) {
+  public synchronized TreeLogger branch(Level level, String message) {
     HtmlTreeLogger child = new HtmlTreeLogger(level, message);
     children.add(child);
     return child;
   }
 
   @Override
-  public TreeLogger debug(String message, Object code) {
+  public synchronized TreeLogger debug(String message, Object code) {
     HtmlTreeLogger child = new HtmlTreeLogger(Level.DEBUG, message);
     child.code = code;
     children.add(child);
@@ -0,0 +1,87 @@
+package org.renjin.gcc;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.renjin.gcc.gimple.GimpleCompilationUnit;
+import org.renjin.gcc.gimple.GimpleFunction;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Stores the classes generated for compilation units between builds, so that a unit whose
+ * Gimple has not changed does not need to be compiled again.
+ *
+ * <p>A class is stored under a hash of the unit's Gimple JSON together with a hash of the
+ * state shared by all compilation units, such as the record types and the signatures of
+ * global functions. A change to any of these invalidates the stored class.</p>
+ */
+class UnitClassCache {
+
+  private final File directory;
+  private final HashCode sharedState;
+
+  private int hits = 0;
+  private int misses = 0;
+
+  UnitClassCache(File directory, HashCode sharedState) {
+    this.directory = directory;
+    this.sharedState = sharedState;
+  }
+
+  /**
+   * @return the hash under which the class for {@code unit} is stored, or {@code null} if
+   * the unit was not read from a file and cannot be cached.
+   */
+  HashCode key(GimpleCompilationUnit unit, String className) throws IOException {
+    if(unit.getSourceFile() == null || !unit.getSourceFile().exists()) {
+      return null;
+    }
+    Hasher hasher = Hashing.sha1().newHasher();
+    hasher.putBytes(sharedState.asBytes());
+    hasher.putString(className, Charsets.UTF_8);
+    hasher.putBytes(Files.toByteArray(unit.getSourceFile()));
+
+    // The functions that remain after pruning depend on the other units
+    for (GimpleFunction function : unit.getFunctions()) {
+      hasher.putString(function.getMangledName(), Charsets.UTF_8);
+    }
+    return hasher.hash();
+  }
+
+  /**
+   * @return the stored class, or {@code null} if there is none
+   */
+  synchronized byte[] get(HashCode key) throws IOException {
+    File file = classFile(key);
+    if(file.exists()) {
+      hits++;
+      return Files.toByteArray(file);
+    }
+    misses++;
+    return null;
+  }
+
+  void put(HashCode key, byte[] classBytes) throws IOException {
+    File tempFile = File.createTempFile(key.toString(), ".tmp", directory);
+    Files.write(classBytes, tempFile);
+    if(!tempFile.renameTo(classFile(key))) {
+      tempFile.delete();
+    }
+  }
+
+  private File classFile(HashCode key) {
+    return new File(directory, key + ".class");
+  }
+
+  int getHits() {
+    return hits;
+  }
+
+  int getMisses() {
+    return misses;
+  }
+}
@@ -0,0 +1,208 @@
+package org.renjin.gcc.analysis;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.renjin.gcc.TreeLogger;
+import org.renjin.gcc.gimple.*;
+import org.renjin.gcc.gimple.expr.*;
+import org.renjin.gcc.gimple.statement.GimpleAssignment;
+import org.renjin.gcc.gimple.statement.GimpleStatement;
+import org.renjin.gcc.gimple.type.GimpleComplexType;
+import org.renjin.gcc.gimple.type.GimplePointerType;
+import org.renjin.gcc.gimple.type.GimplePrimitiveType;
+import org.renjin.gcc.gimple.type.GimpleType;
+
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes uses of the address of local variables that do not let the address escape the function.
+ *
+ * <p>A local variable whose address is taken is marked by the {@link AddressableFinder} and stored
+ * in a unit-length array, so that its value can be read and written through the pointer. If the
+ * address never leaves the function, however, every access through the pointer is an access to the
+ * variable itself. For example:</p>
+ *
+ * <pre>
+ *   double x;
+ *   double *p = &amp;x;
+ *   *p = 42;
+ *   return x + *p;
+ * </pre>
+ *
+ * <p>is rewritten to {@code x = 42; return x + x;}, after which {@code x} is no longer addressable and
+ * can be stored in a JVM local. This applies equally to pointer variables, which are then stored as
+ * an array and offset pair rather than as a unit-length array of pointer objects.</p>
+ *
+ * <p>The address of a variable {@code x} is considered not to escape if it is only dereferenced
+ * directly, as in {@code *(&x)}, or if it is assigned to a local pointer {@code p} which is assigned
+ * nothing else, and which is only ever dereferenced with the same type as {@code x}. Addresses that
+ * are passed to functions, stored in memory, compared, or offset are left untouched.</p>
+ */
+public class EscapeAnalyzer implements FunctionBodyTransformer {
+
+  public static final EscapeAnalyzer INSTANCE = new EscapeAnalyzer();
+
+  @Override
+  public boolean transform(TreeLogger logger, GimpleCompilationUnit unit, GimpleFunction fn) {
+
+    Map<Integer, GimpleVarDecl> locals = Maps.newHashMap();
+    for (GimpleVarDecl decl : fn.getVariableDeclarations()) {
+      locals.put(decl.getId(), decl);
+    }
+
+    // Find the local pointers that are only assigned the address of a local variable
+    Map<Integer, GimpleVarDecl> pointerTargets = Maps.newHashMap();
+    Set<Integer> excluded = Sets.newHashSet();
+    for (GimpleBasicBlock basicBlock : fn.getBasicBlocks()) {
+      for (GimpleStatement statement : basicBlock.getStatements()) {
+        GimpleVarDecl pointer = assignedPointer(statement, locals);
+        if(pointer != null) {
+          GimpleVarDecl target = addressedVariable(((GimpleAssignment) statement).getOperands().get(0), locals);
+          if(target == null || target == pointer ||
+              pointerTargets.containsKey(pointer.getId()) ||
+              !pointer.getType().equals(new GimplePointerType(target.getType()))) {
+            excluded.add(pointer.getId());
+          } else {
+            pointerTargets.put(pointer.getId(), target);
+          }
+        }
+      }
+    }
+    pointerTargets.keySet().removeAll(excluded);
+
+    // Now find all the dereferences that can be replaced, and exclude pointers that are used
+    // in any other way.
+    UseFinder useFinder = new UseFinder(locals, pointerTargets);
+    for (GimpleBasicBlock basicBlock : fn.getBasicBlocks()) {
+      for (GimpleStatement statement : basicBlock.getStatements()) {
+        if(assignedPointer(statement, locals) != null) {
+          for (GimpleExpr operand : statement.getOperands()) {
+            operand.accept(useFinder);
+          }
+        } else {
+          statement.accept(useFinder);
+        }
+      }
+    }
+    pointerTargets.keySet().removeAll(useFinder.escaped);
+
+    boolean updated = false;
+
+    // Remove the assignments to the pointers we are replacing
+    for (GimpleBasicBlock basicBlock : fn.getBasicBlocks()) {
+      ListIterator<GimpleStatement> it = basicBlock.getStatements().listIterator();
+      while(it.hasNext()) {
+        GimpleVarDecl pointer = assignedPointer(it.next(), locals);
+        if(pointer != null && pointerTargets.containsKey(pointer.getId())) {
+          logger.debug("Replacing pointer " + pointer + " to " + pointerTargets.get(pointer.getId()));
+          it.remove();
+          updated = true;
+        }
+      }
+    }
+
+    // And replace the dereferences with the variables themselves
+    for (final Map.Entry<GimpleMemRef, GimpleVarDecl> deref : useFinder.derefs.entrySet()) {
+      GimpleExpr pointer = deref.getKey().getPointer();
+      if(pointer instanceof GimpleAddressOf ||
+          pointerTargets.containsKey(((GimpleVariableRef) pointer).getId())) {
+
+        GimpleVarDecl target = deref.getValue();
+        fn.replaceAll(new Predicate<GimpleExpr>() {
+          @Override
+          public boolean apply(GimpleExpr input) {
+            return input == deref.getKey();
+          }
+        }, new GimpleVariableRef(target.getId(), target.getType()));
+        updated = true;
+      }
+    }
+
+    return updated;
+  }
+
+  /**
+   * @return the local pointer variable assigned by {@code statement}, or {@code null} if the
+   * statement is not an assignment to a local pointer variable.
+   */
+  private static GimpleVarDecl assignedPointer(GimpleStatement statement, Map<Integer, GimpleVarDecl> locals) {
+    if(statement instanceof GimpleAssignment) {
+      GimpleLValue lhs = ((GimpleAssignment) statement).getLHS();
+      if(lhs instanceof GimpleVariableRef) {
+        GimpleVarDecl decl = locals.get(((GimpleVariableRef) lhs).getId());
+        if(decl != null && decl.getType() instanceof GimplePointerType && decl.getValue() == null) {
+          return decl;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the local scalar variable whose address is {@code expr}, or {@code null} if
+   * {@code expr} is anything else.
+   */
+  private static GimpleVarDecl addressedVariable(GimpleExpr expr, Map<Integer, GimpleVarDecl> locals) {
+    if(expr instanceof GimpleAddressOf) {
+      GimpleExpr value = ((GimpleAddressOf) expr).getValue();
+      if(value instanceof GimpleVariableRef) {
+        GimpleVarDecl decl = locals.get(((GimpleVariableRef) value).getId());
+        if(decl != null && isScalar(decl.getType())) {
+          return decl;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static boolean isScalar(GimpleType type) {
+    return type instanceof GimplePrimitiveType ||
+        type instanceof GimpleComplexType ||
+        type instanceof GimplePointerType;
+  }
+
+  private static class UseFinder extends GimpleExprVisitor {
+
+    private final Map<Integer, GimpleVarDecl> locals;
+    private final Map<Integer, GimpleVarDecl> pointerTargets;
+
+    /**
+     * Dereferences that can be replaced by the variable they point to
+     */
+    private final Map<GimpleMemRef, GimpleVarDecl> derefs = Maps.newIdentityHashMap();
+
+    /**
+     * Pointers that are used other than by dereferencing
+     */
+    private final Set<Integer> escaped = Sets.newHashSet();
+
+    private UseFinder(Map<Integer, GimpleVarDecl> locals, Map<Integer, GimpleVarDecl> pointerTargets) {
+      this.locals = locals;
+      this.pointerTargets = pointerTargets;
+    }
+
+    @Override
+    public void visitMemRef(GimpleMemRef memRef) {
+      GimpleVarDecl target;
+      GimpleExpr pointer = memRef.getPointer();
+      if(pointer instanceof GimpleVariableRef) {
+        target = pointerTargets.get(((GimpleVariableRef) pointer).getId());
+      } else {
+        target = addressedVariable(pointer, locals);
+      }
+      if(target != null && memRef.isOffsetZero() && target.getType().equals(memRef.getType())) {
+        derefs.put(memRef, target);
+      } else {
+        super.visitMemRef(memRef);
+      }
+    }
+
+    @Override
+    public void visitVariableRef(GimpleVariableRef variableRef) {
+      escaped.add(variableRef.getId());
+    }
+  }
+}
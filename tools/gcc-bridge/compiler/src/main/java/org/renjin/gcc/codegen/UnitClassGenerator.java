@@ -113,6 +113,10 @@ public class UnitClassGenerator {
     return className;
   }
 
+  public GimpleCompilationUnit getUnit() {
+    return unit;
+  }
+
   public void emit(TreeLogger parentLogger) {
     
     TreeLogger logger = parentLogger.branch("Generating code for " + unit.getSourceName());
@@ -6,7 +6,9 @@ import org.renjin.gcc.InternalCompilerException;
 import org.renjin.repackaged.asm.Handle;
 import org.renjin.repackaged.asm.Type;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Properties;
@@ -17,9 +19,13 @@ import java.util.Properties;
  * <p>The LinkSymbol class provides an analogy for the linking stage of a native
  * build process.</p>
  * 
- * <p>When Gimple sources are compiled, we write a property file for each exported symbol
- * to {@code META-INF/org.renjin.gcc.symbols/SYMBOL_NAME} that points to the class in which
- * the function is implemented.</p>
+ * <p>When Gimple sources are compiled, we write all exported symbols to a {@link LinkSymbolIndex}
+ * that points to the classes in which the functions are implemented.</p>
+ *
+ * <p>Older builds wrote a property file for each exported symbol to
+ * {@code META-INF/org.renjin.gcc.symbols/SYMBOL_NAME}; these are no longer written, but are
+ * still read if a symbol is not found in any index, so that libraries built before the index
+ * was introduced can still be linked against.</p>
  * 
  */
 public class LinkSymbol {
@@ -56,6 +62,14 @@ public class LinkSymbol {
   private LinkSymbol() {
   }
 
+  LinkSymbol(String name, SymbolType type, String className, String memberName, String descriptor) {
+    this.name = name;
+    this.type = type;
+    this.className = className;
+    this.memberName = memberName;
+    this.descriptor = descriptor;
+  }
+
   public static LinkSymbol forFunction(String name, Handle methodHandle) {
     LinkSymbol symbol = new LinkSymbol();
     symbol.type = SymbolType.METHOD;
@@ -82,6 +96,10 @@ public class LinkSymbol {
     return memberName;
   }
 
+  public String getDescriptor() {
+    return descriptor;
+  }
+
 
   
   public Method loadMethod() {
@@ -132,40 +150,6 @@ public class LinkSymbol {
   }
   
 
-  /**
-   * Writes this symbol out to an output.
-   * 
-   * <p>By convention, the path of the symbol will be 
-   * {@code $outputDir/META-INF/org.renjin.gcc.symbols/$name}</p>
-   * 
-   * @param outputDir the root of a class output 
-   */
-  public void write(File outputDir) throws IOException {
-    File metaInfDir = new File(outputDir, "META-INF");
-    File symbolsDir = new File(metaInfDir, "org.renjin.gcc.symbols");
-    File symbolFile = new File(symbolsDir, name);
-    
-    if(!symbolsDir.exists()) {
-      boolean created = symbolsDir.mkdirs();
-      if(!created) {
-        throw new IOException("Failed to create directory " + symbolsDir.getAbsolutePath());
-      }
-    }
-
-    Properties properties = new Properties();
-    properties.setProperty("type", type.name());
-    properties.setProperty("class", className);
-    
-    if(type == SymbolType.FIELD || type == SymbolType.METHOD) {
-      properties.setProperty("member", memberName);
-      properties.setProperty("descriptor", descriptor);
-    }
-    
-    try(Writer out = new OutputStreamWriter(new FileOutputStream(symbolFile), Charsets.UTF_8)) {
-      properties.store(out, name);      
-    }
-  }
-  
   public static LinkSymbol fromDescriptor(String symbolName, Properties properties) {
 
     LinkSymbol symbol = new LinkSymbol();
@@ -185,6 +169,10 @@ public class LinkSymbol {
    * Looks up a LinkSymbol from the classpath.
    */
   public static Optional<LinkSymbol> lookup(ClassLoader classLoader, String name) throws IOException {
+    LinkSymbol indexed = LinkSymbolIndex.forClassLoader(classLoader).get(name);
+    if(indexed != null) {
+      return Optional.of(indexed);
+    }
     InputStream in = classLoader.getResourceAsStream("META-INF/org.renjin.gcc.symbols/" + name);
     if(in == null) {
       return Optional.absent();
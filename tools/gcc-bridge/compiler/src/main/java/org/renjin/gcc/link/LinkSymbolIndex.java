@@ -0,0 +1,175 @@
+package org.renjin.gcc.link;
+
+import com.google.common.collect.Maps;
+
+import java.io.*;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * A table of all the {@link LinkSymbol}s exported by a single jar or class output directory.
+ *
+ * <p>The index is written to {@code META-INF/org.renjin.gcc.symbols.index} when Gimple sources are compiled,
+ * and read once per class loader, so that resolving a symbol does not require a resource lookup.
+ * It is a binary file with the following layout:</p>
+ *
+ * <pre>
+ *   int      magic
+ *   int      version
+ *   int      string count
+ *   utf[]    strings: the class names, member names and descriptors of all symbols
+ *   int      symbol count
+ *   symbol[] symbols, sorted by name:
+ *     utf      name
+ *     byte     type (ordinal of {@link LinkSymbol.SymbolType})
+ *     int      offset of the class name in the string table
+ *     int      offset of the member name in the string table, or -1
+ *     int      offset of the descriptor in the string table, or -1
+ * </pre>
+ */
+public class LinkSymbolIndex {
+
+  public static final String RESOURCE_NAME = "META-INF/org.renjin.gcc.symbols.index";
+
+  private static final int MAGIC = 0x52474353;
+  private static final int VERSION = 1;
+
+  /**
+   * The merged indexes visible to each class loader. These are read on first use and never refreshed.
+   */
+  private static final Map<ClassLoader, Map<String, LinkSymbol>> LOADED = new WeakHashMap<>();
+
+  private LinkSymbolIndex() {
+  }
+
+  /**
+   * Adds symbols to the index in {@code outputDir}, replacing any existing symbols with the same names.
+   *
+   * @param outputDir the root of a class output
+   */
+  public static void write(File outputDir, Collection<LinkSymbol> symbols) throws IOException {
+    File indexFile = new File(outputDir, RESOURCE_NAME);
+
+    Map<String, LinkSymbol> sorted = Maps.newTreeMap();
+    if(indexFile.exists()) {
+      try(InputStream in = new FileInputStream(indexFile)) {
+        sorted.putAll(read(in));
+      }
+    }
+    for (LinkSymbol symbol : symbols) {
+      sorted.put(symbol.getName(), symbol);
+    }
+
+    File metaInfDir = indexFile.getParentFile();
+    if(!metaInfDir.exists() && !metaInfDir.mkdirs()) {
+      throw new IOException("Failed to create directory " + metaInfDir.getAbsolutePath());
+    }
+
+    List<String> strings = new ArrayList<>();
+    Map<String, Integer> stringOffsets = new HashMap<>();
+    for (LinkSymbol symbol : sorted.values()) {
+      addString(strings, stringOffsets, symbol.getClassName());
+      addString(strings, stringOffsets, symbol.getMemberName());
+      addString(strings, stringOffsets, symbol.getDescriptor());
+    }
+
+    try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(strings.size());
+      for (String string : strings) {
+        out.writeUTF(string);
+      }
+      out.writeInt(sorted.size());
+      for (LinkSymbol symbol : sorted.values()) {
+        out.writeUTF(symbol.getName());
+        out.writeByte(symbol.getType().ordinal());
+        out.writeInt(stringOffset(stringOffsets, symbol.getClassName()));
+        out.writeInt(stringOffset(stringOffsets, symbol.getMemberName()));
+        out.writeInt(stringOffset(stringOffsets, symbol.getDescriptor()));
+      }
+    }
+  }
+
+  private static void addString(List<String> strings, Map<String, Integer> offsets, String string) {
+    if(string != null && !offsets.containsKey(string)) {
+      offsets.put(string, strings.size());
+      strings.add(string);
+    }
+  }
+
+  private static int stringOffset(Map<String, Integer> offsets, String string) {
+    if(string == null) {
+      return -1;
+    }
+    return offsets.get(string);
+  }
+
+  /**
+   * Reads the symbols from an index.
+   */
+  public static Map<String, LinkSymbol> read(InputStream inputStream) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+    if(in.readInt() != MAGIC) {
+      throw new IOException("Not a symbol index");
+    }
+    int version = in.readInt();
+    if(version != VERSION) {
+      throw new IOException("Unsupported symbol index version " + version);
+    }
+    String[] strings = new String[in.readInt()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = in.readUTF();
+    }
+    LinkSymbol.SymbolType[] types = LinkSymbol.SymbolType.values();
+    int symbolCount = in.readInt();
+    Map<String, LinkSymbol> symbols = Maps.newHashMapWithExpectedSize(symbolCount);
+    for (int i = 0; i < symbolCount; i++) {
+      String name = in.readUTF();
+      LinkSymbol.SymbolType type = types[in.readByte()];
+      String className = string(strings, in.readInt());
+      String memberName = string(strings, in.readInt());
+      String descriptor = string(strings, in.readInt());
+      symbols.put(name, new LinkSymbol(name, type, className, memberName, descriptor));
+    }
+    return symbols;
+  }
+
+  private static String string(String[] strings, int offset) {
+    if(offset == -1) {
+      return null;
+    }
+    return strings[offset];
+  }
+
+  /**
+   * @return the symbols exported by all jars and directories visible to {@code classLoader}. If a symbol is
+   * exported more than once, the first one found on the classpath is returned.
+   *
+   * <p>The indexes are read the first time a class loader is passed, and the result is kept for as long as
+   * the class loader is reachable. Indexes that become visible to the class loader later, or symbols added
+   * to an index after it was read, are not seen: {@link LinkSymbol#lookup(ClassLoader, String)} will then
+   * only find them through the per-symbol files written by older builds. To link against newly compiled
+   * code, use a new class loader.</p>
+   */
+  public static Map<String, LinkSymbol> forClassLoader(ClassLoader classLoader) throws IOException {
+    synchronized (LOADED) {
+      Map<String, LinkSymbol> symbols = LOADED.get(classLoader);
+      if(symbols == null) {
+        symbols = new HashMap<>();
+        Enumeration<URL> indexes = classLoader.getResources(RESOURCE_NAME);
+        while(indexes.hasMoreElements()) {
+          try(InputStream in = indexes.nextElement().openStream()) {
+            for (Map.Entry<String, LinkSymbol> entry : read(in).entrySet()) {
+              if(!symbols.containsKey(entry.getKey())) {
+                symbols.put(entry.getKey(), entry.getValue());
+              }
+            }
+          }
+        }
+        LOADED.put(classLoader, symbols);
+      }
+      return symbols;
+    }
+  }
+}
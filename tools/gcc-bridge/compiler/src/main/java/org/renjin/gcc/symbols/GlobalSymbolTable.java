@@ -52,7 +52,7 @@ public class GlobalSymbolTable implements SymbolTable {
   }
 
   @Override
-  public CallGenerator findCallGenerator(GimpleFunctionRef ref) {
+  public synchronized CallGenerator findCallGenerator(GimpleFunctionRef ref) {
     String mangledName = ref.getName();
    
     CallGenerator generator = functions.get(mangledName);
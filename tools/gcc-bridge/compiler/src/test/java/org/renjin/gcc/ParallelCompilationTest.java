@@ -0,0 +1,77 @@
+package org.renjin.gcc;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import org.junit.Test;
+import org.renjin.gcc.gimple.GimpleCompilationUnit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks that generating classes on several threads, and reusing classes from an incremental
+ * build, produces exactly the same output as a single-threaded build.
+ */
+public class ParallelCompilationTest extends AbstractGccTest {
+
+  private static final List<String> SOURCES = Arrays.asList("dqrdc2.f", "ddot.f", "daxpy.f", "dscal.f", "dnrm2.f");
+
+  @Test
+  public void parallelAndIncrementalBuildsMatchSingleThreadedBuild() throws Exception {
+    File workDir = Files.createTempDir();
+    File cacheDir = new File(workDir, "cache");
+
+    Map<String, byte[]> expected = build(new File(workDir, "single"), 1, null);
+
+    // The first incremental build fills the cache, the second reads every unit from it
+    Map<String, byte[]> parallel = build(new File(workDir, "parallel"), 4, cacheDir);
+    assertThat(cacheDir.list().length, equalTo(SOURCES.size()));
+    Map<String, byte[]> cached = build(new File(workDir, "cached"), 4, cacheDir);
+
+    assertSameClasses(parallel, expected);
+    assertSameClasses(cached, expected);
+  }
+
+  private Map<String, byte[]> build(File outputDir, int threadCount, File incrementalDir) throws Exception {
+
+    // Compilation modifies the units, so each build needs a fresh copy
+    List<GimpleCompilationUnit> units = compileToGimple(SOURCES);
+
+    GimpleCompiler compiler = new GimpleCompiler();
+    compiler.setOutputDirectory(outputDir);
+    compiler.setRecordClassPrefix(units.get(0).getName());
+    compiler.setPackageName(PACKAGE_NAME);
+    compiler.setThreadCount(threadCount);
+    compiler.setIncrementalDirectory(incrementalDir);
+    compiler.compile(units);
+
+    Map<String, byte[]> files = Maps.newTreeMap();
+    readFiles(outputDir, "", files);
+    return files;
+  }
+
+  private void readFiles(File dir, String prefix, Map<String, byte[]> files) throws IOException {
+    for (File file : dir.listFiles()) {
+      if(file.isDirectory()) {
+        readFiles(file, prefix + file.getName() + "/", files);
+      } else {
+        files.put(prefix + file.getName(), Files.toByteArray(file));
+      }
+    }
+  }
+
+  private void assertSameClasses(Map<String, byte[]> actual, Map<String, byte[]> expected) {
+    assertThat(Lists.newArrayList(actual.keySet()), equalTo(Lists.newArrayList(expected.keySet())));
+    for (String name : expected.keySet()) {
+      assertArrayEquals(name, expected.get(name), actual.get(name));
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package org.renjin.gcc.analysis;
+
+import org.junit.Test;
+import org.renjin.gcc.NullTreeLogger;
+import org.renjin.gcc.gimple.GimpleBasicBlock;
+import org.renjin.gcc.gimple.GimpleFunction;
+import org.renjin.gcc.gimple.GimpleOp;
+import org.renjin.gcc.gimple.GimpleVarDecl;
+import org.renjin.gcc.gimple.expr.*;
+import org.renjin.gcc.gimple.statement.GimpleAssignment;
+import org.renjin.gcc.gimple.statement.GimpleReturn;
+import org.renjin.gcc.gimple.type.GimpleRealType;
+import org.renjin.gcc.gimple.type.GimpleType;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+
+public class EscapeAnalyzerTest {
+
+  public static final GimpleRealType DOUBLE_TYPE = new GimpleRealType(64);
+
+  @Test
+  public void dereferencedLocalPointer() {
+
+    // double x;
+    // double *p = &x;
+    // *p = 42;
+    // return *p;
+
+    GimpleFunction fn = new GimpleFunction();
+    GimpleVariableRef x = variable(fn, 1, DOUBLE_TYPE);
+    GimpleVariableRef p = variable(fn, 2, DOUBLE_TYPE.pointerTo());
+
+    GimpleReturn returnStatement = new GimpleReturn(new GimpleMemRef(p));
+    fn.setBasicBlocks(new GimpleBasicBlock(
+        new GimpleAssignment(GimpleOp.ADDR_EXPR, p, new GimpleAddressOf(x)),
+        new GimpleAssignment(GimpleOp.REAL_CST, new GimpleMemRef(p), new GimpleRealConstant(DOUBLE_TYPE, 42)),
+        returnStatement));
+
+    assertTrue(EscapeAnalyzer.INSTANCE.transform(new NullTreeLogger(), null, fn));
+
+    GimpleBasicBlock block = fn.getBasicBlocks().get(0);
+    assertThat(block.getStatements(), hasSize(2));
+
+    GimpleAssignment assignment = (GimpleAssignment) block.getStatements().get(0);
+    assertThat(assignment.getLHS(), instanceOf(GimpleVariableRef.class));
+    assertThat(((GimpleVariableRef) assignment.getLHS()).getId(), equalTo(1));
+
+    assertThat(returnStatement.getValue(), instanceOf(GimpleVariableRef.class));
+    assertThat(((GimpleVariableRef) returnStatement.getValue()).getId(), equalTo(1));
+  }
+
+  @Test
+  public void escapingPointer() {
+
+    // double x;
+    // double *p = &x;
+    // double *q = p;
+    // return *p;
+
+    GimpleFunction fn = new GimpleFunction();
+    GimpleVariableRef x = variable(fn, 1, DOUBLE_TYPE);
+    GimpleVariableRef p = variable(fn, 2, DOUBLE_TYPE.pointerTo());
+    GimpleVariableRef q = variable(fn, 3, DOUBLE_TYPE.pointerTo());
+
+    fn.setBasicBlocks(new GimpleBasicBlock(
+        new GimpleAssignment(GimpleOp.ADDR_EXPR, p, new GimpleAddressOf(x)),
+        new GimpleAssignment(GimpleOp.VAR_DECL, q, p),
+        new GimpleReturn(new GimpleMemRef(p))));
+
+    assertFalse(EscapeAnalyzer.INSTANCE.transform(new NullTreeLogger(), null, fn));
+    assertThat(fn.getBasicBlocks().get(0).getStatements(), hasSize(3));
+  }
+
+  private GimpleVariableRef variable(GimpleFunction fn, int id, GimpleType type) {
+    GimpleVarDecl decl = new GimpleVarDecl();
+    decl.setId(id);
+    decl.setType(type);
+    fn.getVariableDeclarations().add(decl);
+    return new GimpleVariableRef(id, type);
+  }
+}
@@ -0,0 +1,51 @@
+package org.renjin.gcc.link;
+
+import com.google.common.base.Optional;
+import com.google.common.io.Files;
+import org.junit.Test;
+import org.renjin.repackaged.asm.Handle;
+import org.renjin.repackaged.asm.Opcodes;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+
+public class LinkSymbolIndexTest {
+
+  @Test
+  public void writeAndLookup() throws Exception {
+    File outputDir = Files.createTempDir();
+
+    LinkSymbolIndex.write(outputDir, Arrays.asList(
+        LinkSymbol.forFunction("dnorm_", new Handle(Opcodes.H_INVOKESTATIC, "org/test/Dist", "dnorm_", "(D)D")),
+        LinkSymbol.forFunction("pnorm_", new Handle(Opcodes.H_INVOKESTATIC, "org/test/Dist", "pnorm_", "(D)D"))));
+
+    // A second compilation into the same directory adds to the index
+    LinkSymbolIndex.write(outputDir, Collections.singletonList(
+        LinkSymbol.forFunction("qnorm_", new Handle(Opcodes.H_INVOKESTATIC, "org/test/Quantiles", "qnorm", "(D)D"))));
+
+    ClassLoader classLoader = new URLClassLoader(new URL[] { outputDir.toURI().toURL() }, null);
+
+    Optional<LinkSymbol> pnorm = LinkSymbol.lookup(classLoader, "pnorm_");
+    assertTrue(pnorm.isPresent());
+    assertThat(pnorm.get().getType(), equalTo(LinkSymbol.SymbolType.METHOD));
+    assertThat(pnorm.get().getClassName(), equalTo("org/test/Dist"));
+    assertThat(pnorm.get().getMemberName(), equalTo("pnorm_"));
+    assertThat(pnorm.get().getDescriptor(), equalTo("(D)D"));
+
+    Optional<LinkSymbol> qnorm = LinkSymbol.lookup(classLoader, "qnorm_");
+    assertTrue(qnorm.isPresent());
+    assertThat(qnorm.get().getClassName(), equalTo("org/test/Quantiles"));
+    assertThat(qnorm.get().getMemberName(), equalTo("qnorm"));
+
+    assertFalse(LinkSymbol.lookup(classLoader, "rnorm_").isPresent());
+  }
+}
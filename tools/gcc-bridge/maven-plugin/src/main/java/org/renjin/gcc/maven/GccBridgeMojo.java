@@ -77,6 +77,12 @@ public class GccBridgeMojo extends AbstractMojo {
   @Parameter
   private List<String> cFlags;
 
+  /**
+   * Number of threads used to generate the classes of the compilation units
+   */
+  @Parameter(property = "gcc.bridge.threads", defaultValue = "1")
+  private int threadCount;
+
 
   public void execute() throws MojoExecutionException {
 
@@ -190,6 +196,7 @@ public class GccBridgeMojo extends AbstractMojo {
     compiler.addMathLibrary();
     compiler.setOutputDirectory(outputDirectory);
     compiler.setLinkClassLoader(getLinkClassLoader());
+    compiler.setThreadCount(threadCount);
     
     ClassLoader classLoader = createClassLoader();
     
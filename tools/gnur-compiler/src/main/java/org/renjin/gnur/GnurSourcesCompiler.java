@@ -28,6 +28,8 @@ public class GnurSourcesCompiler {
   private File outputDirectory = new File("target/classes");
   private List<File> includeDirs = Lists.newArrayList();
   private ClassLoader linkClassLoader = getClass().getClassLoader();
+  private int threadCount = 1;
+  private boolean incremental = false;
   
 
   public void setPackageName(String packageName) {
@@ -72,6 +74,21 @@ public class GnurSourcesCompiler {
     this.linkClassLoader = linkClassLoader;
   }
 
+  /**
+   * Sets the number of threads used to generate the classes of the compilation units.
+   */
+  public void setThreadCount(int threadCount) {
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * If true, the classes generated for each compilation unit are kept in the work directory
+   * and reused by later builds. See {@link GimpleCompiler#setIncrementalDirectory(File)}.
+   */
+  public void setIncremental(boolean incremental) {
+    this.incremental = incremental;
+  }
+
   public void compile() throws Exception {
 
     if(!sources.isEmpty()) {
@@ -119,6 +136,10 @@ public class GnurSourcesCompiler {
       compiler.setPackageName(packageName);
       compiler.setClassName(className);
       compiler.setVerbose(verbose);
+      compiler.setThreadCount(threadCount);
+      if(incremental) {
+        compiler.setIncrementalDirectory(new File(workDirectory, "gcc-bridge-classes"));
+      }
 
       compiler.setLinkClassLoader(linkClassLoader);
       compiler.addMathLibrary();
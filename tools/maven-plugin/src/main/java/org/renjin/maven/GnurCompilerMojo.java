@@ -71,6 +71,19 @@ public class GnurCompilerMojo extends AbstractMojo {
   @Parameter(defaultValue = "${project.build.directory}/include")
   private File unpackedIncludeDir;
 
+  /**
+   * Number of threads used to generate the classes of the compilation units
+   */
+  @Parameter(property = "gcc.bridge.threads", defaultValue = "1")
+  private int threadCount;
+
+  /**
+   * If true, reuse the classes generated for unchanged compilation units by earlier builds.
+   * The stored classes must be cleared by hand after upgrading dependencies or gcc-bridge.
+   */
+  @Parameter(property = "gcc.bridge.incremental", defaultValue = "false")
+  private boolean incremental;
+
   @Override
   public void execute() throws MojoExecutionException, MojoFailureException {
 
@@ -94,6 +107,8 @@ public class GnurCompilerMojo extends AbstractMojo {
     compiler.setOutputDirectory(outputDirectory);
     compiler.setGimpleDirectory(gimpleDirectory);
     compiler.setLinkClassLoader(GccBridgeHelper.getLinkClassLoader(project, getLog()));
+    compiler.setThreadCount(threadCount);
+    compiler.setIncremental(incremental);
     
     // Unpack any headers from dependencies
     GccBridgeHelper.unpackHeaders(getLog(), unpackedIncludeDir, project.getCompileArtifacts());
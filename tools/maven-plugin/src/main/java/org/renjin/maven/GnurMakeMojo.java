@@ -106,6 +106,19 @@ public class GnurMakeMojo extends AbstractMojo {
   
   @Parameter
   private List<String> entryPoints;
+
+  /**
+   * Number of threads used to generate the classes of the compilation units
+   */
+  @Parameter(property = "gcc.bridge.threads", defaultValue = "1")
+  private int threadCount;
+
+  /**
+   * If true, reuse the classes generated for unchanged compilation units by earlier builds.
+   * The stored classes must be cleared by hand after upgrading dependencies or gcc-bridge.
+   */
+  @Parameter(property = "gcc.bridge.incremental", defaultValue = "false")
+  private boolean incremental;
   
 
   @Override
@@ -229,6 +242,10 @@ public class GnurMakeMojo extends AbstractMojo {
     compiler.setOutputDirectory(outputDirectory);
     compiler.setPackageName(project.getGroupId() + "." + project.getArtifactId());
     compiler.setClassName(project.getArtifactId());
+    compiler.setThreadCount(threadCount);
+    if(incremental) {
+      compiler.setIncrementalDirectory(new File(workDirectory, "gcc-bridge-classes"));
+    }
     
     if(entryPoints != null && !entryPoints.isEmpty()) {
       compiler.setEntryPointPredicate(new Predicate<GimpleFunction>() {